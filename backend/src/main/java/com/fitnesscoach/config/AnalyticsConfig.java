@@ -0,0 +1,28 @@
+package com.fitnesscoach.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AnalyticsConfig {
+
+    /**
+     * Bounded pool for CPU-only report rendering, so a large batch cannot take every core.
+     * Zero threads means one per available processor.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService reportExecutor(@Value("${fitnesscoach.analytics.report.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, task -> {
+            Thread thread = new Thread(task, "analytics-report-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
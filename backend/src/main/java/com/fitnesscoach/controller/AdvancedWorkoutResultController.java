@@ -1,22 +1,27 @@
 package com.fitnesscoach.controller;
 
 import com.fitnesscoach.dto.WorkoutResultDTO;
-import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.exception.BadRequestException;
 import com.fitnesscoach.model.AdvancedSetResult;
-import com.fitnesscoach.model.Exercise;
-import com.fitnesscoach.model.ExerciseCategory;
-import com.fitnesscoach.model.WeightUnit;
-import com.fitnesscoach.repository.ExerciseRepository;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
 import com.fitnesscoach.service.AdvancedWorkoutResultService;
+import com.fitnesscoach.service.AdvancedWorkoutResultService.SetKey;
+import com.fitnesscoach.service.LiveWorkoutSessionService;
+import com.fitnesscoach.service.WorkoutResultIngestService;
+import com.fitnesscoach.service.WorkoutResultIngestService.IngestReport;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -27,21 +32,27 @@ import java.util.stream.Collectors;
 public class AdvancedWorkoutResultController {
 
     private final AdvancedWorkoutResultService workoutResultService;
-    private final ExerciseRepository exerciseRepository;
+    private final WorkoutResultMapper mapper;
+    private final WorkoutResultIngestService ingestService;
+    private final LiveWorkoutSessionService liveSessions;
 
     @Autowired
     public AdvancedWorkoutResultController(
             AdvancedWorkoutResultService workoutResultService,
-            ExerciseRepository exerciseRepository) {
+            WorkoutResultMapper mapper,
+            WorkoutResultIngestService ingestService,
+            LiveWorkoutSessionService liveSessions) {
         this.workoutResultService = workoutResultService;
-        this.exerciseRepository = exerciseRepository;
+        this.mapper = mapper;
+        this.ingestService = ingestService;
+        this.liveSessions = liveSessions;
     }
 
     @GetMapping
     public ResponseEntity<List<WorkoutResultDTO>> getAllResults() {
         List<AdvancedWorkoutResult> results = workoutResultService.findAll();
         List<WorkoutResultDTO> dtos = results.stream()
-                .map(this::toDTO)
+                .map(mapper::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -49,7 +60,7 @@ public class AdvancedWorkoutResultController {
     @GetMapping("/{id}")
     public ResponseEntity<WorkoutResultDTO> getResultById(@PathVariable UUID id) {
         return workoutResultService.findById(id)
-                .map(this::toDTO)
+                .map(mapper::toDTO)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -58,7 +69,7 @@ public class AdvancedWorkoutResultController {
     public ResponseEntity<List<WorkoutResultDTO>> getResultsByUser(@PathVariable UUID userId) {
         List<AdvancedWorkoutResult> results = workoutResultService.findByUserId(userId);
         List<WorkoutResultDTO> dtos = results.stream()
-                .map(this::toDTO)
+                .map(mapper::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -70,7 +81,7 @@ public class AdvancedWorkoutResultController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         List<AdvancedWorkoutResult> results = workoutResultService.findByUserIdAndDateRange(userId, startDate, endDate);
         List<WorkoutResultDTO> dtos = results.stream()
-                .map(this::toDTO)
+                .map(mapper::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -79,7 +90,7 @@ public class AdvancedWorkoutResultController {
     public ResponseEntity<List<WorkoutResultDTO>> getResultsByTemplate(@PathVariable UUID templateId) {
         List<AdvancedWorkoutResult> results = workoutResultService.findByTemplate(templateId);
         List<WorkoutResultDTO> dtos = results.stream()
-                .map(this::toDTO)
+                .map(mapper::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -87,24 +98,39 @@ public class AdvancedWorkoutResultController {
     @PostMapping
     public ResponseEntity<WorkoutResultDTO> createResult(@Valid @RequestBody WorkoutResultDTO resultDTO) {
         try {
-            AdvancedWorkoutResult result = fromDTO(resultDTO);
+            AdvancedWorkoutResult result = mapper.fromDTO(resultDTO);
             AdvancedWorkoutResult savedResult = workoutResultService.saveWorkoutResult(result);
-            return ResponseEntity.status(HttpStatus.CREATED).body(toDTO(savedResult));
+            return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toDTO(savedResult));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Import many results at once, as a JSON array or as newline-delimited JSON with one
+     * result per line. Every result gets an outcome by its position in the body; results
+     * that fail do not stop the others.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestReport> bulkImport(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestService.ingest(body, WorkoutResultIngestService.Format.JSON_ARRAY));
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IngestReport> bulkImportNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestService.ingest(body, WorkoutResultIngestService.Format.NDJSON));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<WorkoutResultDTO> updateResult(
             @PathVariable UUID id,
             @Valid @RequestBody WorkoutResultDTO resultDTO) {
         return workoutResultService.findById(id)
                 .map(existing -> {
-                    updateFromDTO(existing, resultDTO);
+                    mapper.updateFromDTO(existing, resultDTO);
                     AdvancedWorkoutResult updated = workoutResultService.saveWorkoutResult(existing);
-                    return ResponseEntity.ok(toDTO(updated));
+                    return ResponseEntity.ok(mapper.toDTO(updated));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -119,6 +145,60 @@ public class AdvancedWorkoutResultController {
         }
     }
 
+    /**
+     * Set-level edits. Each writes only the set it touches and moves the workout's totals
+     * by the set's difference, where PUT rewrites every set. Sets are addressed by id or by
+     * their position: block label (omitted for none), block item order and set number.
+     */
+    @PostMapping("/{id}/sets")
+    public ResponseEntity<WorkoutResultDTO.SetChange> addSet(
+            @PathVariable UUID id,
+            @RequestBody WorkoutResultDTO.SetResultSummary summary) {
+        AdvancedSetResult set = mapper.toSetResult(summary);
+        if (set == null) {
+            throw new BadRequestException("exerciseName is required");
+        }
+        AdvancedSetResult saved = workoutResultService.addSet(id, set);
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toSetChange(saved));
+    }
+
+    @PatchMapping("/{id}/sets/{setId}")
+    public ResponseEntity<WorkoutResultDTO.SetChange> updateSet(
+            @PathVariable UUID id,
+            @PathVariable UUID setId,
+            @RequestBody WorkoutResultDTO.SetResultSummary summary) {
+        AdvancedSetResult updated = workoutResultService.updateSet(id, setId, set -> mapper.patchSetResult(set, summary));
+        return ResponseEntity.ok(mapper.toSetChange(updated));
+    }
+
+    @PatchMapping("/{id}/sets")
+    public ResponseEntity<WorkoutResultDTO.SetChange> updateSetAt(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String blockLabel,
+            @RequestParam int blockItemOrder,
+            @RequestParam int setNumber,
+            @RequestBody WorkoutResultDTO.SetResultSummary summary) {
+        AdvancedSetResult updated = workoutResultService.updateSet(id, new SetKey(blockLabel, blockItemOrder, setNumber),
+                set -> mapper.patchSetResult(set, summary));
+        return ResponseEntity.ok(mapper.toSetChange(updated));
+    }
+
+    @DeleteMapping("/{id}/sets/{setId}")
+    public ResponseEntity<Void> deleteSet(@PathVariable UUID id, @PathVariable UUID setId) {
+        workoutResultService.deleteSet(id, setId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/sets")
+    public ResponseEntity<Void> deleteSetAt(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String blockLabel,
+            @RequestParam int blockItemOrder,
+            @RequestParam int setNumber) {
+        workoutResultService.deleteSet(id, new SetKey(blockLabel, blockItemOrder, setNumber));
+        return ResponseEntity.noContent().build();
+    }
+
     // Start a new workout session
     @PostMapping("/start")
     public ResponseEntity<WorkoutResultDTO> startWorkoutSession(
@@ -126,192 +206,37 @@ public class AdvancedWorkoutResultController {
             @RequestParam UUID userId) {
         try {
             AdvancedWorkoutResult result = workoutResultService.startWorkoutSession(sessionTemplateId, userId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(toDTO(result));
+            return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toDTO(result));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Live logging for a started workout. Set events are acknowledged once buffered and
+     * written in batches; the event stream reports what was written or rejected. Finish
+     * writes what is still buffered and ends the stream.
+     */
+    @GetMapping(value = "/{id}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter liveEvents(@PathVariable UUID id) {
+        return liveSessions.subscribe(id);
+    }
+
+    @PostMapping("/{id}/live/events")
+    public ResponseEntity<LiveWorkoutSessionService.Ack> logLiveSet(
+            @PathVariable UUID id,
+            @RequestBody WorkoutResultDTO.LiveSetEvent event) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(liveSessions.log(id, event));
+    }
+
     // Finish a workout session
     @PostMapping("/{id}/finish")
     public ResponseEntity<WorkoutResultDTO> finishWorkoutSession(@PathVariable UUID id) {
         try {
-            AdvancedWorkoutResult result = workoutResultService.finishWorkoutSession(id);
-            return ResponseEntity.ok(toDTO(result));
+            AdvancedWorkoutResult result = liveSessions.finish(id);
+            return ResponseEntity.ok(mapper.toDTO(result));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
-
-    // DTO mapping methods
-    private WorkoutResultDTO toDTO(AdvancedWorkoutResult result) {
-        WorkoutResultDTO dto = new WorkoutResultDTO();
-        dto.id = result.getId();
-        dto.userId = result.getUserId();
-        dto.sessionTemplateId = result.getTemplate() != null ? result.getTemplate().getId() : null;
-        dto.sessionTitle = result.getTemplate() != null ? result.getTemplate().getTitle() : null;
-        dto.date = result.getDate();
-        dto.week = result.getWeek();
-        dto.programWeek = result.getProgramWeek();
-
-        dto.startTime = result.getStartTime();
-        dto.endTime = result.getEndTime();
-        dto.totalDurationSeconds = result.getTotalDurationSeconds();
-        dto.workTimeSeconds = result.getWorkTimeSeconds();
-        dto.restTimeSeconds = result.getRestTimeSeconds();
-
-        dto.completionStatus = result.getCompletionStatus() != null ? result.getCompletionStatus().name() : null;
-        dto.totalReps = result.getTotalReps();
-        dto.totalVolumeLoad = result.getTotalVolumeLoad();
-        dto.averageRPE = result.getAverageRPE();
-        dto.caloriesBurned = result.getCaloriesBurned();
-
-        dto.totalRounds = result.getTotalRounds();
-        dto.targetRounds = result.getTargetRounds();
-        dto.completedInTimeLimit = result.getCompletedInTimeLimit();
-        dto.wodResult = result.getWodResult();
-        dto.rxCompleted = result.getRxCompleted();
-
-        dto.emomMinutesCompleted = result.getEmomMinutesCompleted();
-        dto.emomMinutesTarget = result.getEmomMinutesTarget();
-        dto.emomFailedMinutes = result.getEmomFailedMinutes();
-
-        dto.tabataRoundsCompleted = result.getTabataRoundsCompleted();
-        dto.tabataRoundsTarget = result.getTabataRoundsTarget();
-        dto.tabataAverageReps = result.getTabataAverageReps();
-
-        dto.circuitRoundsCompleted = result.getCircuitRoundsCompleted();
-        dto.averageCircuitTime = result.getAverageCircuitTime();
-
-        dto.workoutQuality = result.getWorkoutQuality();
-        dto.workoutEnjoyment = result.getWorkoutEnjoyment();
-        dto.difficultyRating = result.getDifficultyRating();
-
-        dto.notes = result.getNotes();
-        dto.achievements = result.getAchievements();
-
-        // Map set results if present
-        if (result.getSetResults() != null) {
-            dto.setResults = result.getSetResults().stream()
-                    .map(setResult -> {
-                        WorkoutResultDTO.SetResultSummary summary = new WorkoutResultDTO.SetResultSummary();
-                        summary.id = setResult.getId() != null ? setResult.getId().toString() : null;
-                        summary.blockLabel = setResult.getBlockLabel();
-                        summary.blockItemOrder = setResult.getBlockItemOrder();
-                        summary.setNumber = setResult.getSetNumber();
-                        summary.exerciseName = setResult.getExercise() != null ? setResult.getExercise().getName() : null;
-                        summary.targetReps = setResult.getTargetReps();
-                        summary.performedReps = setResult.getPerformedReps();
-                        summary.weight = setResult.getWeight();
-                        summary.weightUnit = setResult.getWeightUnit() != null ? setResult.getWeightUnit().name() : null;
-                        summary.rpe = setResult.getRpe() != null ? setResult.getRpe().intValue() : null;
-                        summary.restTakenSec = setResult.getRestTimeSeconds();
-                        return summary;
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        return dto;
-    }
-
-    private AdvancedWorkoutResult fromDTO(WorkoutResultDTO dto) {
-        AdvancedWorkoutResult result = new AdvancedWorkoutResult();
-        updateFromDTO(result, dto);
-        return result;
-    }
-
-    private void updateFromDTO(AdvancedWorkoutResult result, WorkoutResultDTO dto) {
-        if (dto.userId != null) result.setUserId(dto.userId);
-        if (dto.date != null) result.setDate(dto.date);
-        if (dto.week != null) result.setWeek(dto.week);
-        if (dto.programWeek != null) result.setProgramWeek(dto.programWeek);
-
-        if (dto.startTime != null) result.setStartTime(dto.startTime);
-        if (dto.endTime != null) result.setEndTime(dto.endTime);
-        if (dto.totalDurationSeconds != null) result.setTotalDurationSeconds(dto.totalDurationSeconds);
-        if (dto.workTimeSeconds != null) result.setWorkTimeSeconds(dto.workTimeSeconds);
-        if (dto.restTimeSeconds != null) result.setRestTimeSeconds(dto.restTimeSeconds);
-
-        if (dto.completionStatus != null) {
-            result.setCompletionStatus(AdvancedWorkoutResult.SessionCompletionStatus.valueOf(dto.completionStatus));
-        }
-        if (dto.totalReps != null) result.setTotalReps(dto.totalReps);
-        if (dto.totalVolumeLoad != null) result.setTotalVolumeLoad(dto.totalVolumeLoad);
-        if (dto.averageRPE != null) result.setAverageRPE(dto.averageRPE);
-        if (dto.caloriesBurned != null) result.setCaloriesBurned(dto.caloriesBurned);
-
-        if (dto.totalRounds != null) result.setTotalRounds(dto.totalRounds);
-        if (dto.targetRounds != null) result.setTargetRounds(dto.targetRounds);
-        if (dto.completedInTimeLimit != null) result.setCompletedInTimeLimit(dto.completedInTimeLimit);
-        if (dto.wodResult != null) result.setWodResult(dto.wodResult);
-        if (dto.rxCompleted != null) result.setRxCompleted(dto.rxCompleted);
-
-        if (dto.emomMinutesCompleted != null) result.setEmomMinutesCompleted(dto.emomMinutesCompleted);
-        if (dto.emomMinutesTarget != null) result.setEmomMinutesTarget(dto.emomMinutesTarget);
-        if (dto.emomFailedMinutes != null) result.setEmomFailedMinutes(dto.emomFailedMinutes);
-
-        if (dto.tabataRoundsCompleted != null) result.setTabataRoundsCompleted(dto.tabataRoundsCompleted);
-        if (dto.tabataRoundsTarget != null) result.setTabataRoundsTarget(dto.tabataRoundsTarget);
-        if (dto.tabataAverageReps != null) result.setTabataAverageReps(dto.tabataAverageReps);
-
-        if (dto.circuitRoundsCompleted != null) result.setCircuitRoundsCompleted(dto.circuitRoundsCompleted);
-        if (dto.averageCircuitTime != null) result.setAverageCircuitTime(dto.averageCircuitTime);
-
-        if (dto.workoutQuality != null) result.setWorkoutQuality(dto.workoutQuality);
-        if (dto.workoutEnjoyment != null) result.setWorkoutEnjoyment(dto.workoutEnjoyment);
-        if (dto.difficultyRating != null) result.setDifficultyRating(dto.difficultyRating);
-
-        if (dto.notes != null) result.setNotes(dto.notes);
-        if (dto.achievements != null) result.setAchievements(dto.achievements);
-
-        // Handle set results - create new AdvancedSetResult entities
-        if (dto.setResults != null && !dto.setResults.isEmpty()) {
-            // Clear existing set results and add new ones to avoid cascade issues
-            if (result.getSetResults() == null) {
-                result.setSetResults(new ArrayList<>());
-            } else {
-                result.getSetResults().clear();
-            }
-
-            for (WorkoutResultDTO.SetResultSummary summary : dto.setResults) {
-                // Look up exercise by name
-                Exercise exercise = null;
-                if (summary.exerciseName != null) {
-                    exercise = exerciseRepository.findByNameContainingIgnoreCase(summary.exerciseName).stream()
-                            .findFirst()
-                            .orElseGet(() -> {
-                                // Create a simple exercise if not found
-                                Exercise newEx = new Exercise();
-                                newEx.setName(summary.exerciseName);
-                                newEx.setCategory(ExerciseCategory.STRENGTH);
-                                newEx.setPrimaryMuscle("General");
-                                return exerciseRepository.save(newEx);
-                            });
-                }
-
-                // Skip if we couldn't get or create an exercise
-                if (exercise == null) continue;
-
-                AdvancedSetResult setResult = new AdvancedSetResult();
-                setResult.setWorkoutResult(result);
-                setResult.setExercise(exercise);
-                setResult.setBlockLabel(summary.blockLabel);
-                setResult.setBlockItemOrder(summary.blockItemOrder != null ? summary.blockItemOrder : 0);
-                setResult.setSetNumber(summary.setNumber != null ? summary.setNumber : 0);
-                setResult.setPerformedReps(summary.performedReps);
-                setResult.setTargetReps(summary.targetReps);
-                setResult.setWeight(summary.weight);
-                if (summary.weightUnit != null) {
-                    setResult.setWeightUnit(WeightUnit.valueOf(summary.weightUnit));
-                }
-                if (summary.rpe != null) {
-                    setResult.setRpe(summary.rpe.doubleValue());
-                }
-                setResult.setRestTimeSeconds(summary.restTakenSec);
-                setResult.setResultType(AdvancedSetResult.ResultType.STRAIGHT_SET);
-
-                result.getSetResults().add(setResult);
-            }
-        }
-    }
 }
@@ -0,0 +1,288 @@
+package com.fitnesscoach.controller;
+
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.model.AnalyticsSnapshot;
+import com.fitnesscoach.model.ExerciseBlock;
+import com.fitnesscoach.model.MetricSketch;
+import com.fitnesscoach.model.VolumeRollup;
+import com.fitnesscoach.service.AdvancedAnalyticsService;
+import com.fitnesscoach.service.AdvancedAnalyticsService.AggregateAnalytics;
+import com.fitnesscoach.service.AdvancedAnalyticsService.DistributionAnalytics;
+import com.fitnesscoach.service.AdvancedAnalyticsService.TrainingLoadAnalytics;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WellnessCorrelationAnalytics;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import com.fitnesscoach.service.AnalyticsCache;
+import com.fitnesscoach.service.AnalyticsRecomputeQueue;
+import com.fitnesscoach.service.AnalyticsRollupService;
+import com.fitnesscoach.service.AnalyticsSnapshotService;
+import com.fitnesscoach.service.AnalyticsStoreService;
+import com.fitnesscoach.service.FactQuery;
+import com.fitnesscoach.service.MetricSketchService;
+import com.fitnesscoach.service.PersonalRecordService;
+import com.fitnesscoach.service.SquadAnalyticsService;
+import com.fitnesscoach.service.SquadAnalyticsService.SquadAnalytics;
+import com.fitnesscoach.service.VolumeRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private static final int MAX_REPORT_USERS = 500;
+    private static final int MAX_SQUAD_USERS = 5000;
+
+    private final AdvancedAnalyticsService analyticsService;
+    private final AnalyticsRollupService rollupService;
+    private final AnalyticsCache analyticsCache;
+    private final PersonalRecordService personalRecordService;
+    private final VolumeRollupService volumeRollupService;
+    private final MetricSketchService metricSketchService;
+    private final AnalyticsRecomputeQueue recomputeQueue;
+    private final AnalyticsSnapshotService snapshotService;
+    private final SquadAnalyticsService squadAnalyticsService;
+    private final AnalyticsStoreService analyticsStore;
+
+    @Autowired
+    public AnalyticsController(
+            AdvancedAnalyticsService analyticsService,
+            AnalyticsRollupService rollupService,
+            AnalyticsCache analyticsCache,
+            PersonalRecordService personalRecordService,
+            VolumeRollupService volumeRollupService,
+            MetricSketchService metricSketchService,
+            AnalyticsRecomputeQueue recomputeQueue,
+            AnalyticsSnapshotService snapshotService,
+            SquadAnalyticsService squadAnalyticsService,
+            AnalyticsStoreService analyticsStore) {
+        this.analyticsService = analyticsService;
+        this.rollupService = rollupService;
+        this.analyticsCache = analyticsCache;
+        this.personalRecordService = personalRecordService;
+        this.volumeRollupService = volumeRollupService;
+        this.metricSketchService = metricSketchService;
+        this.recomputeQueue = recomputeQueue;
+        this.snapshotService = snapshotService;
+        this.squadAnalyticsService = squadAnalyticsService;
+        this.analyticsStore = analyticsStore;
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<WorkoutAnalytics> getAnalytics(
+            @PathVariable UUID userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer maxPoints) {
+        validateRange(startDate, endDate);
+        if (maxPoints != null && maxPoints < 3) {
+            throw new BadRequestException("maxPoints must be at least 3");
+        }
+        int limit = maxPoints != null ? maxPoints : 0;
+        AnalyticsCache.Key key = new AnalyticsCache.Key(userId, startDate, endDate, null, limit);
+        WorkoutAnalytics analytics = analyticsCache.get(key,
+                () -> analyticsService.generateAnalytics(userId, startDate, endDate, limit));
+        return ResponseEntity.ok(analytics);
+    }
+
+    /**
+     * Dashboard analytics for the last 30 days or all time, served from the stored
+     * snapshot while the user's data has not changed
+     */
+    @GetMapping("/user/{userId}/snapshot")
+    public ResponseEntity<WorkoutAnalytics> getSnapshot(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "LAST_30_DAYS") AnalyticsSnapshot.Period period) {
+        return ResponseEntity.ok(snapshotService.getSnapshot(userId, period, LocalDate.now()));
+    }
+
+    @GetMapping(value = "/user/{userId}/report/{blockType}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getWorkoutTypeReport(
+            @PathVariable UUID userId,
+            @PathVariable ExerciseBlock.BlockType blockType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        AnalyticsCache.Key key = new AnalyticsCache.Key(userId, startDate, endDate, blockType);
+        String report = analyticsCache.get(key,
+                () -> analyticsService.generateWorkoutTypeReport(userId, blockType, startDate, endDate));
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Reports for several athletes and workout types at once, e.g. a coach's squad.
+     * Without block types every type is reported.
+     */
+    @GetMapping("/reports")
+    public ResponseEntity<Map<UUID, Map<ExerciseBlock.BlockType, String>>> getWorkoutTypeReports(
+            @RequestParam List<UUID> userIds,
+            @RequestParam(required = false) List<ExerciseBlock.BlockType> blockTypes,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        if (userIds.isEmpty() || userIds.size() > MAX_REPORT_USERS) {
+            throw new BadRequestException("userIds must list between 1 and " + MAX_REPORT_USERS + " users");
+        }
+        Set<ExerciseBlock.BlockType> types = blockTypes == null || blockTypes.isEmpty()
+            ? EnumSet.allOf(ExerciseBlock.BlockType.class) : EnumSet.copyOf(blockTypes);
+        return ResponseEntity.ok(analyticsService.generateWorkoutTypeReports(
+            new LinkedHashSet<>(userIds), types, startDate, endDate));
+    }
+
+    /**
+     * Per-athlete totals and rankings plus squad totals and means for a coach's squad
+     */
+    @GetMapping("/squad")
+    public ResponseEntity<SquadAnalytics> getSquadAnalytics(
+            @RequestParam List<UUID> userIds,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        if (userIds.isEmpty() || userIds.size() > MAX_SQUAD_USERS) {
+            throw new BadRequestException("userIds must list between 1 and " + MAX_SQUAD_USERS + " users");
+        }
+        return ResponseEntity.ok(squadAnalyticsService.generateSquadAnalytics(userIds, startDate, endDate));
+    }
+
+    /**
+     * Ad-hoc aggregate of a workout, block or set measure, e.g. average block RPE by
+     * block type by month for a program's users. Served from the analytics store when it
+     * is no older than maxStaleness (ISO-8601, e.g. PT5M); the response says which source
+     * answered and up to when it is consistent.
+     */
+    @GetMapping("/aggregate")
+    public ResponseEntity<AggregateAnalytics> aggregate(
+            @RequestParam FactQuery.Measure measure,
+            @RequestParam(defaultValue = "AVG") FactQuery.Aggregation aggregation,
+            @RequestParam(required = false) List<FactQuery.Dimension> groupBy,
+            @RequestParam(required = false) List<UUID> userIds,
+            @RequestParam(required = false) UUID programId,
+            @RequestParam(required = false) ExerciseBlock.BlockType blockType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Duration maxStaleness) {
+        validateRange(startDate, endDate);
+        List<FactQuery.Dimension> dimensions = groupBy != null ? List.copyOf(new LinkedHashSet<>(groupBy)) : List.of();
+        for (FactQuery.Dimension dimension : dimensions) {
+            if (!dimension.appliesTo(measure.getLevel())) {
+                throw new BadRequestException(dimension + " cannot group " + measure);
+            }
+        }
+        if (blockType != null && measure.getLevel() != FactQuery.Level.BLOCK) {
+            throw new BadRequestException("blockType only filters block measures");
+        }
+        if (userIds != null && userIds.size() > MAX_SQUAD_USERS) {
+            throw new BadRequestException("userIds must list at most " + MAX_SQUAD_USERS + " users");
+        }
+        FactQuery query = new FactQuery(measure, aggregation, dimensions,
+            userIds != null ? new LinkedHashSet<>(userIds) : null, programId, blockType, startDate, endDate);
+        return ResponseEntity.ok(analyticsService.aggregate(query, maxStaleness));
+    }
+
+    /**
+     * Volume per bucket for one dimension, e.g. weekly HINGE volume over a year.
+     * Exercise keys are exercise ids; without a key every key of the dimension is returned.
+     */
+    @GetMapping("/user/{userId}/volume")
+    public ResponseEntity<List<VolumeRollup>> getVolume(
+            @PathVariable UUID userId,
+            @RequestParam VolumeRollup.Dimension dimension,
+            @RequestParam(defaultValue = "WEEK") VolumeRollup.Granularity granularity,
+            @RequestParam(required = false) String key,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        List<VolumeRollup> volume = key != null
+            ? volumeRollupService.findSeries(userId, dimension, key, granularity, startDate, endDate)
+            : volumeRollupService.findByDimension(userId, dimension, granularity, startDate, endDate);
+        return ResponseEntity.ok(volume);
+    }
+
+    /**
+     * Percentiles of a metric, e.g. median RPE for one exercise or p90 session duration.
+     * Without an exercise id a per-exercise metric covers every exercise.
+     */
+    @GetMapping("/user/{userId}/distribution")
+    public ResponseEntity<DistributionAnalytics> getDistribution(
+            @PathVariable UUID userId,
+            @RequestParam MetricSketch.Metric metric,
+            @RequestParam(required = false) UUID exerciseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        return ResponseEntity.ok(analyticsService.getDistribution(userId, metric, exerciseId, startDate, endDate));
+    }
+
+    @GetMapping("/user/{userId}/wellness-correlation")
+    public ResponseEntity<WellnessCorrelationAnalytics> getWellnessCorrelation(
+            @PathVariable UUID userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateRange(startDate, endDate);
+        return ResponseEntity.ok(analyticsService.getWellnessCorrelation(userId, startDate, endDate));
+    }
+
+    @GetMapping("/user/{userId}/training-load")
+    public ResponseEntity<TrainingLoadAnalytics> getTrainingLoad(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(analyticsService.getTrainingLoad(userId, date != null ? date : LocalDate.now()));
+    }
+
+    @PostMapping("/user/{userId}/rebuild")
+    public ResponseEntity<Void> rebuildRollups(@PathVariable UUID userId) {
+        personalRecordService.rebuildUser(userId);
+        metricSketchService.rebuildUser(userId);
+        rollupService.rebuildUser(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/user/{userId}/training-load/rebuild")
+    public ResponseEntity<Void> rebuildTrainingLoad(@PathVariable UUID userId) {
+        rollupService.rebuildTrainingLoad(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Backlog and lag of the background recomputation after edits and deletes
+     */
+    @GetMapping("/recompute-queue")
+    public ResponseEntity<AnalyticsRecomputeQueue.Stats> getRecomputeQueueStats() {
+        return ResponseEntity.ok(recomputeQueue.getStats());
+    }
+
+    /**
+     * Whether the analytics store is loaded, its watermark and the unapplied change feed
+     */
+    @GetMapping("/store")
+    public ResponseEntity<AnalyticsStoreService.Status> getStoreStatus() {
+        return ResponseEntity.ok(analyticsStore.getStatus());
+    }
+
+    @PostMapping("/store/rebuild")
+    public ResponseEntity<Void> rebuildStore() {
+        if (!analyticsStore.isEnabled()) {
+            throw new BadRequestException("The analytics store is disabled");
+        }
+        analyticsStore.requestRebuild();
+        return ResponseEntity.accepted().build();
+    }
+
+    private void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("startDate must not be after endDate");
+        }
+    }
+}
@@ -78,4 +78,25 @@ public class WorkoutResultDTO {
 
         public SetResultSummary() {}
     }
+
+    // A set event sent during a live session, addressing the set by its position
+    public static class LiveSetEvent {
+        public Long sequence; // Optional - increasing per session, so a resent event is applied once
+        public String type; // LOGGED, EDITED or DELETED
+        public SetResultSummary set;
+
+        public LiveSetEvent() {}
+    }
+
+    // One set after it was added or edited, with its workout's totals as they now stand
+    public static class SetChange {
+        public UUID workoutResultId;
+        public SetResultSummary set;
+        public Integer totalReps;
+        public Double totalVolumeLoad;
+        public Double averageRPE;
+        public Integer workTimeSeconds;
+
+        public SetChange() {}
+    }
 }
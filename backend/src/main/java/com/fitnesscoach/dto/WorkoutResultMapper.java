@@ -0,0 +1,276 @@
+package com.fitnesscoach.dto;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.model.WeightUnit;
+import com.fitnesscoach.repository.ExerciseRepository;
+import com.fitnesscoach.service.ExerciseNameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps advanced workout results to and from {@link WorkoutResultDTO}, shared by the
+ * single-result endpoints and bulk ingestion
+ */
+@Component
+public class WorkoutResultMapper {
+
+    private final ExerciseRepository exerciseRepository;
+    private final ExerciseNameIndex exerciseNameIndex;
+
+    @Autowired
+    public WorkoutResultMapper(ExerciseRepository exerciseRepository, ExerciseNameIndex exerciseNameIndex) {
+        this.exerciseRepository = exerciseRepository;
+        this.exerciseNameIndex = exerciseNameIndex;
+    }
+
+    public WorkoutResultDTO toDTO(AdvancedWorkoutResult result) {
+        WorkoutResultDTO dto = new WorkoutResultDTO();
+        dto.id = result.getId();
+        dto.userId = result.getUserId();
+        dto.sessionTemplateId = result.getTemplate() != null ? result.getTemplate().getId() : null;
+        dto.sessionTitle = result.getTemplate() != null ? result.getTemplate().getTitle() : null;
+        dto.date = result.getDate();
+        dto.week = result.getWeek();
+        dto.programWeek = result.getProgramWeek();
+
+        dto.startTime = result.getStartTime();
+        dto.endTime = result.getEndTime();
+        dto.totalDurationSeconds = result.getTotalDurationSeconds();
+        dto.workTimeSeconds = result.getWorkTimeSeconds();
+        dto.restTimeSeconds = result.getRestTimeSeconds();
+
+        dto.completionStatus = result.getCompletionStatus() != null ? result.getCompletionStatus().name() : null;
+        dto.totalReps = result.getTotalReps();
+        dto.totalVolumeLoad = result.getTotalVolumeLoad();
+        dto.averageRPE = result.getAverageRPE();
+        dto.caloriesBurned = result.getCaloriesBurned();
+
+        dto.totalRounds = result.getTotalRounds();
+        dto.targetRounds = result.getTargetRounds();
+        dto.completedInTimeLimit = result.getCompletedInTimeLimit();
+        dto.wodResult = result.getWodResult();
+        dto.rxCompleted = result.getRxCompleted();
+
+        dto.emomMinutesCompleted = result.getEmomMinutesCompleted();
+        dto.emomMinutesTarget = result.getEmomMinutesTarget();
+        dto.emomFailedMinutes = result.getEmomFailedMinutes();
+
+        dto.tabataRoundsCompleted = result.getTabataRoundsCompleted();
+        dto.tabataRoundsTarget = result.getTabataRoundsTarget();
+        dto.tabataAverageReps = result.getTabataAverageReps();
+
+        dto.circuitRoundsCompleted = result.getCircuitRoundsCompleted();
+        dto.averageCircuitTime = result.getAverageCircuitTime();
+
+        dto.workoutQuality = result.getWorkoutQuality();
+        dto.workoutEnjoyment = result.getWorkoutEnjoyment();
+        dto.difficultyRating = result.getDifficultyRating();
+
+        dto.notes = result.getNotes();
+        dto.achievements = result.getAchievements();
+
+        // Map set results if present
+        if (result.getSetResults() != null) {
+            dto.setResults = result.getSetResults().stream()
+                    .map(this::toSetSummary)
+                    .collect(Collectors.toList());
+        }
+
+        return dto;
+    }
+
+    public AdvancedWorkoutResult fromDTO(WorkoutResultDTO dto) {
+        return fromDTO(dto, exercisesFor(exerciseNames(List.of(dto))));
+    }
+
+    public AdvancedWorkoutResult fromDTO(WorkoutResultDTO dto, Function<String, Exercise> exercises) {
+        AdvancedWorkoutResult result = new AdvancedWorkoutResult();
+        updateFromDTO(result, dto, exercises);
+        return result;
+    }
+
+    public void updateFromDTO(AdvancedWorkoutResult result, WorkoutResultDTO dto) {
+        updateFromDTO(result, dto, exercisesFor(exerciseNames(List.of(dto))));
+    }
+
+    /**
+     * Copy the non-null fields of the DTO onto the result. Set results replace the
+     * existing ones; their exercises are looked up by name through {@code exercises}.
+     */
+    public void updateFromDTO(AdvancedWorkoutResult result, WorkoutResultDTO dto, Function<String, Exercise> exercises) {
+        if (dto.userId != null) result.setUserId(dto.userId);
+        if (dto.date != null) result.setDate(dto.date);
+        if (dto.week != null) result.setWeek(dto.week);
+        if (dto.programWeek != null) result.setProgramWeek(dto.programWeek);
+
+        if (dto.startTime != null) result.setStartTime(dto.startTime);
+        if (dto.endTime != null) result.setEndTime(dto.endTime);
+        if (dto.totalDurationSeconds != null) result.setTotalDurationSeconds(dto.totalDurationSeconds);
+        if (dto.workTimeSeconds != null) result.setWorkTimeSeconds(dto.workTimeSeconds);
+        if (dto.restTimeSeconds != null) result.setRestTimeSeconds(dto.restTimeSeconds);
+
+        if (dto.completionStatus != null) {
+            result.setCompletionStatus(AdvancedWorkoutResult.SessionCompletionStatus.valueOf(dto.completionStatus));
+        }
+        if (dto.totalReps != null) result.setTotalReps(dto.totalReps);
+        if (dto.totalVolumeLoad != null) result.setTotalVolumeLoad(dto.totalVolumeLoad);
+        if (dto.averageRPE != null) result.setAverageRPE(dto.averageRPE);
+        if (dto.caloriesBurned != null) result.setCaloriesBurned(dto.caloriesBurned);
+
+        if (dto.totalRounds != null) result.setTotalRounds(dto.totalRounds);
+        if (dto.targetRounds != null) result.setTargetRounds(dto.targetRounds);
+        if (dto.completedInTimeLimit != null) result.setCompletedInTimeLimit(dto.completedInTimeLimit);
+        if (dto.wodResult != null) result.setWodResult(dto.wodResult);
+        if (dto.rxCompleted != null) result.setRxCompleted(dto.rxCompleted);
+
+        if (dto.emomMinutesCompleted != null) result.setEmomMinutesCompleted(dto.emomMinutesCompleted);
+        if (dto.emomMinutesTarget != null) result.setEmomMinutesTarget(dto.emomMinutesTarget);
+        if (dto.emomFailedMinutes != null) result.setEmomFailedMinutes(dto.emomFailedMinutes);
+
+        if (dto.tabataRoundsCompleted != null) result.setTabataRoundsCompleted(dto.tabataRoundsCompleted);
+        if (dto.tabataRoundsTarget != null) result.setTabataRoundsTarget(dto.tabataRoundsTarget);
+        if (dto.tabataAverageReps != null) result.setTabataAverageReps(dto.tabataAverageReps);
+
+        if (dto.circuitRoundsCompleted != null) result.setCircuitRoundsCompleted(dto.circuitRoundsCompleted);
+        if (dto.averageCircuitTime != null) result.setAverageCircuitTime(dto.averageCircuitTime);
+
+        if (dto.workoutQuality != null) result.setWorkoutQuality(dto.workoutQuality);
+        if (dto.workoutEnjoyment != null) result.setWorkoutEnjoyment(dto.workoutEnjoyment);
+        if (dto.difficultyRating != null) result.setDifficultyRating(dto.difficultyRating);
+
+        if (dto.notes != null) result.setNotes(dto.notes);
+        if (dto.achievements != null) result.setAchievements(dto.achievements);
+
+        // Handle set results - create new AdvancedSetResult entities
+        if (dto.setResults != null && !dto.setResults.isEmpty()) {
+            // Clear existing set results and add new ones to avoid cascade issues
+            if (result.getSetResults() == null) {
+                result.setSetResults(new ArrayList<>());
+            } else {
+                result.getSetResults().clear();
+            }
+
+            for (WorkoutResultDTO.SetResultSummary summary : dto.setResults) {
+                // Skip if we couldn't get or create an exercise
+                AdvancedSetResult setResult = toSetResult(summary, exercises);
+                if (setResult == null) continue;
+
+                setResult.setWorkoutResult(result);
+                result.getSetResults().add(setResult);
+            }
+        }
+    }
+
+    public WorkoutResultDTO.SetResultSummary toSetSummary(AdvancedSetResult setResult) {
+        WorkoutResultDTO.SetResultSummary summary = new WorkoutResultDTO.SetResultSummary();
+        summary.id = setResult.getId() != null ? setResult.getId().toString() : null;
+        summary.blockLabel = setResult.getBlockLabel();
+        summary.blockItemOrder = setResult.getBlockItemOrder();
+        summary.setNumber = setResult.getSetNumber();
+        summary.exerciseName = setResult.getExercise() != null ? setResult.getExercise().getName() : null;
+        summary.targetReps = setResult.getTargetReps();
+        summary.performedReps = setResult.getPerformedReps();
+        summary.weight = setResult.getWeight();
+        summary.weightUnit = setResult.getWeightUnit() != null ? setResult.getWeightUnit().name() : null;
+        summary.rpe = setResult.getRpe() != null ? setResult.getRpe().intValue() : null;
+        summary.restTakenSec = setResult.getRestTimeSeconds();
+        return summary;
+    }
+
+    public WorkoutResultDTO.SetChange toSetChange(AdvancedSetResult setResult) {
+        AdvancedWorkoutResult result = setResult.getWorkoutResult();
+        WorkoutResultDTO.SetChange change = new WorkoutResultDTO.SetChange();
+        change.workoutResultId = result.getId();
+        change.set = toSetSummary(setResult);
+        change.totalReps = result.getTotalReps();
+        change.totalVolumeLoad = result.getTotalVolumeLoad();
+        change.averageRPE = result.getAverageRPE();
+        change.workTimeSeconds = result.getWorkTimeSeconds();
+        return change;
+    }
+
+    /**
+     * A new straight set from its summary, not yet attached to a workout, or null when
+     * the summary names no exercise
+     */
+    public AdvancedSetResult toSetResult(WorkoutResultDTO.SetResultSummary summary, Function<String, Exercise> exercises) {
+        Exercise exercise = summary.exerciseName != null ? exercises.apply(summary.exerciseName) : null;
+        if (exercise == null) {
+            return null;
+        }
+        AdvancedSetResult setResult = new AdvancedSetResult();
+        setResult.setExercise(exercise);
+        setResult.setBlockLabel(summary.blockLabel);
+        setResult.setBlockItemOrder(summary.blockItemOrder != null ? summary.blockItemOrder : 0);
+        setResult.setSetNumber(summary.setNumber != null ? summary.setNumber : 0);
+        setResult.setPerformedReps(summary.performedReps);
+        setResult.setTargetReps(summary.targetReps);
+        setResult.setWeight(summary.weight);
+        if (summary.weightUnit != null) {
+            setResult.setWeightUnit(WeightUnit.valueOf(summary.weightUnit));
+        }
+        if (summary.rpe != null) {
+            setResult.setRpe(summary.rpe.doubleValue());
+        }
+        setResult.setRestTimeSeconds(summary.restTakenSec);
+        setResult.setResultType(AdvancedSetResult.ResultType.STRAIGHT_SET);
+        return setResult;
+    }
+
+    public AdvancedSetResult toSetResult(WorkoutResultDTO.SetResultSummary summary) {
+        return toSetResult(summary, exercisesFor(summary.exerciseName != null ? List.of(summary.exerciseName) : List.of()));
+    }
+
+    public void patchSetResult(AdvancedSetResult setResult, WorkoutResultDTO.SetResultSummary summary) {
+        patchSetResult(setResult, summary, exercisesFor(summary.exerciseName != null ? List.of(summary.exerciseName) : List.of()));
+    }
+
+    // Copy the non-null fields of the summary onto an existing set
+    public void patchSetResult(AdvancedSetResult setResult, WorkoutResultDTO.SetResultSummary summary,
+                               Function<String, Exercise> exercises) {
+        if (summary.exerciseName != null) {
+            Exercise exercise = exercises.apply(summary.exerciseName);
+            if (exercise != null) setResult.setExercise(exercise);
+        }
+        if (summary.blockLabel != null) setResult.setBlockLabel(summary.blockLabel);
+        if (summary.blockItemOrder != null) setResult.setBlockItemOrder(summary.blockItemOrder);
+        if (summary.setNumber != null) setResult.setSetNumber(summary.setNumber);
+        if (summary.performedReps != null) setResult.setPerformedReps(summary.performedReps);
+        if (summary.targetReps != null) setResult.setTargetReps(summary.targetReps);
+        if (summary.weight != null) setResult.setWeight(summary.weight);
+        if (summary.weightUnit != null) setResult.setWeightUnit(WeightUnit.valueOf(summary.weightUnit));
+        if (summary.rpe != null) setResult.setRpe(summary.rpe.doubleValue());
+        if (summary.restTakenSec != null) setResult.setRestTimeSeconds(summary.restTakenSec);
+    }
+
+    /**
+     * Resolve every name in one pass through the exercise name index. The returned
+     * exercises are references by id, so mapping the sets loads no exercise rows.
+     */
+    public Function<String, Exercise> exercisesFor(Collection<String> names) {
+        Map<String, UUID> ids = exerciseNameIndex.resolve(names);
+        return name -> {
+            UUID id = ids.get(name);
+            return id != null ? exerciseRepository.getReferenceById(id) : null;
+        };
+    }
+
+    public static List<String> exerciseNames(Collection<WorkoutResultDTO> dtos) {
+        return dtos.stream()
+                .filter(dto -> dto != null && dto.setResults != null)
+                .flatMap(dto -> dto.setResults.stream())
+                .map(summary -> summary.exerciseName)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
@@ -227,6 +227,18 @@ public class AdvancedSetResult {
         return result;
     }
 
+    /**
+     * What one set adds to its workout's totals, counted the way
+     * {@link AdvancedWorkoutResult#calculateMetricsFromSets()} counts it
+     */
+    public record Contribution(int reps, double volumeLoad, Double rpe, int workTimeSeconds) {}
+
+    public Contribution contribution() {
+        int reps = performedReps != null ? performedReps : 0;
+        double volumeLoad = performedReps != null && weight != null ? performedReps * weight : 0.0;
+        return new Contribution(reps, volumeLoad, rpe, workTimeSeconds != null ? workTimeSeconds : 0);
+    }
+
     // Helper methods
     public Duration getWorkDuration() {
         if (startTime != null && endTime != null) {
@@ -1,5 +1,6 @@
 package com.fitnesscoach.model;
 
+import com.fitnesscoach.util.NumericKernels;
 import jakarta.persistence.*;
 import java.time.Duration;
 import java.time.Instant;
@@ -42,6 +43,8 @@ public class AdvancedWorkoutResult {
     private Integer totalReps;
     private Double totalVolumeLoad; // Sum of (reps × weight) for all exercises
     private Double averageRPE;
+    // Sets with an RPE behind averageRPE; null when the totals were not derived from the sets
+    private Integer rpeSetCount;
     private Integer averageHeartRate;
     private Integer maxHeartRate;
     private Integer caloriesBurned;
@@ -141,6 +144,15 @@ public class AdvancedWorkoutResult {
     @Column(length = 2000)
     private String injuriesOrPain; // Any issues experienced
 
+    // Highest live set event sequence taken out of the event log, which compaction empties
+    private Long lastEventSequence;
+
+    // Owner and date as last loaded, so analytics rollups can find the bucket a moved result left
+    @Transient
+    private UUID loadedUserId;
+    @Transient
+    private LocalDate loadedDate;
+
     public AdvancedWorkoutResult() {
         this.date = LocalDate.now();
         this.startTime = Instant.now();
@@ -220,6 +232,12 @@ public class AdvancedWorkoutResult {
         return result;
     }
 
+    @PostLoad
+    protected void onLoad() {
+        this.loadedUserId = userId;
+        this.loadedDate = date;
+    }
+
     // Helper methods
     public Duration getSessionDuration() {
         if (startTime != null && endTime != null) {
@@ -281,35 +299,72 @@ public class AdvancedWorkoutResult {
     // Calculate metrics from set results
     public void calculateMetricsFromSets() {
         if (setResults != null && !setResults.isEmpty()) {
-            // Calculate total reps
-            this.totalReps = setResults.stream()
-                .mapToInt(set -> set.getPerformedReps() != null ? set.getPerformedReps() : 0)
-                .sum();
-
-            // Calculate total volume load
-            this.totalVolumeLoad = setResults.stream()
-                .mapToDouble(set -> {
-                    if (set.getPerformedReps() != null && set.getWeight() != null) {
-                        return set.getPerformedReps() * set.getWeight();
-                    }
-                    return 0.0;
-                })
-                .sum();
-
-            // Calculate average RPE
-            this.averageRPE = setResults.stream()
-                .filter(set -> set.getRpe() != null)
-                .mapToDouble(AdvancedSetResult::getRpe)
-                .average()
-                .orElse(0.0);
-
-            // Calculate work time
-            this.workTimeSeconds = setResults.stream()
-                .mapToInt(set -> set.getWorkTimeSeconds() != null ? set.getWorkTimeSeconds() : 0)
-                .sum();
+            // Sets are copied into columns once and reduced by the numeric kernels
+            int size = setResults.size();
+            double[] reps = new double[size];
+            double[] weights = new double[size];
+            double[] rpes = new double[size];
+            int rpeCount = 0;
+            int workTime = 0;
+            for (int i = 0; i < size; i++) {
+                AdvancedSetResult set = setResults.get(i);
+                reps[i] = set.getPerformedReps() != null ? set.getPerformedReps() : 0;
+                weights[i] = set.getPerformedReps() != null && set.getWeight() != null ? set.getWeight() : 0.0;
+                if (set.getRpe() != null) {
+                    rpes[rpeCount++] = set.getRpe();
+                }
+                workTime += set.getWorkTimeSeconds() != null ? set.getWorkTimeSeconds() : 0;
+            }
+
+            this.totalReps = (int) NumericKernels.sum(reps, size);
+            this.totalVolumeLoad = NumericKernels.dot(reps, weights, size);
+            this.averageRPE = rpeCount > 0 ? NumericKernels.mean(rpes, rpeCount) : 0.0;
+            this.workTimeSeconds = workTime;
+            this.rpeSetCount = rpeCount;
         }
     }
 
+    /**
+     * Fold a change of one set into the totals derived from the sets, taking out what
+     * {@code removed} contributed and adding {@code added}; either is null for a set that
+     * was added or deleted. Returns false, leaving the totals alone, when they were not
+     * derived from the sets and have to be recalculated from all of them.
+     */
+    public boolean applySetChange(AdvancedSetResult.Contribution removed, AdvancedSetResult.Contribution added) {
+        if (rpeSetCount == null || totalReps == null || totalVolumeLoad == null || averageRPE == null) {
+            return false;
+        }
+        int reps = totalReps;
+        double volumeLoad = totalVolumeLoad;
+        double rpeSum = averageRPE * rpeSetCount;
+        int rpeCount = rpeSetCount;
+        int workTime = workTimeSeconds != null ? workTimeSeconds : 0;
+        if (removed != null) {
+            reps -= removed.reps();
+            volumeLoad -= removed.volumeLoad();
+            if (removed.rpe() != null) {
+                rpeSum -= removed.rpe();
+                rpeCount--;
+            }
+            workTime -= removed.workTimeSeconds();
+        }
+        if (added != null) {
+            reps += added.reps();
+            volumeLoad += added.volumeLoad();
+            if (added.rpe() != null) {
+                rpeSum += added.rpe();
+                rpeCount++;
+            }
+            workTime += added.workTimeSeconds();
+        }
+        this.totalReps = reps;
+        this.totalVolumeLoad = volumeLoad;
+        this.averageRPE = rpeCount > 0 ? rpeSum / rpeCount : 0.0;
+        this.rpeSetCount = rpeCount;
+        this.workTimeSeconds = workTime;
+        return true;
+    }
+
     // Getters and setters
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
@@ -339,7 +394,7 @@ public class AdvancedWorkoutResult {
     public void setTotalDurationSeconds(Integer totalDurationSeconds) { this.totalDurationSeconds = totalDurationSeconds; }
 
     public Integer getWorkTimeSeconds() { return workTimeSeconds; }
-    public void setWorkTimeSeconds(Integer workTimeSeconds) { this.workTimeSeconds = workTimeSeconds; }
+    public void setWorkTimeSeconds(Integer workTimeSeconds) { this.workTimeSeconds = workTimeSeconds; this.rpeSetCount = null; }
 
     public Integer getRestTimeSeconds() { return restTimeSeconds; }
     public void setRestTimeSeconds(Integer restTimeSeconds) { this.restTimeSeconds = restTimeSeconds; }
@@ -348,13 +403,14 @@ public class AdvancedWorkoutResult {
     public void setCompletionStatus(SessionCompletionStatus completionStatus) { this.completionStatus = completionStatus; }
 
     public Integer getTotalReps() { return totalReps; }
-    public void setTotalReps(Integer totalReps) { this.totalReps = totalReps; }
+    // Totals set directly no longer follow from the sets, so set edits recalculate them
+    public void setTotalReps(Integer totalReps) { this.totalReps = totalReps; this.rpeSetCount = null; }
 
     public Double getTotalVolumeLoad() { return totalVolumeLoad; }
-    public void setTotalVolumeLoad(Double totalVolumeLoad) { this.totalVolumeLoad = totalVolumeLoad; }
+    public void setTotalVolumeLoad(Double totalVolumeLoad) { this.totalVolumeLoad = totalVolumeLoad; this.rpeSetCount = null; }
 
     public Double getAverageRPE() { return averageRPE; }
-    public void setAverageRPE(Double averageRPE) { this.averageRPE = averageRPE; }
+    public void setAverageRPE(Double averageRPE) { this.averageRPE = averageRPE; this.rpeSetCount = null; }
 
     public Integer getAverageHeartRate() { return averageHeartRate; }
     public void setAverageHeartRate(Integer averageHeartRate) { this.averageHeartRate = averageHeartRate; }
@@ -523,4 +579,17 @@ public class AdvancedWorkoutResult {
 
     public String getInjuriesOrPain() { return injuriesOrPain; }
     public void setInjuriesOrPain(String injuriesOrPain) { this.injuriesOrPain = injuriesOrPain; }
+
+    public Long getLastEventSequence() { return lastEventSequence; }
+
+    // Sequences only move forward, whatever order compactions record them in
+    public void advanceLastEventSequence(long sequence) {
+        if (lastEventSequence == null || sequence > lastEventSequence) {
+            this.lastEventSequence = sequence;
+        }
+    }
+
+    public UUID getLoadedUserId() { return loadedUserId; }
+
+    public LocalDate getLoadedDate() { return loadedDate; }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One entry of the change feed read by the analytics store: the user and day whose
+ * workouts, blocks or sets changed, written in the same transaction as the change.
+ * Entries are deleted once the store has applied them.
+ */
+@Entity
+@Table(name = "analytics_changes")
+public class AnalyticsChange {
+
+    // Pooled sequence rather than identity, so inserts alongside bulk imports stay batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analytics_changes_seq")
+    @SequenceGenerator(name = "analytics_changes_seq", sequenceName = "analytics_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private Instant recordedAt;
+
+    public AnalyticsChange() {}
+
+    public AnalyticsChange(UUID userId, LocalDate date) {
+        this.userId = userId;
+        this.date = date;
+        this.recordedAt = Instant.now();
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public Instant getRecordedAt() { return recordedAt; }
+}
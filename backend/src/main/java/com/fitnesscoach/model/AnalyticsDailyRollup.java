@@ -0,0 +1,280 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user, per-day partial aggregates of advanced workout results.
+ * Maintained on every result write so analytics can be answered by
+ * combining buckets instead of rescanning the full workout history.
+ */
+@Entity
+@Table(name = "analytics_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "bucketDate"}))
+public class AnalyticsDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private LocalDate bucketDate;
+
+    // Overall totals
+    private int workoutCount;
+    private int durationCount; // Workouts with a recorded duration
+    private long durationSum;
+    private double volumeSum;
+    private int rpeCount; // Workouts with a recorded average RPE
+    private double rpeSum;
+    private double rpeSumSquares; // For RPE variance
+    private int personalRecordCount;
+
+    // Training load
+    private double sessionLoadSum; // Session-RPE load: average RPE * duration in minutes
+    private double blockVolumeSum; // Volume load recorded on block results
+
+    // EMOM counters
+    private int emomWorkouts;
+    private double emomCompletionRateSum;
+    private int emomMinutesCompleted;
+    private int emomMinutesTarget;
+
+    // Tabata counters
+    private int tabataWorkouts;
+    private int tabataRepsCount;
+    private double tabataRepsSum;
+    private int tabataRoundsCompleted;
+    private double tabataBestReps;
+
+    // AMRAP counters
+    private int amrapWorkouts;
+    private int amrapRoundsSum;
+
+    // Circuit counters
+    private int circuitWorkouts;
+    private double circuitTimeSum;
+    private int circuitRoundsCompleted;
+    private Integer circuitFastestSeconds;
+
+    private Instant updatedAt;
+
+    public AnalyticsDailyRollup() {}
+
+    public AnalyticsDailyRollup(UUID userId, LocalDate bucketDate) {
+        this.userId = userId;
+        this.bucketDate = bucketDate;
+    }
+
+    // Clear all counters before the bucket is re-derived
+    public void reset() {
+        workoutCount = 0;
+        durationCount = 0;
+        durationSum = 0;
+        volumeSum = 0;
+        rpeCount = 0;
+        rpeSum = 0;
+        rpeSumSquares = 0;
+        personalRecordCount = 0;
+        sessionLoadSum = 0;
+        blockVolumeSum = 0;
+        emomWorkouts = 0;
+        emomCompletionRateSum = 0;
+        emomMinutesCompleted = 0;
+        emomMinutesTarget = 0;
+        tabataWorkouts = 0;
+        tabataRepsCount = 0;
+        tabataRepsSum = 0;
+        tabataRoundsCompleted = 0;
+        tabataBestReps = 0;
+        amrapWorkouts = 0;
+        amrapRoundsSum = 0;
+        circuitWorkouts = 0;
+        circuitTimeSum = 0;
+        circuitRoundsCompleted = 0;
+        circuitFastestSeconds = null;
+    }
+
+    // Add a single workout's contribution to this bucket
+    public void accumulate(AdvancedWorkoutResult workout) {
+        workoutCount++;
+
+        if (workout.getTotalDurationSeconds() != null) {
+            durationCount++;
+            durationSum += workout.getTotalDurationSeconds();
+        }
+        if (workout.getTotalVolumeLoad() != null) {
+            volumeSum += workout.getTotalVolumeLoad();
+        }
+        if (workout.getAverageRPE() != null) {
+            double rpe = workout.getAverageRPE();
+            rpeCount++;
+            rpeSum += rpe;
+            rpeSumSquares += rpe * rpe;
+        }
+        if (workout.getPersonalRecords() != null) {
+            personalRecordCount += workout.getPersonalRecords().size();
+        }
+        if (workout.getAverageRPE() != null && workout.getTotalDurationSeconds() != null) {
+            sessionLoadSum += workout.getAverageRPE() * workout.getTotalDurationSeconds() / 60.0;
+        }
+
+        if (workout.getEmomMinutesTarget() != null) {
+            emomWorkouts++;
+            int completed = workout.getEmomMinutesCompleted() != null ? workout.getEmomMinutesCompleted() : 0;
+            if (workout.getEmomMinutesTarget() > 0) {
+                emomCompletionRateSum += (double) completed / workout.getEmomMinutesTarget() * 100;
+            }
+            emomMinutesCompleted += completed;
+            emomMinutesTarget += workout.getEmomMinutesTarget();
+        }
+
+        if (workout.getTabataRoundsTarget() != null) {
+            tabataWorkouts++;
+            if (workout.getTabataAverageReps() != null) {
+                double reps = workout.getTabataAverageReps();
+                tabataRepsCount++;
+                tabataRepsSum += reps;
+                tabataBestReps = Math.max(tabataBestReps, reps);
+            }
+            tabataRoundsCompleted += workout.getTabataRoundsCompleted() != null ? workout.getTabataRoundsCompleted() : 0;
+        }
+
+        if (workout.getTotalRounds() != null && workout.getWodResult() != null) {
+            amrapWorkouts++;
+            amrapRoundsSum += workout.getTotalRounds();
+        }
+
+        if (workout.getAverageCircuitTime() != null) {
+            circuitWorkouts++;
+            circuitTimeSum += workout.getAverageCircuitTime();
+            circuitRoundsCompleted += workout.getCircuitRoundsCompleted() != null ? workout.getCircuitRoundsCompleted() : 0;
+            Integer fastest = workout.getFastestCircuitTimeSeconds();
+            if (fastest != null && (circuitFastestSeconds == null || fastest < circuitFastestSeconds)) {
+                circuitFastestSeconds = fastest;
+            }
+        }
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = Instant.now();
+    }
+
+    // Helper methods
+    public boolean isEmpty() {
+        return workoutCount == 0;
+    }
+
+    public double getAverageRPEForDay() {
+        return rpeCount > 0 ? rpeSum / rpeCount : 0.0;
+    }
+
+    public double getAverageDurationForDay() {
+        return durationCount > 0 ? (double) durationSum / durationCount : 0.0;
+    }
+
+    public void addBlockVolume(BlockResult blockResult) {
+        if (blockResult.getTotalVolumeLoad() != null) {
+            blockVolumeSum += blockResult.getTotalVolumeLoad();
+        }
+    }
+
+    // Set volume, or the block volume on days logged without set weights
+    public double getTrainingVolume() {
+        return volumeSum > 0 ? volumeSum : blockVolumeSum;
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public LocalDate getBucketDate() { return bucketDate; }
+    public void setBucketDate(LocalDate bucketDate) { this.bucketDate = bucketDate; }
+
+    public int getWorkoutCount() { return workoutCount; }
+    public void setWorkoutCount(int workoutCount) { this.workoutCount = workoutCount; }
+
+    public int getDurationCount() { return durationCount; }
+    public void setDurationCount(int durationCount) { this.durationCount = durationCount; }
+
+    public long getDurationSum() { return durationSum; }
+    public void setDurationSum(long durationSum) { this.durationSum = durationSum; }
+
+    public double getVolumeSum() { return volumeSum; }
+    public void setVolumeSum(double volumeSum) { this.volumeSum = volumeSum; }
+
+    public int getRpeCount() { return rpeCount; }
+    public void setRpeCount(int rpeCount) { this.rpeCount = rpeCount; }
+
+    public double getRpeSum() { return rpeSum; }
+    public void setRpeSum(double rpeSum) { this.rpeSum = rpeSum; }
+
+    public double getRpeSumSquares() { return rpeSumSquares; }
+    public void setRpeSumSquares(double rpeSumSquares) { this.rpeSumSquares = rpeSumSquares; }
+
+    public int getPersonalRecordCount() { return personalRecordCount; }
+    public void setPersonalRecordCount(int personalRecordCount) { this.personalRecordCount = personalRecordCount; }
+
+    public double getSessionLoadSum() { return sessionLoadSum; }
+    public void setSessionLoadSum(double sessionLoadSum) { this.sessionLoadSum = sessionLoadSum; }
+
+    public double getBlockVolumeSum() { return blockVolumeSum; }
+    public void setBlockVolumeSum(double blockVolumeSum) { this.blockVolumeSum = blockVolumeSum; }
+
+    public int getEmomWorkouts() { return emomWorkouts; }
+    public void setEmomWorkouts(int emomWorkouts) { this.emomWorkouts = emomWorkouts; }
+
+    public double getEmomCompletionRateSum() { return emomCompletionRateSum; }
+    public void setEmomCompletionRateSum(double emomCompletionRateSum) { this.emomCompletionRateSum = emomCompletionRateSum; }
+
+    public int getEmomMinutesCompleted() { return emomMinutesCompleted; }
+    public void setEmomMinutesCompleted(int emomMinutesCompleted) { this.emomMinutesCompleted = emomMinutesCompleted; }
+
+    public int getEmomMinutesTarget() { return emomMinutesTarget; }
+    public void setEmomMinutesTarget(int emomMinutesTarget) { this.emomMinutesTarget = emomMinutesTarget; }
+
+    public int getTabataWorkouts() { return tabataWorkouts; }
+    public void setTabataWorkouts(int tabataWorkouts) { this.tabataWorkouts = tabataWorkouts; }
+
+    public int getTabataRepsCount() { return tabataRepsCount; }
+    public void setTabataRepsCount(int tabataRepsCount) { this.tabataRepsCount = tabataRepsCount; }
+
+    public double getTabataRepsSum() { return tabataRepsSum; }
+    public void setTabataRepsSum(double tabataRepsSum) { this.tabataRepsSum = tabataRepsSum; }
+
+    public int getTabataRoundsCompleted() { return tabataRoundsCompleted; }
+    public void setTabataRoundsCompleted(int tabataRoundsCompleted) { this.tabataRoundsCompleted = tabataRoundsCompleted; }
+
+    public double getTabataBestReps() { return tabataBestReps; }
+    public void setTabataBestReps(double tabataBestReps) { this.tabataBestReps = tabataBestReps; }
+
+    public int getAmrapWorkouts() { return amrapWorkouts; }
+    public void setAmrapWorkouts(int amrapWorkouts) { this.amrapWorkouts = amrapWorkouts; }
+
+    public int getAmrapRoundsSum() { return amrapRoundsSum; }
+    public void setAmrapRoundsSum(int amrapRoundsSum) { this.amrapRoundsSum = amrapRoundsSum; }
+
+    public int getCircuitWorkouts() { return circuitWorkouts; }
+    public void setCircuitWorkouts(int circuitWorkouts) { this.circuitWorkouts = circuitWorkouts; }
+
+    public double getCircuitTimeSum() { return circuitTimeSum; }
+    public void setCircuitTimeSum(double circuitTimeSum) { this.circuitTimeSum = circuitTimeSum; }
+
+    public int getCircuitRoundsCompleted() { return circuitRoundsCompleted; }
+    public void setCircuitRoundsCompleted(int circuitRoundsCompleted) { this.circuitRoundsCompleted = circuitRoundsCompleted; }
+
+    public Integer getCircuitFastestSeconds() { return circuitFastestSeconds; }
+    public void setCircuitFastestSeconds(Integer circuitFastestSeconds) { this.circuitFastestSeconds = circuitFastestSeconds; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
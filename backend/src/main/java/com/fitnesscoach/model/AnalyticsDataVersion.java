@@ -0,0 +1,35 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Per-user counter bumped whenever the user's results or derived analytics change,
+ * so stored snapshots can tell whether they are still current
+ */
+@Entity
+@Table(name = "analytics_data_versions")
+public class AnalyticsDataVersion {
+
+    // Keyed by the user, so the row can be created with a single-statement upsert
+    @Id
+    private UUID userId;
+
+    @ColumnDefault("0")
+    private long dataVersion;
+
+    private Instant updatedAt;
+
+    public AnalyticsDataVersion() {}
+
+    // Getters and setters
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public long getDataVersion() { return dataVersion; }
+    public void setDataVersion(long dataVersion) { this.dataVersion = dataVersion; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
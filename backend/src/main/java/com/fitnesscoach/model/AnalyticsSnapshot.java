@@ -0,0 +1,80 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Serialized analytics for one of the standard dashboard periods of a user, stamped
+ * with the data version and range it was computed for. The payload is gzipped JSON.
+ */
+@Entity
+@Table(name = "analytics_snapshots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "period"}))
+public class AnalyticsSnapshot {
+
+    public enum Period {
+        LAST_30_DAYS,
+        ALL_TIME
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Period period;
+
+    private long dataVersion;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Lob
+    private byte[] payload;
+
+    private Instant computedAt;
+
+    public AnalyticsSnapshot() {}
+
+    public AnalyticsSnapshot(UUID userId, Period period) {
+        this.userId = userId;
+        this.period = period;
+    }
+
+    /**
+     * Whether the snapshot still answers for the given data version and last day.
+     * The start of a period follows from its end and the user's data, so it needs no check.
+     */
+    public boolean isCurrent(long dataVersion, LocalDate endDate) {
+        return this.dataVersion == dataVersion && endDate.equals(this.endDate) && payload != null;
+    }
+
+    public void store(long dataVersion, LocalDate startDate, LocalDate endDate, byte[] payload) {
+        this.dataVersion = dataVersion;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.payload = payload;
+        this.computedAt = Instant.now();
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Period getPeriod() { return period; }
+    public void setPeriod(Period period) { this.period = period; }
+
+    public long getDataVersion() { return dataVersion; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public byte[] getPayload() { return payload; }
+    public Instant getComputedAt() { return computedAt; }
+}
@@ -0,0 +1,65 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user, per-day block result counters by block type.
+ * Used to answer block type success rates without loading block results.
+ */
+@Entity
+@Table(name = "block_type_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "bucketDate", "blockType"}))
+public class BlockTypeDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private LocalDate bucketDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExerciseBlock.BlockType blockType;
+
+    private int attempts;
+    private int successes; // Blocks completed as planned
+
+    public BlockTypeDailyRollup() {}
+
+    public BlockTypeDailyRollup(UUID userId, LocalDate bucketDate, ExerciseBlock.BlockType blockType) {
+        this.userId = userId;
+        this.bucketDate = bucketDate;
+        this.blockType = blockType;
+    }
+
+    public void accumulate(BlockResult blockResult) {
+        attempts++;
+        if (blockResult.getCompletedAsPlanned() != null && blockResult.getCompletedAsPlanned()) {
+            successes++;
+        }
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public LocalDate getBucketDate() { return bucketDate; }
+    public void setBucketDate(LocalDate bucketDate) { this.bucketDate = bucketDate; }
+
+    public ExerciseBlock.BlockType getBlockType() { return blockType; }
+    public void setBlockType(ExerciseBlock.BlockType blockType) { this.blockType = blockType; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public int getSuccesses() { return successes; }
+    public void setSuccesses(int successes) { this.successes = successes; }
+}
@@ -0,0 +1,107 @@
+package com.fitnesscoach.model;
+
+import com.fitnesscoach.util.QuantileSketch;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user, per-month quantile sketch of one metric, per exercise for set metrics
+ * and per user for session metrics. Months are merged to answer percentiles over
+ * any range without reading the underlying results.
+ */
+@Entity
+@Table(name = "metric_sketches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "metric", "exerciseId", "bucketMonth"}))
+public class MetricSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Metric metric;
+
+    private UUID exerciseId; // Null for session metrics
+
+    // First day of the month
+    @Column(nullable = false)
+    private LocalDate bucketMonth;
+
+    private long valueCount;
+    private long zeroCount;
+    private double minValue;
+    private double maxValue;
+    private int[] bucketKeys;
+    private long[] bucketCounts;
+
+    private Instant updatedAt;
+
+    public MetricSketch() {}
+
+    public MetricSketch(UUID userId, Metric metric, UUID exerciseId, LocalDate bucketMonth) {
+        this.userId = userId;
+        this.metric = metric;
+        this.exerciseId = exerciseId;
+        this.bucketMonth = bucketMonth;
+    }
+
+    public QuantileSketch toSketch() {
+        if (valueCount == 0) {
+            return new QuantileSketch();
+        }
+        return QuantileSketch.of(bucketKeys, bucketCounts, zeroCount, minValue, maxValue);
+    }
+
+    public void store(QuantileSketch sketch) {
+        valueCount = sketch.getCount();
+        zeroCount = sketch.getZeroCount();
+        minValue = sketch.isEmpty() ? 0 : sketch.getMin();
+        maxValue = sketch.isEmpty() ? 0 : sketch.getMax();
+        bucketKeys = sketch.bucketKeys();
+        bucketCounts = sketch.bucketCounts();
+        updatedAt = Instant.now();
+    }
+
+    public enum Metric {
+        RPE(true),
+        LOAD(true),
+        REPS(true),
+        SESSION_DURATION(false), // Seconds
+        SESSION_RPE(false);
+
+        private final boolean perExercise;
+
+        Metric(boolean perExercise) {
+            this.perExercise = perExercise;
+        }
+
+        public boolean isPerExercise() {
+            return perExercise;
+        }
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Metric getMetric() { return metric; }
+    public void setMetric(Metric metric) { this.metric = metric; }
+
+    public UUID getExerciseId() { return exerciseId; }
+    public void setExerciseId(UUID exerciseId) { this.exerciseId = exerciseId; }
+
+    public LocalDate getBucketMonth() { return bucketMonth; }
+    public void setBucketMonth(LocalDate bucketMonth) { this.bucketMonth = bucketMonth; }
+
+    public long getValueCount() { return valueCount; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,196 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-user, per-exercise best straight-set performances: the 1RM to 12RM,
+ * the best estimated one rep max and the heaviest set by volume, all in kilograms.
+ * Updated in constant time as sets are saved, so records never require a
+ * scan of the set history.
+ */
+@Entity
+@Table(name = "personal_records",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "exercise_id"}))
+public class PersonalRecord {
+    public static final int MAX_REPS = 12;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private Exercise exercise;
+
+    // Index n - 1 holds the heaviest weight lifted for at least n reps
+    private double[] repMaxWeights = new double[MAX_REPS];
+    private LocalDate[] repMaxDates = new LocalDate[MAX_REPS];
+
+    // Epley estimate: weight * (1 + reps / 30)
+    private double bestOneRepMax;
+    private LocalDate bestOneRepMaxDate;
+
+    // Heaviest single set by weight * reps
+    private double bestVolumeWeight;
+    private int bestVolumeReps;
+    private LocalDate bestVolumeDate;
+
+    private Instant updatedAt;
+
+    public PersonalRecord() {}
+
+    public PersonalRecord(UUID userId, Exercise exercise) {
+        this.userId = userId;
+        this.exercise = exercise;
+    }
+
+    /**
+     * Fold one straight set into the records.
+     * Returns true if the set beat at least one record; equal results only move
+     * the record date earlier, so the first day a record was reached is kept.
+     */
+    public boolean accept(double weight, int reps, LocalDate date) {
+        if (weight <= 0 || reps <= 0) {
+            return false;
+        }
+
+        boolean improved = false;
+        for (int i = 0; i < Math.min(reps, MAX_REPS); i++) {
+            if (weight > repMaxWeights[i]) {
+                repMaxWeights[i] = weight;
+                repMaxDates[i] = date;
+                improved = true;
+            } else if (weight == repMaxWeights[i] && isEarlier(date, repMaxDates[i])) {
+                repMaxDates[i] = date;
+            }
+        }
+
+        double oneRepMax = weight * (1 + reps / 30.0);
+        if (oneRepMax > bestOneRepMax) {
+            bestOneRepMax = oneRepMax;
+            bestOneRepMaxDate = date;
+            improved = true;
+        } else if (oneRepMax == bestOneRepMax && isEarlier(date, bestOneRepMaxDate)) {
+            bestOneRepMaxDate = date;
+        }
+
+        double volume = weight * reps;
+        double bestVolume = getBestVolume();
+        if (volume > bestVolume) {
+            bestVolumeWeight = weight;
+            bestVolumeReps = reps;
+            bestVolumeDate = date;
+            improved = true;
+        } else if (volume == bestVolume && isEarlier(date, bestVolumeDate)) {
+            bestVolumeDate = date;
+        }
+
+        updatedAt = Instant.now();
+        return improved;
+    }
+
+    public void reset() {
+        repMaxWeights = new double[MAX_REPS];
+        repMaxDates = new LocalDate[MAX_REPS];
+        bestOneRepMax = 0;
+        bestOneRepMaxDate = null;
+        bestVolumeWeight = 0;
+        bestVolumeReps = 0;
+        bestVolumeDate = null;
+        updatedAt = Instant.now();
+    }
+
+    public boolean isEmpty() {
+        return bestOneRepMaxDate == null;
+    }
+
+    /**
+     * Whether any record is dated on the given day, i.e. whether changing that
+     * day's sets can lower a record
+     */
+    public boolean hasRecordOn(LocalDate date) {
+        if (date.equals(bestOneRepMaxDate) || date.equals(bestVolumeDate)) {
+            return true;
+        }
+        for (LocalDate repMaxDate : repMaxDates) {
+            if (date.equals(repMaxDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any record is dated on or after the given day
+     */
+    public boolean hasRecordOnOrAfter(LocalDate date) {
+        if (!isBefore(bestOneRepMaxDate, date) || !isBefore(bestVolumeDate, date)) {
+            return true;
+        }
+        for (LocalDate repMaxDate : repMaxDates) {
+            if (!isBefore(repMaxDate, date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getRepMax(int reps) {
+        return reps >= 1 && reps <= MAX_REPS ? repMaxWeights[reps - 1] : 0.0;
+    }
+
+    public LocalDate getRepMaxDate(int reps) {
+        return reps >= 1 && reps <= MAX_REPS ? repMaxDates[reps - 1] : null;
+    }
+
+    /**
+     * Rep maxes keyed "1RM" to "12RM", omitting rep counts never reached
+     */
+    public Map<String, Double> getRepMaxes() {
+        Map<String, Double> repMaxes = new LinkedHashMap<>();
+        for (int i = 0; i < MAX_REPS; i++) {
+            if (repMaxWeights[i] > 0) {
+                repMaxes.put((i + 1) + "RM", repMaxWeights[i]);
+            }
+        }
+        return repMaxes;
+    }
+
+    public double getBestVolume() {
+        return bestVolumeWeight * bestVolumeReps;
+    }
+
+    private static boolean isBefore(LocalDate recordDate, LocalDate date) {
+        return recordDate == null || recordDate.isBefore(date);
+    }
+
+    private static boolean isEarlier(LocalDate date, LocalDate current) {
+        return date != null && (current == null || date.isBefore(current));
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Exercise getExercise() { return exercise; }
+    public void setExercise(Exercise exercise) { this.exercise = exercise; }
+
+    public double getBestOneRepMax() { return bestOneRepMax; }
+    public LocalDate getBestOneRepMaxDate() { return bestOneRepMaxDate; }
+
+    public double getBestVolumeWeight() { return bestVolumeWeight; }
+    public int getBestVolumeReps() { return bestVolumeReps; }
+    public LocalDate getBestVolumeDate() { return bestVolumeDate; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
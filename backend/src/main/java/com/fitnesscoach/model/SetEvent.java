@@ -0,0 +1,103 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of the append-only set event log of live workouts: a set logged, edited or
+ * deleted at a position, with the values sent for it. Compaction folds a workout's
+ * entries into its set rows and deletes them in the same transaction, so the entries
+ * left are exactly the events not applied yet.
+ */
+@Entity
+@Table(name = "set_events", indexes = @Index(name = "idx_set_events_workout", columnList = "workoutResultId"))
+public class SetEvent {
+
+    public enum Type { LOGGED, EDITED, DELETED }
+
+    // Pooled sequence, so a flushed batch of events is one batched insert; ids give append order
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "set_events_seq")
+    @SequenceGenerator(name = "set_events_seq", sequenceName = "set_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID workoutResultId;
+
+    private long sequence; // As acknowledged to the client
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    // Position of the set
+    private String blockLabel;
+    private int blockItemOrder;
+    private int setNumber;
+
+    // Values sent; null leaves the set's value as it is
+    private String exerciseName;
+    private Integer performedReps;
+    private Integer targetReps;
+    private Double weight;
+    private String weightUnit;
+    private Integer rpe;
+    private Integer restTakenSec;
+
+    private Instant loggedAt;
+
+    public SetEvent() {}
+
+    public SetEvent(UUID workoutResultId, long sequence, Type type) {
+        this.workoutResultId = workoutResultId;
+        this.sequence = sequence;
+        this.type = type;
+        this.loggedAt = Instant.now();
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public UUID getWorkoutResultId() { return workoutResultId; }
+    public void setWorkoutResultId(UUID workoutResultId) { this.workoutResultId = workoutResultId; }
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getBlockLabel() { return blockLabel; }
+    public void setBlockLabel(String blockLabel) { this.blockLabel = blockLabel; }
+
+    public int getBlockItemOrder() { return blockItemOrder; }
+    public void setBlockItemOrder(int blockItemOrder) { this.blockItemOrder = blockItemOrder; }
+
+    public int getSetNumber() { return setNumber; }
+    public void setSetNumber(int setNumber) { this.setNumber = setNumber; }
+
+    public String getExerciseName() { return exerciseName; }
+    public void setExerciseName(String exerciseName) { this.exerciseName = exerciseName; }
+
+    public Integer getPerformedReps() { return performedReps; }
+    public void setPerformedReps(Integer performedReps) { this.performedReps = performedReps; }
+
+    public Integer getTargetReps() { return targetReps; }
+    public void setTargetReps(Integer targetReps) { this.targetReps = targetReps; }
+
+    public Double getWeight() { return weight; }
+    public void setWeight(Double weight) { this.weight = weight; }
+
+    public String getWeightUnit() { return weightUnit; }
+    public void setWeightUnit(String weightUnit) { this.weightUnit = weightUnit; }
+
+    public Integer getRpe() { return rpe; }
+    public void setRpe(Integer rpe) { this.rpe = rpe; }
+
+    public Integer getRestTakenSec() { return restTakenSec; }
+    public void setRestTakenSec(Integer restTakenSec) { this.restTakenSec = restTakenSec; }
+
+    public Instant getLoggedAt() { return loggedAt; }
+}
@@ -0,0 +1,169 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Per-user exponentially weighted training load as of the last training day:
+ * acute (7 day) and chronic (28 day) averages of session-RPE load and volume load,
+ * plus the last seven daily session loads for monotony and strain.
+ * An average is {@code load * lambda + previous * (1 - lambda)} per day with
+ * {@code lambda = 2 / (days + 1)}, so it is linear in every daily load: a change to
+ * any past day is applied in constant time as that day's decayed contribution.
+ */
+@Entity
+@Table(name = "training_load_states")
+public class TrainingLoadState {
+    public static final int ACUTE_DAYS = 7;
+    public static final int CHRONIC_DAYS = 28;
+
+    private static final double ACUTE_LAMBDA = 2.0 / (ACUTE_DAYS + 1);
+    private static final double CHRONIC_LAMBDA = 2.0 / (CHRONIC_DAYS + 1);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, unique = true)
+    private UUID userId;
+
+    // Fails a write based on a state read without the row lock instead of losing a change
+    @Version
+    private long version;
+
+    private LocalDate lastDate;
+
+    private double acuteLoad;
+    private double chronicLoad;
+    private double acuteVolume;
+    private double chronicVolume;
+
+    // Session loads of the seven days ending at lastDate, indexed by epoch day modulo 7
+    private double[] weekLoads = new double[7];
+
+    private Instant updatedAt;
+
+    public TrainingLoadState() {}
+
+    public TrainingLoadState(UUID userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Add the change of one day's loads. Later days only decay the state up to that
+     * day first; earlier days add their contribution decayed to the current day.
+     */
+    public void apply(LocalDate day, double loadDelta, double volumeDelta) {
+        if (lastDate == null || day.isAfter(lastDate)) {
+            advanceTo(day);
+        }
+
+        long age = ChronoUnit.DAYS.between(day, lastDate);
+        acuteLoad += ACUTE_LAMBDA * Math.pow(1 - ACUTE_LAMBDA, age) * loadDelta;
+        chronicLoad += CHRONIC_LAMBDA * Math.pow(1 - CHRONIC_LAMBDA, age) * loadDelta;
+        acuteVolume += ACUTE_LAMBDA * Math.pow(1 - ACUTE_LAMBDA, age) * volumeDelta;
+        chronicVolume += CHRONIC_LAMBDA * Math.pow(1 - CHRONIC_LAMBDA, age) * volumeDelta;
+        if (age < 7) {
+            weekLoads[slot(day)] += loadDelta;
+        }
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Decay the state over the rest days up to {@code day}
+     */
+    public void advanceTo(LocalDate day) {
+        if (lastDate == null) {
+            lastDate = day;
+            return;
+        }
+        long gap = ChronoUnit.DAYS.between(lastDate, day);
+        if (gap <= 0) {
+            return;
+        }
+        acuteLoad *= Math.pow(1 - ACUTE_LAMBDA, gap);
+        chronicLoad *= Math.pow(1 - CHRONIC_LAMBDA, gap);
+        acuteVolume *= Math.pow(1 - ACUTE_LAMBDA, gap);
+        chronicVolume *= Math.pow(1 - CHRONIC_LAMBDA, gap);
+        for (long i = 1; i <= Math.min(gap, 7); i++) {
+            weekLoads[slot(lastDate.plusDays(i))] = 0;
+        }
+        lastDate = day;
+    }
+
+    public void reset() {
+        lastDate = null;
+        acuteLoad = 0;
+        chronicLoad = 0;
+        acuteVolume = 0;
+        chronicVolume = 0;
+        weekLoads = new double[7];
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Copy of this state decayed to {@code day}, for reading without writing
+     */
+    public TrainingLoadState at(LocalDate day) {
+        TrainingLoadState copy = new TrainingLoadState(userId);
+        copy.lastDate = lastDate;
+        copy.acuteLoad = acuteLoad;
+        copy.chronicLoad = chronicLoad;
+        copy.acuteVolume = acuteVolume;
+        copy.chronicVolume = chronicVolume;
+        copy.weekLoads = weekLoads.clone();
+        if (lastDate != null && day.isAfter(lastDate)) {
+            copy.advanceTo(day);
+        }
+        return copy;
+    }
+
+    public double getWeekLoad() {
+        double sum = 0;
+        for (double load : weekLoads) {
+            sum += Math.max(load, 0);
+        }
+        return sum;
+    }
+
+    /**
+     * Foster's monotony: mean daily session load over the week divided by its standard deviation
+     */
+    public double getMonotony() {
+        double mean = getWeekLoad() / 7;
+        double variance = 0;
+        for (double load : weekLoads) {
+            variance += (Math.max(load, 0) - mean) * (Math.max(load, 0) - mean);
+        }
+        double deviation = Math.sqrt(variance / 7);
+        return deviation > 1e-9 ? mean / deviation : 0.0;
+    }
+
+    public double getStrain() {
+        return getWeekLoad() * getMonotony();
+    }
+
+    private static int slot(LocalDate day) {
+        return (int) Math.floorMod(day.toEpochDay(), 7L);
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public LocalDate getLastDate() { return lastDate; }
+
+    // Rounding in corrections can leave values a hair below zero
+    public double getAcuteLoad() { return Math.max(acuteLoad, 0); }
+    public double getChronicLoad() { return Math.max(chronicLoad, 0); }
+    public double getAcuteVolume() { return Math.max(acuteVolume, 0); }
+    public double getChronicVolume() { return Math.max(chronicVolume, 0); }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,142 @@
+package com.fitnesscoach.model;
+
+import jakarta.persistence.*;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user set volume by exercise, movement pattern or primary muscle for a day,
+ * an ISO week or a calendar month. The unique key leads with the series columns,
+ * so one series over any date range is a single index range scan.
+ */
+@Entity
+@Table(name = "volume_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "dimension", "dimensionKey", "granularity", "bucketDate"}))
+public class VolumeRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dimension dimension;
+
+    // Exercise id, movement pattern name or primary muscle
+    @Column(nullable = false)
+    private String dimensionKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+
+    // First day of the bucket
+    @Column(nullable = false)
+    private LocalDate bucketDate;
+
+    private int sets;
+    private long reps;
+    private double tonnage; // Sum of weight * reps
+    private int rpeCount; // Sets with a recorded RPE
+    private double rpeSum;
+
+    private Instant updatedAt;
+
+    public VolumeRollup() {}
+
+    public VolumeRollup(UUID userId, Dimension dimension, String dimensionKey, Granularity granularity, LocalDate bucketDate) {
+        this.userId = userId;
+        this.dimension = dimension;
+        this.dimensionKey = dimensionKey;
+        this.granularity = granularity;
+        this.bucketDate = bucketDate;
+    }
+
+    public void reset() {
+        sets = 0;
+        reps = 0;
+        tonnage = 0;
+        rpeCount = 0;
+        rpeSum = 0;
+    }
+
+    public void add(long sets, long reps, double tonnage, long rpeCount, double rpeSum) {
+        this.sets += (int) sets;
+        this.reps += reps;
+        this.tonnage += tonnage;
+        this.rpeCount += (int) rpeCount;
+        this.rpeSum += rpeSum;
+        this.updatedAt = Instant.now();
+    }
+
+    public Double getAverageRPE() {
+        return rpeCount > 0 ? rpeSum / rpeCount : null;
+    }
+
+    public enum Dimension {
+        EXERCISE, MOVEMENT_PATTERN, MUSCLE
+    }
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        /**
+         * First day of the bucket containing {@code date}; weeks start on Monday
+         */
+        public LocalDate bucketStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        public LocalDate bucketEnd(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> bucketStart(date).plusDays(6);
+                case MONTH -> date.withDayOfMonth(date.lengthOfMonth());
+            };
+        }
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Dimension getDimension() { return dimension; }
+    public void setDimension(Dimension dimension) { this.dimension = dimension; }
+
+    public String getDimensionKey() { return dimensionKey; }
+    public void setDimensionKey(String dimensionKey) { this.dimensionKey = dimensionKey; }
+
+    public Granularity getGranularity() { return granularity; }
+    public void setGranularity(Granularity granularity) { this.granularity = granularity; }
+
+    public LocalDate getBucketDate() { return bucketDate; }
+    public void setBucketDate(LocalDate bucketDate) { this.bucketDate = bucketDate; }
+
+    public int getSets() { return sets; }
+    public void setSets(int sets) { this.sets = sets; }
+
+    public long getReps() { return reps; }
+    public void setReps(long reps) { this.reps = reps; }
+
+    public double getTonnage() { return tonnage; }
+    public void setTonnage(double tonnage) { this.tonnage = tonnage; }
+
+    public int getRpeCount() { return rpeCount; }
+    public void setRpeCount(int rpeCount) { this.rpeCount = rpeCount; }
+
+    public double getRpeSum() { return rpeSum; }
+    public void setRpeSum(double rpeSum) { this.rpeSum = rpeSum; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
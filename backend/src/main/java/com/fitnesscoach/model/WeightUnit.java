@@ -1,5 +1,19 @@
 package com.fitnesscoach.model;
 
 public enum WeightUnit {
-    KG, LB
-}
\ No newline at end of file
+    KG(1.0), LB(0.45359237);
+
+    private final double kilograms;
+
+    WeightUnit(double kilograms) {
+        this.kilograms = kilograms;
+    }
+
+    /**
+     * The weight in kilograms; a weight without a unit is taken as kilograms,
+     * the default of every set
+     */
+    public static double toKilograms(double weight, WeightUnit unit) {
+        return unit == null ? weight : weight * unit.kilograms;
+    }
+}
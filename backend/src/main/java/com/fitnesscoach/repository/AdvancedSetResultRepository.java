@@ -1,14 +1,96 @@
 package com.fitnesscoach.repository;
 
 import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.repository.projection.ExerciseStrengthRow;
+import com.fitnesscoach.repository.projection.ExerciseVolumeRow;
+import com.fitnesscoach.repository.projection.RecordSetRow;
+import com.fitnesscoach.repository.projection.SetFactRow;
+import com.fitnesscoach.repository.projection.SketchSetRow;
+import com.fitnesscoach.repository.projection.StrengthSetRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface AdvancedSetResultRepository extends JpaRepository<AdvancedSetResult, UUID> {
     List<AdvancedSetResult> findByWorkoutResultId(UUID workoutResultId);
     List<AdvancedSetResult> findByExerciseId(UUID exerciseId);
-}
\ No newline at end of file
+    Optional<AdvancedSetResult> findByIdAndWorkoutResultId(UUID id, UUID workoutResultId);
+
+    // A null block label matches sets without one
+    List<AdvancedSetResult> findByWorkoutResultIdAndBlockLabelAndBlockItemOrderAndSetNumber(
+            UUID workoutResultId, String blockLabel, int blockItemOrder, int setNumber);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.StrengthSetRow(e.name, s.weight, s.completedAt) " +
+           "FROM AdvancedSetResult s JOIN s.exercise e JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate " +
+           "AND s.resultType = :resultType AND s.weight IS NOT NULL AND s.performedReps IS NOT NULL " +
+           "ORDER BY s.completedAt")
+    List<StrengthSetRow> findStrengthSets(@Param("userId") UUID userId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate,
+                                          @Param("resultType") AdvancedSetResult.ResultType resultType);
+
+    // Epley estimate: weight * (1 + reps / 30)
+    @Query("SELECT new com.fitnesscoach.repository.projection.ExerciseStrengthRow(e.name, " +
+           "MAX(s.weight), MAX(s.weight * (1 + CAST(s.performedReps AS double) / 30)), SUM(s.weight * s.performedReps)) " +
+           "FROM AdvancedSetResult s JOIN s.exercise e JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate " +
+           "AND s.resultType = :resultType AND s.weight IS NOT NULL AND s.performedReps IS NOT NULL " +
+           "GROUP BY e.name")
+    List<ExerciseStrengthRow> summarizeByExercise(@Param("userId") UUID userId,
+                                                  @Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate,
+                                                  @Param("resultType") AdvancedSetResult.ResultType resultType);
+
+    // Chronological, so replaying the rows reproduces the order records were reached in
+    @Query("SELECT new com.fitnesscoach.repository.projection.RecordSetRow(s.exercise.id, w.id, s.weight, s.weightUnit, s.performedReps, w.date) " +
+           "FROM AdvancedSetResult s JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND s.exercise.id IN :exerciseIds " +
+           "AND s.resultType = :resultType AND s.weight IS NOT NULL AND s.performedReps IS NOT NULL " +
+           "ORDER BY w.date, s.completedAt, s.id")
+    List<RecordSetRow> findRecordSets(@Param("userId") UUID userId,
+                                      @Param("exerciseIds") Collection<UUID> exerciseIds,
+                                      @Param("resultType") AdvancedSetResult.ResultType resultType);
+
+    @Query("SELECT DISTINCT s.exercise.id FROM AdvancedSetResult s " +
+           "WHERE s.workoutResult.userId = :userId AND s.resultType = :resultType")
+    List<UUID> findDistinctExerciseIdsByUserId(@Param("userId") UUID userId,
+                                               @Param("resultType") AdvancedSetResult.ResultType resultType);
+
+    @Query("SELECT DISTINCT s.exercise.id FROM AdvancedSetResult s " +
+           "WHERE s.workoutResult.userId = :userId AND s.workoutResult.date >= :from AND s.resultType = :resultType")
+    List<UUID> findDistinctExerciseIdsByUserIdFrom(@Param("userId") UUID userId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("resultType") AdvancedSetResult.ResultType resultType);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.ExerciseVolumeRow(e.id, e.movementPattern, e.primaryMuscle, " +
+           "COUNT(s), SUM(CAST(COALESCE(s.performedReps, 0) AS long)), SUM(COALESCE(s.weight * s.performedReps, 0.0)), " +
+           "COUNT(s.rpe), SUM(COALESCE(s.rpe, 0.0))) " +
+           "FROM AdvancedSetResult s JOIN s.exercise e JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date = :date " +
+           "GROUP BY e.id, e.movementPattern, e.primaryMuscle")
+    List<ExerciseVolumeRow> summarizeVolumeByExercise(@Param("userId") UUID userId, @Param("date") LocalDate date);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.SketchSetRow(s.exercise.id, s.weight, s.performedReps, s.rpe) " +
+           "FROM AdvancedSetResult s JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<SketchSetRow> findSketchSets(@Param("userId") UUID userId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.SetFactRow(s.id, w.id, s.exercise.id, " +
+           "s.performedReps, s.weight, s.rpe) " +
+           "FROM AdvancedSetResult s JOIN s.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<SetFactRow> findSetFacts(@Param("userId") UUID userId,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate);
+}
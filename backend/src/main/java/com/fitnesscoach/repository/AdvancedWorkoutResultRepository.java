@@ -1,17 +1,172 @@
 package com.fitnesscoach.repository;
 
 import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.repository.projection.PersonalRecordsRow;
+import com.fitnesscoach.repository.projection.SessionMetricsRow;
+import com.fitnesscoach.repository.projection.UserDayRow;
+import com.fitnesscoach.repository.projection.WellnessRow;
+import com.fitnesscoach.repository.projection.WodResultRow;
+import com.fitnesscoach.repository.projection.WorkoutDayTotalsRow;
+import com.fitnesscoach.repository.projection.WorkoutFactRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface AdvancedWorkoutResultRepository extends JpaRepository<AdvancedWorkoutResult, UUID> {
     List<AdvancedWorkoutResult> findByUserIdAndDateBetween(UUID userId, LocalDate startDate, LocalDate endDate);
+    List<AdvancedWorkoutResult> findByUserIdAndDate(UUID userId, LocalDate date);
+    List<AdvancedWorkoutResult> findByUserIdAndDateGreaterThanEqual(UUID userId, LocalDate date);
     List<AdvancedWorkoutResult> findByUserId(UUID userId);
     List<AdvancedWorkoutResult> findByUserIdOrderByDateDesc(UUID userId);
     List<AdvancedWorkoutResult> findByTemplateId(UUID templateId);
-}
\ No newline at end of file
+
+    // Locks the row, so concurrent set edits apply their deltas to the totals one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM AdvancedWorkoutResult w WHERE w.id = :id")
+    Optional<AdvancedWorkoutResult> findForUpdateById(@Param("id") UUID id);
+
+    @Query("SELECT MIN(w.date) FROM AdvancedWorkoutResult w WHERE w.userId = :userId")
+    LocalDate findFirstDateByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT MAX(w.date) FROM AdvancedWorkoutResult w WHERE w.userId = :userId")
+    LocalDate findLastDateByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT DISTINCT w.date FROM AdvancedWorkoutResult w WHERE w.userId = :userId AND w.date IS NOT NULL")
+    List<LocalDate> findDistinctDatesByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT COUNT(DISTINCT w.date) FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    long countDistinctDates(@Param("userId") UUID userId,
+                            @Param("startDate") LocalDate startDate,
+                            @Param("endDate") LocalDate endDate);
+
+    // Training days without a daily rollup, e.g. written before rollups were maintained
+    @Query("SELECT DISTINCT new com.fitnesscoach.repository.projection.UserDayRow(w.userId, w.date) " +
+           "FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId IS NOT NULL AND w.date IS NOT NULL AND NOT EXISTS (" +
+           "SELECT r.id FROM AnalyticsDailyRollup r WHERE r.userId = w.userId AND r.bucketDate = w.date)")
+    List<UserDayRow> findDaysWithoutRollup();
+
+    @Query("SELECT w FROM AdvancedWorkoutResult w " +
+           "LEFT JOIN FETCH w.template " +
+           "LEFT JOIN FETCH w.blockResults " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<AdvancedWorkoutResult> findWithBlockResultsForAnalytics(@Param("userId") UUID userId,
+                                                                 @Param("startDate") LocalDate startDate,
+                                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT w FROM AdvancedWorkoutResult w " +
+           "LEFT JOIN FETCH w.template " +
+           "LEFT JOIN FETCH w.blockResults " +
+           "WHERE w.userId = :userId AND w.date IN :dates")
+    List<AdvancedWorkoutResult> findWithBlockResultsForAnalyticsOnDates(@Param("userId") UUID userId,
+                                                                        @Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * Stream a user's results in date order without holding them all in memory.
+     * Rows are fetched from the driver in chunks; the caller must run in a transaction,
+     * close the stream and clear the persistence context as it goes.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT w FROM AdvancedWorkoutResult w LEFT JOIN FETCH w.template " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate ORDER BY w.date, w.id")
+    Stream<AdvancedWorkoutResult> streamByUserIdAndDateBetween(@Param("userId") UUID userId,
+                                                               @Param("startDate") LocalDate startDate,
+                                                               @Param("endDate") LocalDate endDate);
+
+    // Initialize the children of one streamed chunk; bags cannot be fetched together, hence two queries
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT w FROM AdvancedWorkoutResult w " +
+           "LEFT JOIN FETCH w.setResults s LEFT JOIN FETCH s.exercise WHERE w.id IN :ids")
+    List<AdvancedWorkoutResult> fetchSetResults(@Param("ids") Collection<UUID> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT w FROM AdvancedWorkoutResult w LEFT JOIN FETCH w.blockResults WHERE w.id IN :ids")
+    List<AdvancedWorkoutResult> fetchBlockResults(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.WodResultRow(t.title, w.wodResult) " +
+           "FROM AdvancedWorkoutResult w JOIN w.template t " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate " +
+           "AND w.totalRounds IS NOT NULL AND w.wodResult IS NOT NULL AND t.title IS NOT NULL")
+    List<WodResultRow> findWodResults(@Param("userId") UUID userId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    // Mirrors AnalyticsDailyRollup.accumulate so both paths produce identical counters.
+    // Personal records are a serialized column that SQL cannot count, see findPersonalRecords
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.WorkoutDayTotalsRow(w.date, " +
+           "COUNT(w), COUNT(w.totalDurationSeconds), SUM(CAST(w.totalDurationSeconds AS long)), SUM(w.totalVolumeLoad), " +
+           "COUNT(w.averageRPE), SUM(w.averageRPE), SUM(w.averageRPE * w.averageRPE), " +
+           "COUNT(w.emomMinutesTarget), " +
+           "SUM(CASE WHEN w.emomMinutesTarget > 0 THEN CAST(COALESCE(w.emomMinutesCompleted, 0) AS double) / w.emomMinutesTarget * 100 ELSE 0.0 END), " +
+           "SUM(CASE WHEN w.emomMinutesTarget IS NOT NULL THEN COALESCE(w.emomMinutesCompleted, 0) ELSE 0 END), " +
+           "SUM(CAST(w.emomMinutesTarget AS long)), " +
+           "COUNT(w.tabataRoundsTarget), " +
+           "SUM(CASE WHEN w.tabataRoundsTarget IS NOT NULL AND w.tabataAverageReps IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.tabataRoundsTarget IS NOT NULL THEN w.tabataAverageReps END), " +
+           "SUM(CASE WHEN w.tabataRoundsTarget IS NOT NULL THEN COALESCE(w.tabataRoundsCompleted, 0) ELSE 0 END), " +
+           "MAX(CASE WHEN w.tabataRoundsTarget IS NOT NULL THEN w.tabataAverageReps END), " +
+           "SUM(CASE WHEN w.totalRounds IS NOT NULL AND w.wodResult IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.totalRounds IS NOT NULL AND w.wodResult IS NOT NULL THEN w.totalRounds ELSE 0 END), " +
+           "COUNT(w.averageCircuitTime), SUM(w.averageCircuitTime), " +
+           "SUM(CASE WHEN w.averageCircuitTime IS NOT NULL THEN COALESCE(w.circuitRoundsCompleted, 0) ELSE 0 END), " +
+           "MIN(CASE WHEN w.averageCircuitTime IS NOT NULL THEN w.fastestCircuitTimeSeconds END)) " +
+           "FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate " +
+           "GROUP BY w.date ORDER BY w.date")
+    List<WorkoutDayTotalsRow> summarizeByDay(@Param("userId") UUID userId,
+                                             @Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.PersonalRecordsRow(w.personalRecords) " +
+           "FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate AND w.personalRecords IS NOT NULL")
+    List<PersonalRecordsRow> findPersonalRecords(@Param("userId") UUID userId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.SessionMetricsRow(w.totalDurationSeconds, w.averageRPE) " +
+           "FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<SessionMetricsRow> findSessionMetrics(@Param("userId") UUID userId,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.WellnessRow(" +
+           "w.hoursSleptLastNight, w.sleepQuality, w.stressLevel, w.totalVolumeLoad, w.averageRPE) " +
+           "FROM AdvancedWorkoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<WellnessRow> findWellness(@Param("userId") UUID userId,
+                                   @Param("startDate") LocalDate startDate,
+                                   @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT DISTINCT w.userId FROM AdvancedWorkoutResult w")
+    List<UUID> findDistinctUserIds();
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.WorkoutFactRow(w.id, w.userId, p.id, w.date, " +
+           "w.totalDurationSeconds, w.totalReps, w.totalVolumeLoad, w.averageRPE) " +
+           "FROM AdvancedWorkoutResult w LEFT JOIN w.template t LEFT JOIN t.program p " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<WorkoutFactRow> findWorkoutFacts(@Param("userId") UUID userId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,23 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.AnalyticsChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnalyticsChangeRepository extends JpaRepository<AnalyticsChange, Long> {
+    List<AnalyticsChange> findByOrderByIdAsc(Pageable pageable);
+
+    @Query("SELECT MAX(c.id) FROM AnalyticsChange c")
+    Long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM AnalyticsChange c WHERE c.id <= :id")
+    int deleteUpTo(@Param("id") long id);
+}
@@ -0,0 +1,31 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+import com.fitnesscoach.repository.projection.SquadDayRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AnalyticsDailyRollupRepository extends JpaRepository<AnalyticsDailyRollup, UUID> {
+    Optional<AnalyticsDailyRollup> findByUserIdAndBucketDate(UUID userId, LocalDate bucketDate);
+    List<AnalyticsDailyRollup> findByUserIdAndBucketDateIn(UUID userId, Collection<LocalDate> bucketDates);
+    List<AnalyticsDailyRollup> findByUserIdAndBucketDateBetweenOrderByBucketDateAsc(UUID userId, LocalDate startDate, LocalDate endDate);
+    List<AnalyticsDailyRollup> findByUserId(UUID userId);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.SquadDayRow(r.userId, r.bucketDate, r.workoutCount, " +
+           "r.durationCount, r.durationSum, r.volumeSum, r.rpeCount, r.rpeSum, r.rpeSumSquares, " +
+           "r.personalRecordCount, r.sessionLoadSum) " +
+           "FROM AnalyticsDailyRollup r " +
+           "WHERE r.userId IN :userIds AND r.bucketDate BETWEEN :startDate AND :endDate")
+    List<SquadDayRow> findSquadDays(@Param("userIds") Collection<UUID> userIds,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,42 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.AnalyticsDataVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AnalyticsDataVersionRepository extends JpaRepository<AnalyticsDataVersion, UUID> {
+    Optional<AnalyticsDataVersion> findByUserId(UUID userId);
+
+    // Read from the table, not a loaded entity the in-place increment left behind
+    @Query("SELECT v.dataVersion FROM AnalyticsDataVersion v WHERE v.userId = :userId")
+    Long findDataVersionByUserId(@Param("userId") UUID userId);
+
+    // Locks the row, so derivations of one user's analytics run one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM AnalyticsDataVersion v WHERE v.userId = :userId")
+    Optional<AnalyticsDataVersion> findForUpdateByUserId(@Param("userId") UUID userId);
+
+    // Creates the user's row at version 0 unless there is one. With only the key listed,
+    // H2's MERGE ... KEY leaves an existing row as it is, and a concurrent insert of the
+    // same user is waited for rather than failing on the primary key
+    @Modifying
+    @Query(value = "MERGE INTO analytics_data_versions (user_id) KEY (user_id) VALUES (:userId)",
+           nativeQuery = true)
+    void createIfAbsent(@Param("userId") UUID userId);
+
+    // In-place increment, so concurrent writers never lose a bump
+    @Modifying
+    @Query("UPDATE AnalyticsDataVersion v SET v.dataVersion = v.dataVersion + 1, v.updatedAt = :now " +
+           "WHERE v.userId = :userId")
+    int increment(@Param("userId") UUID userId, @Param("now") Instant now);
+}
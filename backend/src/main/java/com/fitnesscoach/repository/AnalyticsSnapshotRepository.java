@@ -0,0 +1,35 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.AnalyticsSnapshot;
+import com.fitnesscoach.repository.projection.SnapshotVersionRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AnalyticsSnapshotRepository extends JpaRepository<AnalyticsSnapshot, UUID> {
+    Optional<AnalyticsSnapshot> findByUserIdAndPeriod(UUID userId, AnalyticsSnapshot.Period period);
+
+    // Snapshot and version in one statement, so a current snapshot costs a single read
+    @Query("SELECT new com.fitnesscoach.repository.projection.SnapshotVersionRow(s, v.dataVersion) " +
+           "FROM AnalyticsSnapshot s LEFT JOIN AnalyticsDataVersion v ON v.userId = s.userId " +
+           "WHERE s.userId = :userId AND s.period = :period")
+    Optional<SnapshotVersionRow> findWithDataVersion(@Param("userId") UUID userId,
+                                                     @Param("period") AnalyticsSnapshot.Period period);
+
+    // Inserts or replaces the period's snapshot in one statement. H2's MERGE ... KEY waits
+    // for a concurrent first store of the same period instead of failing on the unique key
+    @Modifying
+    @Query(value = "MERGE INTO analytics_snapshots " +
+                   "(user_id, period, id, data_version, start_date, end_date, payload, computed_at) " +
+                   "KEY (user_id, period) VALUES (:#{#snapshot.userId}, :#{#snapshot.period.name()}, " +
+                   "COALESCE(:#{#snapshot.id}, RANDOM_UUID()), :#{#snapshot.dataVersion}, " +
+                   ":#{#snapshot.startDate}, :#{#snapshot.endDate}, :#{#snapshot.payload}, :#{#snapshot.computedAt})",
+           nativeQuery = true)
+    void upsert(@Param("snapshot") AnalyticsSnapshot snapshot);
+}
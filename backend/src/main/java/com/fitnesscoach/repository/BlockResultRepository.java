@@ -2,9 +2,16 @@ package com.fitnesscoach.repository;
 
 import com.fitnesscoach.model.BlockResult;
 import com.fitnesscoach.model.ExerciseBlock;
+import com.fitnesscoach.repository.projection.BlockFactRow;
+import com.fitnesscoach.repository.projection.BlockTypeCompletionRow;
+import com.fitnesscoach.repository.projection.UserBlockResultRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +19,37 @@ import java.util.UUID;
 public interface BlockResultRepository extends JpaRepository<BlockResult, UUID> {
     List<BlockResult> findByWorkoutResultId(UUID workoutResultId);
     List<BlockResult> findByBlockType(ExerciseBlock.BlockType blockType);
-}
\ No newline at end of file
+
+    @Query("SELECT b FROM BlockResult b JOIN FETCH b.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate AND b.blockType = :blockType")
+    List<BlockResult> findByUserIdAndDateBetweenAndBlockType(@Param("userId") UUID userId,
+                                                             @Param("startDate") LocalDate startDate,
+                                                             @Param("endDate") LocalDate endDate,
+                                                             @Param("blockType") ExerciseBlock.BlockType blockType);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.UserBlockResultRow(w.userId, b) " +
+           "FROM BlockResult b JOIN b.workoutResult w " +
+           "WHERE w.userId IN :userIds AND w.date BETWEEN :startDate AND :endDate AND b.blockType IN :blockTypes " +
+           "ORDER BY w.date, w.id")
+    List<UserBlockResultRow> findForReports(@Param("userIds") Collection<UUID> userIds,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate,
+                                            @Param("blockTypes") Collection<ExerciseBlock.BlockType> blockTypes);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.BlockTypeCompletionRow(b.blockType, COUNT(b), " +
+           "SUM(CASE WHEN b.completedAsPlanned = true THEN 1L ELSE 0L END)) " +
+           "FROM BlockResult b JOIN b.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate AND b.blockType IS NOT NULL " +
+           "GROUP BY b.blockType")
+    List<BlockTypeCompletionRow> summarizeByBlockType(@Param("userId") UUID userId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.BlockFactRow(b.id, w.id, b.blockType, " +
+           "b.totalTimeSeconds, b.completionPercentage, b.averageRPE, b.totalVolumeLoad) " +
+           "FROM BlockResult b JOIN b.workoutResult w " +
+           "WHERE w.userId = :userId AND w.date BETWEEN :startDate AND :endDate")
+    List<BlockFactRow> findBlockFacts(@Param("userId") UUID userId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+}
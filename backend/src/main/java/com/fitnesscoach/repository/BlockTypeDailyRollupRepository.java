@@ -0,0 +1,30 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.BlockTypeDailyRollup;
+import com.fitnesscoach.repository.projection.BlockTypeCompletionRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BlockTypeDailyRollupRepository extends JpaRepository<BlockTypeDailyRollup, UUID> {
+    List<BlockTypeDailyRollup> findByUserIdAndBucketDate(UUID userId, LocalDate bucketDate);
+    List<BlockTypeDailyRollup> findByUserIdAndBucketDateIn(UUID userId, Collection<LocalDate> bucketDates);
+    List<BlockTypeDailyRollup> findByUserIdAndBucketDateBetween(UUID userId, LocalDate startDate, LocalDate endDate);
+    List<BlockTypeDailyRollup> findByUserId(UUID userId);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.BlockTypeCompletionRow(r.blockType, " +
+           "SUM(CAST(r.attempts AS long)), SUM(CAST(r.successes AS long))) " +
+           "FROM BlockTypeDailyRollup r " +
+           "WHERE r.userId = :userId AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.blockType")
+    List<BlockTypeCompletionRow> summarizeByBlockType(@Param("userId") UUID userId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+}
@@ -1,6 +1,7 @@
 package com.fitnesscoach.repository;
 
 import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.repository.projection.ExerciseNameRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,6 +23,9 @@ public interface ExerciseRepository extends JpaRepository<Exercise, UUID> {
     @Query("SELECT e FROM Exercise e WHERE LOWER(e.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Exercise> findByNameContainingIgnoreCase(@Param("searchTerm") String searchTerm);
 
+    @Query("SELECT new com.fitnesscoach.repository.projection.ExerciseNameRow(e.id, e.name) FROM Exercise e")
+    List<ExerciseNameRow> findAllNames();
+
     @Query("SELECT e FROM Exercise e WHERE LOWER(e.primaryMuscle) LIKE LOWER(CONCAT('%', :muscle, '%'))")
     List<Exercise> findByPrimaryMuscleContainingIgnoreCase(@Param("muscle") String muscle);
 }
\ No newline at end of file
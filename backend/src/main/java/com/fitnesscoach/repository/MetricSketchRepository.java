@@ -0,0 +1,28 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.MetricSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MetricSketchRepository extends JpaRepository<MetricSketch, UUID> {
+    List<MetricSketch> findByUserIdAndBucketMonth(UUID userId, LocalDate bucketMonth);
+    List<MetricSketch> findByUserId(UUID userId);
+
+    // A null exercise id selects every exercise of a per-exercise metric
+    @Query("SELECT s FROM MetricSketch s " +
+           "WHERE s.userId = :userId AND s.metric = :metric " +
+           "AND (:exerciseId IS NULL OR s.exerciseId = :exerciseId) " +
+           "AND s.bucketMonth BETWEEN :startMonth AND :endMonth")
+    List<MetricSketch> findForRange(@Param("userId") UUID userId,
+                                    @Param("metric") MetricSketch.Metric metric,
+                                    @Param("exerciseId") UUID exerciseId,
+                                    @Param("startMonth") LocalDate startMonth,
+                                    @Param("endMonth") LocalDate endMonth);
+}
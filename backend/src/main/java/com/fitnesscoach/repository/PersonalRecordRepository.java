@@ -0,0 +1,20 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.PersonalRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PersonalRecordRepository extends JpaRepository<PersonalRecord, UUID> {
+    List<PersonalRecord> findByUserId(UUID userId);
+    List<PersonalRecord> findByUserIdAndExerciseIdIn(UUID userId, Collection<UUID> exerciseIds);
+
+    @Query("SELECT p FROM PersonalRecord p JOIN FETCH p.exercise WHERE p.userId = :userId")
+    List<PersonalRecord> findWithExerciseByUserId(@Param("userId") UUID userId);
+}
@@ -0,0 +1,21 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.SetEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SetEventRepository extends JpaRepository<SetEvent, Long> {
+    List<SetEvent> findByWorkoutResultIdOrderByIdAsc(UUID workoutResultId);
+
+    @Query("SELECT DISTINCT e.workoutResultId FROM SetEvent e")
+    List<UUID> findDistinctWorkoutResultIds();
+
+    @Query("SELECT MAX(e.sequence) FROM SetEvent e WHERE e.workoutResultId = :workoutResultId")
+    Long findMaxSequence(@Param("workoutResultId") UUID workoutResultId);
+}
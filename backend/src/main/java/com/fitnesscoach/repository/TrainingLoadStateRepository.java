@@ -0,0 +1,22 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.TrainingLoadState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TrainingLoadStateRepository extends JpaRepository<TrainingLoadState, UUID> {
+    Optional<TrainingLoadState> findByUserId(UUID userId);
+
+    // Locks the row, so changes of a user's daily loads are applied one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TrainingLoadState s WHERE s.userId = :userId")
+    Optional<TrainingLoadState> findForUpdateByUserId(@Param("userId") UUID userId);
+}
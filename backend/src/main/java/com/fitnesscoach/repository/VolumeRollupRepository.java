@@ -0,0 +1,52 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.VolumeRollup;
+import com.fitnesscoach.repository.projection.VolumeTotalsRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface VolumeRollupRepository extends JpaRepository<VolumeRollup, UUID> {
+    List<VolumeRollup> findByUserIdAndGranularityAndBucketDate(UUID userId, VolumeRollup.Granularity granularity,
+                                                               LocalDate bucketDate);
+    List<VolumeRollup> findByUserIdAndGranularity(UUID userId, VolumeRollup.Granularity granularity);
+
+    // One series, e.g. weekly hinge volume over a year
+    @Query("SELECT r FROM VolumeRollup r " +
+           "WHERE r.userId = :userId AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey " +
+           "AND r.granularity = :granularity AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY r.bucketDate")
+    List<VolumeRollup> findSeries(@Param("userId") UUID userId,
+                                  @Param("dimension") VolumeRollup.Dimension dimension,
+                                  @Param("dimensionKey") String dimensionKey,
+                                  @Param("granularity") VolumeRollup.Granularity granularity,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate);
+
+    // Every key of a dimension, e.g. weekly volume per muscle
+    @Query("SELECT r FROM VolumeRollup r " +
+           "WHERE r.userId = :userId AND r.dimension = :dimension " +
+           "AND r.granularity = :granularity AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY r.dimensionKey, r.bucketDate")
+    List<VolumeRollup> findByDimension(@Param("userId") UUID userId,
+                                       @Param("dimension") VolumeRollup.Dimension dimension,
+                                       @Param("granularity") VolumeRollup.Granularity granularity,
+                                       @Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.fitnesscoach.repository.projection.VolumeTotalsRow(r.dimension, r.dimensionKey, " +
+           "SUM(CAST(r.sets AS long)), SUM(r.reps), SUM(r.tonnage), SUM(CAST(r.rpeCount AS long)), SUM(r.rpeSum)) " +
+           "FROM VolumeRollup r " +
+           "WHERE r.userId = :userId AND r.granularity = :granularity AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.dimension, r.dimensionKey")
+    List<VolumeTotalsRow> summarize(@Param("userId") UUID userId,
+                                    @Param("granularity") VolumeRollup.Granularity granularity,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,14 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.ExerciseBlock;
+
+import java.util.UUID;
+
+/**
+ * A block result flattened for the analytics store; the user, program and date come
+ * from its workout
+ */
+public record BlockFactRow(UUID blockResultId, UUID workoutId, ExerciseBlock.BlockType blockType,
+                           Integer totalTimeSeconds, Double completionPercentage,
+                           Double averageRPE, Double totalVolumeLoad) {
+}
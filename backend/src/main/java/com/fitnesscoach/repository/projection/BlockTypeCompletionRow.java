@@ -0,0 +1,13 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.ExerciseBlock;
+
+/**
+ * Attempts and blocks completed as planned, grouped by block type
+ */
+public record BlockTypeCompletionRow(ExerciseBlock.BlockType blockType, Long attempts, Long successes) {
+
+    public double getCompletionRate() {
+        return attempts != null && attempts > 0 ? (double) successes / attempts * 100 : 0.0;
+    }
+}
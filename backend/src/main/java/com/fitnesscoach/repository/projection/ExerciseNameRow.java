@@ -0,0 +1,9 @@
+package com.fitnesscoach.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Id and name of a catalog exercise, for name resolution
+ */
+public record ExerciseNameRow(UUID id, String name) {
+}
@@ -0,0 +1,8 @@
+package com.fitnesscoach.repository.projection;
+
+/**
+ * Per-exercise strength aggregates reduced by the database.
+ * The estimated 1RM is the best Epley estimate over all straight sets.
+ */
+public record ExerciseStrengthRow(String exerciseName, Double maxWeight, Double estimatedOneRepMax, Double totalVolumeLoad) {
+}
@@ -0,0 +1,12 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.MovementPattern;
+
+import java.util.UUID;
+
+/**
+ * One day's set volume for one exercise, with the exercise's classification
+ */
+public record ExerciseVolumeRow(UUID exerciseId, MovementPattern movementPattern, String primaryMuscle,
+                                Long sets, Long reps, Double tonnage, Long rpeCount, Double rpeSum) {
+}
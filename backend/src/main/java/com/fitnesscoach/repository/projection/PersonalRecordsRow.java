@@ -0,0 +1,13 @@
+package com.fitnesscoach.repository.projection;
+
+import java.util.List;
+
+/**
+ * Personal records of a single workout, read without loading the workout
+ */
+public record PersonalRecordsRow(List<Double> personalRecords) {
+
+    public int getCount() {
+        return personalRecords != null ? personalRecords.size() : 0;
+    }
+}
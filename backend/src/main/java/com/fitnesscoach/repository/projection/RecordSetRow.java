@@ -0,0 +1,17 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.WeightUnit;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A straight set replayed when personal records are rebuilt
+ */
+public record RecordSetRow(UUID exerciseId, UUID workoutResultId, double weight, WeightUnit weightUnit,
+                           int reps, LocalDate date) {
+
+    public double weightInKilograms() {
+        return WeightUnit.toKilograms(weight, weightUnit);
+    }
+}
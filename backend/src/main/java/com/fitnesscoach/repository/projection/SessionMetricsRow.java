@@ -0,0 +1,7 @@
+package com.fitnesscoach.repository.projection;
+
+/**
+ * The sketched metrics of one workout session
+ */
+public record SessionMetricsRow(Integer totalDurationSeconds, Double averageRPE) {
+}
@@ -0,0 +1,11 @@
+package com.fitnesscoach.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * A set result flattened for the analytics store; the user, program and date come
+ * from its workout
+ */
+public record SetFactRow(UUID setResultId, UUID workoutId, UUID exerciseId,
+                         Integer performedReps, Double weight, Double rpe) {
+}
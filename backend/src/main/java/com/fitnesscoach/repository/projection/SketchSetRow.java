@@ -0,0 +1,9 @@
+package com.fitnesscoach.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * The sketched metrics of one set
+ */
+public record SketchSetRow(UUID exerciseId, Double weight, Integer reps, Double rpe) {
+}
@@ -0,0 +1,9 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.AnalyticsSnapshot;
+
+/**
+ * A stored snapshot with the user's current data version, null if never bumped
+ */
+public record SnapshotVersionRow(AnalyticsSnapshot snapshot, Long dataVersion) {
+}
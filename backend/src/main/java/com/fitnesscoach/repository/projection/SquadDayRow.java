@@ -0,0 +1,12 @@
+package com.fitnesscoach.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The counters of one athlete's daily rollup needed for squad analytics
+ */
+public record SquadDayRow(UUID userId, LocalDate bucketDate, int workoutCount, int durationCount, long durationSum,
+                          double volumeSum, int rpeCount, double rpeSum, double rpeSumSquares,
+                          int personalRecordCount, double sessionLoadSum) {
+}
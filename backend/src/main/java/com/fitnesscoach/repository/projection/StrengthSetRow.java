@@ -0,0 +1,9 @@
+package com.fitnesscoach.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * A single straight-set weight point for the strength weight history
+ */
+public record StrengthSetRow(String exerciseName, Double weight, Instant completedAt) {
+}
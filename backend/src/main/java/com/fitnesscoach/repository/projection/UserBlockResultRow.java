@@ -0,0 +1,11 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.BlockResult;
+
+import java.util.UUID;
+
+/**
+ * A block result with the user of its workout, read without loading the workout
+ */
+public record UserBlockResultRow(UUID userId, BlockResult blockResult) {
+}
@@ -0,0 +1,10 @@
+package com.fitnesscoach.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A day on which a user has results
+ */
+public record UserDayRow(UUID userId, LocalDate date) {
+}
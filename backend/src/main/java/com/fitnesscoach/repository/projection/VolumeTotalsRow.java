@@ -0,0 +1,10 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.VolumeRollup;
+
+/**
+ * Volume summed over several rollup buckets of one dimension key
+ */
+public record VolumeTotalsRow(VolumeRollup.Dimension dimension, String dimensionKey,
+                              Long sets, Long reps, Double tonnage, Long rpeCount, Double rpeSum) {
+}
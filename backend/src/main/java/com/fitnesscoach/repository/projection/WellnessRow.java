@@ -0,0 +1,8 @@
+package com.fitnesscoach.repository.projection;
+
+/**
+ * The pre-workout wellness check-in of one session and how the session went
+ */
+public record WellnessRow(Double hoursSleptLastNight, Integer sleepQuality, Integer stressLevel,
+                          Double totalVolumeLoad, Double averageRPE) {
+}
@@ -0,0 +1,7 @@
+package com.fitnesscoach.repository.projection;
+
+/**
+ * Session title and WOD result of an AMRAP/For Time workout
+ */
+public record WodResultRow(String sessionTitle, String wodResult) {
+}
@@ -0,0 +1,73 @@
+package com.fitnesscoach.repository.projection;
+
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user workout totals for one training day, reduced by the database.
+ * Carries the same counters as {@link AnalyticsDailyRollup} so history that has
+ * no rollups yet can be aggregated without loading workout entities.
+ */
+public record WorkoutDayTotalsRow(
+        LocalDate date,
+        Long workoutCount,
+        Long durationCount,
+        Long durationSum,
+        Double volumeSum,
+        Long rpeCount,
+        Double rpeSum,
+        Double rpeSumSquares,
+        Long emomWorkouts,
+        Double emomCompletionRateSum,
+        Long emomMinutesCompleted,
+        Long emomMinutesTarget,
+        Long tabataWorkouts,
+        Long tabataRepsCount,
+        Double tabataRepsSum,
+        Long tabataRoundsCompleted,
+        Double tabataBestReps,
+        Long amrapWorkouts,
+        Long amrapRoundsSum,
+        Long circuitWorkouts,
+        Double circuitTimeSum,
+        Long circuitRoundsCompleted,
+        Integer circuitFastestSeconds) {
+
+    // Unpersisted rollup view of this day, SUM over no matching rows yields null
+    public AnalyticsDailyRollup toRollup(UUID userId) {
+        AnalyticsDailyRollup rollup = new AnalyticsDailyRollup(userId, date);
+        rollup.setWorkoutCount(asInt(workoutCount));
+        rollup.setDurationCount(asInt(durationCount));
+        rollup.setDurationSum(durationSum != null ? durationSum : 0L);
+        rollup.setVolumeSum(asDouble(volumeSum));
+        rollup.setRpeCount(asInt(rpeCount));
+        rollup.setRpeSum(asDouble(rpeSum));
+        rollup.setRpeSumSquares(asDouble(rpeSumSquares));
+        rollup.setEmomWorkouts(asInt(emomWorkouts));
+        rollup.setEmomCompletionRateSum(asDouble(emomCompletionRateSum));
+        rollup.setEmomMinutesCompleted(asInt(emomMinutesCompleted));
+        rollup.setEmomMinutesTarget(asInt(emomMinutesTarget));
+        rollup.setTabataWorkouts(asInt(tabataWorkouts));
+        rollup.setTabataRepsCount(asInt(tabataRepsCount));
+        rollup.setTabataRepsSum(asDouble(tabataRepsSum));
+        rollup.setTabataRoundsCompleted(asInt(tabataRoundsCompleted));
+        rollup.setTabataBestReps(asDouble(tabataBestReps));
+        rollup.setAmrapWorkouts(asInt(amrapWorkouts));
+        rollup.setAmrapRoundsSum(asInt(amrapRoundsSum));
+        rollup.setCircuitWorkouts(asInt(circuitWorkouts));
+        rollup.setCircuitTimeSum(asDouble(circuitTimeSum));
+        rollup.setCircuitRoundsCompleted(asInt(circuitRoundsCompleted));
+        rollup.setCircuitFastestSeconds(circuitFastestSeconds);
+        return rollup;
+    }
+
+    private static int asInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
+    private static double asDouble(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
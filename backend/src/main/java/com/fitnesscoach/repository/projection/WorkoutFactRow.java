@@ -0,0 +1,12 @@
+package com.fitnesscoach.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A workout session flattened for the analytics store
+ */
+public record WorkoutFactRow(UUID workoutId, UUID userId, UUID programId, LocalDate date,
+                             Integer totalDurationSeconds, Integer totalReps,
+                             Double totalVolumeLoad, Double averageRPE) {
+}
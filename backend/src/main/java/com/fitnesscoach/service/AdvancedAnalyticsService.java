@@ -2,19 +2,41 @@ package com.fitnesscoach.service;
 
 import com.fitnesscoach.model.*;
 import com.fitnesscoach.repository.*;
+import com.fitnesscoach.repository.projection.PersonalRecordsRow;
+import com.fitnesscoach.repository.projection.StrengthSetRow;
+import com.fitnesscoach.repository.projection.UserBlockResultRow;
+import com.fitnesscoach.repository.projection.WellnessRow;
+import com.fitnesscoach.repository.projection.WodResultRow;
+import com.fitnesscoach.repository.projection.WorkoutDayTotalsRow;
+import com.fitnesscoach.util.NumericKernels;
+import com.fitnesscoach.util.QuantileSketch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Advanced analytics service for tracking performance across all workout types
  * Provides comprehensive metrics, trends, and insights
  */
 @Service
+@Transactional(readOnly = true)
 public class AdvancedAnalyticsService {
 
     @Autowired
@@ -26,6 +48,35 @@ public class AdvancedAnalyticsService {
     @Autowired
     private BlockResultRepository blockResultRepository;
 
+    @Autowired
+    private AnalyticsRollupService rollupService;
+
+    @Autowired
+    @Qualifier("reportExecutor")
+    private ExecutorService reportExecutor;
+
+    @Autowired
+    private MonthlyAnalyticsCache monthlyCache;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private MetricSketchService metricSketchService;
+
+    @Autowired
+    private TrainingLoadService trainingLoadService;
+
+    @Autowired
+    private AnalyticsStoreService analyticsStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Workouts folded between persistence context clears when scanning raw history
+    @Value("${fitnesscoach.analytics.stream.chunk-size:256}")
+    private int streamChunkSize;
+
     /**
      * Comprehensive workout analytics for all workout types
      */
@@ -48,8 +99,8 @@ public class AdvancedAnalyticsService {
         private Map<String, Double> oneRepMaxEstimates;
 
         // Performance trends
-        private Map<String, List<Double>> performanceTrends;
-        private Map<String, Double> weeklyProgress;
+        private Map<String, double[]> performanceTrends;
+        private Map<String, Double> weeklyProgress; // Volume load per week, keyed by its Monday
 
         // Consistency metrics
         private double workoutConsistency; // How regularly workouts are completed
@@ -90,8 +141,8 @@ public class AdvancedAnalyticsService {
         public Map<String, Double> getOneRepMaxEstimates() { return oneRepMaxEstimates; }
         public void setOneRepMaxEstimates(Map<String, Double> oneRepMaxEstimates) { this.oneRepMaxEstimates = oneRepMaxEstimates; }
 
-        public Map<String, List<Double>> getPerformanceTrends() { return performanceTrends; }
-        public void setPerformanceTrends(Map<String, List<Double>> performanceTrends) { this.performanceTrends = performanceTrends; }
+        public Map<String, double[]> getPerformanceTrends() { return performanceTrends; }
+        public void setPerformanceTrends(Map<String, double[]> performanceTrends) { this.performanceTrends = performanceTrends; }
 
         public Map<String, Double> getWeeklyProgress() { return weeklyProgress; }
         public void setWeeklyProgress(Map<String, Double> weeklyProgress) { this.weeklyProgress = weeklyProgress; }
@@ -143,7 +194,7 @@ public class AdvancedAnalyticsService {
         private double averageRepsPerRound;
         private int totalRoundsCompleted;
         private Map<String, Double> exerciseAverageReps;
-        private List<Double> repsHistory;
+        private double[] repsHistory;
         private double bestAverageReps;
         private LocalDate bestPerformanceDate;
 
@@ -157,8 +208,8 @@ public class AdvancedAnalyticsService {
         public Map<String, Double> getExerciseAverageReps() { return exerciseAverageReps; }
         public void setExerciseAverageReps(Map<String, Double> exerciseAverageReps) { this.exerciseAverageReps = exerciseAverageReps; }
 
-        public List<Double> getRepsHistory() { return repsHistory; }
-        public void setRepsHistory(List<Double> repsHistory) { this.repsHistory = repsHistory; }
+        public double[] getRepsHistory() { return repsHistory; }
+        public void setRepsHistory(double[] repsHistory) { this.repsHistory = repsHistory; }
 
         public double getBestAverageReps() { return bestAverageReps; }
         public void setBestAverageReps(double bestAverageReps) { this.bestAverageReps = bestAverageReps; }
@@ -203,7 +254,7 @@ public class AdvancedAnalyticsService {
         private double averageRoundTime;
         private int totalRoundsCompleted;
         private Map<String, Double> exerciseAverageTimes;
-        private List<Double> roundTimeHistory;
+        private double[] roundTimeHistory;
         private double fastestRoundTime;
         private LocalDate fastestRoundDate;
 
@@ -217,8 +268,8 @@ public class AdvancedAnalyticsService {
         public Map<String, Double> getExerciseAverageTimes() { return exerciseAverageTimes; }
         public void setExerciseAverageTimes(Map<String, Double> exerciseAverageTimes) { this.exerciseAverageTimes = exerciseAverageTimes; }
 
-        public List<Double> getRoundTimeHistory() { return roundTimeHistory; }
-        public void setRoundTimeHistory(List<Double> roundTimeHistory) { this.roundTimeHistory = roundTimeHistory; }
+        public double[] getRoundTimeHistory() { return roundTimeHistory; }
+        public void setRoundTimeHistory(double[] roundTimeHistory) { this.roundTimeHistory = roundTimeHistory; }
 
         public double getFastestRoundTime() { return fastestRoundTime; }
         public void setFastestRoundTime(double fastestRoundTime) { this.fastestRoundTime = fastestRoundTime; }
@@ -231,7 +282,7 @@ public class AdvancedAnalyticsService {
         private double maxWeight;
         private double estimatedOneRepMax;
         private double totalVolumeLoad;
-        private List<Double> weightHistory;
+        private double[] weightHistory;
         private Map<String, Double> repMaxes; // "1RM", "3RM", "5RM", etc.
         private double strengthGain; // Percentage gain over time period
         private LocalDate maxWeightDate;
@@ -246,8 +297,8 @@ public class AdvancedAnalyticsService {
         public double getTotalVolumeLoad() { return totalVolumeLoad; }
         public void setTotalVolumeLoad(double totalVolumeLoad) { this.totalVolumeLoad = totalVolumeLoad; }
 
-        public List<Double> getWeightHistory() { return weightHistory; }
-        public void setWeightHistory(List<Double> weightHistory) { this.weightHistory = weightHistory; }
+        public double[] getWeightHistory() { return weightHistory; }
+        public void setWeightHistory(double[] weightHistory) { this.weightHistory = weightHistory; }
 
         public Map<String, Double> getRepMaxes() { return repMaxes; }
         public void setRepMaxes(Map<String, Double> repMaxes) { this.repMaxes = repMaxes; }
@@ -259,348 +310,559 @@ public class AdvancedAnalyticsService {
         public void setMaxWeightDate(LocalDate maxWeightDate) { this.maxWeightDate = maxWeightDate; }
     }
 
-    /**
-     * Generate comprehensive analytics for a user within a date range
-     */
-    public WorkoutAnalytics generateAnalytics(UUID userId, LocalDate startDate, LocalDate endDate) {
-        WorkoutAnalytics analytics = new WorkoutAnalytics();
+    public static class TrainingLoadAnalytics {
+        private LocalDate date;
+        private LocalDate lastTrainingDate;
+        private double acuteLoad; // 7 day EWMA of session-RPE load
+        private double chronicLoad; // 28 day EWMA of session-RPE load
+        private double acuteChronicRatio;
+        private double acuteVolume;
+        private double chronicVolume;
+        private double volumeAcuteChronicRatio;
+        private double weeklyLoad;
+        private double monotony;
+        private double strain;
 
-        List<AdvancedWorkoutResult> workouts = workoutResultRepository
-            .findByUserIdAndDateBetween(userId, startDate, endDate);
+        // Getters and setters
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
 
-        if (workouts.isEmpty()) {
-            return analytics;
-        }
+        public LocalDate getLastTrainingDate() { return lastTrainingDate; }
+        public void setLastTrainingDate(LocalDate lastTrainingDate) { this.lastTrainingDate = lastTrainingDate; }
 
-        // Calculate overall metrics
-        calculateOverallMetrics(analytics, workouts);
+        public double getAcuteLoad() { return acuteLoad; }
+        public void setAcuteLoad(double acuteLoad) { this.acuteLoad = acuteLoad; }
 
-        // Calculate workout-type specific metrics
-        calculateEMOMMetrics(analytics, workouts);
-        calculateTabataMetrics(analytics, workouts);
-        calculateAMRAPMetrics(analytics, workouts);
-        calculateCircuitMetrics(analytics, workouts);
-        calculateStrengthMetrics(analytics, workouts);
+        public double getChronicLoad() { return chronicLoad; }
+        public void setChronicLoad(double chronicLoad) { this.chronicLoad = chronicLoad; }
 
-        // Calculate trends and consistency
-        calculateTrends(analytics, workouts);
-        calculateConsistency(analytics, workouts, startDate, endDate);
+        public double getAcuteChronicRatio() { return acuteChronicRatio; }
+        public void setAcuteChronicRatio(double acuteChronicRatio) { this.acuteChronicRatio = acuteChronicRatio; }
 
-        return analytics;
+        public double getAcuteVolume() { return acuteVolume; }
+        public void setAcuteVolume(double acuteVolume) { this.acuteVolume = acuteVolume; }
+
+        public double getChronicVolume() { return chronicVolume; }
+        public void setChronicVolume(double chronicVolume) { this.chronicVolume = chronicVolume; }
+
+        public double getVolumeAcuteChronicRatio() { return volumeAcuteChronicRatio; }
+        public void setVolumeAcuteChronicRatio(double volumeAcuteChronicRatio) { this.volumeAcuteChronicRatio = volumeAcuteChronicRatio; }
+
+        public double getWeeklyLoad() { return weeklyLoad; }
+        public void setWeeklyLoad(double weeklyLoad) { this.weeklyLoad = weeklyLoad; }
+
+        public double getMonotony() { return monotony; }
+        public void setMonotony(double monotony) { this.monotony = monotony; }
+
+        public double getStrain() { return strain; }
+        public void setStrain(double strain) { this.strain = strain; }
     }
 
-    private void calculateOverallMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        analytics.setTotalWorkouts(workouts.size());
+    public static class DistributionAnalytics {
+        private long count;
+        private double min;
+        private double max;
+        private Map<String, Double> percentiles; // "p50", "p75", "p90", "p95", "p99"
+        private double relativeError; // Bound on the relative error of every percentile
 
-        double avgDuration = workouts.stream()
-            .filter(w -> w.getTotalDurationSeconds() != null)
-            .mapToInt(AdvancedWorkoutResult::getTotalDurationSeconds)
-            .average()
-            .orElse(0.0);
-        analytics.setAverageSessionDuration(avgDuration);
+        // Getters and setters
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
 
-        double totalVolume = workouts.stream()
-            .filter(w -> w.getTotalVolumeLoad() != null)
-            .mapToDouble(AdvancedWorkoutResult::getTotalVolumeLoad)
-            .sum();
-        analytics.setTotalVolumeLoad(totalVolume);
+        public double getMin() { return min; }
+        public void setMin(double min) { this.min = min; }
 
-        double avgRPE = workouts.stream()
-            .filter(w -> w.getAverageRPE() != null)
-            .mapToDouble(AdvancedWorkoutResult::getAverageRPE)
-            .average()
-            .orElse(0.0);
-        analytics.setAverageRPE(avgRPE);
+        public double getMax() { return max; }
+        public void setMax(double max) { this.max = max; }
 
-        int prs = workouts.stream()
-            .mapToInt(w -> w.getPersonalRecords() != null ? w.getPersonalRecords().size() : 0)
-            .sum();
-        analytics.setPersonalRecords(prs);
-    }
-
-    private void calculateEMOMMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, EMOMAnalytics> emomMetrics = new HashMap<>();
-
-        List<AdvancedWorkoutResult> emomWorkouts = workouts.stream()
-            .filter(w -> w.getEmomMinutesTarget() != null)
-            .collect(Collectors.toList());
-
-        if (!emomWorkouts.isEmpty()) {
-            EMOMAnalytics emomAnalytics = new EMOMAnalytics();
-
-            double avgCompletionRate = emomWorkouts.stream()
-                .mapToDouble(w -> {
-                    if (w.getEmomMinutesTarget() != null && w.getEmomMinutesTarget() > 0) {
-                        int completed = w.getEmomMinutesCompleted() != null ? w.getEmomMinutesCompleted() : 0;
-                        return (double) completed / w.getEmomMinutesTarget() * 100;
-                    }
-                    return 0.0;
-                })
-                .average()
-                .orElse(0.0);
-            emomAnalytics.setAverageCompletionRate(avgCompletionRate);
-
-            int totalCompleted = emomWorkouts.stream()
-                .mapToInt(w -> w.getEmomMinutesCompleted() != null ? w.getEmomMinutesCompleted() : 0)
-                .sum();
-            emomAnalytics.setTotalMinutesCompleted(totalCompleted);
-
-            int totalAttempted = emomWorkouts.stream()
-                .mapToInt(w -> w.getEmomMinutesTarget() != null ? w.getEmomMinutesTarget() : 0)
-                .sum();
-            emomAnalytics.setTotalMinutesAttempted(totalAttempted);
-
-            emomMetrics.put("overall", emomAnalytics);
+        public Map<String, Double> getPercentiles() { return percentiles; }
+        public void setPercentiles(Map<String, Double> percentiles) { this.percentiles = percentiles; }
+
+        public double getRelativeError() { return relativeError; }
+        public void setRelativeError(double relativeError) { this.relativeError = relativeError; }
+    }
+
+    public static class AggregateAnalytics {
+        private Source source;
+        private Instant consistentAsOf; // Every change committed before this is included
+        private List<AggregateRow> rows;
+
+        public enum Source { STORE, PRIMARY }
+
+        // Getters and setters
+        public Source getSource() { return source; }
+        public void setSource(Source source) { this.source = source; }
+
+        public Instant getConsistentAsOf() { return consistentAsOf; }
+        public void setConsistentAsOf(Instant consistentAsOf) { this.consistentAsOf = consistentAsOf; }
+
+        public List<AggregateRow> getRows() { return rows; }
+        public void setRows(List<AggregateRow> rows) { this.rows = rows; }
+    }
+
+    public static class AggregateRow {
+        private Map<String, String> group; // Dimension name to key, "yyyy-MM" for months
+        private Double value; // Null when no fact in the group has the measure
+        private long count; // Facts in the group with the measure
+
+        public AggregateRow() {}
+
+        public AggregateRow(Map<String, String> group, Double value, long count) {
+            this.group = group;
+            this.value = value;
+            this.count = count;
         }
 
-        analytics.setEmomMetrics(emomMetrics);
+        // Getters and setters
+        public Map<String, String> getGroup() { return group; }
+        public void setGroup(Map<String, String> group) { this.group = group; }
+
+        public Double getValue() { return value; }
+        public void setValue(Double value) { this.value = value; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
     }
 
-    private void calculateTabataMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, TabataAnalytics> tabataMetrics = new HashMap<>();
+    public static class WellnessCorrelationAnalytics {
+        private int sessions;
+        private List<WellnessCorrelation> correlations;
 
-        List<AdvancedWorkoutResult> tabataWorkouts = workouts.stream()
-            .filter(w -> w.getTabataRoundsTarget() != null)
-            .collect(Collectors.toList());
+        // Getters and setters
+        public int getSessions() { return sessions; }
+        public void setSessions(int sessions) { this.sessions = sessions; }
 
-        if (!tabataWorkouts.isEmpty()) {
-            TabataAnalytics tabataAnalytics = new TabataAnalytics();
+        public List<WellnessCorrelation> getCorrelations() { return correlations; }
+        public void setCorrelations(List<WellnessCorrelation> correlations) { this.correlations = correlations; }
+    }
+
+    public static class WellnessCorrelation {
+        private String factor; // "hoursSlept", "sleepQuality", "stressLevel"
+        private String performance; // "volumeLoad", "averageRPE"
+        private int samples; // Sessions with both values recorded
+        private Double coefficient; // Pearson r, null when undefined
+
+        // Getters and setters
+        public String getFactor() { return factor; }
+        public void setFactor(String factor) { this.factor = factor; }
 
-            double avgReps = tabataWorkouts.stream()
-                .filter(w -> w.getTabataAverageReps() != null)
-                .mapToDouble(AdvancedWorkoutResult::getTabataAverageReps)
-                .average()
-                .orElse(0.0);
-            tabataAnalytics.setAverageRepsPerRound(avgReps);
+        public String getPerformance() { return performance; }
+        public void setPerformance(String performance) { this.performance = performance; }
 
-            int totalRounds = tabataWorkouts.stream()
-                .mapToInt(w -> w.getTabataRoundsCompleted() != null ? w.getTabataRoundsCompleted() : 0)
-                .sum();
-            tabataAnalytics.setTotalRoundsCompleted(totalRounds);
+        public int getSamples() { return samples; }
+        public void setSamples(int samples) { this.samples = samples; }
 
-            List<Double> repsHistory = tabataWorkouts.stream()
-                .filter(w -> w.getTabataAverageReps() != null)
-                .map(AdvancedWorkoutResult::getTabataAverageReps)
-                .collect(Collectors.toList());
-            tabataAnalytics.setRepsHistory(repsHistory);
+        public Double getCoefficient() { return coefficient; }
+        public void setCoefficient(Double coefficient) { this.coefficient = coefficient; }
+    }
+
+    /**
+     * Generate comprehensive analytics for a user within a date range.
+     * The range is split at calendar month boundaries: whole months are merged from
+     * cached monthly partials and only the partial edge months are computed fresh.
+     * Trends and histories have one point per training day.
+     */
+    public WorkoutAnalytics generateAnalytics(UUID userId, LocalDate startDate, LocalDate endDate) {
+        return generateAnalytics(userId, startDate, endDate, 0);
+    }
 
-            double bestReps = repsHistory.stream()
-                .mapToDouble(Double::doubleValue)
-                .max()
-                .orElse(0.0);
-            tabataAnalytics.setBestAverageReps(bestReps);
+    /**
+     * Generate analytics with trends and histories downsampled to at most {@code maxPoints}
+     * points each (Largest-Triangle-Three-Buckets); zero or less keeps every point
+     */
+    public WorkoutAnalytics generateAnalytics(UUID userId, LocalDate startDate, LocalDate endDate, int maxPoints) {
+        LocalDate firstDate = workoutResultRepository.findFirstDateByUserId(userId);
+        LocalDate lastDate = workoutResultRepository.findLastDateByUserId(userId);
+        if (firstDate == null || firstDate.isAfter(endDate) || lastDate.isBefore(startDate)) {
+            return new WorkoutAnalytics();
+        }
 
-            tabataMetrics.put("overall", tabataAnalytics);
+        // Months outside the user's history hold nothing, so they are not visited at all
+        LocalDate from = startDate.isBefore(firstDate) ? YearMonth.from(firstDate).atDay(1) : startDate;
+        LocalDate to = endDate.isAfter(lastDate) ? YearMonth.from(lastDate).atEndOfMonth() : endDate;
+
+        // Partials are merged in month order so trends and histories stay chronological
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        for (YearMonth month = YearMonth.from(from); !month.atDay(1).isAfter(to); month = month.plusMonths(1)) {
+            LocalDate segmentStart = month.atDay(1).isBefore(from) ? from : month.atDay(1);
+            LocalDate segmentEnd = month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+            if (segmentStart.equals(month.atDay(1)) && segmentEnd.equals(month.atEndOfMonth())) {
+                accumulator.merge(monthlyCache.get(userId, month, () -> accumulate(userId, segmentStart, segmentEnd)));
+            } else {
+                accumulator.merge(accumulate(userId, segmentStart, segmentEnd));
+            }
         }
 
-        analytics.setTabataMetrics(tabataMetrics);
+        return fillRepMaxes(userId, accumulator.fill(new WorkoutAnalytics(), startDate, endDate, maxPoints));
     }
 
-    private void calculateAMRAPMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, AMRAPAnalytics> amrapMetrics = new HashMap<>();
+    /**
+     * Generate analytics from aggregate queries over the raw results; only grouped
+     * rows and the strength weight points are transferred, never workout entities
+     */
+    public WorkoutAnalytics generateAnalyticsFromAggregates(UUID userId, LocalDate startDate, LocalDate endDate) {
+        return fillRepMaxes(userId,
+            accumulateFromAggregates(userId, startDate, endDate).fill(new WorkoutAnalytics(), startDate, endDate));
+    }
 
-        List<AdvancedWorkoutResult> amrapWorkouts = workouts.stream()
-            .filter(w -> w.getTotalRounds() != null && w.getWodResult() != null)
-            .collect(Collectors.toList());
+    /**
+     * Partial aggregate for one segment of a range. Aggregate sections are answered from
+     * the daily rollups, so the cost depends on the number of training days rather than
+     * the number of workouts and sets.
+     */
+    private AnalyticsAccumulator accumulate(UUID userId, LocalDate startDate, LocalDate endDate) {
+        List<AnalyticsDailyRollup> rollups = rollupService.findDailyRollups(userId, startDate, endDate);
 
-        if (!amrapWorkouts.isEmpty()) {
-            AMRAPAnalytics amrapAnalytics = new AMRAPAnalytics();
+        if (rollups.size() < workoutResultRepository.countDistinctDates(userId, startDate, endDate)) {
+            // Some training days have no rollup yet, e.g. history written before rollups existed
+            // and not yet backfilled, so the segment is reduced by the database instead
+            return accumulateFromAggregates(userId, startDate, endDate);
+        }
 
-            double avgRounds = amrapWorkouts.stream()
-                .mapToInt(w -> w.getTotalRounds() != null ? w.getTotalRounds() : 0)
-                .average()
-                .orElse(0.0);
-            amrapAnalytics.setAverageRounds(avgRounds);
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        rollups.forEach(accumulator::accept);
+        rollupService.summarizeBlockTypes(userId, startDate, endDate).forEach(accumulator::accept);
+        accumulateStrengthTotals(accumulator, userId, startDate, endDate);
+        accumulateWeightHistory(accumulator, userId, startDate, endDate);
+        accumulateWodResults(accumulator, userId, startDate, endDate);
+        return accumulator;
+    }
 
-            // Group by WOD name for tracking specific workout progress
-            Map<String, List<String>> wodResults = amrapWorkouts.stream()
-                .filter(w -> w.getTemplate() != null && w.getTemplate().getTitle() != null)
-                .collect(Collectors.groupingBy(
-                    w -> w.getTemplate().getTitle(),
-                    Collectors.mapping(AdvancedWorkoutResult::getWodResult, Collectors.toList())
-                ));
-            amrapAnalytics.setWodResults(wodResults);
+    private AnalyticsAccumulator accumulateFromAggregates(UUID userId, LocalDate startDate, LocalDate endDate) {
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        for (WorkoutDayTotalsRow day : workoutResultRepository.summarizeByDay(userId, startDate, endDate)) {
+            accumulator.accept(day.toRollup(userId));
+        }
+        for (PersonalRecordsRow records : workoutResultRepository.findPersonalRecords(userId, startDate, endDate)) {
+            accumulator.acceptPersonalRecords(records.getCount());
+        }
+        blockResultRepository.summarizeByBlockType(userId, startDate, endDate).forEach(accumulator::accept);
+        accumulateStrengthTotals(accumulator, userId, startDate, endDate);
+        accumulateWeightHistory(accumulator, userId, startDate, endDate);
+        accumulateWodResults(accumulator, userId, startDate, endDate);
+        return accumulator;
+    }
+
+    private void accumulateStrengthTotals(AnalyticsAccumulator accumulator, UUID userId,
+                                          LocalDate startDate, LocalDate endDate) {
+        setResultRepository.summarizeByExercise(userId, startDate, endDate, AdvancedSetResult.ResultType.STRAIGHT_SET)
+            .forEach(accumulator::accept);
+    }
 
-            amrapMetrics.put("overall", amrapAnalytics);
+    private void accumulateWeightHistory(AnalyticsAccumulator accumulator, UUID userId,
+                                         LocalDate startDate, LocalDate endDate) {
+        for (StrengthSetRow set : setResultRepository.findStrengthSets(
+                userId, startDate, endDate, AdvancedSetResult.ResultType.STRAIGHT_SET)) {
+            accumulator.acceptWeightPoint(set.exerciseName(), set.weight(), set.completedAt());
         }
+    }
 
-        analytics.setAmrapMetrics(amrapMetrics);
+    private void accumulateWodResults(AnalyticsAccumulator accumulator, UUID userId,
+                                      LocalDate startDate, LocalDate endDate) {
+        for (WodResultRow wod : workoutResultRepository.findWodResults(userId, startDate, endDate)) {
+            accumulator.acceptWodResult(wod.sessionTitle(), wod.wodResult());
+        }
     }
 
-    private void calculateCircuitMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, CircuitAnalytics> circuitMetrics = new HashMap<>();
+    /**
+     * Rep maxes are all-time records read from the personal record table, not limited to the range
+     */
+    private WorkoutAnalytics fillRepMaxes(UUID userId, WorkoutAnalytics analytics) {
+        if (analytics.getStrengthMetrics() == null || analytics.getStrengthMetrics().isEmpty()) {
+            return analytics;
+        }
+        for (PersonalRecord record : personalRecordService.findByUserId(userId)) {
+            StrengthAnalytics strength = analytics.getStrengthMetrics().get(record.getExercise().getName());
+            if (strength != null) {
+                strength.setRepMaxes(record.getRepMaxes());
+            }
+        }
+        return analytics;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while computing analytics", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Failed to compute analytics", e.getCause());
+        }
+    }
 
-        List<AdvancedWorkoutResult> circuitWorkouts = workouts.stream()
-            .filter(w -> w.getAverageCircuitTime() != null)
-            .collect(Collectors.toList());
+    /**
+     * Generate analytics by visiting every workout, set and block result in the range once,
+     * without using the rollups. Results are streamed in chunks and evicted from the
+     * persistence context after they are folded, so memory does not grow with history length.
+     */
+    public WorkoutAnalytics generateAnalyticsFromHistory(UUID userId, LocalDate startDate, LocalDate endDate) {
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        List<AdvancedWorkoutResult> chunk = new ArrayList<>(streamChunkSize);
+        try (Stream<AdvancedWorkoutResult> workouts =
+                 workoutResultRepository.streamByUserIdAndDateBetween(userId, startDate, endDate)) {
+            workouts.forEach(workout -> {
+                chunk.add(workout);
+                if (chunk.size() == streamChunkSize) {
+                    accumulateChunk(accumulator, chunk);
+                }
+            });
+        }
+        accumulateChunk(accumulator, chunk);
+        return fillRepMaxes(userId, accumulator.fill(new WorkoutAnalytics(), startDate, endDate));
+    }
 
-        if (!circuitWorkouts.isEmpty()) {
-            CircuitAnalytics circuitAnalytics = new CircuitAnalytics();
+    private void accumulateChunk(AnalyticsAccumulator accumulator, List<AdvancedWorkoutResult> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = chunk.stream().map(AdvancedWorkoutResult::getId).collect(Collectors.toList());
+        workoutResultRepository.fetchSetResults(ids);
+        workoutResultRepository.fetchBlockResults(ids);
+        chunk.forEach(accumulator::accept);
+        chunk.clear();
+        entityManager.clear();
+    }
 
-            double avgTime = circuitWorkouts.stream()
-                .mapToDouble(AdvancedWorkoutResult::getAverageCircuitTime)
-                .average()
-                .orElse(0.0);
-            circuitAnalytics.setAverageRoundTime(avgTime);
+    /**
+     * Percentiles of a metric over a date range, e.g. median RPE for an exercise or p90
+     * session duration. Answered by merging monthly sketches, so the cost grows with the
+     * number of months rather than the number of sets; each percentile is within
+     * {@link QuantileSketch#RELATIVE_ACCURACY} relative error of a value of that rank.
+     * A null exercise id covers every exercise.
+     */
+    public DistributionAnalytics getDistribution(UUID userId, MetricSketch.Metric metric, UUID exerciseId,
+                                                 LocalDate startDate, LocalDate endDate) {
+        QuantileSketch sketch = metricSketchService.sketch(userId, metric, exerciseId, startDate, endDate);
+        DistributionAnalytics distribution = new DistributionAnalytics();
+        distribution.setRelativeError(QuantileSketch.RELATIVE_ACCURACY);
+        distribution.setCount(sketch.getCount());
+        if (sketch.isEmpty()) {
+            distribution.setPercentiles(Map.of());
+            return distribution;
+        }
 
-            int totalRounds = circuitWorkouts.stream()
-                .mapToInt(w -> w.getCircuitRoundsCompleted() != null ? w.getCircuitRoundsCompleted() : 0)
-                .sum();
-            circuitAnalytics.setTotalRoundsCompleted(totalRounds);
+        distribution.setMin(sketch.getMin());
+        distribution.setMax(sketch.getMax());
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (int percentile : new int[] {50, 75, 90, 95, 99}) {
+            percentiles.put("p" + percentile, sketch.quantile(percentile / 100.0));
+        }
+        distribution.setPercentiles(percentiles);
+        return distribution;
+    }
 
-            List<Double> timeHistory = circuitWorkouts.stream()
-                .map(AdvancedWorkoutResult::getAverageCircuitTime)
-                .collect(Collectors.toList());
-            circuitAnalytics.setRoundTimeHistory(timeHistory);
+    /**
+     * Aggregate a workout, block or set measure over users, programs, block types and
+     * months. Answered from the analytics store when it is enabled, loaded and no older
+     * than {@code maxStaleness} (any age when null), otherwise from the row tables.
+     */
+    public AggregateAnalytics aggregate(FactQuery query, Duration maxStaleness) {
+        AggregateAnalytics analytics = new AggregateAnalytics();
+        Instant storeAsOf = analyticsStore.getConsistentAsOf();
+        if (storeAsOf != null && (maxStaleness == null || !storeAsOf.isBefore(Instant.now().minus(maxStaleness)))) {
+            analytics.setSource(AggregateAnalytics.Source.STORE);
+            analytics.setConsistentAsOf(storeAsOf);
+            analytics.setRows(analyticsStore.aggregate(query));
+            return analytics;
+        }
 
-            double fastestTime = circuitWorkouts.stream()
-                .filter(w -> w.getFastestCircuitTimeSeconds() != null)
-                .mapToInt(AdvancedWorkoutResult::getFastestCircuitTimeSeconds)
-                .min()
-                .orElse(0);
-            circuitAnalytics.setFastestRoundTime(fastestTime);
+        analytics.setSource(AggregateAnalytics.Source.PRIMARY);
+        analytics.setConsistentAsOf(Instant.now());
+        analytics.setRows(aggregateRows(query));
+        return analytics;
+    }
 
-            circuitMetrics.put("overall", circuitAnalytics);
+    // The same aggregate as a JPQL query over the row tables
+    private List<AggregateRow> aggregateRows(FactQuery query) {
+        String from = switch (query.level()) {
+            case WORKOUT -> "FROM AdvancedWorkoutResult w ";
+            case BLOCK -> "FROM BlockResult b JOIN b.workoutResult w ";
+            case SET -> "FROM AdvancedSetResult s JOIN s.workoutResult w ";
+        };
+        String measure = query.measure().getPath();
+        String value = query.aggregation() == FactQuery.Aggregation.COUNT
+            ? "COUNT(" + measure + ")" : query.aggregation().name() + "(" + measure + ")";
+        String dimensions = query.groupBy().stream()
+            .map(FactQuery.Dimension::getPath)
+            .collect(Collectors.joining(", "));
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        if (!dimensions.isEmpty()) {
+            jpql.append(dimensions).append(", ");
+        }
+        jpql.append(value).append(", COUNT(").append(measure).append(") ").append(from)
+            .append("LEFT JOIN w.template t LEFT JOIN t.program p WHERE w.date BETWEEN :startDate AND :endDate");
+        boolean filterUsers = query.userIds() != null && !query.userIds().isEmpty();
+        if (filterUsers) {
+            jpql.append(" AND w.userId IN :userIds");
+        }
+        if (query.programId() != null) {
+            jpql.append(" AND p.id = :programId");
+        }
+        if (query.blockType() != null) {
+            jpql.append(" AND b.blockType = :blockType");
+        }
+        if (!dimensions.isEmpty()) {
+            jpql.append(" GROUP BY ").append(dimensions).append(" ORDER BY ").append(dimensions);
         }
 
-        analytics.setCircuitMetrics(circuitMetrics);
-    }
-
-    private void calculateStrengthMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, StrengthAnalytics> strengthMetrics = new HashMap<>();
-        Map<String, Double> oneRepMaxEstimates = new HashMap<>();
-
-        // Get all set results for strength exercises
-        List<AdvancedSetResult> strengthSets = workouts.stream()
-            .flatMap(w -> w.getSetResults().stream())
-            .filter(set -> set.getWeight() != null && set.getPerformedReps() != null &&
-                          set.getResultType() == AdvancedSetResult.ResultType.STRAIGHT_SET)
-            .collect(Collectors.toList());
-
-        // Group by exercise name
-        Map<String, List<AdvancedSetResult>> byExercise = strengthSets.stream()
-            .collect(Collectors.groupingBy(set -> set.getExercise().getName()));
-
-        byExercise.forEach((exerciseName, sets) -> {
-            StrengthAnalytics strengthAnalytics = new StrengthAnalytics();
-
-            double maxWeight = sets.stream()
-                .mapToDouble(AdvancedSetResult::getWeight)
-                .max()
-                .orElse(0.0);
-            strengthAnalytics.setMaxWeight(maxWeight);
-
-            // Estimate 1RM using Epley formula: weight * (1 + reps/30)
-            double estimated1RM = sets.stream()
-                .mapToDouble(set -> set.getWeight() * (1 + set.getPerformedReps() / 30.0))
-                .max()
-                .orElse(0.0);
-            strengthAnalytics.setEstimatedOneRepMax(estimated1RM);
-            oneRepMaxEstimates.put(exerciseName, estimated1RM);
-
-            double totalVolume = sets.stream()
-                .mapToDouble(set -> set.getWeight() * set.getPerformedReps())
-                .sum();
-            strengthAnalytics.setTotalVolumeLoad(totalVolume);
-
-            List<Double> weightHistory = sets.stream()
-                .sorted(Comparator.comparing(AdvancedSetResult::getCompletedAt))
-                .map(AdvancedSetResult::getWeight)
-                .collect(Collectors.toList());
-            strengthAnalytics.setWeightHistory(weightHistory);
-
-            strengthMetrics.put(exerciseName, strengthAnalytics);
-        });
+        TypedQuery<Object[]> typed = entityManager.createQuery(jpql.toString(), Object[].class)
+            .setParameter("startDate", query.startDate())
+            .setParameter("endDate", query.endDate());
+        if (filterUsers) {
+            typed.setParameter("userIds", query.userIds());
+        }
+        if (query.programId() != null) {
+            typed.setParameter("programId", query.programId());
+        }
+        if (query.blockType() != null) {
+            typed.setParameter("blockType", query.blockType());
+        }
 
-        analytics.setStrengthMetrics(strengthMetrics);
-        analytics.setOneRepMaxEstimates(oneRepMaxEstimates);
-    }
-
-    private void calculateTrends(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
-        Map<String, List<Double>> trends = new HashMap<>();
-
-        // Sort workouts by date
-        List<AdvancedWorkoutResult> sortedWorkouts = workouts.stream()
-            .sorted(Comparator.comparing(AdvancedWorkoutResult::getDate))
-            .collect(Collectors.toList());
-
-        // Volume load trend
-        List<Double> volumeTrend = sortedWorkouts.stream()
-            .map(w -> w.getTotalVolumeLoad() != null ? w.getTotalVolumeLoad() : 0.0)
-            .collect(Collectors.toList());
-        trends.put("volumeLoad", volumeTrend);
-
-        // RPE trend
-        List<Double> rpeTrend = sortedWorkouts.stream()
-            .map(w -> w.getAverageRPE() != null ? w.getAverageRPE() : 0.0)
-            .collect(Collectors.toList());
-        trends.put("averageRPE", rpeTrend);
-
-        // Duration trend
-        List<Double> durationTrend = sortedWorkouts.stream()
-            .map(w -> w.getTotalDurationSeconds() != null ? w.getTotalDurationSeconds().doubleValue() : 0.0)
-            .collect(Collectors.toList());
-        trends.put("sessionDuration", durationTrend);
-
-        analytics.setPerformanceTrends(trends);
-    }
-
-    private void calculateConsistency(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts,
-                                    LocalDate startDate, LocalDate endDate) {
-        // Workout frequency consistency
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        double workoutFrequency = (double) workouts.size() / totalDays * 7; // workouts per week
-        analytics.setWorkoutConsistency(workoutFrequency);
-
-        // Performance consistency (coefficient of variation of RPE)
-        List<Double> rpeValues = workouts.stream()
-            .filter(w -> w.getAverageRPE() != null)
-            .map(AdvancedWorkoutResult::getAverageRPE)
-            .collect(Collectors.toList());
-
-        if (!rpeValues.isEmpty()) {
-            double avgRPE = rpeValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            double variance = rpeValues.stream()
-                .mapToDouble(rpe -> Math.pow(rpe - avgRPE, 2))
-                .average()
-                .orElse(0.0);
-            double stdDev = Math.sqrt(variance);
-            double coefficientOfVariation = avgRPE > 0 ? (stdDev / avgRPE) * 100 : 0;
-            analytics.setPerformanceConsistency(100 - coefficientOfVariation); // Higher is more consistent
+        List<AggregateRow> rows = new ArrayList<>();
+        for (Object[] row : typed.getResultList()) {
+            Map<String, String> group = new LinkedHashMap<>();
+            int column = 0;
+            for (FactQuery.Dimension dimension : query.groupBy()) {
+                if (dimension == FactQuery.Dimension.MONTH) {
+                    Number year = (Number) row[column++];
+                    Number month = (Number) row[column++];
+                    group.put(dimension.name(), year == null ? null
+                        : YearMonth.of(year.intValue(), month.intValue()).toString());
+                } else {
+                    Object key = row[column++];
+                    group.put(dimension.name(), key == null ? null
+                        : key instanceof Enum<?> type ? type.name() : key.toString());
+                }
+            }
+            Number aggregate = (Number) row[column++];
+            rows.add(new AggregateRow(group, aggregate != null ? aggregate.doubleValue() : null,
+                ((Number) row[column]).longValue()));
         }
+        return rows;
+    }
 
-        // Block type success rates
-        Map<String, Double> blockTypeSuccess = new HashMap<>();
-        List<BlockResult> blockResults = workouts.stream()
-            .flatMap(w -> w.getBlockResults().stream())
-            .collect(Collectors.toList());
-
-        Map<ExerciseBlock.BlockType, List<BlockResult>> byBlockType = blockResults.stream()
-            .collect(Collectors.groupingBy(BlockResult::getBlockType));
-
-        byBlockType.forEach((blockType, results) -> {
-            double successRate = results.stream()
-                .mapToDouble(block -> block.getCompletedAsPlanned() != null && block.getCompletedAsPlanned() ? 1.0 : 0.0)
-                .average()
-                .orElse(0.0) * 100;
-            blockTypeSuccess.put(blockType.name(), successRate);
-        });
+    /**
+     * Pearson correlation between each pre-workout wellness answer and how the session
+     * went, over the sessions in range that recorded both. The columns are gathered into
+     * primitive arrays and reduced by {@link NumericKernels}.
+     */
+    public WellnessCorrelationAnalytics getWellnessCorrelation(UUID userId, LocalDate startDate, LocalDate endDate) {
+        List<WellnessRow> rows = workoutResultRepository.findWellness(userId, startDate, endDate);
+
+        Map<String, Function<WellnessRow, Number>> factors = new LinkedHashMap<>();
+        factors.put("hoursSlept", WellnessRow::hoursSleptLastNight);
+        factors.put("sleepQuality", WellnessRow::sleepQuality);
+        factors.put("stressLevel", WellnessRow::stressLevel);
+        Map<String, Function<WellnessRow, Number>> performances = new LinkedHashMap<>();
+        performances.put("volumeLoad", WellnessRow::totalVolumeLoad);
+        performances.put("averageRPE", WellnessRow::averageRPE);
+
+        double[] x = new double[rows.size()];
+        double[] y = new double[rows.size()];
+        List<WellnessCorrelation> correlations = new ArrayList<>();
+        factors.forEach((factorName, factor) -> performances.forEach((performanceName, performance) -> {
+            int samples = 0;
+            for (WellnessRow row : rows) {
+                Number factorValue = factor.apply(row);
+                Number performanceValue = performance.apply(row);
+                if (factorValue != null && performanceValue != null) {
+                    x[samples] = factorValue.doubleValue();
+                    y[samples] = performanceValue.doubleValue();
+                    samples++;
+                }
+            }
+            double coefficient = NumericKernels.correlation(x, y, samples);
+
+            WellnessCorrelation correlation = new WellnessCorrelation();
+            correlation.setFactor(factorName);
+            correlation.setPerformance(performanceName);
+            correlation.setSamples(samples);
+            correlation.setCoefficient(Double.isNaN(coefficient) ? null : coefficient);
+            correlations.add(correlation);
+        }));
+
+        WellnessCorrelationAnalytics analytics = new WellnessCorrelationAnalytics();
+        analytics.setSessions(rows.size());
+        analytics.setCorrelations(correlations);
+        return analytics;
+    }
 
-        analytics.setBlockTypeSuccess(blockTypeSuccess);
+    /**
+     * Acute:chronic workload, monotony and strain as of {@code date}, read from the
+     * maintained training load state without scanning history. Only the latest state is
+     * kept, so a date before the last training day is answered as of that day.
+     */
+    public TrainingLoadAnalytics getTrainingLoad(UUID userId, LocalDate date) {
+        TrainingLoadAnalytics load = new TrainingLoadAnalytics();
+        load.setDate(date);
+        trainingLoadService.findState(userId, date).ifPresent(state -> {
+            load.setDate(state.getLastDate().isAfter(date) ? state.getLastDate() : date);
+            load.setLastTrainingDate(state.getLastDate());
+            load.setAcuteLoad(state.getAcuteLoad());
+            load.setChronicLoad(state.getChronicLoad());
+            load.setAcuteChronicRatio(state.getChronicLoad() > 0 ? state.getAcuteLoad() / state.getChronicLoad() : 0.0);
+            load.setAcuteVolume(state.getAcuteVolume());
+            load.setChronicVolume(state.getChronicVolume());
+            load.setVolumeAcuteChronicRatio(state.getChronicVolume() > 0 ? state.getAcuteVolume() / state.getChronicVolume() : 0.0);
+            load.setWeeklyLoad(state.getWeekLoad());
+            load.setMonotony(state.getMonotony());
+            load.setStrain(state.getStrain());
+        });
+        return load;
     }
 
     /**
      * Generate a performance report for a specific workout type
      */
     public String generateWorkoutTypeReport(UUID userId, ExerciseBlock.BlockType blockType, LocalDate startDate, LocalDate endDate) {
-        List<AdvancedWorkoutResult> workouts = workoutResultRepository
-            .findByUserIdAndDateBetween(userId, startDate, endDate);
+        List<BlockResult> blockResults = blockResultRepository
+            .findByUserIdAndDateBetweenAndBlockType(userId, startDate, endDate, blockType);
+
+        return renderReport(blockType, blockResults);
+    }
+
+    /**
+     * Reports for several users and workout types from one load of the block results.
+     * The results are partitioned by user and type in a single pass and each user's
+     * sections are rendered on the bounded report executor.
+     * Returns the reports per user in request order, then per type.
+     */
+    public Map<UUID, Map<ExerciseBlock.BlockType, String>> generateWorkoutTypeReports(
+            Collection<UUID> userIds, Collection<ExerciseBlock.BlockType> blockTypes,
+            LocalDate startDate, LocalDate endDate) {
+        Map<UUID, Map<ExerciseBlock.BlockType, List<BlockResult>>> partitions = new LinkedHashMap<>();
+        for (UUID userId : userIds) {
+            Map<ExerciseBlock.BlockType, List<BlockResult>> byType = new EnumMap<>(ExerciseBlock.BlockType.class);
+            blockTypes.forEach(type -> byType.put(type, new ArrayList<>()));
+            partitions.put(userId, byType);
+        }
+        if (partitions.isEmpty() || blockTypes.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
 
-        List<BlockResult> blockResults = workouts.stream()
-            .flatMap(w -> w.getBlockResults().stream())
-            .filter(b -> b.getBlockType() == blockType)
-            .collect(Collectors.toList());
+        for (UserBlockResultRow row : blockResultRepository.findForReports(
+                partitions.keySet(), startDate, endDate, blockTypes)) {
+            partitions.get(row.userId()).get(row.blockResult().getBlockType()).add(row.blockResult());
+        }
+
+        Map<UUID, Future<Map<ExerciseBlock.BlockType, String>>> rendered = new LinkedHashMap<>();
+        partitions.forEach((userId, byType) -> rendered.put(userId, reportExecutor.submit(() -> {
+            Map<ExerciseBlock.BlockType, String> reports = new EnumMap<>(ExerciseBlock.BlockType.class);
+            byType.forEach((type, results) -> reports.put(type, renderReport(type, results)));
+            return reports;
+        })));
+
+        Map<UUID, Map<ExerciseBlock.BlockType, String>> reports = new LinkedHashMap<>();
+        rendered.forEach((userId, future) -> reports.put(userId, await(future)));
+        return reports;
+    }
 
+    private String renderReport(ExerciseBlock.BlockType blockType, List<BlockResult> blockResults) {
         if (blockResults.isEmpty()) {
             return "No " + blockType.getDisplayName() + " workouts found in the specified date range.";
         }
@@ -1,31 +1,79 @@
 package com.fitnesscoach.service;
 
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.exception.ResourceNotFoundException;
+import com.fitnesscoach.model.AdvancedSetResult;
 import com.fitnesscoach.model.AdvancedWorkoutResult;
 import com.fitnesscoach.model.WorkoutSessionTemplate;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
 import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
 import com.fitnesscoach.repository.WorkoutSessionTemplateRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service("advancedWorkoutResultService")
 @Transactional
 public class AdvancedWorkoutResultService {
 
+    // Addresses a set within its workout the way the client lays sets out
+    public record SetKey(String blockLabel, int blockItemOrder, int setNumber) {
+        static SetKey of(AdvancedSetResult set) {
+            return new SetKey(set.getBlockLabel(), set.getBlockItemOrder(), set.getSetNumber());
+        }
+
+        @Override
+        public String toString() {
+            return (blockLabel != null ? blockLabel : "-") + "/" + blockItemOrder + "/" + setNumber;
+        }
+    }
+
+    // The set at a position after an edit: a change creates the set if there is none, no change deletes it
+    public record SetEdit(SetKey key, Consumer<AdvancedSetResult> change) {}
+
+    // The workout after a batch of set edits, and why edits were skipped by their index in the batch
+    public record SetEditBatch(AdvancedWorkoutResult result, Map<Integer, String> rejected) {}
+
     private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final AdvancedSetResultRepository setResultRepository;
     private final WorkoutSessionTemplateRepository sessionTemplateRepository;
+    private final AnalyticsRollupService rollupService;
+    private final PersonalRecordService personalRecordService;
+    private final MetricSketchService metricSketchService;
+    private final AnalyticsRecomputeQueue recomputeQueue;
+    private final AnalyticsStoreService analyticsStore;
 
     @Autowired
     public AdvancedWorkoutResultService(
             AdvancedWorkoutResultRepository workoutResultRepository,
-            WorkoutSessionTemplateRepository sessionTemplateRepository) {
+            AdvancedSetResultRepository setResultRepository,
+            WorkoutSessionTemplateRepository sessionTemplateRepository,
+            AnalyticsRollupService rollupService,
+            PersonalRecordService personalRecordService,
+            MetricSketchService metricSketchService,
+            AnalyticsRecomputeQueue recomputeQueue,
+            AnalyticsStoreService analyticsStore) {
         this.workoutResultRepository = workoutResultRepository;
+        this.setResultRepository = setResultRepository;
         this.sessionTemplateRepository = sessionTemplateRepository;
+        this.rollupService = rollupService;
+        this.personalRecordService = personalRecordService;
+        this.metricSketchService = metricSketchService;
+        this.recomputeQueue = recomputeQueue;
+        this.analyticsStore = analyticsStore;
     }
 
     public AdvancedWorkoutResult saveWorkoutResult(AdvancedWorkoutResult result) {
@@ -33,7 +81,9 @@ public class AdvancedWorkoutResultService {
         if (result.getSetResults() != null && !result.getSetResults().isEmpty()) {
             result.calculateMetricsFromSets();
         }
-        return workoutResultRepository.save(result);
+        AdvancedWorkoutResult saved = workoutResultRepository.save(result);
+        onWorkoutSaved(saved);
+        return saved;
     }
 
     public Optional<AdvancedWorkoutResult> findById(UUID id) {
@@ -57,7 +107,183 @@ public class AdvancedWorkoutResultService {
     }
 
     public void deleteWorkoutResult(UUID id) {
-        workoutResultRepository.deleteById(id);
+        AdvancedWorkoutResult result = workoutResultRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Workout result not found"));
+        workoutResultRepository.delete(result);
+        analyticsStore.recordChange(result.getUserId(), result.getDate());
+        if (recomputeQueue.isAsync()) {
+            recomputeQueue.submit(result.getUserId(), result.getDate());
+            return;
+        }
+        rollupService.lockUsers(result.getUserId());
+        Set<LocalDate> laterDays = personalRecordService.onWorkoutDeleted(result);
+        metricSketchService.onWorkoutDeleted(result);
+        rollupService.onWorkoutDeleted(result);
+        // Later workouts whose personal records the replay changed
+        rollupService.refreshDays(result.getUserId(), laterDays);
+    }
+
+    /**
+     * Add one set to a workout. Only the new set is written and the workout's totals move
+     * by what it contributes, where replacing the result rewrites every set.
+     */
+    public AdvancedSetResult addSet(UUID resultId, AdvancedSetResult set) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        SetKey key = SetKey.of(set);
+        if (!findSets(resultId, key).isEmpty()) {
+            throw new BadRequestException("Set " + key + " already exists in workout result " + resultId);
+        }
+        set.setWorkoutResult(result);
+        AdvancedSetResult saved = setResultRepository.save(set);
+        if (Hibernate.isInitialized(result.getSetResults())) {
+            result.getSetResults().add(saved);
+        }
+        onSetChanged(result, null, saved.contribution());
+        return saved;
+    }
+
+    public AdvancedSetResult updateSet(UUID resultId, UUID setId, Consumer<AdvancedSetResult> edit) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        return updateSet(result, findSet(resultId, setId), edit);
+    }
+
+    public AdvancedSetResult updateSet(UUID resultId, SetKey key, Consumer<AdvancedSetResult> edit) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        return updateSet(result, findSet(resultId, key), edit);
+    }
+
+    public void deleteSet(UUID resultId, UUID setId) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        deleteSet(result, findSet(resultId, setId));
+    }
+
+    public void deleteSet(UUID resultId, SetKey key) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        deleteSet(result, findSet(resultId, key));
+    }
+
+    /**
+     * Apply set edits to one workout in order, as live logging buffers them. The sets are
+     * read once and written together, and analytics follow once for the batch instead of
+     * once per set. An edit that cannot be applied is skipped and reported without
+     * affecting the others. Changes must leave the set at its position.
+     */
+    public SetEditBatch applySetEdits(UUID resultId, List<SetEdit> edits) {
+        AdvancedWorkoutResult result = findForSetEdit(resultId);
+        Map<SetKey, List<AdvancedSetResult>> setsByKey = new HashMap<>();
+        for (AdvancedSetResult set : result.getSetResults()) {
+            setsByKey.computeIfAbsent(SetKey.of(set), key -> new ArrayList<>(1)).add(set);
+        }
+
+        Map<Integer, String> rejected = new LinkedHashMap<>();
+        boolean incremental = true;
+        for (int i = 0; i < edits.size(); i++) {
+            SetEdit edit = edits.get(i);
+            List<AdvancedSetResult> sets = setsByKey.getOrDefault(edit.key(), List.of());
+            if (sets.size() > 1) {
+                rejected.put(i, "Set " + edit.key() + " matches " + sets.size() + " sets; edit it by id");
+                continue;
+            }
+            AdvancedSetResult set = sets.isEmpty() ? null : sets.get(0);
+            if (edit.change() == null) {
+                if (set != null) {
+                    result.getSetResults().remove(set);
+                    setsByKey.remove(edit.key());
+                    incremental &= result.applySetChange(set.contribution(), null);
+                }
+                continue;
+            }
+            try {
+                if (set == null) {
+                    AdvancedSetResult created = new AdvancedSetResult();
+                    created.setBlockLabel(edit.key().blockLabel());
+                    created.setBlockItemOrder(edit.key().blockItemOrder());
+                    created.setSetNumber(edit.key().setNumber());
+                    created.setResultType(AdvancedSetResult.ResultType.STRAIGHT_SET);
+                    edit.change().accept(created);
+                    if (created.getExercise() == null) {
+                        throw new BadRequestException("exerciseName is required for a new set");
+                    }
+                    created.setWorkoutResult(result);
+                    result.getSetResults().add(created);
+                    setsByKey.put(edit.key(), new ArrayList<>(List.of(created)));
+                    incremental &= result.applySetChange(null, created.contribution());
+                } else {
+                    AdvancedSetResult.Contribution before = set.contribution();
+                    try {
+                        edit.change().accept(set);
+                    } finally {
+                        // A change that failed part way still counts with what it did change
+                        incremental &= result.applySetChange(before, set.contribution());
+                    }
+                }
+            } catch (BadRequestException | IllegalArgumentException e) {
+                rejected.put(i, e.getMessage());
+            }
+        }
+
+        if (!incremental) {
+            result.calculateMetricsFromSets();
+        }
+        onWorkoutSaved(result);
+        return new SetEditBatch(result, rejected);
+    }
+
+    private AdvancedSetResult updateSet(AdvancedWorkoutResult result, AdvancedSetResult set, Consumer<AdvancedSetResult> edit) {
+        AdvancedSetResult.Contribution before = set.contribution();
+        SetKey keyBefore = SetKey.of(set);
+        edit.accept(set);
+        SetKey key = SetKey.of(set);
+        if (!key.equals(keyBefore) && findSets(result.getId(), key).stream().anyMatch(other -> !other.getId().equals(set.getId()))) {
+            throw new BadRequestException("Set " + key + " already exists in workout result " + result.getId());
+        }
+        onSetChanged(result, before, set.contribution());
+        return set;
+    }
+
+    private void deleteSet(AdvancedWorkoutResult result, AdvancedSetResult set) {
+        if (Hibernate.isInitialized(result.getSetResults())) {
+            result.getSetResults().remove(set);
+        }
+        setResultRepository.delete(set);
+        onSetChanged(result, set.contribution(), null);
+    }
+
+    private AdvancedWorkoutResult findForSetEdit(UUID resultId) {
+        return workoutResultRepository.findForUpdateById(resultId)
+                .orElseThrow(() -> new ResourceNotFoundException("Workout result not found"));
+    }
+
+    private AdvancedSetResult findSet(UUID resultId, UUID setId) {
+        return setResultRepository.findByIdAndWorkoutResultId(setId, resultId)
+                .orElseThrow(() -> new ResourceNotFoundException("Set " + setId + " not found in workout result " + resultId));
+    }
+
+    private AdvancedSetResult findSet(UUID resultId, SetKey key) {
+        List<AdvancedSetResult> sets = findSets(resultId, key);
+        if (sets.isEmpty()) {
+            throw new ResourceNotFoundException("Set " + key + " not found in workout result " + resultId);
+        }
+        if (sets.size() > 1) {
+            // Results saved whole may repeat a position; those sets can only be addressed by id
+            throw new BadRequestException("Set " + key + " matches " + sets.size() + " sets in workout result " + resultId);
+        }
+        return sets.get(0);
+    }
+
+    private List<AdvancedSetResult> findSets(UUID resultId, SetKey key) {
+        return setResultRepository.findByWorkoutResultIdAndBlockLabelAndBlockItemOrderAndSetNumber(
+                resultId, key.blockLabel(), key.blockItemOrder(), key.setNumber());
+    }
+
+    private void onSetChanged(AdvancedWorkoutResult result, AdvancedSetResult.Contribution removed,
+                              AdvancedSetResult.Contribution added) {
+        // Written out first so analytics, and totals recalculated from the sets, see the change
+        setResultRepository.flush();
+        if (!result.applySetChange(removed, added)) {
+            result.calculateMetricsFromSets();
+        }
+        onWorkoutSaved(result);
     }
 
     // Helper method to start a workout session
@@ -67,7 +293,9 @@ public class AdvancedWorkoutResultService {
 
         AdvancedWorkoutResult result = new AdvancedWorkoutResult(template);
         result.setUserId(userId);
-        return workoutResultRepository.save(result);
+        AdvancedWorkoutResult saved = workoutResultRepository.save(result);
+        onWorkoutSaved(saved);
+        return saved;
     }
 
     // Helper method to finish a workout session
@@ -82,6 +310,32 @@ public class AdvancedWorkoutResultService {
         }
 
         result.calculateMetricsFromSets();
-        return workoutResultRepository.save(result);
+        AdvancedWorkoutResult saved = workoutResultRepository.save(result);
+        onWorkoutSaved(saved);
+        return saved;
+    }
+
+    // New results are folded in by the writer; edits re-derive history and go to the queue
+    private void onWorkoutSaved(AdvancedWorkoutResult saved) {
+        // A workout moved to another day or user also changes the day it left
+        if (saved.getLoadedUserId() != null &&
+                (!saved.getLoadedUserId().equals(saved.getUserId()) || !Objects.equals(saved.getLoadedDate(), saved.getDate()))) {
+            analyticsStore.recordChange(saved.getLoadedUserId(), saved.getLoadedDate());
+        }
+        analyticsStore.recordChange(saved.getUserId(), saved.getDate());
+
+        if (recomputeQueue.isAsync() && saved.getLoadedUserId() != null && saved.getLoadedDate() != null) {
+            recomputeQueue.submit(saved.getLoadedUserId(), saved.getLoadedDate());
+            recomputeQueue.submit(saved.getUserId(), saved.getDate());
+            return;
+        }
+        // One writer per user derives at a time, records included
+        rollupService.lockUsers(saved.getLoadedUserId(), saved.getUserId());
+        // Records first: the daily rollup counts the personal records they fill in
+        Map<UUID, Set<LocalDate>> laterDays = personalRecordService.onWorkoutSaved(saved);
+        metricSketchService.onWorkoutSaved(saved);
+        rollupService.onWorkoutSaved(saved);
+        // Later workouts whose personal records the replay changed
+        laterDays.forEach(rollupService::refreshDays);
     }
 }
@@ -3,6 +3,7 @@ package com.fitnesscoach.service;
 import com.fitnesscoach.model.*;
 import com.fitnesscoach.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +33,9 @@ public class AdvancedWorkoutService {
     @Autowired
     private BlockItemRepository itemRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Create a superset workout example
      */
@@ -231,6 +235,7 @@ public class AdvancedWorkoutService {
         exercise.setCategory(category);
         exercise.setMovementPattern(pattern);
         exercise.setComplexity(ExerciseComplexity.INTERMEDIATE);
+        eventPublisher.publishEvent(new ExerciseCatalogChangedEvent());
         return exerciseRepository.save(exercise);
     }
 
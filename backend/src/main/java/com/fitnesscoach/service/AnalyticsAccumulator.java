@@ -0,0 +1,431 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.*;
+import com.fitnesscoach.repository.projection.BlockTypeCompletionRow;
+import com.fitnesscoach.repository.projection.ExerciseStrengthRow;
+import com.fitnesscoach.service.AdvancedAnalyticsService.*;
+import com.fitnesscoach.util.Downsampler;
+import com.fitnesscoach.util.TimeSeries;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Single-pass aggregation engine for {@link WorkoutAnalytics}.
+ * Every daily rollup, workout, set and block result is visited exactly once and folded
+ * into primitive counters; the analytics sections are only materialized in {@link #fill}.
+ */
+final class AnalyticsAccumulator {
+
+    private static final ExerciseBlock.BlockType[] BLOCK_TYPES = ExerciseBlock.BlockType.values();
+
+    // 1970-01-05, the first Monday on or after the epoch, aligns weekly buckets to ISO weeks
+    private static final long FIRST_MONDAY_EPOCH_DAY = 4;
+
+    // Overall
+    private int workouts;
+    private int durationCount;
+    private long durationSum;
+    private double volumeSum;
+    private int rpeCount;
+    private double rpeSum;
+    private double rpeSumSquares;
+    private int personalRecords;
+
+    // EMOM
+    private int emomWorkouts;
+    private double emomCompletionRateSum;
+    private int emomMinutesCompleted;
+    private int emomMinutesTarget;
+
+    // Tabata
+    private int tabataWorkouts;
+    private int tabataRepsCount;
+    private double tabataRepsSum;
+    private int tabataRoundsCompleted;
+    private double tabataBestReps;
+    private LocalDate tabataBestDate;
+    private final TimeSeries tabataRepsHistory = new TimeSeries();
+
+    // AMRAP
+    private int amrapWorkouts;
+    private int amrapRoundsSum;
+    private final Map<String, List<String>> wodResults = new HashMap<>();
+
+    // Circuit
+    private int circuitWorkouts;
+    private double circuitTimeSum;
+    private int circuitRoundsCompleted;
+    private Integer circuitFastest;
+    private LocalDate circuitFastestDate;
+    private final TimeSeries circuitTimeHistory = new TimeSeries();
+
+    // Trends, one point per training day
+    private final TimeSeries volumeTrend = new TimeSeries();
+    private final TimeSeries rpeTrend = new TimeSeries();
+    private final TimeSeries durationTrend = new TimeSeries();
+
+    // Block type success, indexed by ordinal
+    private final int[] blockAttempts = new int[BLOCK_TYPES.length];
+    private final int[] blockSuccesses = new int[BLOCK_TYPES.length];
+
+    // Strength, keyed by exercise name
+    private final Map<String, ExerciseAccumulator> exercises = new HashMap<>();
+
+    // Days folded from raw workouts, replayed in date order on fill
+    private final TreeMap<LocalDate, AnalyticsDailyRollup> scannedDays = new TreeMap<>();
+
+    /**
+     * Fold one daily rollup. Rollups must be supplied in ascending date order.
+     */
+    void accept(AnalyticsDailyRollup day) {
+        if (day.isEmpty()) {
+            return;
+        }
+
+        workouts += day.getWorkoutCount();
+        durationCount += day.getDurationCount();
+        durationSum += day.getDurationSum();
+        volumeSum += day.getVolumeSum();
+        rpeCount += day.getRpeCount();
+        rpeSum += day.getRpeSum();
+        rpeSumSquares += day.getRpeSumSquares();
+        personalRecords += day.getPersonalRecordCount();
+
+        emomWorkouts += day.getEmomWorkouts();
+        emomCompletionRateSum += day.getEmomCompletionRateSum();
+        emomMinutesCompleted += day.getEmomMinutesCompleted();
+        emomMinutesTarget += day.getEmomMinutesTarget();
+
+        if (day.getTabataWorkouts() > 0) {
+            tabataWorkouts += day.getTabataWorkouts();
+            tabataRoundsCompleted += day.getTabataRoundsCompleted();
+            if (day.getTabataRepsCount() > 0) {
+                tabataRepsCount += day.getTabataRepsCount();
+                tabataRepsSum += day.getTabataRepsSum();
+                tabataRepsHistory.append(day.getBucketDate(), day.getTabataRepsSum() / day.getTabataRepsCount());
+                if (tabataBestDate == null || day.getTabataBestReps() > tabataBestReps) {
+                    tabataBestReps = day.getTabataBestReps();
+                    tabataBestDate = day.getBucketDate();
+                }
+            }
+        }
+
+        amrapWorkouts += day.getAmrapWorkouts();
+        amrapRoundsSum += day.getAmrapRoundsSum();
+
+        if (day.getCircuitWorkouts() > 0) {
+            circuitWorkouts += day.getCircuitWorkouts();
+            circuitTimeSum += day.getCircuitTimeSum();
+            circuitRoundsCompleted += day.getCircuitRoundsCompleted();
+            circuitTimeHistory.append(day.getBucketDate(), day.getCircuitTimeSum() / day.getCircuitWorkouts());
+            Integer fastest = day.getCircuitFastestSeconds();
+            if (fastest != null && (circuitFastest == null || fastest < circuitFastest)) {
+                circuitFastest = fastest;
+                circuitFastestDate = day.getBucketDate();
+            }
+        }
+
+        volumeTrend.append(day.getBucketDate(), day.getVolumeSum());
+        rpeTrend.append(day.getBucketDate(), day.getAverageRPEForDay());
+        durationTrend.append(day.getBucketDate(), day.getAverageDurationForDay());
+    }
+
+    void accept(BlockTypeCompletionRow blockType) {
+        int ordinal = blockType.blockType().ordinal();
+        blockAttempts[ordinal] += blockType.attempts().intValue();
+        blockSuccesses[ordinal] += blockType.successes().intValue();
+    }
+
+    /**
+     * Fold a raw workout together with its set and block results, visiting each once
+     */
+    void accept(AdvancedWorkoutResult workout) {
+        if (workout.getDate() != null) {
+            scannedDays.computeIfAbsent(workout.getDate(), day -> new AnalyticsDailyRollup(workout.getUserId(), day))
+                .accumulate(workout);
+        }
+
+        if (workout.getTotalRounds() != null && workout.getWodResult() != null &&
+                workout.getTemplate() != null && workout.getTemplate().getTitle() != null) {
+            acceptWodResult(workout.getTemplate().getTitle(), workout.getWodResult());
+        }
+
+        for (AdvancedSetResult set : workout.getSetResults()) {
+            if (set.getWeight() != null && set.getPerformedReps() != null &&
+                    set.getResultType() == AdvancedSetResult.ResultType.STRAIGHT_SET) {
+                acceptStrengthSet(set.getExercise().getName(), set.getWeight(), set.getPerformedReps(), set.getCompletedAt());
+            }
+        }
+
+        for (BlockResult block : workout.getBlockResults()) {
+            if (block.getBlockType() != null) {
+                int ordinal = block.getBlockType().ordinal();
+                blockAttempts[ordinal]++;
+                if (block.getCompletedAsPlanned() != null && block.getCompletedAsPlanned()) {
+                    blockSuccesses[ordinal]++;
+                }
+            }
+        }
+    }
+
+    void acceptPersonalRecords(int count) {
+        personalRecords += count;
+    }
+
+    void acceptWodResult(String sessionTitle, String wodResult) {
+        wodResults.computeIfAbsent(sessionTitle, title -> new ArrayList<>()).add(wodResult);
+    }
+
+    void acceptStrengthSet(String exerciseName, double weight, int reps, Instant completedAt) {
+        ExerciseAccumulator exercise = exercise(exerciseName);
+        exercise.accept(weight, reps);
+        exercise.addPoint(weight, completedAt);
+    }
+
+    /**
+     * Fold strength totals already reduced by the database; the weight history
+     * is then supplied separately through {@link #acceptWeightPoint}
+     */
+    void accept(ExerciseStrengthRow strength) {
+        ExerciseAccumulator exercise = exercise(strength.exerciseName());
+        exercise.maxWeight = Math.max(exercise.maxWeight, strength.maxWeight() != null ? strength.maxWeight() : 0.0);
+        exercise.bestOneRepMax = Math.max(exercise.bestOneRepMax,
+            strength.estimatedOneRepMax() != null ? strength.estimatedOneRepMax() : 0.0);
+        exercise.volume += strength.totalVolumeLoad() != null ? strength.totalVolumeLoad() : 0.0;
+    }
+
+    void acceptWeightPoint(String exerciseName, double weight, Instant completedAt) {
+        exercise(exerciseName).addPoint(weight, completedAt);
+    }
+
+    private ExerciseAccumulator exercise(String exerciseName) {
+        return exercises.computeIfAbsent(exerciseName, name -> new ExerciseAccumulator());
+    }
+
+    /**
+     * Fold another accumulator into this one. Histories are appended, so the other
+     * accumulator must hold later days or sections this one has not seen.
+     */
+    AnalyticsAccumulator merge(AnalyticsAccumulator other) {
+        replayScannedDays();
+        other.replayScannedDays();
+
+        workouts += other.workouts;
+        durationCount += other.durationCount;
+        durationSum += other.durationSum;
+        volumeSum += other.volumeSum;
+        rpeCount += other.rpeCount;
+        rpeSum += other.rpeSum;
+        rpeSumSquares += other.rpeSumSquares;
+        personalRecords += other.personalRecords;
+
+        emomWorkouts += other.emomWorkouts;
+        emomCompletionRateSum += other.emomCompletionRateSum;
+        emomMinutesCompleted += other.emomMinutesCompleted;
+        emomMinutesTarget += other.emomMinutesTarget;
+
+        tabataWorkouts += other.tabataWorkouts;
+        tabataRepsCount += other.tabataRepsCount;
+        tabataRepsSum += other.tabataRepsSum;
+        tabataRoundsCompleted += other.tabataRoundsCompleted;
+        if (other.tabataBestDate != null && (tabataBestDate == null || other.tabataBestReps > tabataBestReps)) {
+            tabataBestReps = other.tabataBestReps;
+            tabataBestDate = other.tabataBestDate;
+        }
+        tabataRepsHistory.appendAll(other.tabataRepsHistory);
+
+        amrapWorkouts += other.amrapWorkouts;
+        amrapRoundsSum += other.amrapRoundsSum;
+        other.wodResults.forEach((title, results) ->
+            wodResults.computeIfAbsent(title, t -> new ArrayList<>()).addAll(results));
+
+        circuitWorkouts += other.circuitWorkouts;
+        circuitTimeSum += other.circuitTimeSum;
+        circuitRoundsCompleted += other.circuitRoundsCompleted;
+        if (other.circuitFastest != null && (circuitFastest == null || other.circuitFastest < circuitFastest)) {
+            circuitFastest = other.circuitFastest;
+            circuitFastestDate = other.circuitFastestDate;
+        }
+        circuitTimeHistory.appendAll(other.circuitTimeHistory);
+
+        volumeTrend.appendAll(other.volumeTrend);
+        rpeTrend.appendAll(other.rpeTrend);
+        durationTrend.appendAll(other.durationTrend);
+
+        for (int i = 0; i < BLOCK_TYPES.length; i++) {
+            blockAttempts[i] += other.blockAttempts[i];
+            blockSuccesses[i] += other.blockSuccesses[i];
+        }
+
+        other.exercises.forEach((name, exercise) -> exercise(name).merge(exercise));
+        return this;
+    }
+
+    /**
+     * Fold any pending raw days and sort pending series so the accumulator can be shared
+     * read-only and merged from
+     */
+    AnalyticsAccumulator seal() {
+        replayScannedDays();
+        exercises.values().forEach(exercise -> exercise.weights.sort());
+        return this;
+    }
+
+    private void replayScannedDays() {
+        if (!scannedDays.isEmpty()) {
+            scannedDays.values().forEach(this::accept);
+            scannedDays.clear();
+        }
+    }
+
+    /**
+     * Materialize every section of the analytics from the accumulated state
+     */
+    WorkoutAnalytics fill(WorkoutAnalytics analytics, LocalDate startDate, LocalDate endDate) {
+        return fill(analytics, startDate, endDate, 0);
+    }
+
+    /**
+     * Materialize the analytics with every trend and history downsampled to at most
+     * {@code maxPoints} points; zero or less keeps every point
+     */
+    WorkoutAnalytics fill(WorkoutAnalytics analytics, LocalDate startDate, LocalDate endDate, int maxPoints) {
+        replayScannedDays();
+
+        if (workouts == 0) {
+            return analytics;
+        }
+
+        // Overall metrics
+        analytics.setTotalWorkouts(workouts);
+        analytics.setAverageSessionDuration(durationCount > 0 ? (double) durationSum / durationCount : 0.0);
+        analytics.setTotalVolumeLoad(volumeSum);
+        analytics.setAverageRPE(rpeCount > 0 ? rpeSum / rpeCount : 0.0);
+        analytics.setPersonalRecords(personalRecords);
+
+        // Workout-type specific metrics
+        Map<String, EMOMAnalytics> emomMetrics = new HashMap<>();
+        if (emomWorkouts > 0) {
+            EMOMAnalytics emom = new EMOMAnalytics();
+            emom.setAverageCompletionRate(emomCompletionRateSum / emomWorkouts);
+            emom.setTotalMinutesCompleted(emomMinutesCompleted);
+            emom.setTotalMinutesAttempted(emomMinutesTarget);
+            emomMetrics.put("overall", emom);
+        }
+        analytics.setEmomMetrics(emomMetrics);
+
+        Map<String, TabataAnalytics> tabataMetrics = new HashMap<>();
+        if (tabataWorkouts > 0) {
+            TabataAnalytics tabata = new TabataAnalytics();
+            tabata.setAverageRepsPerRound(tabataRepsCount > 0 ? tabataRepsSum / tabataRepsCount : 0.0);
+            tabata.setTotalRoundsCompleted(tabataRoundsCompleted);
+            tabata.setRepsHistory(Downsampler.lttb(tabataRepsHistory, maxPoints).values());
+            tabata.setBestAverageReps(tabataBestReps);
+            tabata.setBestPerformanceDate(tabataBestDate);
+            tabataMetrics.put("overall", tabata);
+        }
+        analytics.setTabataMetrics(tabataMetrics);
+
+        Map<String, AMRAPAnalytics> amrapMetrics = new HashMap<>();
+        if (amrapWorkouts > 0) {
+            AMRAPAnalytics amrap = new AMRAPAnalytics();
+            amrap.setAverageRounds((double) amrapRoundsSum / amrapWorkouts);
+            amrap.setWodResults(wodResults);
+            amrapMetrics.put("overall", amrap);
+        }
+        analytics.setAmrapMetrics(amrapMetrics);
+
+        Map<String, CircuitAnalytics> circuitMetrics = new HashMap<>();
+        if (circuitWorkouts > 0) {
+            CircuitAnalytics circuit = new CircuitAnalytics();
+            circuit.setAverageRoundTime(circuitTimeSum / circuitWorkouts);
+            circuit.setTotalRoundsCompleted(circuitRoundsCompleted);
+            circuit.setRoundTimeHistory(Downsampler.lttb(circuitTimeHistory, maxPoints).values());
+            circuit.setFastestRoundTime(circuitFastest != null ? circuitFastest : 0);
+            circuit.setFastestRoundDate(circuitFastestDate);
+            circuitMetrics.put("overall", circuit);
+        }
+        analytics.setCircuitMetrics(circuitMetrics);
+
+        // Strength metrics
+        Map<String, StrengthAnalytics> strengthMetrics = new HashMap<>();
+        Map<String, Double> oneRepMaxEstimates = new HashMap<>();
+        exercises.forEach((exerciseName, exercise) -> {
+            StrengthAnalytics strength = new StrengthAnalytics();
+            strength.setMaxWeight(exercise.maxWeight);
+            strength.setEstimatedOneRepMax(exercise.bestOneRepMax);
+            strength.setTotalVolumeLoad(exercise.volume);
+            strength.setWeightHistory(Downsampler.lttb(exercise.weights, maxPoints).values());
+            strengthMetrics.put(exerciseName, strength);
+            oneRepMaxEstimates.put(exerciseName, exercise.bestOneRepMax);
+        });
+        analytics.setStrengthMetrics(strengthMetrics);
+        analytics.setOneRepMaxEstimates(oneRepMaxEstimates);
+
+        // Trends
+        Map<String, double[]> trends = new HashMap<>();
+        trends.put("volumeLoad", Downsampler.lttb(volumeTrend, maxPoints).values());
+        trends.put("averageRPE", Downsampler.lttb(rpeTrend, maxPoints).values());
+        trends.put("sessionDuration", Downsampler.lttb(durationTrend, maxPoints).values());
+        analytics.setPerformanceTrends(trends);
+
+        // Volume load per ISO week, keyed by the week's Monday
+        Map<String, Double> weeklyProgress = new LinkedHashMap<>();
+        TimeSeries weeklyVolume = volumeTrend.resample(FIRST_MONDAY_EPOCH_DAY, 7, TimeSeries.Aggregation.SUM);
+        for (int i = 0; i < weeklyVolume.size(); i++) {
+            weeklyProgress.put(LocalDate.ofEpochDay(weeklyVolume.keyAt(i)).toString(), weeklyVolume.valueAt(i));
+        }
+        analytics.setWeeklyProgress(weeklyProgress);
+
+        // Consistency
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        analytics.setWorkoutConsistency((double) workouts / totalDays * 7); // workouts per week
+
+        if (rpeCount > 0) {
+            // Coefficient of variation of RPE from the sum of squares
+            double avgRPE = rpeSum / rpeCount;
+            double variance = Math.max(0.0, rpeSumSquares / rpeCount - avgRPE * avgRPE);
+            double coefficientOfVariation = avgRPE > 0 ? (Math.sqrt(variance) / avgRPE) * 100 : 0;
+            analytics.setPerformanceConsistency(100 - coefficientOfVariation); // Higher is more consistent
+        }
+
+        Map<String, Double> blockTypeSuccess = new HashMap<>();
+        for (int i = 0; i < BLOCK_TYPES.length; i++) {
+            if (blockAttempts[i] > 0) {
+                blockTypeSuccess.put(BLOCK_TYPES[i].name(), (double) blockSuccesses[i] / blockAttempts[i] * 100);
+            }
+        }
+        analytics.setBlockTypeSuccess(blockTypeSuccess);
+
+        return analytics;
+    }
+
+    // Per-exercise strength state; weights are keyed by set completion time in epoch milliseconds
+    private static final class ExerciseAccumulator {
+        double maxWeight;
+        double bestOneRepMax;
+        double volume;
+        final TimeSeries weights = new TimeSeries(8);
+
+        void accept(double weight, int reps) {
+            maxWeight = Math.max(maxWeight, weight);
+            // Estimate 1RM using Epley formula: weight * (1 + reps/30)
+            bestOneRepMax = Math.max(bestOneRepMax, weight * (1 + reps / 30.0));
+            volume += weight * reps;
+        }
+
+        void addPoint(double weight, Instant completedAt) {
+            weights.append(completedAt != null ? completedAt.toEpochMilli() : Long.MIN_VALUE, weight);
+        }
+
+        void merge(ExerciseAccumulator other) {
+            maxWeight = Math.max(maxWeight, other.maxWeight);
+            bestOneRepMax = Math.max(bestOneRepMax, other.bestOneRepMax);
+            volume += other.volume;
+            weights.appendAll(other.weights);
+        }
+    }
+}
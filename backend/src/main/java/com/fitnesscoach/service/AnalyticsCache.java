@@ -0,0 +1,165 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.ExerciseBlock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Size and TTL bounded cache for computed analytics.
+ * Concurrent misses for the same key are coalesced so the value is computed once,
+ * and entries covering a changed day are dropped once the change has committed.
+ */
+@Component
+public class AnalyticsCache {
+
+    /**
+     * A null block type identifies the full analytics, otherwise the report for that type.
+     * Max points is the downsampling limit of the trends, zero when every point is returned.
+     */
+    public record Key(UUID userId, LocalDate startDate, LocalDate endDate, ExerciseBlock.BlockType blockType,
+                      int maxPoints) {
+
+        public Key(UUID userId, LocalDate startDate, LocalDate endDate, ExerciseBlock.BlockType blockType) {
+            this(userId, startDate, endDate, blockType, 0);
+        }
+
+        boolean covers(UUID changedUserId, LocalDate changedDate) {
+            return userId.equals(changedUserId) &&
+                (changedDate == null || (!changedDate.isBefore(startDate) && !changedDate.isAfter(endDate)));
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private record Generation(long value, int loads) {}
+
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so computations that started before a change are not cached.
+    // Only users with a computation running are tracked, so the map is bounded by the loads.
+    private final Map<UUID, Generation> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnalyticsCache(
+            @Value("${fitnesscoach.analytics.cache.max-entries:500}") int maxEntries,
+            @Value("${fitnesscoach.analytics.cache.ttl:5m}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt() < 0) {
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+            }
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+
+        long generation = startLoad(key.userId());
+        try {
+            T value = loader.get();
+            synchronized (entries) {
+                if (generations.get(key.userId()).value() == generation) {
+                    entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+                }
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            endLoad(key.userId());
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        invalidate(userId, null);
+    }
+
+    /**
+     * Drop the user's entries whose range contains the date, or all of them for a null date
+     */
+    public void invalidate(UUID userId, LocalDate date) {
+        // A user with no computation running has nothing to stop from being cached
+        generations.computeIfPresent(userId, (id, generation) -> new Generation(generation.value() + 1, generation.loads()));
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.covers(userId, date));
+        }
+        // Later requests must not join a computation that may have read the old results
+        inFlight.keySet().removeIf(key -> key.covers(userId, date));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkoutResultChanged(WorkoutResultChangedEvent event) {
+        if (event.userId() != null) {
+            invalidate(event.userId(), event.date());
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Number of users with a computation running
+    int trackedUsers() {
+        return generations.size();
+    }
+
+    private long startLoad(UUID userId) {
+        return generations.compute(userId, (id, generation) -> generation == null
+            ? new Generation(0, 1)
+            : new Generation(generation.value(), generation.loads() + 1)).value();
+    }
+
+    private void endLoad(UUID userId) {
+        generations.computeIfPresent(userId, (id, generation) -> generation.loads() > 1
+            ? new Generation(generation.value(), generation.loads() - 1)
+            : null);
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for analytics", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Failed to compute analytics", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.projection.UserDayRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of "recompute user X from day D" jobs run by a small pool of workers,
+ * so edits and deletes return without waiting for the records, sketches and rollups.
+ * A user has at most one pending job: later submissions are merged into it, the
+ * earliest day winning, and a job waits {@code delay} after its first submission so
+ * bursts of edits are recomputed once. When the queue is full the writer recomputes
+ * inline after its commit, which slows writers down instead of dropping work.
+ * Pending jobs live in memory only; a user rebuild recovers from a lost job.
+ */
+@Component
+public class AnalyticsRecomputeQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRecomputeQueue.class);
+
+    public record Stats(boolean async, int workers, int capacity, int pending, int running,
+                        long submitted, long coalesced, long inline, long completed, long failed,
+                        long oldestPendingMillis, long lastLagMillis, long maxLagMillis) {}
+
+    // Days changed since the job was queued; the first one is where recomputation starts
+    private static final class Job {
+        final long enqueuedAt = System.nanoTime();
+        final SortedSet<LocalDate> days = new TreeSet<>();
+    }
+
+    private final AnalyticsRecomputeService recomputeService;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final boolean async;
+    private final int workerCount;
+    private final int capacity;
+    private final long delayNanos;
+
+    private final ConcurrentHashMap<UUID, Job> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<UUID> ready;
+    // Keeps two workers off the same user when a job is queued while the previous one runs
+    private final ReentrantLock[] userLocks = new ReentrantLock[64];
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong inline = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong running = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    @Autowired
+    public AnalyticsRecomputeQueue(
+            AnalyticsRecomputeService recomputeService,
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            @Value("${fitnesscoach.analytics.recompute.async:true}") boolean async,
+            @Value("${fitnesscoach.analytics.recompute.workers:2}") int workerCount,
+            @Value("${fitnesscoach.analytics.recompute.capacity:1000}") int capacity,
+            @Value("${fitnesscoach.analytics.recompute.delay:2s}") Duration delay) {
+        this.recomputeService = recomputeService;
+        this.workoutResultRepository = workoutResultRepository;
+        this.async = async && workerCount > 0;
+        this.workerCount = workerCount;
+        this.capacity = capacity;
+        this.delayNanos = delay.toNanos();
+        this.ready = new LinkedBlockingQueue<>(Math.max(capacity, 1));
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!async) {
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "analytics-recompute-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Whether edits and deletes are recomputed in the background rather than by the writer
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Queue a recomputation of the user's analytics from {@code day}, once the current
+     * transaction has committed so the worker sees the change
+     */
+    public void submit(UUID userId, LocalDate day) {
+        if (userId == null || day == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(userId, List.of(day));
+                }
+            });
+        } else {
+            enqueue(userId, List.of(day));
+        }
+    }
+
+    /**
+     * Recompute every day that has results but no daily rollup, e.g. history written
+     * before rollups were maintained; analytics read such days from the raw results
+     * until then. Runs on the workers when recomputation is asynchronous.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Map<UUID, SortedSet<LocalDate>> missing = new HashMap<>();
+        for (UserDayRow day : workoutResultRepository.findDaysWithoutRollup()) {
+            missing.computeIfAbsent(day.userId(), userId -> new TreeSet<>()).add(day.date());
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        log.info("Backfilling analytics for {} days of {} users without rollups",
+            missing.values().stream().mapToInt(SortedSet::size).sum(), missing.size());
+        missing.forEach((userId, days) -> {
+            if (async) {
+                enqueue(userId, days);
+                return;
+            }
+            Job job = new Job();
+            job.days.addAll(days);
+            ReentrantLock lock = lockFor(userId);
+            lock.lock();
+            try {
+                run(userId, job);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public Stats getStats() {
+        long now = System.nanoTime();
+        long oldest = pending.values().stream().mapToLong(job -> now - job.enqueuedAt).max().orElse(0);
+        return new Stats(async, workerCount, capacity, pending.size(), (int) running.get(),
+            submitted.get(), coalesced.get(), inline.get(), completed.get(), failed.get(),
+            TimeUnit.NANOSECONDS.toMillis(oldest),
+            TimeUnit.NANOSECONDS.toMillis(lastLagNanos.get()),
+            TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()));
+    }
+
+    private void enqueue(UUID userId, Collection<LocalDate> days) {
+        submitted.incrementAndGet();
+        boolean[] created = new boolean[1];
+        pending.compute(userId, (id, job) -> {
+            if (job == null) {
+                job = new Job();
+                created[0] = true;
+            } else {
+                coalesced.incrementAndGet();
+            }
+            job.days.addAll(days);
+            return job;
+        });
+        if (!created[0] || ready.offer(userId)) {
+            return;
+        }
+
+        // Full: take the job back and run it on the writer's thread
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            Job job = pending.remove(userId);
+            if (job != null) {
+                inline.incrementAndGet();
+                run(userId, job);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                UUID userId = ready.take();
+                Job job = pending.get(userId);
+                if (job == null) {
+                    continue;
+                }
+                long wait = job.enqueuedAt + delayNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+
+                ReentrantLock lock = lockFor(userId);
+                lock.lock();
+                try {
+                    job = pending.remove(userId);
+                    if (job != null) {
+                        run(userId, job);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(UUID userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), userLocks.length)];
+    }
+
+    private void run(UUID userId, Job job) {
+        running.incrementAndGet();
+        try {
+            recomputeService.recompute(userId, job.days);
+            completed.incrementAndGet();
+            long lag = System.nanoTime() - job.enqueuedAt;
+            lastLagNanos.set(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("Analytics recomputation failed for user {} from {}", userId, job.days.first(), e);
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.fitnesscoach.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Brings one user's derived analytics up to date after edits and deletes:
+ * personal records from the earliest changed day on, the sketches of the changed
+ * months and the rollups of the changed days, plus every later day whose
+ * results' personal records moved.
+ */
+@Service
+public class AnalyticsRecomputeService {
+
+    // Days refreshed between clears of the persistence context
+    private static final int DAYS_PER_FLUSH = 16;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PersonalRecordService personalRecordService;
+    private final MetricSketchService metricSketchService;
+    private final AnalyticsRollupService rollupService;
+
+    @Autowired
+    public AnalyticsRecomputeService(
+            PersonalRecordService personalRecordService,
+            MetricSketchService metricSketchService,
+            AnalyticsRollupService rollupService) {
+        this.personalRecordService = personalRecordService;
+        this.metricSketchService = metricSketchService;
+        this.rollupService = rollupService;
+    }
+
+    // Runs in its own transaction, also when called from a committing writer
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recompute(UUID userId, SortedSet<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        // Held until commit, so writers of the user wait instead of interleaving with the rebuild
+        rollupService.lockUser(userId);
+        // Records first: the daily rollup counts the personal records they fill in
+        SortedSet<LocalDate> refresh = new TreeSet<>(days);
+        refresh.addAll(personalRecordService.rebuildFrom(userId, days.first()));
+        days.stream().map(YearMonth::from).distinct().forEach(month -> metricSketchService.rebuildMonth(userId, month));
+        // A long import touches many days; without clearing, every query's auto-flush
+        // walks all the results and rollups loaded for the days before it
+        List<LocalDate> pending = List.copyOf(refresh);
+        for (int from = 0; from < pending.size(); from += DAYS_PER_FLUSH) {
+            entityManager.flush();
+            entityManager.clear();
+            rollupService.refreshDays(userId, pending.subList(from, Math.min(from + DAYS_PER_FLUSH, pending.size())));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+import com.fitnesscoach.model.AnalyticsDataVersion;
+import com.fitnesscoach.model.BlockResult;
+import com.fitnesscoach.model.BlockTypeDailyRollup;
+import com.fitnesscoach.model.ExerciseBlock;
+import com.fitnesscoach.model.VolumeRollup;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import com.fitnesscoach.repository.BlockTypeDailyRollupRepository;
+import com.fitnesscoach.repository.VolumeRollupRepository;
+import com.fitnesscoach.repository.projection.BlockTypeCompletionRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains per-user daily analytics rollups, and through {@link VolumeRollupService}
+ * the volume rollups, as workout results are written.
+ * Only the buckets for the days touched by a write are re-derived, so the cost
+ * of a write depends on the workouts of that day rather than the whole history.
+ * A refresh first locks the user's {@link AnalyticsDataVersion} row, so refreshes of
+ * one user run one at a time and each reads the results committed by the one before;
+ * week and month buckets are shared by many days, so locking single days is not enough.
+ */
+@Service
+@Transactional
+public class AnalyticsRollupService {
+
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final AnalyticsDailyRollupRepository dailyRollupRepository;
+    private final BlockTypeDailyRollupRepository blockTypeRollupRepository;
+    private final VolumeRollupService volumeRollupService;
+    private final VolumeRollupRepository volumeRollupRepository;
+    private final TrainingLoadService trainingLoadService;
+    private final AnalyticsDataVersionRepository versionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate createTransaction;
+
+    @Autowired
+    public AnalyticsRollupService(
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            AnalyticsDailyRollupRepository dailyRollupRepository,
+            BlockTypeDailyRollupRepository blockTypeRollupRepository,
+            VolumeRollupService volumeRollupService,
+            VolumeRollupRepository volumeRollupRepository,
+            TrainingLoadService trainingLoadService,
+            AnalyticsDataVersionRepository versionRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
+        this.workoutResultRepository = workoutResultRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.blockTypeRollupRepository = blockTypeRollupRepository;
+        this.volumeRollupService = volumeRollupService;
+        this.volumeRollupRepository = volumeRollupRepository;
+        this.trainingLoadService = trainingLoadService;
+        this.versionRepository = versionRepository;
+        this.eventPublisher = eventPublisher;
+        this.createTransaction = new TransactionTemplate(transactionManager);
+        this.createTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Refresh the buckets affected by a saved result, including the one it
+     * was moved away from if its user or date changed
+     */
+    public void onWorkoutSaved(AdvancedWorkoutResult result) {
+        UUID loadedUserId = result.getLoadedUserId();
+        LocalDate loadedDate = result.getLoadedDate();
+        if (loadedUserId != null && loadedDate != null &&
+                (!loadedUserId.equals(result.getUserId()) || !loadedDate.equals(result.getDate()))) {
+            lockUsers(loadedUserId, result.getUserId());
+            refreshDay(loadedUserId, loadedDate);
+            publishChanged(loadedUserId, loadedDate);
+        }
+        refreshDay(result.getUserId(), result.getDate());
+        publishChanged(result.getUserId(), result.getDate());
+    }
+
+    public void onWorkoutDeleted(AdvancedWorkoutResult result) {
+        refreshDay(result.getUserId(), result.getDate());
+        publishChanged(result.getUserId(), result.getDate());
+    }
+
+    /**
+     * Refresh a set of days of one user and announce each change
+     */
+    public void refreshDays(UUID userId, Collection<LocalDate> days) {
+        if (userId == null) {
+            return;
+        }
+        if (days.isEmpty()) {
+            return;
+        }
+        lockUser(userId);
+        volumeRollupService.refreshDays(userId, days);
+
+        // One read per table for all the days instead of one per day
+        Map<LocalDate, List<AdvancedWorkoutResult>> workouts = workoutResultRepository
+            .findWithBlockResultsForAnalyticsOnDates(userId, days).stream()
+            .collect(Collectors.groupingBy(AdvancedWorkoutResult::getDate));
+        Map<LocalDate, AnalyticsDailyRollup> existing = dailyRollupRepository
+            .findByUserIdAndBucketDateIn(userId, days).stream()
+            .collect(Collectors.toMap(AnalyticsDailyRollup::getBucketDate, r -> r));
+        Map<LocalDate, List<BlockTypeDailyRollup>> existingBlockTypes = blockTypeRollupRepository
+            .findByUserIdAndBucketDateIn(userId, days).stream()
+            .collect(Collectors.groupingBy(BlockTypeDailyRollup::getBucketDate));
+
+        for (LocalDate day : days) {
+            refreshDailyBuckets(userId, day, workouts.getOrDefault(day, List.of()),
+                Optional.ofNullable(existing.get(day)), existingBlockTypes.getOrDefault(day, List.of()));
+            eventPublisher.publishEvent(new WorkoutResultChangedEvent(userId, day));
+        }
+    }
+
+    /**
+     * Re-derive one user's buckets for a single day from that day's results
+     */
+    public void refreshDay(UUID userId, LocalDate day) {
+        if (userId == null || day == null) {
+            return;
+        }
+
+        lockUser(userId);
+        volumeRollupService.refreshDay(userId, day);
+        refreshDailyBuckets(userId, day,
+            workoutResultRepository.findWithBlockResultsForAnalytics(userId, day, day),
+            dailyRollupRepository.findByUserIdAndBucketDate(userId, day),
+            blockTypeRollupRepository.findByUserIdAndBucketDate(userId, day));
+    }
+
+    private void refreshDailyBuckets(UUID userId, LocalDate day, List<AdvancedWorkoutResult> workouts,
+                                     Optional<AnalyticsDailyRollup> existing,
+                                     List<BlockTypeDailyRollup> existingBlockTypeRows) {
+        Map<ExerciseBlock.BlockType, BlockTypeDailyRollup> existingBlockTypes = existingBlockTypeRows.stream()
+            .collect(Collectors.toMap(BlockTypeDailyRollup::getBlockType, r -> r));
+
+        // Training load follows the change of the day's loads
+        double previousLoad = existing.map(AnalyticsDailyRollup::getSessionLoadSum).orElse(0.0);
+        double previousVolume = existing.map(AnalyticsDailyRollup::getTrainingVolume).orElse(0.0);
+
+        if (workouts.isEmpty()) {
+            existing.ifPresent(dailyRollupRepository::delete);
+            blockTypeRollupRepository.deleteAll(existingBlockTypes.values());
+            trainingLoadService.onDayChanged(userId, day, -previousLoad, -previousVolume);
+            return;
+        }
+
+        AnalyticsDailyRollup rollup = existing.orElseGet(() -> new AnalyticsDailyRollup(userId, day));
+        rollup.reset();
+
+        // Counters are rebuilt into the existing rows so unique keys are reused instead of re-inserted
+        Map<ExerciseBlock.BlockType, BlockTypeDailyRollup> blockTypes = new EnumMap<>(ExerciseBlock.BlockType.class);
+        for (AdvancedWorkoutResult workout : workouts) {
+            rollup.accumulate(workout);
+            for (BlockResult blockResult : workout.getBlockResults()) {
+                rollup.addBlockVolume(blockResult);
+                if (blockResult.getBlockType() == null) {
+                    continue;
+                }
+                blockTypes.computeIfAbsent(blockResult.getBlockType(), type -> {
+                    BlockTypeDailyRollup blockRollup = existingBlockTypes.remove(type);
+                    if (blockRollup == null) {
+                        return new BlockTypeDailyRollup(userId, day, type);
+                    }
+                    blockRollup.setAttempts(0);
+                    blockRollup.setSuccesses(0);
+                    return blockRollup;
+                }).accumulate(blockResult);
+            }
+        }
+
+        dailyRollupRepository.save(rollup);
+        blockTypeRollupRepository.saveAll(blockTypes.values());
+        blockTypeRollupRepository.deleteAll(existingBlockTypes.values());
+        trainingLoadService.onDayChanged(userId, day,
+            rollup.getSessionLoadSum() - previousLoad, rollup.getTrainingVolume() - previousVolume);
+    }
+
+    /**
+     * Rebuild every bucket for a user, e.g. for history written before rollups existed
+     */
+    public void rebuildUser(UUID userId) {
+        lockUser(userId);
+        Set<LocalDate> days = new TreeSet<>(workoutResultRepository.findDistinctDatesByUserId(userId));
+        dailyRollupRepository.findByUserId(userId).forEach(r -> days.add(r.getBucketDate()));
+        blockTypeRollupRepository.findByUserId(userId).forEach(r -> days.add(r.getBucketDate()));
+        volumeRollupRepository.findByUserIdAndGranularity(userId, VolumeRollup.Granularity.DAY)
+            .forEach(r -> days.add(r.getBucketDate()));
+
+        days.forEach(day -> refreshDay(userId, day));
+        trainingLoadService.rebuildUser(userId);
+        eventPublisher.publishEvent(new WorkoutResultChangedEvent(userId, null));
+    }
+
+    /**
+     * Replay the user's training load state from the daily rollups, e.g. after a failed
+     * write or to clear rounding accumulated by many corrections to past days
+     */
+    public void rebuildTrainingLoad(UUID userId) {
+        lockUser(userId);
+        trainingLoadService.rebuildUser(userId);
+    }
+
+    /**
+     * Lock the user's data version row until the transaction ends, creating it first if
+     * the user has none. The row is created by an upsert in its own transaction, so concurrent
+     * first writes of a user create it once, without a failed insert, and then wait on the
+     * same row lock.
+     */
+    public void lockUser(UUID userId) {
+        if (versionRepository.findForUpdateByUserId(userId).isPresent()) {
+            return;
+        }
+        createTransaction.executeWithoutResult(status -> versionRepository.createIfAbsent(userId));
+        versionRepository.findForUpdateByUserId(userId)
+            .orElseThrow(() -> new RuntimeException("Analytics data version missing for user " + userId));
+    }
+
+    // In a fixed order, so two writers moving results between the same users cannot deadlock
+    public void lockUsers(UUID... userIds) {
+        Arrays.stream(userIds).filter(Objects::nonNull).distinct().sorted().forEach(this::lockUser);
+    }
+
+    // Results saved without a user have no analytics, so there is nothing to announce
+    private void publishChanged(UUID userId, LocalDate day) {
+        if (userId != null) {
+            eventPublisher.publishEvent(new WorkoutResultChangedEvent(userId, day));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<AnalyticsDailyRollup> findDailyRollups(UUID userId, LocalDate startDate, LocalDate endDate) {
+        return dailyRollupRepository.findByUserIdAndBucketDateBetweenOrderByBucketDateAsc(userId, startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BlockTypeCompletionRow> summarizeBlockTypes(UUID userId, LocalDate startDate, LocalDate endDate) {
+        return blockTypeRollupRepository.summarizeByBlockType(userId, startDate, endDate);
+    }
+}
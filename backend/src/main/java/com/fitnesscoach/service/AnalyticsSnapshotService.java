@@ -0,0 +1,150 @@
+package com.fitnesscoach.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitnesscoach.model.AnalyticsDataVersion;
+import com.fitnesscoach.model.AnalyticsSnapshot;
+import com.fitnesscoach.model.AnalyticsSnapshot.Period;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import com.fitnesscoach.repository.AnalyticsSnapshotRepository;
+import com.fitnesscoach.repository.projection.SnapshotVersionRow;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persisted analytics for the standard dashboard periods. Every change to a user's
+ * results bumps the user's data version in the writing transaction; a read returns
+ * the stored snapshot when it was computed for the current version and day, and
+ * recomputes and stores it otherwise. Snapshots survive restarts, unlike the caches.
+ */
+@Service
+@Transactional
+public class AnalyticsSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsSnapshotService.class);
+    private static final int RECENT_DAYS = 30;
+
+    private final AnalyticsSnapshotRepository snapshotRepository;
+    private final AnalyticsDataVersionRepository versionRepository;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final AdvancedAnalyticsService analyticsService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate storeTransaction;
+
+    @Autowired
+    public AnalyticsSnapshotService(
+            AnalyticsSnapshotRepository snapshotRepository,
+            AnalyticsDataVersionRepository versionRepository,
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            AdvancedAnalyticsService analyticsService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.versionRepository = versionRepository;
+        this.workoutResultRepository = workoutResultRepository;
+        this.analyticsService = analyticsService;
+        this.objectMapper = objectMapper;
+        this.storeTransaction = new TransactionTemplate(transactionManager);
+        this.storeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Runs inside the transaction that changed the data, so the version commits with it;
+    // first, as the monthly cache reads the bumped version there
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onResultsChanged(WorkoutResultChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (versionRepository.increment(event.userId(), now) == 0) {
+            versionRepository.createIfAbsent(event.userId());
+            versionRepository.increment(event.userId(), now);
+        }
+    }
+
+    /**
+     * The period's analytics, from the stored snapshot while it is current. A recomputed
+     * snapshot is stored in its own transaction; concurrent first reads of a period both
+     * store theirs, and a failed store still returns the analytics just computed.
+     */
+    @Transactional(readOnly = true)
+    public WorkoutAnalytics getSnapshot(UUID userId, Period period, LocalDate today) {
+        Optional<SnapshotVersionRow> row = snapshotRepository.findWithDataVersion(userId, period);
+        AnalyticsSnapshot snapshot;
+        long version;
+        if (row.isPresent()) {
+            snapshot = row.get().snapshot();
+            version = row.get().dataVersion() != null ? row.get().dataVersion() : 0L;
+        } else {
+            snapshot = new AnalyticsSnapshot(userId, period);
+            version = versionRepository.findByUserId(userId).map(AnalyticsDataVersion::getDataVersion).orElse(0L);
+        }
+        if (snapshot.isCurrent(version, today)) {
+            Optional<WorkoutAnalytics> stored = read(snapshot.getPayload());
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+        }
+
+        LocalDate startDate = startOf(userId, period, today);
+        WorkoutAnalytics analytics = analyticsService.generateAnalytics(userId, startDate, today);
+        snapshot.store(version, startDate, today, write(analytics));
+        try {
+            storeTransaction.executeWithoutResult(status -> snapshotRepository.upsert(snapshot));
+        } catch (DataAccessException e) {
+            log.warn("Storing the {} analytics snapshot of user {} failed", period, userId, e);
+        }
+        return analytics;
+    }
+
+    private LocalDate startOf(UUID userId, Period period, LocalDate today) {
+        if (period == Period.LAST_30_DAYS) {
+            return today.minusDays(RECENT_DAYS - 1);
+        }
+        LocalDate firstDate = workoutResultRepository.findFirstDateByUserId(userId);
+        return firstDate != null && firstDate.isBefore(today) ? firstDate : today;
+    }
+
+    private byte[] write(WorkoutAnalytics analytics) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, analytics);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize analytics snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // A payload that no longer reads, e.g. after the analytics shape changed, is recomputed
+    private Optional<WorkoutAnalytics> read(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return Optional.of(objectMapper.readValue(in, WorkoutAnalytics.class));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AnalyticsChange;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.AnalyticsChangeRepository;
+import com.fitnesscoach.repository.BlockResultRepository;
+import com.fitnesscoach.repository.projection.BlockFactRow;
+import com.fitnesscoach.repository.projection.SetFactRow;
+import com.fitnesscoach.repository.projection.WorkoutFactRow;
+import com.fitnesscoach.service.AdvancedAnalyticsService.AggregateRow;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Optional embedded analytics store: an H2 database in a local file holding workouts,
+ * block results and set results flattened into one table per level. Every row carries
+ * its user, program, date and month, so aggregates over any of them need no joins.
+ * Writers append the changed user days to the change feed in their own transaction;
+ * a single feed thread re-extracts each changed day from the row tables and replaces
+ * it in the store, so applying an entry twice is harmless. The watermark is the start
+ * of the last poll that drained the feed: every change committed before it is in the store.
+ */
+@Service
+public class AnalyticsStoreService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsStoreService.class);
+
+    private static final List<String> FACT_TABLES = List.of("workout_facts", "block_facts", "set_facts");
+
+    public record Status(boolean enabled, boolean ready, Instant consistentAsOf, long lagMillis,
+                         long pendingChanges, long appliedChanges, String path) {}
+
+    private final AnalyticsChangeRepository changeRepository;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final BlockResultRepository blockResultRepository;
+    private final AdvancedSetResultRepository setResultRepository;
+    private final TransactionTemplate primaryTransaction;
+    private final boolean enabled;
+    private final String path;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final boolean rebuildOnStart;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate storeTransaction;
+    private ScheduledExecutorService feed;
+
+    // Null until the store has been loaded, and while it is rebuilt
+    private volatile Instant consistentAsOf;
+    private volatile boolean rebuildRequested;
+    private final AtomicLong appliedChanges = new AtomicLong();
+
+    @Autowired
+    public AnalyticsStoreService(
+            AnalyticsChangeRepository changeRepository,
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            BlockResultRepository blockResultRepository,
+            AdvancedSetResultRepository setResultRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${fitnesscoach.analytics.store.enabled:false}") boolean enabled,
+            @Value("${fitnesscoach.analytics.store.path:./data/analytics-store}") String path,
+            @Value("${fitnesscoach.analytics.store.poll-interval:5s}") Duration pollInterval,
+            @Value("${fitnesscoach.analytics.store.batch-size:500}") int batchSize,
+            @Value("${fitnesscoach.analytics.store.rebuild-on-start:false}") boolean rebuildOnStart) {
+        this.changeRepository = changeRepository;
+        this.workoutResultRepository = workoutResultRepository;
+        this.blockResultRepository = blockResultRepository;
+        this.setResultRepository = setResultRepository;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.path = path;
+        this.pollInterval = pollInterval;
+        this.batchSize = Math.max(batchSize, 1);
+        this.rebuildOnStart = rebuildOnStart;
+    }
+
+    @PostConstruct
+    void open() {
+        if (!enabled) {
+            return;
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("analytics-store");
+        config.setJdbcUrl("jdbc:h2:file:" + path);
+        config.setUsername("sa");
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        jdbc = new JdbcTemplate(dataSource);
+        storeTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        createSchema();
+
+        List<OffsetDateTime> watermark = jdbc.queryForList(
+            "SELECT consistent_as_of FROM store_state WHERE id = 1", OffsetDateTime.class);
+        consistentAsOf = watermark.isEmpty() || watermark.get(0) == null ? null : watermark.get(0).toInstant();
+    }
+
+    /**
+     * Start the feed once startup writes such as seed data have committed. An empty store
+     * is loaded in full first.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void startFeed() {
+        if (!enabled) {
+            return;
+        }
+        rebuildRequested = rebuildOnStart || consistentAsOf == null;
+        feed = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "analytics-store-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        feed.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        if (feed != null) {
+            feed.shutdownNow();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Time before which every committed change is in the store, or null when the store
+     * is disabled or not loaded yet
+     */
+    public Instant getConsistentAsOf() {
+        return consistentAsOf;
+    }
+
+    /**
+     * Append a changed user day to the feed, in the caller's transaction so the entry
+     * commits or rolls back with the change. Undated workouts are not in the store.
+     */
+    public void recordChange(UUID userId, LocalDate date) {
+        if (enabled && userId != null && date != null) {
+            changeRepository.save(new AnalyticsChange(userId, date));
+        }
+    }
+
+    /**
+     * Reload the whole store on the feed thread; queries go to the row tables meanwhile
+     */
+    public void requestRebuild() {
+        if (feed != null) {
+            rebuildRequested = true;
+            feed.execute(this::poll);
+        }
+    }
+
+    public Status getStatus() {
+        Instant watermark = consistentAsOf;
+        long pending = enabled ? changeRepository.count() : 0;
+        long lag = watermark != null ? Duration.between(watermark, Instant.now()).toMillis() : 0;
+        return new Status(enabled, watermark != null, watermark, lag, pending, appliedChanges.get(),
+            enabled ? path : null);
+    }
+
+    /**
+     * Answer a fact query from the store. Averages are taken over doubles so they match
+     * the row tables' averages exactly.
+     */
+    public List<AggregateRow> aggregate(FactQuery query) {
+        String table = switch (query.level()) {
+            case WORKOUT -> "workout_facts";
+            case BLOCK -> "block_facts";
+            case SET -> "set_facts";
+        };
+        String column = query.measure().getColumn();
+        String value = switch (query.aggregation()) {
+            case AVG -> "AVG(CAST(" + column + " AS DOUBLE PRECISION))";
+            case COUNT -> "COUNT(" + column + ")";
+            default -> query.aggregation().name() + "(" + column + ")";
+        };
+        String dimensions = query.groupBy().stream()
+            .map(FactQuery.Dimension::getColumn)
+            .collect(Collectors.joining(", "));
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (!dimensions.isEmpty()) {
+            sql.append(dimensions).append(", ");
+        }
+        sql.append(value).append(", COUNT(").append(column).append(") FROM ").append(table)
+            .append(" WHERE workout_date BETWEEN ? AND ?");
+        List<Object> params = new ArrayList<>(List.of(query.startDate(), query.endDate()));
+        if (query.userIds() != null && !query.userIds().isEmpty()) {
+            sql.append(" AND user_id IN (")
+                .append(String.join(", ", Collections.nCopies(query.userIds().size(), "?"))).append(")");
+            params.addAll(query.userIds());
+        }
+        if (query.programId() != null) {
+            sql.append(" AND program_id = ?");
+            params.add(query.programId());
+        }
+        if (query.blockType() != null) {
+            sql.append(" AND block_type = ?");
+            params.add(query.blockType().name());
+        }
+        if (!dimensions.isEmpty()) {
+            sql.append(" GROUP BY ").append(dimensions).append(" ORDER BY ").append(dimensions);
+        }
+
+        int columns = query.groupBy().size();
+        return jdbc.query(sql.toString(), (rs, rowNum) -> {
+            Map<String, String> group = new LinkedHashMap<>();
+            for (int i = 0; i < columns; i++) {
+                FactQuery.Dimension dimension = query.groupBy().get(i);
+                Object key = dimension == FactQuery.Dimension.MONTH
+                    ? rs.getObject(i + 1, LocalDate.class) : rs.getObject(i + 1);
+                group.put(dimension.name(), key == null ? null
+                    : key instanceof LocalDate month ? YearMonth.from(month).toString() : key.toString());
+            }
+            Number aggregate = (Number) rs.getObject(columns + 1);
+            return new AggregateRow(group, aggregate != null ? aggregate.doubleValue() : null,
+                rs.getLong(columns + 2));
+        }, params.toArray());
+    }
+
+    private void poll() {
+        try {
+            if (rebuildRequested) {
+                rebuildRequested = false;
+                rebuild();
+            }
+            applyChanges();
+        } catch (RuntimeException e) {
+            // Entries stay in the feed and are retried on the next poll
+            log.error("Analytics store feed failed", e);
+        }
+    }
+
+    /**
+     * Replace the store with every dated workout. Feed entries are left in place and
+     * applied afterwards, as entries committing during the load may not be in it.
+     */
+    private void rebuild() {
+        Instant start = Instant.now();
+        consistentAsOf = null;
+        storeTransaction.executeWithoutResult(status -> {
+            FACT_TABLES.forEach(table -> jdbc.update("DELETE FROM " + table));
+            jdbc.update("DELETE FROM store_state");
+        });
+
+        List<UUID> userIds = primaryTransaction.execute(status -> workoutResultRepository.findDistinctUserIds());
+        for (UUID userId : userIds) {
+            Facts facts = primaryTransaction.execute(status -> {
+                LocalDate first = workoutResultRepository.findFirstDateByUserId(userId);
+                LocalDate last = workoutResultRepository.findLastDateByUserId(userId);
+                return first != null ? readFacts(userId, first, last) : new Facts();
+            });
+            storeTransaction.executeWithoutResult(status -> insertFacts(facts));
+        }
+        log.info("Analytics store loaded {} users in {} ms", userIds.size(),
+            Duration.between(start, Instant.now()).toMillis());
+        applyChanges();
+    }
+
+    /**
+     * Apply feed entries in batches until the feed is empty, then advance the watermark
+     * to the time this poll started
+     */
+    private void applyChanges() {
+        Instant start = Instant.now();
+        while (true) {
+            List<AnalyticsChange> batch = primaryTransaction.execute(status ->
+                changeRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize)));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Map<UUID, SortedSet<LocalDate>> days = new LinkedHashMap<>();
+            for (AnalyticsChange change : batch) {
+                days.computeIfAbsent(change.getUserId(), id -> new TreeSet<>()).add(change.getDate());
+            }
+            days.forEach((userId, userDays) -> {
+                for (LocalDate day : userDays) {
+                    Facts facts = primaryTransaction.execute(status -> readFacts(userId, day, day));
+                    storeTransaction.executeWithoutResult(status -> {
+                        FACT_TABLES.forEach(table -> jdbc.update(
+                            "DELETE FROM " + table + " WHERE user_id = ? AND workout_date = ?", userId, day));
+                        insertFacts(facts);
+                    });
+                }
+            });
+
+            // By id: entries with lower ids may still be committing and must stay
+            List<Long> ids = batch.stream().map(AnalyticsChange::getId).collect(Collectors.toList());
+            primaryTransaction.executeWithoutResult(status -> changeRepository.deleteAllByIdInBatch(ids));
+            appliedChanges.addAndGet(batch.size());
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        storeTransaction.executeWithoutResult(status -> {
+            OffsetDateTime watermark = start.atOffset(ZoneOffset.UTC);
+            if (jdbc.update("UPDATE store_state SET consistent_as_of = ? WHERE id = 1", watermark) == 0) {
+                jdbc.update("INSERT INTO store_state (id, consistent_as_of) VALUES (1, ?)", watermark);
+            }
+        });
+        consistentAsOf = start;
+    }
+
+    // Rows of one user's workouts in a date range, each child row keyed to its workout's row
+    private static final class Facts {
+        final List<WorkoutFactRow> workouts = new ArrayList<>();
+        final List<BlockFactRow> blocks = new ArrayList<>();
+        final List<SetFactRow> sets = new ArrayList<>();
+    }
+
+    private Facts readFacts(UUID userId, LocalDate startDate, LocalDate endDate) {
+        Facts facts = new Facts();
+        facts.workouts.addAll(workoutResultRepository.findWorkoutFacts(userId, startDate, endDate));
+        if (!facts.workouts.isEmpty()) {
+            facts.blocks.addAll(blockResultRepository.findBlockFacts(userId, startDate, endDate));
+            facts.sets.addAll(setResultRepository.findSetFacts(userId, startDate, endDate));
+        }
+        return facts;
+    }
+
+    private void insertFacts(Facts facts) {
+        if (facts.workouts.isEmpty()) {
+            return;
+        }
+        // A workout moved from another day or user may still have rows there
+        List<Object[]> workoutIds = facts.workouts.stream()
+            .map(w -> new Object[] {w.workoutId()})
+            .collect(Collectors.toList());
+        FACT_TABLES.forEach(table -> jdbc.batchUpdate("DELETE FROM " + table + " WHERE workout_id = ?", workoutIds));
+
+        Map<UUID, WorkoutFactRow> workouts = new HashMap<>();
+        List<Object[]> workoutRows = new ArrayList<>();
+        for (WorkoutFactRow w : facts.workouts) {
+            workouts.put(w.workoutId(), w);
+            workoutRows.add(new Object[] {w.workoutId(), w.userId(), w.programId(), w.date(), w.date().withDayOfMonth(1),
+                w.totalDurationSeconds(), w.totalReps(), w.totalVolumeLoad(), w.averageRPE()});
+        }
+        jdbc.batchUpdate("INSERT INTO workout_facts (workout_id, user_id, program_id, workout_date, month_start, " +
+            "total_duration_seconds, total_reps, total_volume_load, average_rpe) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            workoutRows);
+
+        List<Object[]> blockRows = new ArrayList<>();
+        for (BlockFactRow b : facts.blocks) {
+            WorkoutFactRow w = workouts.get(b.workoutId());
+            blockRows.add(new Object[] {b.blockResultId(), w.workoutId(), w.userId(), w.programId(), w.date(),
+                w.date().withDayOfMonth(1), b.blockType() != null ? b.blockType().name() : null,
+                b.totalTimeSeconds(), b.completionPercentage(), b.averageRPE(), b.totalVolumeLoad()});
+        }
+        jdbc.batchUpdate("INSERT INTO block_facts (block_result_id, workout_id, user_id, program_id, workout_date, " +
+            "month_start, block_type, total_time_seconds, completion_percentage, average_rpe, total_volume_load) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", blockRows);
+
+        List<Object[]> setRows = new ArrayList<>();
+        for (SetFactRow s : facts.sets) {
+            WorkoutFactRow w = workouts.get(s.workoutId());
+            Double volumeLoad = s.weight() != null && s.performedReps() != null ? s.weight() * s.performedReps() : null;
+            setRows.add(new Object[] {s.setResultId(), w.workoutId(), w.userId(), w.programId(), w.date(),
+                w.date().withDayOfMonth(1), s.exerciseId(), s.performedReps(), s.weight(), s.rpe(), volumeLoad});
+        }
+        jdbc.batchUpdate("INSERT INTO set_facts (set_result_id, workout_id, user_id, program_id, workout_date, " +
+            "month_start, exercise_id, performed_reps, weight, rpe, volume_load) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", setRows);
+    }
+
+    private void createSchema() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS workout_facts (" +
+            "workout_id UUID PRIMARY KEY, user_id UUID NOT NULL, program_id UUID, " +
+            "workout_date DATE NOT NULL, month_start DATE NOT NULL, " +
+            "total_duration_seconds INT, total_reps INT, total_volume_load DOUBLE PRECISION, " +
+            "average_rpe DOUBLE PRECISION)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS block_facts (" +
+            "block_result_id UUID PRIMARY KEY, workout_id UUID NOT NULL, user_id UUID NOT NULL, program_id UUID, " +
+            "workout_date DATE NOT NULL, month_start DATE NOT NULL, block_type VARCHAR(32), " +
+            "total_time_seconds INT, completion_percentage DOUBLE PRECISION, average_rpe DOUBLE PRECISION, " +
+            "total_volume_load DOUBLE PRECISION)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS set_facts (" +
+            "set_result_id UUID PRIMARY KEY, workout_id UUID NOT NULL, user_id UUID NOT NULL, program_id UUID, " +
+            "workout_date DATE NOT NULL, month_start DATE NOT NULL, exercise_id UUID, " +
+            "performed_reps INT, weight DOUBLE PRECISION, rpe DOUBLE PRECISION, volume_load DOUBLE PRECISION)");
+        for (String table : FACT_TABLES) {
+            jdbc.execute("CREATE INDEX IF NOT EXISTS " + table + "_user_date ON " + table + " (user_id, workout_date)");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS " + table + "_program_date ON " + table + " (program_id, workout_date)");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS " + table + "_date ON " + table + " (workout_date)");
+        }
+        jdbc.execute("CREATE TABLE IF NOT EXISTS store_state (id INT PRIMARY KEY, consistent_as_of TIMESTAMP WITH TIME ZONE)");
+    }
+}
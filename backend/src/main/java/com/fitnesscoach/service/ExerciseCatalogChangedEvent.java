@@ -0,0 +1,7 @@
+package com.fitnesscoach.service;
+
+/**
+ * Published when exercises are created, renamed or deleted outside name resolution
+ */
+public record ExerciseCatalogChangedEvent() {
+}
@@ -0,0 +1,215 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.model.ExerciseCategory;
+import com.fitnesscoach.repository.ExerciseRepository;
+import com.fitnesscoach.repository.projection.ExerciseNameRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Resolves the exercise names of logged sets to catalog exercises without scanning the
+ * catalog per set. A name matches the exercise with exactly that name, else the one with
+ * the same normalized name (case, accents and punctuation ignored), else the first
+ * normalized name it is a prefix of, from the start or from any later word, so "bench
+ * press" still finds "Barbell Bench Press". A name matching nothing becomes a new exercise.
+ * The index is held application-wide and rebuilt after catalog changes.
+ */
+@Component
+public class ExerciseNameIndex {
+
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Names by exact spelling, by normalized spelling and by each word suffix of the
+     * normalized spelling. Where several exercises share a key the first by name, then
+     * id, wins, so resolution does not depend on database row order.
+     */
+    private record Snapshot(Map<String, UUID> exact, NavigableMap<String, UUID> normalized,
+                            NavigableMap<String, UUID> wordSuffixes) {
+
+        static Snapshot of(List<ExerciseNameRow> rows) {
+            List<ExerciseNameRow> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(ExerciseNameRow::name).thenComparing(ExerciseNameRow::id));
+            Snapshot snapshot = new Snapshot(new HashMap<>(), new TreeMap<>(), new TreeMap<>());
+            sorted.forEach(row -> snapshot.add(row.name(), row.id()));
+            return snapshot;
+        }
+
+        private void add(String name, UUID id) {
+            exact.putIfAbsent(name, id);
+            String key = normalize(name);
+            if (key.isEmpty()) {
+                return;
+            }
+            normalized.putIfAbsent(key, id);
+            for (int start = key.indexOf(' '); start >= 0; start = key.indexOf(' ', start + 1)) {
+                wordSuffixes.putIfAbsent(key.substring(start + 1), id);
+            }
+        }
+
+        UUID find(String name, String key) {
+            UUID id = exact.get(name);
+            if (id != null || key.isEmpty()) {
+                return id;
+            }
+            id = normalized.get(key);
+            if (id != null) {
+                return id;
+            }
+            id = completion(normalized, key);
+            return id != null ? id : completion(wordSuffixes, key);
+        }
+
+        Snapshot with(String name, UUID id) {
+            Snapshot copy = new Snapshot(new HashMap<>(exact), new TreeMap<>(normalized), new TreeMap<>(wordSuffixes));
+            copy.add(name, id);
+            return copy;
+        }
+
+        private static UUID completion(NavigableMap<String, UUID> keys, String prefix) {
+            Map.Entry<String, UUID> entry = keys.ceilingEntry(prefix);
+            return entry != null && entry.getKey().startsWith(prefix) ? entry.getValue() : null;
+        }
+    }
+
+    private final ExerciseRepository exerciseRepository;
+    private final TransactionTemplate createTransaction;
+    // Creations of names in the same stripe are serialized, so a name is created once
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private Snapshot snapshot;
+    // Bumped on every change so a build that read the catalog before it is not kept
+    private long generation;
+
+    @Autowired
+    public ExerciseNameIndex(ExerciseRepository exerciseRepository, PlatformTransactionManager transactionManager) {
+        this.exerciseRepository = exerciseRepository;
+        this.createTransaction = new TransactionTemplate(transactionManager);
+        this.createTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Exercise ids for the given names, creating exercises for names that match nothing.
+     * Created exercises are committed before this returns, so they outlive a caller's
+     * transaction that rolls back. Null and blank names are left out of the result.
+     */
+    public Map<String, UUID> resolve(Collection<String> names) {
+        Map<String, UUID> ids = new HashMap<>();
+        Snapshot current = current();
+        for (String name : names) {
+            if (name == null || name.isBlank() || ids.containsKey(name)) {
+                continue;
+            }
+            String trimmed = name.trim();
+            UUID id = current.find(trimmed, normalize(trimmed));
+            ids.put(name, id != null ? id : findOrCreate(trimmed));
+        }
+        return ids;
+    }
+
+    public Optional<UUID> find(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        String trimmed = name.trim();
+        return Optional.ofNullable(current().find(trimmed, normalize(trimmed)));
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ExerciseCatalogChangedEvent event) {
+        invalidate();
+    }
+
+    // Exercises seeded at startup are written straight to the repository
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        invalidate();
+    }
+
+    /**
+     * Lower case without accents and apostrophes, with every run of other characters than
+     * letters and digits turned into one space, e.g. "Pull-Ups " and "pull ups" are the
+     * same name, as are "Farmer's Walk" and "farmers walk"
+     */
+    public static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        boolean separator = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '\u2019') {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (separator && !key.isEmpty()) {
+                    key.append(' ');
+                }
+                key.append(Character.toLowerCase(c));
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return key.toString();
+    }
+
+    private UUID findOrCreate(String name) {
+        String key = normalize(name);
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            // Another request may have created it while this one waited
+            UUID id = current().find(name, key);
+            if (id != null) {
+                return id;
+            }
+            Exercise exercise = createTransaction.execute(status -> {
+                Exercise created = new Exercise();
+                created.setName(name);
+                created.setCategory(ExerciseCategory.STRENGTH);
+                created.setPrimaryMuscle("General");
+                return exerciseRepository.save(created);
+            });
+            synchronized (this) {
+                generation++;
+                if (snapshot != null) {
+                    snapshot = snapshot.with(name, exercise.getId());
+                }
+            }
+            return exercise.getId();
+        }
+    }
+
+    private Snapshot current() {
+        long buildGeneration;
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            buildGeneration = generation;
+        }
+        Snapshot built = Snapshot.of(exerciseRepository.findAllNames());
+        synchronized (this) {
+            if (generation == buildGeneration && snapshot == null) {
+                snapshot = built;
+            }
+        }
+        return built;
+    }
+}
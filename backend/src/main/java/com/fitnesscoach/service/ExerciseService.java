@@ -3,6 +3,7 @@ package com.fitnesscoach.service;
 import com.fitnesscoach.model.Exercise;
 import com.fitnesscoach.repository.ExerciseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,13 +16,16 @@ import java.util.UUID;
 public class ExerciseService {
 
     private final ExerciseRepository exerciseRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ExerciseService(ExerciseRepository exerciseRepository) {
+    public ExerciseService(ExerciseRepository exerciseRepository, ApplicationEventPublisher eventPublisher) {
         this.exerciseRepository = exerciseRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Exercise createExercise(Exercise exercise) {
+        eventPublisher.publishEvent(new ExerciseCatalogChangedEvent());
         return exerciseRepository.save(exercise);
     }
 
@@ -29,6 +33,7 @@ public class ExerciseService {
         Exercise exercise = new Exercise(name);
         exercise.setPrimaryMuscle(primaryMuscle);
         exercise.setEquipment(equipment);
+        eventPublisher.publishEvent(new ExerciseCatalogChangedEvent());
         return exerciseRepository.save(exercise);
     }
 
@@ -71,6 +76,7 @@ public class ExerciseService {
         exercise.setEquipment(exerciseDetails.getEquipment());
         exercise.setNotes(exerciseDetails.getNotes());
 
+        eventPublisher.publishEvent(new ExerciseCatalogChangedEvent());
         return exerciseRepository.save(exercise);
     }
 
@@ -79,6 +85,7 @@ public class ExerciseService {
             throw new RuntimeException("Exercise not found with id: " + id);
         }
         exerciseRepository.deleteById(id);
+        eventPublisher.publishEvent(new ExerciseCatalogChangedEvent());
     }
 
     public Exercise getOrCreateExercise(String name, String primaryMuscle, String equipment) {
@@ -0,0 +1,88 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.ExerciseBlock;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An aggregate of one workout, block or set measure per combination of the group-by
+ * dimensions, e.g. average block RPE by block type by month for the users of a program.
+ * Null filters match everything; the block type filter only applies to block measures.
+ */
+public record FactQuery(Measure measure, Aggregation aggregation, List<Dimension> groupBy,
+                        Collection<UUID> userIds, UUID programId, ExerciseBlock.BlockType blockType,
+                        LocalDate startDate, LocalDate endDate) {
+
+    public enum Level { WORKOUT, BLOCK, SET }
+
+    /**
+     * A measure with its analytics store column and its JPQL path over the row tables,
+     * where w is the workout, b the block result and s the set result
+     */
+    public enum Measure {
+        SESSION_RPE(Level.WORKOUT, "average_rpe", "w.averageRPE"),
+        SESSION_VOLUME_LOAD(Level.WORKOUT, "total_volume_load", "w.totalVolumeLoad"),
+        SESSION_DURATION(Level.WORKOUT, "total_duration_seconds", "w.totalDurationSeconds"),
+        SESSION_REPS(Level.WORKOUT, "total_reps", "w.totalReps"),
+        BLOCK_RPE(Level.BLOCK, "average_rpe", "b.averageRPE"),
+        BLOCK_VOLUME_LOAD(Level.BLOCK, "total_volume_load", "b.totalVolumeLoad"),
+        BLOCK_COMPLETION(Level.BLOCK, "completion_percentage", "b.completionPercentage"),
+        BLOCK_DURATION(Level.BLOCK, "total_time_seconds", "b.totalTimeSeconds"),
+        SET_RPE(Level.SET, "rpe", "s.rpe"),
+        SET_WEIGHT(Level.SET, "weight", "s.weight"),
+        SET_REPS(Level.SET, "performed_reps", "s.performedReps"),
+        SET_VOLUME_LOAD(Level.SET, "volume_load", "s.weight * s.performedReps");
+
+        private final Level level;
+        private final String column;
+        private final String path;
+
+        Measure(Level level, String column, String path) {
+            this.level = level;
+            this.column = column;
+            this.path = path;
+        }
+
+        public Level getLevel() { return level; }
+        public String getColumn() { return column; }
+        public String getPath() { return path; }
+    }
+
+    public enum Aggregation { AVG, SUM, MIN, MAX, COUNT }
+
+    /**
+     * A group-by dimension. Months are grouped by their first day in the store and by
+     * year and month over the row tables; both are returned as "yyyy-MM".
+     */
+    public enum Dimension {
+        USER("user_id", "w.userId", null),
+        PROGRAM("program_id", "p.id", null),
+        MONTH("month_start", "YEAR(w.date), MONTH(w.date)", null),
+        BLOCK_TYPE("block_type", "b.blockType", Level.BLOCK),
+        EXERCISE("exercise_id", "s.exercise.id", Level.SET);
+
+        private final String column;
+        private final String path;
+        private final Level onlyLevel;
+
+        Dimension(String column, String path, Level onlyLevel) {
+            this.column = column;
+            this.path = path;
+            this.onlyLevel = onlyLevel;
+        }
+
+        public String getColumn() { return column; }
+        public String getPath() { return path; }
+
+        public boolean appliesTo(Level level) {
+            return onlyLevel == null || onlyLevel == level;
+        }
+    }
+
+    public Level level() {
+        return measure.getLevel();
+    }
+}
@@ -0,0 +1,414 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.exception.ResourceNotFoundException;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.SetEvent;
+import com.fitnesscoach.model.WeightUnit;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.service.SetEventLogService.Compaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live logging for a started workout. Set events sent during the session are kept in a
+ * per-session buffer and acknowledged without touching the database. The buffer is
+ * appended to the set event log in batches, once it holds {@code batch-size} events or
+ * its oldest event is {@code flush-interval} old; from then on the events survive a
+ * restart. The log is compacted into the workout's sets when the workout is finished,
+ * when the session goes idle and every {@code compact-after} events. Listeners on the
+ * session's event stream hear which events were logged, applied or rejected.
+ */
+@Service
+public class LiveWorkoutSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveWorkoutSessionService.class);
+
+    public record Ack(long sequence, int buffered, boolean duplicate) {}
+
+    // Stream events
+    public record Opened(long lastSequence, int buffered) {}
+    public record Logged(long throughSequence, int written) {}
+    public record Compacted(long throughSequence, int applied, Integer totalReps, Double totalVolumeLoad,
+                            Double averageRPE, Integer workTimeSeconds) {}
+    public record Rejected(long sequence, String error) {}
+    public record Finished(long lastSequence, Integer totalReps, Double totalVolumeLoad, Double averageRPE,
+                           Integer totalDurationSeconds) {}
+
+    private static final class Session {
+        final UUID resultId;
+        final List<SetEvent> buffer = new ArrayList<>();
+        final List<SseEmitter> listeners = new CopyOnWriteArrayList<>();
+        // Batches are written one at a time, so they reach the database in the order logged
+        final ReentrantLock flushLock = new ReentrantLock();
+        long lastSequence;
+        // Logged since the last compaction
+        int uncompacted;
+        long lastActivity = System.nanoTime();
+        ScheduledFuture<?> pendingFlush;
+        boolean closed;
+
+        Session(UUID resultId, long lastSequence) {
+            this.resultId = resultId;
+            this.lastSequence = lastSequence;
+        }
+    }
+
+    private final AdvancedWorkoutResultService resultService;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final SetEventLogService eventLog;
+    private final int batchSize;
+    private final int compactAfter;
+    private final Duration flushInterval;
+    private final Duration idleTimeout;
+    private final Duration streamTimeout;
+    private final int flushThreads;
+
+    private final ConcurrentHashMap<UUID, Session> sessions = new ConcurrentHashMap<>();
+    // Workouts being finished, whose events are rejected until the end time is stored
+    private final Set<UUID> finishing = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public LiveWorkoutSessionService(
+            AdvancedWorkoutResultService resultService,
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            SetEventLogService eventLog,
+            @Value("${fitnesscoach.live.batch-size:20}") int batchSize,
+            @Value("${fitnesscoach.live.compact-after:200}") int compactAfter,
+            @Value("${fitnesscoach.live.flush-interval:1s}") Duration flushInterval,
+            @Value("${fitnesscoach.live.idle-timeout:10m}") Duration idleTimeout,
+            @Value("${fitnesscoach.live.stream-timeout:2h}") Duration streamTimeout,
+            @Value("${fitnesscoach.live.flush-threads:2}") int flushThreads) {
+        this.resultService = resultService;
+        this.workoutResultRepository = workoutResultRepository;
+        this.eventLog = eventLog;
+        this.batchSize = Math.max(batchSize, 1);
+        this.compactAfter = Math.max(compactAfter, 1);
+        this.flushInterval = flushInterval;
+        this.idleTimeout = idleTimeout;
+        this.streamTimeout = streamTimeout;
+        this.flushThreads = Math.max(flushThreads, 1);
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        flusher = Executors.newScheduledThreadPool(flushThreads, task -> {
+            Thread thread = new Thread(task, "live-session-flush-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(idleTimeout.toMillis() / 4, 1000);
+        flusher.scheduleWithFixedDelay(this::closeIdleSessions, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Log what is buffered before the services it goes through are shut down; startup compacts it
+    @PreDestroy
+    void stop() {
+        flusher.shutdownNow();
+        for (Session session : List.copyOf(sessions.values())) {
+            flush(session);
+            session.listeners.forEach(SseEmitter::complete);
+        }
+    }
+
+    /**
+     * Buffer one set event for the workout and acknowledge it. An event with a sequence
+     * number no higher than the last one accepted is a resend and is not buffered again.
+     */
+    public Ack log(UUID resultId, WorkoutResultDTO.LiveSetEvent event) {
+        SetEvent.Type type = validate(event);
+        while (true) {
+            Session session = session(resultId);
+            synchronized (session) {
+                // Closed while idle between lookup and lock: the next lookup opens a new one
+                if (session.closed) {
+                    continue;
+                }
+                session.lastActivity = System.nanoTime();
+                if (event.sequence != null && event.sequence <= session.lastSequence) {
+                    return new Ack(event.sequence, session.buffer.size(), true);
+                }
+                long sequence = event.sequence != null ? event.sequence : session.lastSequence + 1;
+                session.lastSequence = sequence;
+                session.buffer.add(toSetEvent(resultId, sequence, type, event.set));
+
+                if (session.buffer.size() >= batchSize) {
+                    if (session.pendingFlush == null || session.pendingFlush.getDelay(TimeUnit.NANOSECONDS) > 0) {
+                        if (session.pendingFlush != null) {
+                            session.pendingFlush.cancel(false);
+                        }
+                        session.pendingFlush = flusher.schedule(() -> flush(session), 0, TimeUnit.MILLISECONDS);
+                    }
+                } else if (session.pendingFlush == null) {
+                    session.pendingFlush = flusher.schedule(() -> flush(session), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return new Ack(sequence, session.buffer.size(), false);
+            }
+        }
+    }
+
+    /**
+     * Event stream of the workout's live session: "opened" on connect, then "logged" after
+     * each batch appended to the log, "compacted" when logged events were applied to the
+     * sets, "rejected" for events that could not be, and "finished" when the workout is
+     * finished, which ends the stream
+     */
+    public SseEmitter subscribe(UUID resultId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        while (true) {
+            Session session = session(resultId);
+            synchronized (session) {
+                if (session.closed) {
+                    continue;
+                }
+                session.lastActivity = System.nanoTime();
+                session.listeners.add(emitter);
+                emitter.onCompletion(() -> session.listeners.remove(emitter));
+                emitter.onError(error -> session.listeners.remove(emitter));
+                emitter.onTimeout(emitter::complete);
+                send(session, emitter, "opened", new Opened(session.lastSequence, session.buffer.size()));
+                return emitter;
+            }
+        }
+    }
+
+    /**
+     * Finish the workout: log what its live session still buffers, if it has one, apply
+     * every logged event to the sets and compute the final metrics. Listeners get
+     * "finished" and their streams end. Events sent once the finish has started are
+     * rejected rather than opening a new session.
+     */
+    public AdvancedWorkoutResult finish(UUID resultId) {
+        if (!finishing.add(resultId)) {
+            throw new BadRequestException("Workout result " + resultId + " is already being finished");
+        }
+        Session session = null;
+        AdvancedWorkoutResult result;
+        try {
+            // Marked before the session is removed, so a late event cannot open a new one
+            session = sessions.remove(resultId);
+            if (session != null) {
+                synchronized (session) {
+                    session.closed = true;
+                }
+                flush(session);
+            }
+            // Also picks up events a session on an instance that stopped left in the log
+            report(session, eventLog.compact(resultId));
+            result = resultService.finishWorkoutSession(resultId);
+        } catch (RuntimeException e) {
+            if (session != null) {
+                session.listeners.forEach(SseEmitter::complete);
+            }
+            throw e;
+        } finally {
+            finishing.remove(resultId);
+        }
+        if (session != null) {
+            notify(session, "finished", new Finished(session.lastSequence, result.getTotalReps(),
+                result.getTotalVolumeLoad(), result.getAverageRPE(), result.getTotalDurationSeconds()));
+            session.listeners.forEach(SseEmitter::complete);
+        }
+        return result;
+    }
+
+    private Session session(UUID resultId) {
+        Session session = sessions.get(resultId);
+        if (session != null) {
+            return session;
+        }
+        requireUnfinished(resultId);
+        // Sequences continue after the events of a previous session, compacted or still logged
+        Session opened = new Session(resultId, eventLog.lastSequence(resultId));
+        session = sessions.compute(resultId, (id, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            if (finishing.contains(id)) {
+                throw new BadRequestException("Workout result " + id + " is being finished");
+            }
+            return opened;
+        });
+        if (session == opened) {
+            // A finish that ran in full since the check above has not seen this session
+            try {
+                requireUnfinished(resultId);
+            } catch (BadRequestException e) {
+                sessions.remove(resultId, opened);
+                synchronized (opened) {
+                    opened.closed = true;
+                }
+                throw e;
+            }
+        }
+        return session;
+    }
+
+    private void requireUnfinished(UUID resultId) {
+        AdvancedWorkoutResult result = workoutResultRepository.findById(resultId)
+                .orElseThrow(() -> new ResourceNotFoundException("Workout result not found"));
+        if (result.getEndTime() != null) {
+            throw new BadRequestException("Workout result " + resultId + " is already finished");
+        }
+    }
+
+    private static SetEvent.Type validate(WorkoutResultDTO.LiveSetEvent event) {
+        if (event == null || event.set == null) {
+            throw new BadRequestException("set is required");
+        }
+        if (event.set.setNumber == null) {
+            throw new BadRequestException("setNumber is required");
+        }
+        try {
+            if (event.set.weightUnit != null) {
+                WeightUnit.valueOf(event.set.weightUnit);
+            }
+            return event.type != null ? SetEvent.Type.valueOf(event.type) : SetEvent.Type.LOGGED;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static SetEvent toSetEvent(UUID resultId, long sequence, SetEvent.Type type, WorkoutResultDTO.SetResultSummary set) {
+        SetEvent event = new SetEvent(resultId, sequence, type);
+        event.setBlockLabel(set.blockLabel);
+        event.setBlockItemOrder(set.blockItemOrder != null ? set.blockItemOrder : 0);
+        event.setSetNumber(set.setNumber);
+        event.setExerciseName(set.exerciseName);
+        event.setPerformedReps(set.performedReps);
+        event.setTargetReps(set.targetReps);
+        event.setWeight(set.weight);
+        event.setWeightUnit(set.weightUnit);
+        event.setRpe(set.rpe);
+        event.setRestTakenSec(set.restTakenSec);
+        return event;
+    }
+
+    private void flush(Session session) {
+        session.flushLock.lock();
+        try {
+            List<SetEvent> batch;
+            synchronized (session) {
+                session.pendingFlush = null;
+                if (session.buffer.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(session.buffer);
+                session.buffer.clear();
+            }
+            append(session, batch);
+            if (session.uncompacted >= compactAfter) {
+                compact(session);
+            }
+        } catch (RuntimeException e) {
+            log.error("Live session flush failed for workout result {}", session.resultId, e);
+        } finally {
+            session.flushLock.unlock();
+        }
+    }
+
+    private void append(Session session, List<SetEvent> batch) {
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        try {
+            eventLog.append(batch);
+        } catch (RuntimeException e) {
+            // One rejected row fails the whole batch; append one event at a time to find it
+            for (SetEvent event : batch) {
+                try {
+                    event.setId(null);
+                    eventLog.append(List.of(event));
+                } catch (RuntimeException eventError) {
+                    rejected.put(event.getSequence(), NestedExceptionUtils.getMostSpecificCause(eventError).getMessage());
+                }
+            }
+        }
+        session.uncompacted += batch.size() - rejected.size();
+        notify(session, "logged", new Logged(batch.get(batch.size() - 1).getSequence(), batch.size() - rejected.size()));
+        rejected.forEach((sequence, error) -> notify(session, "rejected", new Rejected(sequence, error)));
+    }
+
+    private void compact(Session session) {
+        session.uncompacted = 0;
+        report(session, eventLog.compact(session.resultId));
+    }
+
+    private void report(Session session, Compaction compaction) {
+        if (session == null || compaction == null) {
+            return;
+        }
+        AdvancedWorkoutResult result = compaction.result();
+        notify(session, "compacted", result != null
+            ? new Compacted(compaction.throughSequence(), compaction.applied(), result.getTotalReps(),
+                result.getTotalVolumeLoad(), result.getAverageRPE(), result.getWorkTimeSeconds())
+            : new Compacted(compaction.throughSequence(), compaction.applied(), null, null, null, null));
+        compaction.rejected().forEach((sequence, error) -> notify(session, "rejected", new Rejected(sequence, error)));
+    }
+
+    private void closeIdleSessions() {
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            boolean idle;
+            synchronized (session) {
+                idle = now - session.lastActivity > idleTimeout.toNanos();
+            }
+            if (idle) {
+                close(session);
+            }
+        }
+    }
+
+    // Log the buffer, apply the log and end the streams; later events for the workout open a new session
+    private void close(Session session) {
+        sessions.remove(session.resultId, session);
+        synchronized (session) {
+            session.closed = true;
+        }
+        flush(session);
+        session.flushLock.lock();
+        try {
+            compact(session);
+        } catch (RuntimeException e) {
+            log.error("Compacting set events failed for workout result {}", session.resultId, e);
+        } finally {
+            session.flushLock.unlock();
+        }
+        session.listeners.forEach(SseEmitter::complete);
+    }
+
+    private void notify(Session session, String name, Object data) {
+        for (SseEmitter emitter : session.listeners) {
+            send(session, emitter, name, data);
+        }
+    }
+
+    private static void send(Session session, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away
+            session.listeners.remove(emitter);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.MetricSketch;
+import com.fitnesscoach.model.MetricSketch.Metric;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.MetricSketchRepository;
+import com.fitnesscoach.repository.projection.SessionMetricsRow;
+import com.fitnesscoach.repository.projection.SketchSetRow;
+import com.fitnesscoach.util.QuantileSketch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Maintains the monthly quantile sketches of set RPE, load and reps per exercise and
+ * of session duration and RPE per user. A new result is added to its month's sketches;
+ * an edited or deleted result re-derives the sketches of the months it touched.
+ */
+@Service
+@Transactional
+public class MetricSketchService {
+
+    private final MetricSketchRepository sketchRepository;
+    private final AdvancedSetResultRepository setResultRepository;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+
+    @Autowired
+    public MetricSketchService(
+            MetricSketchRepository sketchRepository,
+            AdvancedSetResultRepository setResultRepository,
+            AdvancedWorkoutResultRepository workoutResultRepository) {
+        this.sketchRepository = sketchRepository;
+        this.setResultRepository = setResultRepository;
+        this.workoutResultRepository = workoutResultRepository;
+    }
+
+    public void onWorkoutSaved(AdvancedWorkoutResult result) {
+        if (result.getUserId() == null || result.getDate() == null) {
+            return;
+        }
+
+        UUID loadedUserId = result.getLoadedUserId();
+        LocalDate loadedDate = result.getLoadedDate();
+        if (loadedUserId == null || loadedDate == null) {
+            addWorkout(result);
+            return;
+        }
+
+        // Values cannot be removed from a sketch, so edits re-derive the months involved
+        rebuildMonth(loadedUserId, YearMonth.from(loadedDate));
+        if (!loadedUserId.equals(result.getUserId()) || !YearMonth.from(loadedDate).equals(YearMonth.from(result.getDate()))) {
+            rebuildMonth(result.getUserId(), YearMonth.from(result.getDate()));
+        }
+    }
+
+    public void onWorkoutDeleted(AdvancedWorkoutResult result) {
+        if (result.getUserId() == null || result.getDate() == null) {
+            return;
+        }
+        rebuildMonth(result.getUserId(), YearMonth.from(result.getDate()));
+    }
+
+    public void rebuildMonth(UUID userId, YearMonth month) {
+        Map<SketchKey, QuantileSketch> sketches = readRaw(userId, month.atDay(1), month.atEndOfMonth());
+        List<MetricSketch> stale = new ArrayList<>();
+        for (MetricSketch existing : sketchRepository.findByUserIdAndBucketMonth(userId, month.atDay(1))) {
+            QuantileSketch fresh = sketches.remove(new SketchKey(existing.getMetric(), existing.getExerciseId()));
+            if (fresh == null) {
+                stale.add(existing);
+            } else {
+                existing.store(fresh);
+            }
+        }
+        List<MetricSketch> created = new ArrayList<>();
+        sketches.forEach((key, sketch) -> {
+            MetricSketch row = new MetricSketch(userId, key.metric(), key.exerciseId(), month.atDay(1));
+            row.store(sketch);
+            created.add(row);
+        });
+        sketchRepository.saveAll(created);
+        sketchRepository.deleteAll(stale);
+    }
+
+    /**
+     * Rebuild every month of a user, e.g. for history written before sketches existed
+     */
+    public void rebuildUser(UUID userId) {
+        Set<YearMonth> months = new TreeSet<>();
+        workoutResultRepository.findDistinctDatesByUserId(userId).forEach(day -> months.add(YearMonth.from(day)));
+        sketchRepository.findByUserId(userId).forEach(row -> months.add(YearMonth.from(row.getBucketMonth())));
+        months.forEach(month -> rebuildMonth(userId, month));
+    }
+
+    /**
+     * Sketch of a metric over a date range: whole months are merged from the stored
+     * sketches and partial edge months are sketched from their results, so the cost
+     * grows with the number of months. A null exercise id covers every exercise.
+     */
+    @Transactional(readOnly = true)
+    public QuantileSketch sketch(UUID userId, Metric metric, UUID exerciseId, LocalDate startDate, LocalDate endDate) {
+        QuantileSketch merged = new QuantileSketch();
+        YearMonth firstFull = startDate.getDayOfMonth() == 1 ? YearMonth.from(startDate) : YearMonth.from(startDate).plusMonths(1);
+        YearMonth lastFull = endDate.equals(YearMonth.from(endDate).atEndOfMonth())
+            ? YearMonth.from(endDate) : YearMonth.from(endDate).minusMonths(1);
+
+        if (firstFull.isAfter(lastFull)) {
+            mergeRaw(merged, userId, metric, exerciseId, startDate, endDate);
+            return merged;
+        }
+        if (startDate.isBefore(firstFull.atDay(1))) {
+            mergeRaw(merged, userId, metric, exerciseId, startDate, firstFull.atDay(1).minusDays(1));
+        }
+        UUID exerciseFilter = metric.isPerExercise() ? exerciseId : null;
+        for (MetricSketch row : sketchRepository.findForRange(
+                userId, metric, exerciseFilter, firstFull.atDay(1), lastFull.atDay(1))) {
+            merged.merge(row.toSketch());
+        }
+        if (endDate.isAfter(lastFull.atEndOfMonth())) {
+            mergeRaw(merged, userId, metric, exerciseId, lastFull.plusMonths(1).atDay(1), endDate);
+        }
+        return merged;
+    }
+
+    private void addWorkout(AdvancedWorkoutResult result) {
+        Map<SketchKey, QuantileSketch> additions = new HashMap<>();
+        for (AdvancedSetResult set : result.getSetResults()) {
+            if (set.getExercise() != null) {
+                addSet(additions, set.getExercise().getId(), set.getWeight(), set.getPerformedReps(), set.getRpe());
+            }
+        }
+        addSession(additions, result.getTotalDurationSeconds(), result.getAverageRPE());
+        if (additions.isEmpty()) {
+            return;
+        }
+
+        LocalDate month = YearMonth.from(result.getDate()).atDay(1);
+        List<MetricSketch> rows = new ArrayList<>();
+        for (MetricSketch existing : sketchRepository.findByUserIdAndBucketMonth(result.getUserId(), month)) {
+            QuantileSketch added = additions.remove(new SketchKey(existing.getMetric(), existing.getExerciseId()));
+            if (added != null) {
+                existing.store(existing.toSketch().merge(added));
+            }
+        }
+        additions.forEach((key, sketch) -> {
+            MetricSketch row = new MetricSketch(result.getUserId(), key.metric(), key.exerciseId(), month);
+            row.store(sketch);
+            rows.add(row);
+        });
+        sketchRepository.saveAll(rows);
+    }
+
+    private Map<SketchKey, QuantileSketch> readRaw(UUID userId, LocalDate startDate, LocalDate endDate) {
+        Map<SketchKey, QuantileSketch> sketches = new HashMap<>();
+        for (SketchSetRow set : setResultRepository.findSketchSets(userId, startDate, endDate)) {
+            addSet(sketches, set.exerciseId(), set.weight(), set.reps(), set.rpe());
+        }
+        for (SessionMetricsRow session : workoutResultRepository.findSessionMetrics(userId, startDate, endDate)) {
+            addSession(sketches, session.totalDurationSeconds(), session.averageRPE());
+        }
+        return sketches;
+    }
+
+    private void mergeRaw(QuantileSketch merged, UUID userId, Metric metric, UUID exerciseId,
+                          LocalDate startDate, LocalDate endDate) {
+        readRaw(userId, startDate, endDate).forEach((key, sketch) -> {
+            if (key.metric() == metric && (exerciseId == null || !metric.isPerExercise() || exerciseId.equals(key.exerciseId()))) {
+                merged.merge(sketch);
+            }
+        });
+    }
+
+    private static void addSet(Map<SketchKey, QuantileSketch> sketches, UUID exerciseId,
+                               Double weight, Integer reps, Double rpe) {
+        if (rpe != null) {
+            sketches.computeIfAbsent(new SketchKey(Metric.RPE, exerciseId), key -> new QuantileSketch()).add(rpe);
+        }
+        if (weight != null) {
+            sketches.computeIfAbsent(new SketchKey(Metric.LOAD, exerciseId), key -> new QuantileSketch()).add(weight);
+        }
+        if (reps != null) {
+            sketches.computeIfAbsent(new SketchKey(Metric.REPS, exerciseId), key -> new QuantileSketch()).add(reps);
+        }
+    }
+
+    private static void addSession(Map<SketchKey, QuantileSketch> sketches, Integer durationSeconds, Double averageRPE) {
+        if (durationSeconds != null) {
+            sketches.computeIfAbsent(new SketchKey(Metric.SESSION_DURATION, null), key -> new QuantileSketch())
+                .add(durationSeconds);
+        }
+        if (averageRPE != null) {
+            sketches.computeIfAbsent(new SketchKey(Metric.SESSION_RPE, null), key -> new QuantileSketch())
+                .add(averageRPE);
+        }
+    }
+
+    private record SketchKey(Metric metric, UUID exerciseId) {}
+}
@@ -0,0 +1,151 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Per-user, per-calendar-month partial aggregates. Cached months are never mutated,
+ * callers merge them into a fresh accumulator. A change to a result only evicts the
+ * month it falls in, so the other months of a range stay warm.
+ * <p>
+ * A change evicts its month inside the writing transaction and leaves the user's
+ * data version it bumps there, which a month computed afterwards must have read.
+ * A month computed from data read before the change committed is therefore never
+ * cached, and none is left for readers between the commit and an after-commit hook.
+ * That state lives in the same bounded map as the months, keyed by month, or by
+ * user for changes to every month; the eviction is repeated after the commit in case
+ * the bound dropped it before.
+ */
+@Component
+class MonthlyAnalyticsCache {
+
+    record Key(UUID userId, YearMonth month) {}
+
+    // A computed month, or a pending or evicted one whose loaders must have read minVersion
+    private static final class Slot {
+        final long minVersion;
+        AnalyticsAccumulator partial;
+
+        Slot(long minVersion) {
+            this.minVersion = minVersion;
+        }
+    }
+
+    private final Map<Key, Slot> months;
+    private final AnalyticsDataVersionRepository versionRepository;
+
+    @Autowired
+    MonthlyAnalyticsCache(
+            @Value("${fitnesscoach.analytics.monthly-cache.max-entries:2000}") int maxEntries,
+            AnalyticsDataVersionRepository versionRepository) {
+        this.months = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Slot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.versionRepository = versionRepository;
+    }
+
+    AnalyticsAccumulator get(UUID userId, YearMonth month, Supplier<AnalyticsAccumulator> loader) {
+        Key key = new Key(userId, month);
+        Key userKey = new Key(userId, null);
+        Slot slot;
+        synchronized (months) {
+            slot = months.get(key);
+            if (slot != null && slot.partial != null) {
+                return slot.partial;
+            }
+            if (slot == null) {
+                slot = new Slot(0);
+                months.put(key, slot);
+            }
+        }
+
+        // Read before the month, so a change committed in between fails the check below
+        long version = currentVersion(userId);
+        AnalyticsAccumulator partial = loader.get().seal();
+        synchronized (months) {
+            Slot userSlot = months.get(userKey);
+            // A slot replaced or dropped meanwhile was evicted by a change
+            if (months.get(key) == slot && version >= slot.minVersion
+                    && (userSlot == null || version >= userSlot.minVersion)) {
+                slot.partial = partial;
+            }
+        }
+        return partial;
+    }
+
+    void invalidate(UUID userId, YearMonth month, long version) {
+        synchronized (months) {
+            months.put(new Key(userId, month), new Slot(version));
+        }
+    }
+
+    void invalidate(UUID userId, long version) {
+        synchronized (months) {
+            months.keySet().removeIf(key -> key.userId().equals(userId));
+            months.put(new Key(userId, null), new Slot(version));
+        }
+    }
+
+    /**
+     * Runs in the writing transaction, after the data version was bumped there, so the
+     * version read is the one the change commits with
+     */
+    @EventListener
+    public void onWorkoutResultChanged(WorkoutResultChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        long version = currentVersion(event.userId());
+        if (event.date() == null) {
+            invalidate(event.userId(), version);
+        } else {
+            invalidate(event.userId(), YearMonth.from(event.date()), version);
+        }
+    }
+
+    // Again once committed, in case the map's size bound dropped the eviction meanwhile
+    @TransactionalEventListener
+    public void onWorkoutResultChangeCommitted(WorkoutResultChangedEvent event) {
+        onWorkoutResultChanged(event);
+    }
+
+    // A version that never commits would keep the month uncached until the next change
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onWorkoutResultChangeRolledBack(WorkoutResultChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        synchronized (months) {
+            if (event.date() == null) {
+                months.keySet().removeIf(key -> key.userId().equals(event.userId()));
+            } else {
+                months.remove(new Key(event.userId(), YearMonth.from(event.date())));
+            }
+        }
+    }
+
+    int size() {
+        synchronized (months) {
+            return months.size();
+        }
+    }
+
+    private long currentVersion(UUID userId) {
+        Long version = versionRepository.findDataVersionByUserId(userId);
+        return version != null ? version : 0;
+    }
+}
@@ -0,0 +1,280 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.PersonalRecord;
+import com.fitnesscoach.model.WeightUnit;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.ExerciseRepository;
+import com.fitnesscoach.repository.PersonalRecordRepository;
+import com.fitnesscoach.repository.projection.RecordSetRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Maintains the per-exercise personal record table as workout results are written.
+ * Sets are compared in kilograms, whatever unit they were logged in; the personal
+ * records of a workout list the weights as logged.
+ * A new result is folded into the current records set by set; an edited or deleted
+ * result re-derives only the records it could have held, from that exercise's sets.
+ * A change that later workouts' personal records depend on is replayed from its
+ * date instead, so those personal records are filled again too.
+ */
+@Service
+@Transactional
+public class PersonalRecordService {
+
+    private final PersonalRecordRepository personalRecordRepository;
+    private final AdvancedSetResultRepository setResultRepository;
+    private final ExerciseRepository exerciseRepository;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+
+    @Autowired
+    public PersonalRecordService(
+            PersonalRecordRepository personalRecordRepository,
+            AdvancedSetResultRepository setResultRepository,
+            ExerciseRepository exerciseRepository,
+            AdvancedWorkoutResultRepository workoutResultRepository) {
+        this.personalRecordRepository = personalRecordRepository;
+        this.setResultRepository = setResultRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.workoutResultRepository = workoutResultRepository;
+    }
+
+    /**
+     * Update the records for a saved result and fill its personal records with the
+     * weights of the sets that beat an existing record. A result saved for the first
+     * time after every record it touches is applied incrementally; one dated on or
+     * before a record's day is replayed from its date, as the personal records of the
+     * workouts that follow depend on it. A result loaded for editing triggers a rebuild,
+     * also replayed when later workouts have sets of its exercises. Returns, by user,
+     * the other days whose workouts' personal records changed.
+     */
+    public Map<UUID, Set<LocalDate>> onWorkoutSaved(AdvancedWorkoutResult result) {
+        if (result.getUserId() == null || result.getDate() == null) {
+            return Map.of();
+        }
+
+        UUID loadedUserId = result.getLoadedUserId();
+        LocalDate loadedDate = result.getLoadedDate();
+        Map<UUID, Set<LocalDate>> changed = new HashMap<>();
+        if (loadedUserId == null || loadedDate == null) {
+            Set<UUID> exerciseIds = strengthExerciseIds(result);
+            if (hasRecordOnOrAfter(result.getUserId(), exerciseIds, result.getDate())) {
+                changed.put(result.getUserId(), rebuildFrom(result.getUserId(), result.getDate()));
+            } else {
+                applyNewSets(result, exerciseIds);
+            }
+            return withoutDaysOf(result, changed);
+        }
+
+        // Sets that were removed or moved can only matter where they held a record on the old day
+        if (!loadedUserId.equals(result.getUserId())) {
+            Set<UUID> exerciseIds = exercisesWithRecordOn(loadedUserId, loadedDate);
+            if (hasSetsAfter(loadedUserId, exerciseIds, loadedDate)) {
+                changed.put(loadedUserId, rebuildFrom(loadedUserId, loadedDate));
+            } else {
+                rebuild(loadedUserId, exerciseIds, List.of());
+            }
+        }
+        Set<UUID> exerciseIds = exercisesWithRecordOn(result.getUserId(), loadedDate);
+        exerciseIds.addAll(strengthExerciseIds(result));
+        LocalDate from = loadedUserId.equals(result.getUserId()) && loadedDate.isBefore(result.getDate())
+            ? loadedDate : result.getDate();
+        if (hasSetsAfter(result.getUserId(), exerciseIds, from)) {
+            changed.put(result.getUserId(), rebuildFrom(result.getUserId(), from));
+        } else {
+            rebuild(result.getUserId(), exerciseIds, List.of(result));
+        }
+        return withoutDaysOf(result, changed);
+    }
+
+    // Returns the other days of the user whose workouts' personal records changed
+    public Set<LocalDate> onWorkoutDeleted(AdvancedWorkoutResult result) {
+        if (result.getUserId() == null || result.getDate() == null) {
+            return Set.of();
+        }
+        Set<UUID> exerciseIds = exercisesWithRecordOn(result.getUserId(), result.getDate());
+        if (!hasSetsAfter(result.getUserId(), exerciseIds, result.getDate())) {
+            rebuild(result.getUserId(), exerciseIds, List.of());
+            return Set.of();
+        }
+        Set<LocalDate> changed = rebuildFrom(result.getUserId(), result.getDate());
+        changed.remove(result.getDate());
+        return changed;
+    }
+
+    /**
+     * Re-derive one user's records for the given exercises by replaying their straight
+     * sets in order. The personal records of the {@code fill} workouts are recomputed
+     * from the same replay: a set counts if it beats a record reached in another workout.
+     * Returns the dates of the {@code fill} workouts whose personal records changed.
+     */
+    public Set<LocalDate> rebuild(UUID userId, Collection<UUID> exerciseIds, Collection<AdvancedWorkoutResult> fill) {
+        Map<UUID, List<Double>> achieved = new HashMap<>();
+        fill.forEach(workout -> achieved.put(workout.getId(), new ArrayList<>()));
+
+        Map<UUID, PersonalRecord> records = new HashMap<>();
+        List<RecordSetRow> sets = List.of();
+        if (!exerciseIds.isEmpty()) {
+            for (PersonalRecord record : personalRecordRepository.findByUserIdAndExerciseIdIn(userId, exerciseIds)) {
+                record.reset();
+                records.put(record.getExercise().getId(), record);
+            }
+            sets = setResultRepository.findRecordSets(userId, exerciseIds, AdvancedSetResult.ResultType.STRAIGHT_SET);
+        }
+
+        // Per exercise, the first workout replayed and whether another one has followed it
+        Map<UUID, UUID> firstWorkout = new HashMap<>();
+        Set<UUID> seenInOtherWorkouts = new HashSet<>();
+        for (RecordSetRow set : sets) {
+            PersonalRecord record = records.computeIfAbsent(set.exerciseId(),
+                id -> new PersonalRecord(userId, exerciseRepository.getReferenceById(id)));
+            UUID first = firstWorkout.putIfAbsent(set.exerciseId(), set.workoutResultId());
+            boolean hadHistory = first != null && (!first.equals(set.workoutResultId()) || seenInOtherWorkouts.contains(set.exerciseId()));
+            if (first != null && !first.equals(set.workoutResultId())) {
+                seenInOtherWorkouts.add(set.exerciseId());
+            }
+
+            boolean improved = record.accept(set.weightInKilograms(), set.reps(), set.date());
+            List<Double> workoutRecords = achieved.get(set.workoutResultId());
+            if (improved && hadHistory && workoutRecords != null) {
+                workoutRecords.add(set.weight());
+            }
+        }
+
+        List<PersonalRecord> emptied = new ArrayList<>();
+        records.values().removeIf(record -> record.isEmpty() && emptied.add(record));
+        personalRecordRepository.saveAll(records.values());
+        personalRecordRepository.deleteAll(emptied);
+
+        Set<LocalDate> changed = new TreeSet<>();
+        for (AdvancedWorkoutResult workout : fill) {
+            List<Double> workoutRecords = achieved.get(workout.getId());
+            List<Double> personalRecords = workoutRecords.isEmpty() ? null : workoutRecords;
+            if (!Objects.equals(workout.getPersonalRecords(), personalRecords)) {
+                changed.add(workout.getDate());
+            }
+            workout.setPersonalRecords(personalRecords);
+        }
+        return changed;
+    }
+
+    /**
+     * Re-derive the records that results dated on or after {@code from} could affect,
+     * and the personal records of those results. Returns the dates whose results'
+     * personal records changed.
+     */
+    public Set<LocalDate> rebuildFrom(UUID userId, LocalDate from) {
+        Set<UUID> exerciseIds = new HashSet<>(setResultRepository.findDistinctExerciseIdsByUserIdFrom(
+            userId, from, AdvancedSetResult.ResultType.STRAIGHT_SET));
+        for (PersonalRecord record : personalRecordRepository.findByUserId(userId)) {
+            if (record.hasRecordOnOrAfter(from)) {
+                exerciseIds.add(record.getExercise().getId());
+            }
+        }
+        return rebuild(userId, exerciseIds, workoutResultRepository.findByUserIdAndDateGreaterThanEqual(userId, from));
+    }
+
+    /**
+     * Rebuild every record of a user, e.g. for history written before the table existed
+     */
+    public void rebuildUser(UUID userId) {
+        Set<UUID> exerciseIds = new HashSet<>(setResultRepository.findDistinctExerciseIdsByUserId(
+            userId, AdvancedSetResult.ResultType.STRAIGHT_SET));
+        personalRecordRepository.findByUserId(userId).forEach(record -> exerciseIds.add(record.getExercise().getId()));
+        rebuild(userId, exerciseIds, List.of());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PersonalRecord> findByUserId(UUID userId) {
+        return personalRecordRepository.findWithExerciseByUserId(userId);
+    }
+
+    // A set counts as a personal record only if it beats a record that existed before this workout
+    private void applyNewSets(AdvancedWorkoutResult result, Set<UUID> exerciseIds) {
+        if (exerciseIds.isEmpty()) {
+            result.setPersonalRecords(null);
+            return;
+        }
+
+        Map<UUID, PersonalRecord> records = new HashMap<>();
+        for (PersonalRecord record : personalRecordRepository.findByUserIdAndExerciseIdIn(result.getUserId(), exerciseIds)) {
+            records.put(record.getExercise().getId(), record);
+        }
+        Set<UUID> existing = new HashSet<>(records.keySet());
+
+        List<Double> achieved = new ArrayList<>();
+        for (AdvancedSetResult set : result.getSetResults()) {
+            if (!isStrengthSet(set)) {
+                continue;
+            }
+            PersonalRecord record = records.computeIfAbsent(set.getExercise().getId(),
+                id -> new PersonalRecord(result.getUserId(), set.getExercise()));
+            double kilograms = WeightUnit.toKilograms(set.getWeight(), set.getWeightUnit());
+            if (record.accept(kilograms, set.getPerformedReps(), result.getDate())
+                    && existing.contains(set.getExercise().getId())) {
+                achieved.add(set.getWeight());
+            }
+        }
+
+        records.values().removeIf(PersonalRecord::isEmpty);
+        personalRecordRepository.saveAll(records.values());
+        result.setPersonalRecords(achieved.isEmpty() ? null : achieved);
+    }
+
+    // Whether a record of the exercises is dated on or after the day, so a workout then follows this one
+    private boolean hasRecordOnOrAfter(UUID userId, Set<UUID> exerciseIds, LocalDate date) {
+        return !exerciseIds.isEmpty() && personalRecordRepository.findByUserIdAndExerciseIdIn(userId, exerciseIds).stream()
+            .anyMatch(record -> record.hasRecordOnOrAfter(date));
+    }
+
+    // Whether later workouts have sets of the exercises, whose records a lowered record could change
+    private boolean hasSetsAfter(UUID userId, Set<UUID> exerciseIds, LocalDate date) {
+        return !exerciseIds.isEmpty() && setResultRepository.findDistinctExerciseIdsByUserIdFrom(
+                userId, date.plusDays(1), AdvancedSetResult.ResultType.STRAIGHT_SET).stream()
+            .anyMatch(exerciseIds::contains);
+    }
+
+    // The days the result is saved on and moved from are refreshed with it
+    private static Map<UUID, Set<LocalDate>> withoutDaysOf(AdvancedWorkoutResult result, Map<UUID, Set<LocalDate>> changed) {
+        Optional.ofNullable(changed.get(result.getUserId())).ifPresent(days -> days.remove(result.getDate()));
+        if (result.getLoadedUserId() != null) {
+            Optional.ofNullable(changed.get(result.getLoadedUserId())).ifPresent(days -> days.remove(result.getLoadedDate()));
+        }
+        changed.values().removeIf(Set::isEmpty);
+        return changed;
+    }
+
+    private Set<UUID> exercisesWithRecordOn(UUID userId, LocalDate date) {
+        Set<UUID> exerciseIds = new HashSet<>();
+        for (PersonalRecord record : personalRecordRepository.findByUserId(userId)) {
+            if (record.hasRecordOn(date)) {
+                exerciseIds.add(record.getExercise().getId());
+            }
+        }
+        return exerciseIds;
+    }
+
+    private static Set<UUID> strengthExerciseIds(AdvancedWorkoutResult result) {
+        Set<UUID> exerciseIds = new HashSet<>();
+        if (result.getSetResults() != null) {
+            for (AdvancedSetResult set : result.getSetResults()) {
+                if (isStrengthSet(set)) {
+                    exerciseIds.add(set.getExercise().getId());
+                }
+            }
+        }
+        return exerciseIds;
+    }
+
+    private static boolean isStrengthSet(AdvancedSetResult set) {
+        return set.getResultType() == AdvancedSetResult.ResultType.STRAIGHT_SET && set.getExercise() != null
+            && set.getWeight() != null && set.getPerformedReps() != null;
+    }
+}
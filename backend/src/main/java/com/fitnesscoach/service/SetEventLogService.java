@@ -0,0 +1,237 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.exception.ResourceNotFoundException;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.model.SetEvent;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.SetEventRepository;
+import com.fitnesscoach.service.AdvancedWorkoutResultService.SetEdit;
+import com.fitnesscoach.service.AdvancedWorkoutResultService.SetEditBatch;
+import com.fitnesscoach.service.AdvancedWorkoutResultService.SetKey;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Append-only log of the set events of live workouts, so a live session is durable
+ * without rewriting sets per event: appending a flushed batch is one batched insert.
+ * Compaction folds a workout's events into its set rows and totals through
+ * {@link AdvancedWorkoutResultService#applySetEdits} and deletes them in the same
+ * transaction, so every event is applied exactly once even if the process stops part
+ * way. Events found in the log at startup were cut off by a crash or restart and are
+ * compacted then. Only events that cannot be applied are dropped; a compaction that
+ * fails for any other reason leaves them in the log for the next one.
+ */
+@Service
+public class SetEventLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(SetEventLogService.class);
+
+    // Outcome of folding a workout's events; rejected holds why events were dropped, by sequence
+    public record Compaction(AdvancedWorkoutResult result, long throughSequence, int applied,
+                             Map<Long, String> rejected) {}
+
+    private final SetEventRepository eventRepository;
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final AdvancedWorkoutResultService resultService;
+    private final WorkoutResultMapper mapper;
+    private final TransactionTemplate transaction;
+
+    @Autowired
+    public SetEventLogService(
+            SetEventRepository eventRepository,
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            AdvancedWorkoutResultService resultService,
+            WorkoutResultMapper mapper,
+            PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.workoutResultRepository = workoutResultRepository;
+        this.resultService = resultService;
+        this.mapper = mapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void append(List<SetEvent> events) {
+        transaction.executeWithoutResult(status -> eventRepository.saveAll(events));
+    }
+
+    // Highest sequence logged for the workout, compacted or not, 0 when it has none
+    public long lastSequence(UUID resultId) {
+        Long logged = eventRepository.findMaxSequence(resultId);
+        long compacted = workoutResultRepository.findById(resultId)
+            .map(AdvancedWorkoutResult::getLastEventSequence)
+            .orElse(0L);
+        return Math.max(logged != null ? logged : 0, compacted);
+    }
+
+    /**
+     * Fold the workout's logged events into its sets and remove them from the log.
+     * Returns null when the workout has no events. Events that cannot be applied are
+     * dropped and reported. Other failures, such as a lock timeout or a lost connection,
+     * are thrown with the events still logged, or end the compaction early with the
+     * failed event and those after it still logged, so they are applied in order later.
+     */
+    public Compaction compact(UUID resultId) {
+        try {
+            return transaction.execute(status -> fold(resultId, null));
+        } catch (ResourceNotFoundException e) {
+            // The workout was deleted: its events can never be applied
+            List<SetEvent> orphaned = eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId);
+            eventRepository.deleteAllByIdInBatch(orphaned.stream().map(SetEvent::getId).toList());
+            Map<Long, String> rejected = new LinkedHashMap<>();
+            orphaned.forEach(event -> rejected.put(event.getSequence(), e.getMessage()));
+            return orphaned.isEmpty() ? null
+                : new Compaction(null, orphaned.get(orphaned.size() - 1).getSequence(), 0, rejected);
+        } catch (RuntimeException e) {
+            if (!isRejection(e)) {
+                throw e;
+            }
+            // One rejected row fails the whole fold; apply one event at a time to find it
+            Compaction compaction = null;
+            Map<Long, String> rejected = new LinkedHashMap<>();
+            int applied = 0;
+            for (SetEvent event : eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)) {
+                try {
+                    Compaction single = transaction.execute(status -> fold(resultId, event.getId()));
+                    if (single != null) {
+                        compaction = single;
+                        applied += single.applied();
+                        rejected.putAll(single.rejected());
+                    }
+                } catch (RuntimeException eventError) {
+                    if (!isRejection(eventError)) {
+                        log.warn("Compacting set events of workout result {} stopped at sequence {}",
+                            resultId, event.getSequence(), eventError);
+                        break;
+                    }
+                    transaction.executeWithoutResult(status -> discard(resultId, event));
+                    rejected.put(event.getSequence(), NestedExceptionUtils.getMostSpecificCause(eventError).getMessage());
+                }
+            }
+            return compaction != null || !rejected.isEmpty()
+                ? new Compaction(compaction != null ? compaction.result() : null,
+                    compaction != null ? compaction.throughSequence() : 0, applied, rejected)
+                : null;
+        }
+    }
+
+    // Events left by a previous run are applied before the workouts are finished or read
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<UUID> resultIds = eventRepository.findDistinctWorkoutResultIds();
+        for (UUID resultId : resultIds) {
+            try {
+                Compaction compaction = compact(resultId);
+                if (compaction != null) {
+                    log.info("Recovered {} set events of workout result {}, {} rejected",
+                        compaction.applied(), resultId, compaction.rejected().size());
+                }
+            } catch (RuntimeException e) {
+                log.error("Set event recovery failed for workout result {}", resultId, e);
+            }
+        }
+    }
+
+    /**
+     * In one transaction: lock the workout so compactions of it run one at a time, read
+     * its events, or only the given one, apply them and delete them. The workout keeps
+     * the last sequence, so a resumed session still knows which events it has had.
+     */
+    private Compaction fold(UUID resultId, Long onlyEventId) {
+        AdvancedWorkoutResult workout = workoutResultRepository.findForUpdateById(resultId)
+                .orElseThrow(() -> new ResourceNotFoundException("Workout result not found"));
+        List<SetEvent> events = eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId);
+        if (onlyEventId != null) {
+            events = events.stream().filter(event -> event.getId().equals(onlyEventId)).toList();
+        }
+        if (events.isEmpty()) {
+            return null;
+        }
+
+        SetEditBatch batch = resultService.applySetEdits(resultId, toEdits(events));
+        workout.advanceLastEventSequence(events.stream().mapToLong(SetEvent::getSequence).max().getAsLong());
+        eventRepository.deleteAllByIdInBatch(events.stream().map(SetEvent::getId).toList());
+
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        List<SetEvent> folded = events;
+        batch.rejected().forEach((index, error) -> rejected.put(folded.get(index).getSequence(), error));
+        return new Compaction(batch.result(), events.get(events.size() - 1).getSequence(),
+            events.size() - rejected.size(), rejected);
+    }
+
+    // Drop a rejected event, still counting its sequence as received
+    private void discard(UUID resultId, SetEvent event) {
+        workoutResultRepository.findForUpdateById(resultId)
+            .ifPresent(workout -> workout.advanceLastEventSequence(event.getSequence()));
+        eventRepository.deleteAllByIdInBatch(List.of(event.getId()));
+    }
+
+    /**
+     * Whether applying events failed because of the events themselves, so a retry would
+     * fail again: values the services reject, or rows the database refuses. A duplicate
+     * key is not, as it can come from a concurrent insert.
+     */
+    private static boolean isRejection(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BadRequestException || cause instanceof IllegalArgumentException
+                    || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+            if (cause instanceof DataIntegrityViolationException) {
+                return !(NestedExceptionUtils.getMostSpecificCause(cause) instanceof SQLException sqlError
+                    && "23505".equals(sqlError.getSQLState()));
+            }
+        }
+        return false;
+    }
+
+    private List<SetEdit> toEdits(List<SetEvent> events) {
+        Function<String, Exercise> exercises = mapper.exercisesFor(events.stream()
+            .map(SetEvent::getExerciseName)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList());
+        return events.stream()
+            .map(event -> {
+                SetKey key = new SetKey(event.getBlockLabel(), event.getBlockItemOrder(), event.getSetNumber());
+                if (event.getType() == SetEvent.Type.DELETED) {
+                    return new SetEdit(key, null);
+                }
+                // Logging a set that is already there corrects it
+                WorkoutResultDTO.SetResultSummary values = toSummary(event);
+                return new SetEdit(key, set -> mapper.patchSetResult(set, values, exercises));
+            })
+            .toList();
+    }
+
+    private static WorkoutResultDTO.SetResultSummary toSummary(SetEvent event) {
+        WorkoutResultDTO.SetResultSummary summary = new WorkoutResultDTO.SetResultSummary();
+        summary.blockLabel = event.getBlockLabel();
+        summary.blockItemOrder = event.getBlockItemOrder();
+        summary.setNumber = event.getSetNumber();
+        summary.exerciseName = event.getExerciseName();
+        summary.performedReps = event.getPerformedReps();
+        summary.targetReps = event.getTargetReps();
+        summary.weight = event.getWeight();
+        summary.weightUnit = event.getWeightUnit();
+        summary.rpe = event.getRpe();
+        summary.restTakenSec = event.getRestTakenSec();
+        return summary;
+    }
+}
@@ -0,0 +1,323 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.repository.projection.SquadDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Analytics for a squad of athletes over one range: per-athlete totals with their
+ * rankings, and squad totals and means. Athletes are processed in chunks; each chunk's
+ * daily rollups are read in one {@code IN} query as projections, folded per athlete
+ * on the fork/join pool and reduced to squad totals, so memory is bounded by the chunk.
+ * Per-athlete totals match {@link AdvancedAnalyticsService#generateAnalytics}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SquadAnalyticsService {
+
+    // Athletes folded sequentially by one fork/join leaf
+    private static final int LEAF_ATHLETES = 16;
+
+    private final AnalyticsDailyRollupRepository dailyRollupRepository;
+    private final int chunkSize;
+
+    @Autowired
+    public SquadAnalyticsService(
+            AnalyticsDailyRollupRepository dailyRollupRepository,
+            @Value("${fitnesscoach.analytics.squad.chunk-size:200}") int chunkSize) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    public static class SquadAnalytics {
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private int athleteCount;
+        private int activeAthletes; // Athletes with at least one workout in the range
+        private int totalWorkouts;
+        private double totalVolumeLoad;
+        private int totalPersonalRecords;
+        private double totalSessionLoad;
+        private double meanWorkoutsPerAthlete;
+        private double meanVolumePerAthlete;
+        private double averageRPE;
+        private double averageSessionDuration;
+        private List<AthleteAnalytics> athletes;
+        private Map<String, List<UUID>> rankings; // Athletes best first, per ranked metric
+
+        // Getters and setters
+        public LocalDate getStartDate() { return startDate; }
+        public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+        public LocalDate getEndDate() { return endDate; }
+        public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+        public int getAthleteCount() { return athleteCount; }
+        public void setAthleteCount(int athleteCount) { this.athleteCount = athleteCount; }
+
+        public int getActiveAthletes() { return activeAthletes; }
+        public void setActiveAthletes(int activeAthletes) { this.activeAthletes = activeAthletes; }
+
+        public int getTotalWorkouts() { return totalWorkouts; }
+        public void setTotalWorkouts(int totalWorkouts) { this.totalWorkouts = totalWorkouts; }
+
+        public double getTotalVolumeLoad() { return totalVolumeLoad; }
+        public void setTotalVolumeLoad(double totalVolumeLoad) { this.totalVolumeLoad = totalVolumeLoad; }
+
+        public int getTotalPersonalRecords() { return totalPersonalRecords; }
+        public void setTotalPersonalRecords(int totalPersonalRecords) { this.totalPersonalRecords = totalPersonalRecords; }
+
+        public double getTotalSessionLoad() { return totalSessionLoad; }
+        public void setTotalSessionLoad(double totalSessionLoad) { this.totalSessionLoad = totalSessionLoad; }
+
+        public double getMeanWorkoutsPerAthlete() { return meanWorkoutsPerAthlete; }
+        public void setMeanWorkoutsPerAthlete(double meanWorkoutsPerAthlete) { this.meanWorkoutsPerAthlete = meanWorkoutsPerAthlete; }
+
+        public double getMeanVolumePerAthlete() { return meanVolumePerAthlete; }
+        public void setMeanVolumePerAthlete(double meanVolumePerAthlete) { this.meanVolumePerAthlete = meanVolumePerAthlete; }
+
+        public double getAverageRPE() { return averageRPE; }
+        public void setAverageRPE(double averageRPE) { this.averageRPE = averageRPE; }
+
+        public double getAverageSessionDuration() { return averageSessionDuration; }
+        public void setAverageSessionDuration(double averageSessionDuration) { this.averageSessionDuration = averageSessionDuration; }
+
+        public List<AthleteAnalytics> getAthletes() { return athletes; }
+        public void setAthletes(List<AthleteAnalytics> athletes) { this.athletes = athletes; }
+
+        public Map<String, List<UUID>> getRankings() { return rankings; }
+        public void setRankings(Map<String, List<UUID>> rankings) { this.rankings = rankings; }
+    }
+
+    public static class AthleteAnalytics {
+        private UUID userId;
+        private int totalWorkouts;
+        private int trainingDays;
+        private double totalVolumeLoad;
+        private double averageRPE;
+        private double averageSessionDuration;
+        private int personalRecords;
+        private double sessionLoad; // Sum of session-RPE load
+        private double workoutConsistency; // Workouts per week
+        private int volumeRank;
+        private int workoutsRank;
+        private int personalRecordsRank;
+        private int sessionLoadRank;
+
+        // Getters and setters
+        public UUID getUserId() { return userId; }
+        public void setUserId(UUID userId) { this.userId = userId; }
+
+        public int getTotalWorkouts() { return totalWorkouts; }
+        public void setTotalWorkouts(int totalWorkouts) { this.totalWorkouts = totalWorkouts; }
+
+        public int getTrainingDays() { return trainingDays; }
+        public void setTrainingDays(int trainingDays) { this.trainingDays = trainingDays; }
+
+        public double getTotalVolumeLoad() { return totalVolumeLoad; }
+        public void setTotalVolumeLoad(double totalVolumeLoad) { this.totalVolumeLoad = totalVolumeLoad; }
+
+        public double getAverageRPE() { return averageRPE; }
+        public void setAverageRPE(double averageRPE) { this.averageRPE = averageRPE; }
+
+        public double getAverageSessionDuration() { return averageSessionDuration; }
+        public void setAverageSessionDuration(double averageSessionDuration) { this.averageSessionDuration = averageSessionDuration; }
+
+        public int getPersonalRecords() { return personalRecords; }
+        public void setPersonalRecords(int personalRecords) { this.personalRecords = personalRecords; }
+
+        public double getSessionLoad() { return sessionLoad; }
+        public void setSessionLoad(double sessionLoad) { this.sessionLoad = sessionLoad; }
+
+        public double getWorkoutConsistency() { return workoutConsistency; }
+        public void setWorkoutConsistency(double workoutConsistency) { this.workoutConsistency = workoutConsistency; }
+
+        public int getVolumeRank() { return volumeRank; }
+        public void setVolumeRank(int volumeRank) { this.volumeRank = volumeRank; }
+
+        public int getWorkoutsRank() { return workoutsRank; }
+        public void setWorkoutsRank(int workoutsRank) { this.workoutsRank = workoutsRank; }
+
+        public int getPersonalRecordsRank() { return personalRecordsRank; }
+        public void setPersonalRecordsRank(int personalRecordsRank) { this.personalRecordsRank = personalRecordsRank; }
+
+        public int getSessionLoadRank() { return sessionLoadRank; }
+        public void setSessionLoadRank(int sessionLoadRank) { this.sessionLoadRank = sessionLoadRank; }
+    }
+
+    public SquadAnalytics generateSquadAnalytics(Collection<UUID> userIds, LocalDate startDate, LocalDate endDate) {
+        List<UUID> athleteIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+        List<AthleteAnalytics> athletes = new ArrayList<>(athleteIds.size());
+        SquadTotals totals = new SquadTotals();
+        for (int from = 0; from < athleteIds.size(); from += chunkSize) {
+            List<UUID> chunk = athleteIds.subList(from, Math.min(from + chunkSize, athleteIds.size()));
+            Map<UUID, List<SquadDayRow>> days = new HashMap<>();
+            for (SquadDayRow row : dailyRollupRepository.findSquadDays(chunk, startDate, endDate)) {
+                days.computeIfAbsent(row.userId(), id -> new ArrayList<>()).add(row);
+            }
+
+            AthleteAnalytics[] folded = new AthleteAnalytics[chunk.size()];
+            totals.merge(ForkJoinPool.commonPool().invoke(new AthleteTask(chunk, days, totalDays, folded, 0, chunk.size())));
+            athletes.addAll(Arrays.asList(folded));
+        }
+
+        SquadAnalytics squad = new SquadAnalytics();
+        squad.setStartDate(startDate);
+        squad.setEndDate(endDate);
+        squad.setAthleteCount(athletes.size());
+        squad.setActiveAthletes(totals.activeAthletes);
+        squad.setTotalWorkouts(totals.workouts);
+        squad.setTotalVolumeLoad(totals.volumeSum);
+        squad.setTotalPersonalRecords(totals.personalRecords);
+        squad.setTotalSessionLoad(totals.sessionLoadSum);
+        squad.setMeanWorkoutsPerAthlete(athletes.isEmpty() ? 0.0 : (double) totals.workouts / athletes.size());
+        squad.setMeanVolumePerAthlete(athletes.isEmpty() ? 0.0 : totals.volumeSum / athletes.size());
+        squad.setAverageRPE(totals.rpeCount > 0 ? totals.rpeSum / totals.rpeCount : 0.0);
+        squad.setAverageSessionDuration(totals.durationCount > 0 ? (double) totals.durationSum / totals.durationCount : 0.0);
+        squad.setAthletes(athletes);
+
+        Map<String, List<UUID>> rankings = new LinkedHashMap<>();
+        rankings.put("volumeLoad", rank(athletes, AthleteAnalytics::getTotalVolumeLoad, AthleteAnalytics::setVolumeRank));
+        rankings.put("workouts", rank(athletes, a -> a.getTotalWorkouts(), AthleteAnalytics::setWorkoutsRank));
+        rankings.put("personalRecords", rank(athletes, a -> a.getPersonalRecords(), AthleteAnalytics::setPersonalRecordsRank));
+        rankings.put("sessionLoad", rank(athletes, AthleteAnalytics::getSessionLoad, AthleteAnalytics::setSessionLoadRank));
+        squad.setRankings(rankings);
+        return squad;
+    }
+
+    // Competition ranking, highest first: equal values share a rank and the next rank is skipped
+    private static List<UUID> rank(List<AthleteAnalytics> athletes, ToDoubleFunction<AthleteAnalytics> metric,
+                                   ObjIntConsumer<AthleteAnalytics> setRank) {
+        List<AthleteAnalytics> ordered = new ArrayList<>(athletes);
+        ordered.sort(Comparator.comparingDouble(metric).reversed());
+        List<UUID> ranking = new ArrayList<>(ordered.size());
+        int rank = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            AthleteAnalytics athlete = ordered.get(i);
+            if (i == 0 || metric.applyAsDouble(athlete) != metric.applyAsDouble(ordered.get(i - 1))) {
+                rank = i + 1;
+            }
+            setRank.accept(athlete, rank);
+            ranking.add(athlete.getUserId());
+        }
+        return ranking;
+    }
+
+    private static AthleteAnalytics fold(UUID userId, List<SquadDayRow> days, long totalDays, SquadTotals totals) {
+        AthleteAnalytics athlete = new AthleteAnalytics();
+        athlete.setUserId(userId);
+
+        int workouts = 0, trainingDays = 0, durationCount = 0, rpeCount = 0, personalRecords = 0;
+        long durationSum = 0;
+        double volumeSum = 0, rpeSum = 0, sessionLoadSum = 0;
+        for (SquadDayRow day : days) {
+            if (day.workoutCount() == 0) {
+                continue;
+            }
+            trainingDays++;
+            workouts += day.workoutCount();
+            durationCount += day.durationCount();
+            durationSum += day.durationSum();
+            volumeSum += day.volumeSum();
+            rpeCount += day.rpeCount();
+            rpeSum += day.rpeSum();
+            personalRecords += day.personalRecordCount();
+            sessionLoadSum += day.sessionLoadSum();
+        }
+
+        athlete.setTotalWorkouts(workouts);
+        athlete.setTrainingDays(trainingDays);
+        athlete.setTotalVolumeLoad(volumeSum);
+        athlete.setAverageRPE(rpeCount > 0 ? rpeSum / rpeCount : 0.0);
+        athlete.setAverageSessionDuration(durationCount > 0 ? (double) durationSum / durationCount : 0.0);
+        athlete.setPersonalRecords(personalRecords);
+        athlete.setSessionLoad(sessionLoadSum);
+        athlete.setWorkoutConsistency((double) workouts / totalDays * 7);
+
+        totals.activeAthletes += workouts > 0 ? 1 : 0;
+        totals.workouts += workouts;
+        totals.durationCount += durationCount;
+        totals.durationSum += durationSum;
+        totals.volumeSum += volumeSum;
+        totals.rpeCount += rpeCount;
+        totals.rpeSum += rpeSum;
+        totals.personalRecords += personalRecords;
+        totals.sessionLoadSum += sessionLoadSum;
+        return athlete;
+    }
+
+    private static final class SquadTotals {
+        int activeAthletes;
+        int workouts;
+        int durationCount;
+        long durationSum;
+        double volumeSum;
+        int rpeCount;
+        double rpeSum;
+        int personalRecords;
+        double sessionLoadSum;
+
+        SquadTotals merge(SquadTotals other) {
+            activeAthletes += other.activeAthletes;
+            workouts += other.workouts;
+            durationCount += other.durationCount;
+            durationSum += other.durationSum;
+            volumeSum += other.volumeSum;
+            rpeCount += other.rpeCount;
+            rpeSum += other.rpeSum;
+            personalRecords += other.personalRecords;
+            sessionLoadSum += other.sessionLoadSum;
+            return this;
+        }
+    }
+
+    // Splits the chunk in halves down to small leaves; each leaf writes its own slots of the result
+    private static final class AthleteTask extends RecursiveTask<SquadTotals> {
+        private final List<UUID> athleteIds;
+        private final Map<UUID, List<SquadDayRow>> days;
+        private final long totalDays;
+        private final AthleteAnalytics[] folded;
+        private final int from;
+        private final int to;
+
+        AthleteTask(List<UUID> athleteIds, Map<UUID, List<SquadDayRow>> days, long totalDays,
+                    AthleteAnalytics[] folded, int from, int to) {
+            this.athleteIds = athleteIds;
+            this.days = days;
+            this.totalDays = totalDays;
+            this.folded = folded;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SquadTotals compute() {
+            if (to - from <= LEAF_ATHLETES) {
+                SquadTotals totals = new SquadTotals();
+                for (int i = from; i < to; i++) {
+                    UUID userId = athleteIds.get(i);
+                    folded[i] = fold(userId, days.getOrDefault(userId, List.of()), totalDays, totals);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            AthleteTask left = new AthleteTask(athleteIds, days, totalDays, folded, from, middle);
+            left.fork();
+            SquadTotals right = new AthleteTask(athleteIds, days, totalDays, folded, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+import com.fitnesscoach.model.TrainingLoadState;
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.repository.TrainingLoadStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maintains the per-user acute:chronic training load state. Each daily rollup
+ * refresh hands over the change of that day's loads, which is applied in constant
+ * time whether the day is new, in the past or being removed.
+ * A change is a delta, so one applied twice or lost stays in the state: the state row
+ * is locked before it is read, and callers hold the user's lock from
+ * {@link AnalyticsRollupService#lockUser}, under which a missing row is inserted once.
+ * {@link #rebuildUser} replays the state from the daily rollups.
+ */
+@Service
+@Transactional
+public class TrainingLoadService {
+
+    private final TrainingLoadStateRepository stateRepository;
+    private final AnalyticsDailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    public TrainingLoadService(
+            TrainingLoadStateRepository stateRepository,
+            AnalyticsDailyRollupRepository dailyRollupRepository) {
+        this.stateRepository = stateRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+    }
+
+    public void onDayChanged(UUID userId, LocalDate day, double loadDelta, double volumeDelta) {
+        if (loadDelta == 0 && volumeDelta == 0) {
+            return;
+        }
+        TrainingLoadState state = lockState(userId);
+        state.apply(day, loadDelta, volumeDelta);
+        stateRepository.save(state);
+    }
+
+    /**
+     * Replay every daily rollup of a user in date order, e.g. for history written
+     * before the state existed or to clear accumulated rounding
+     */
+    public void rebuildUser(UUID userId) {
+        TrainingLoadState state = lockState(userId);
+        state.reset();
+        List<AnalyticsDailyRollup> days = dailyRollupRepository.findByUserId(userId);
+        days.sort(Comparator.comparing(AnalyticsDailyRollup::getBucketDate));
+        for (AnalyticsDailyRollup day : days) {
+            state.apply(day.getBucketDate(), day.getSessionLoadSum(), day.getTrainingVolume());
+        }
+        stateRepository.save(state);
+    }
+
+    private TrainingLoadState lockState(UUID userId) {
+        return stateRepository.findForUpdateByUserId(userId).orElseGet(() -> new TrainingLoadState(userId));
+    }
+
+    /**
+     * The state decayed to {@code date}; reads one row and never scans history
+     */
+    @Transactional(readOnly = true)
+    public Optional<TrainingLoadState> findState(UUID userId, LocalDate date) {
+        return stateRepository.findByUserId(userId)
+            .filter(state -> state.getLastDate() != null)
+            .map(state -> state.at(date));
+    }
+}
@@ -0,0 +1,127 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.VolumeRollup;
+import com.fitnesscoach.model.VolumeRollup.Dimension;
+import com.fitnesscoach.model.VolumeRollup.Granularity;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
+import com.fitnesscoach.repository.VolumeRollupRepository;
+import com.fitnesscoach.repository.projection.ExerciseVolumeRow;
+import com.fitnesscoach.repository.projection.VolumeTotalsRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Maintains per-user volume rollups by exercise, movement pattern and primary muscle.
+ * A write re-derives the day buckets of the day it touched from that day's sets, then
+ * the week and month containing it from their day buckets.
+ */
+@Service
+@Transactional
+public class VolumeRollupService {
+
+    private final VolumeRollupRepository volumeRollupRepository;
+    private final AdvancedSetResultRepository setResultRepository;
+
+    @Autowired
+    public VolumeRollupService(
+            VolumeRollupRepository volumeRollupRepository,
+            AdvancedSetResultRepository setResultRepository) {
+        this.volumeRollupRepository = volumeRollupRepository;
+        this.setResultRepository = setResultRepository;
+    }
+
+    public void refreshDay(UUID userId, LocalDate day) {
+        if (userId == null || day == null) {
+            return;
+        }
+        refreshDays(userId, List.of(day));
+    }
+
+    /**
+     * Refresh the day buckets of several days, then each week and month bucket they
+     * fall in once, rather than once per day
+     */
+    public void refreshDays(UUID userId, Collection<LocalDate> days) {
+        Set<LocalDate> weeks = new TreeSet<>();
+        Set<LocalDate> months = new TreeSet<>();
+        for (LocalDate day : days) {
+            refreshDayBuckets(userId, day);
+            weeks.add(Granularity.WEEK.bucketStart(day));
+            months.add(Granularity.MONTH.bucketStart(day));
+        }
+        weeks.forEach(week -> refreshPeriod(userId, Granularity.WEEK, week));
+        months.forEach(month -> refreshPeriod(userId, Granularity.MONTH, month));
+    }
+
+    private void refreshDayBuckets(UUID userId, LocalDate day) {
+        Map<BucketKey, VolumeRollup> dayBuckets = new HashMap<>();
+        for (ExerciseVolumeRow row : setResultRepository.summarizeVolumeByExercise(userId, day)) {
+            addTo(dayBuckets, userId, Granularity.DAY, day, Dimension.EXERCISE, row.exerciseId().toString(), row);
+            if (row.movementPattern() != null) {
+                addTo(dayBuckets, userId, Granularity.DAY, day, Dimension.MOVEMENT_PATTERN, row.movementPattern().name(), row);
+            }
+            if (row.primaryMuscle() != null && !row.primaryMuscle().isBlank()) {
+                addTo(dayBuckets, userId, Granularity.DAY, day, Dimension.MUSCLE, row.primaryMuscle().trim(), row);
+            }
+        }
+        replaceBucket(userId, Granularity.DAY, day, dayBuckets);
+    }
+
+    @Transactional(readOnly = true)
+    public List<VolumeRollup> findSeries(UUID userId, Dimension dimension, String dimensionKey,
+                                         Granularity granularity, LocalDate startDate, LocalDate endDate) {
+        return volumeRollupRepository.findSeries(userId, dimension, dimensionKey, granularity,
+            granularity.bucketStart(startDate), endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<VolumeRollup> findByDimension(UUID userId, Dimension dimension, Granularity granularity,
+                                              LocalDate startDate, LocalDate endDate) {
+        return volumeRollupRepository.findByDimension(userId, dimension, granularity,
+            granularity.bucketStart(startDate), endDate);
+    }
+
+    // Week and month buckets are sums of at most 31 day buckets per key
+    private void refreshPeriod(UUID userId, Granularity granularity, LocalDate day) {
+        LocalDate bucketDate = granularity.bucketStart(day);
+        Map<BucketKey, VolumeRollup> buckets = new HashMap<>();
+        for (VolumeTotalsRow row : volumeRollupRepository.summarize(
+                userId, Granularity.DAY, bucketDate, granularity.bucketEnd(day))) {
+            buckets.computeIfAbsent(new BucketKey(row.dimension(), row.dimensionKey()),
+                key -> new VolumeRollup(userId, key.dimension(), key.dimensionKey(), granularity, bucketDate))
+                .add(row.sets(), row.reps(), row.tonnage(), row.rpeCount(), row.rpeSum());
+        }
+        replaceBucket(userId, granularity, bucketDate, buckets);
+    }
+
+    // Totals are copied into the existing rows so unique keys are reused instead of re-inserted
+    private void replaceBucket(UUID userId, Granularity granularity, LocalDate bucketDate,
+                               Map<BucketKey, VolumeRollup> buckets) {
+        List<VolumeRollup> stale = new ArrayList<>();
+        for (VolumeRollup existing : volumeRollupRepository.findByUserIdAndGranularityAndBucketDate(
+                userId, granularity, bucketDate)) {
+            VolumeRollup fresh = buckets.remove(new BucketKey(existing.getDimension(), existing.getDimensionKey()));
+            if (fresh == null) {
+                stale.add(existing);
+                continue;
+            }
+            existing.reset();
+            existing.add(fresh.getSets(), fresh.getReps(), fresh.getTonnage(), fresh.getRpeCount(), fresh.getRpeSum());
+        }
+        volumeRollupRepository.saveAll(buckets.values());
+        volumeRollupRepository.deleteAll(stale);
+    }
+
+    private static void addTo(Map<BucketKey, VolumeRollup> buckets, UUID userId, Granularity granularity,
+                              LocalDate bucketDate, Dimension dimension, String dimensionKey, ExerciseVolumeRow row) {
+        buckets.computeIfAbsent(new BucketKey(dimension, dimensionKey),
+            key -> new VolumeRollup(userId, dimension, dimensionKey, granularity, bucketDate))
+            .add(row.sets(), row.reps(), row.tonnage(), row.rpeCount(), row.rpeSum());
+    }
+
+    private record BucketKey(Dimension dimension, String dimensionKey) {}
+}
@@ -0,0 +1,11 @@
+package com.fitnesscoach.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Published when a user's workout results are saved, deleted or rebuilt.
+ * The date is the day that changed, or null when any day may have changed.
+ */
+public record WorkoutResultChangedEvent(UUID userId, LocalDate date) {
+}
@@ -0,0 +1,260 @@
+package com.fitnesscoach.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bulk import of workout results, e.g. history from another app or a client syncing
+ * after days offline. Results are read as a stream and persisted in chunks, one
+ * transaction per chunk, so Hibernate sends each chunk's workouts and sets as JDBC
+ * batches. A chunk the database rejects is retried one result at a time to find the
+ * bad ones. Records, sketches and rollups are recomputed once per user at the end
+ * instead of once per result.
+ */
+@Service
+public class WorkoutResultIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkoutResultIngestService.class);
+
+    public enum Format { JSON_ARRAY, NDJSON }
+
+    public record ItemOutcome(int index, Status status, UUID id, String error) {
+        public enum Status { CREATED, FAILED }
+
+        static ItemOutcome created(int index, UUID id) {
+            return new ItemOutcome(index, Status.CREATED, id, null);
+        }
+
+        static ItemOutcome failed(int index, String error) {
+            return new ItemOutcome(index, Status.FAILED, null, error);
+        }
+    }
+
+    public record IngestReport(int received, int created, int failed, long elapsedMillis,
+                               double resultsPerSecond, List<ItemOutcome> items) {}
+
+    // One parsed element of the request; the error is set when it could not be read
+    private record Item(int index, WorkoutResultDTO dto, String error) {}
+
+    private final AdvancedWorkoutResultRepository workoutResultRepository;
+    private final WorkoutResultMapper mapper;
+    private final AnalyticsStoreService analyticsStore;
+    private final AnalyticsRecomputeQueue recomputeQueue;
+    private final AnalyticsRecomputeService recomputeService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final int maxItems;
+
+    @Autowired
+    public WorkoutResultIngestService(
+            AdvancedWorkoutResultRepository workoutResultRepository,
+            WorkoutResultMapper mapper,
+            AnalyticsStoreService analyticsStore,
+            AnalyticsRecomputeQueue recomputeQueue,
+            AnalyticsRecomputeService recomputeService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${fitnesscoach.ingest.chunk-size:100}") int chunkSize,
+            @Value("${fitnesscoach.ingest.max-items:10000}") int maxItems) {
+        this.workoutResultRepository = workoutResultRepository;
+        this.mapper = mapper;
+        this.analyticsStore = analyticsStore;
+        this.recomputeQueue = recomputeQueue;
+        this.recomputeService = recomputeService;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Persist every result in the body and report an outcome per result, in input order.
+     * A result that fails does not stop the others; chunks already committed stay
+     * committed if the body turns out to be malformed further on.
+     */
+    public IngestReport ingest(InputStream body, Format format) throws IOException {
+        long start = System.nanoTime();
+        List<ItemOutcome> outcomes = new ArrayList<>();
+        Map<UUID, SortedSet<LocalDate>> touched = new LinkedHashMap<>();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        try {
+            Consumer<Item> sink = item -> {
+                chunk.add(item);
+                if (chunk.size() == chunkSize) {
+                    persistChunk(chunk, outcomes, touched);
+                    chunk.clear();
+                }
+            };
+            if (format == Format.NDJSON) {
+                readLines(body, sink);
+            } else {
+                readArray(body, sink);
+            }
+            persistChunk(chunk, outcomes, touched);
+        } finally {
+            recompute(touched);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        int created = (int) outcomes.stream().filter(o -> o.status() == ItemOutcome.Status.CREATED).count();
+        return new IngestReport(outcomes.size(), created, outcomes.size() - created, elapsedNanos / 1_000_000,
+            elapsedNanos > 0 ? created * 1e9 / elapsedNanos : 0.0, outcomes);
+    }
+
+    private void readLines(InputStream body, Consumer<Item> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int index = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (index == maxItems) {
+                sink.accept(new Item(index, null, "More than " + maxItems + " results in one request"));
+                return;
+            }
+            try {
+                sink.accept(new Item(index, objectMapper.readValue(line, WorkoutResultDTO.class), null));
+            } catch (JsonProcessingException e) {
+                sink.accept(new Item(index, null, e.getOriginalMessage()));
+            }
+            index++;
+        }
+    }
+
+    private void readArray(InputStream body, Consumer<Item> sink) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of workout results");
+            }
+            int index = 0;
+            while (true) {
+                JsonNode node;
+                try {
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        return;
+                    }
+                    node = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    // Malformed JSON: nothing after this point can be read
+                    sink.accept(new Item(index, null, e.getOriginalMessage()));
+                    return;
+                }
+                if (index == maxItems) {
+                    sink.accept(new Item(index, null, "More than " + maxItems + " results in one request"));
+                    return;
+                }
+                try {
+                    sink.accept(new Item(index, objectMapper.treeToValue(node, WorkoutResultDTO.class), null));
+                } catch (JsonProcessingException e) {
+                    sink.accept(new Item(index, null, e.getOriginalMessage()));
+                }
+                index++;
+            }
+        }
+    }
+
+    private void persistChunk(List<Item> chunk, List<ItemOutcome> outcomes, Map<UUID, SortedSet<LocalDate>> touched) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ItemOutcome> chunkOutcomes = new ArrayList<>();
+        List<AdvancedWorkoutResult> saved = new ArrayList<>();
+        try {
+            transaction.executeWithoutResult(status -> save(chunk, chunkOutcomes, saved));
+        } catch (RuntimeException e) {
+            // One rejected row fails the whole batch; save one at a time to find it
+            chunkOutcomes.clear();
+            saved.clear();
+            for (Item item : chunk) {
+                List<ItemOutcome> single = new ArrayList<>();
+                List<AdvancedWorkoutResult> singleSaved = new ArrayList<>();
+                try {
+                    transaction.executeWithoutResult(status -> save(List.of(item), single, singleSaved));
+                    chunkOutcomes.addAll(single);
+                    saved.addAll(singleSaved);
+                } catch (RuntimeException itemError) {
+                    chunkOutcomes.add(ItemOutcome.failed(item.index(),
+                        NestedExceptionUtils.getMostSpecificCause(itemError).getMessage()));
+                }
+            }
+        }
+        outcomes.addAll(chunkOutcomes);
+        for (AdvancedWorkoutResult result : saved) {
+            if (result.getDate() != null) {
+                touched.computeIfAbsent(result.getUserId(), id -> new TreeSet<>()).add(result.getDate());
+            }
+        }
+    }
+
+    private void save(List<Item> items, List<ItemOutcome> outcomes, List<AdvancedWorkoutResult> saved) {
+        // Resolve every exercise before persisting anything, so no lookup runs between
+        // the chunk's inserts and splits them into several batches
+        Function<String, Exercise> exercises = mapper.exercisesFor(WorkoutResultMapper.exerciseNames(
+            items.stream().map(Item::dto).filter(Objects::nonNull).toList()));
+
+        for (Item item : items) {
+            if (item.error() != null) {
+                outcomes.add(ItemOutcome.failed(item.index(), item.error()));
+                continue;
+            }
+            try {
+                if (item.dto().userId == null) {
+                    throw new IllegalArgumentException("userId is required");
+                }
+                AdvancedWorkoutResult result = mapper.fromDTO(item.dto(), exercises);
+                if (!result.getSetResults().isEmpty()) {
+                    result.calculateMetricsFromSets();
+                }
+                workoutResultRepository.save(result);
+                analyticsStore.recordChange(result.getUserId(), result.getDate());
+                outcomes.add(ItemOutcome.created(item.index(), result.getId()));
+                saved.add(result);
+            } catch (IllegalArgumentException e) {
+                outcomes.add(ItemOutcome.failed(item.index(), e.getMessage()));
+            }
+        }
+    }
+
+    private void recompute(Map<UUID, SortedSet<LocalDate>> touched) {
+        touched.forEach((userId, days) -> {
+            if (recomputeQueue.isAsync()) {
+                days.forEach(day -> recomputeQueue.submit(userId, day));
+                return;
+            }
+            try {
+                recomputeService.recompute(userId, days);
+            } catch (RuntimeException e) {
+                // The results are committed; a user rebuild recovers the analytics
+                log.error("Analytics recomputation failed for user {} after bulk import", userId, e);
+            }
+        });
+    }
+}
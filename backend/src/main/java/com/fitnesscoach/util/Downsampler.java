@@ -0,0 +1,70 @@
+package com.fitnesscoach.util;
+
+/**
+ * Reduces long series to a bounded number of points for charting.
+ */
+public final class Downsampler {
+
+    private Downsampler() {}
+
+    /**
+     * Largest-Triangle-Three-Buckets: keeps the first and last point and, for every bucket
+     * in between, the point forming the largest triangle with the previously kept point and
+     * the average of the next bucket. Peaks and troughs such as PR days survive.
+     * Series with at most {@code maxPoints} points, or a limit below 3, are returned unchanged.
+     */
+    public static TimeSeries lttb(TimeSeries series, int maxPoints) {
+        int size = series.size();
+        if (maxPoints < 3 || size <= maxPoints) {
+            return series;
+        }
+
+        long[] keys = series.keys();
+        double[] values = series.values();
+        TimeSeries sampled = new TimeSeries(maxPoints);
+        sampled.append(keys[0], values[0]);
+
+        // Interior points are split into maxPoints - 2 buckets
+        double bucketWidth = (double) (size - 2) / (maxPoints - 2);
+        int selected = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) Math.floor(bucket * bucketWidth) + 1;
+            int end = bucket == maxPoints - 3 ? size - 1 : (int) Math.floor((bucket + 1) * bucketWidth) + 1;
+
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketWidth) + 1, size - 1);
+            double nextX = 0;
+            double nextY = 0;
+            if (bucket == maxPoints - 3 || nextStart >= nextEnd) {
+                nextX = keys[size - 1];
+                nextY = values[size - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    nextX += keys[i];
+                    nextY += values[i];
+                }
+                nextX /= nextEnd - nextStart;
+                nextY /= nextEnd - nextStart;
+            }
+
+            double selectedX = keys[selected];
+            double selectedY = values[selected];
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selectedX - nextX) * (values[i] - selectedY)
+                    - (selectedX - keys[i]) * (nextY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            sampled.append(keys[maxIndex], values[maxIndex]);
+            selected = maxIndex;
+        }
+
+        sampled.append(keys[size - 1], values[size - 1]);
+        return sampled;
+    }
+}
@@ -0,0 +1,155 @@
+package com.fitnesscoach.util;
+
+/**
+ * Reductions over the first {@code length} values of primitive columns: sum, mean,
+ * variance, maximum, dot product and Pearson correlation.
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector} the loops use
+ * SIMD lanes through {@link VectorKernels}; otherwise, or with
+ * {@code -Dfitnesscoach.kernels.scalar=true}, the scalar loops below are used.
+ * Lane-wise sums add in a different order, so the two paths may differ in the last bits.
+ */
+public final class NumericKernels {
+
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private NumericKernels() {}
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    public static double sum(double[] values, int length) {
+        return sum(values, length, VECTORIZED);
+    }
+
+    public static double mean(double[] values, int length) {
+        return mean(values, length, VECTORIZED);
+    }
+
+    /**
+     * Population variance, computed around the mean to avoid cancellation
+     */
+    public static double variance(double[] values, int length) {
+        return variance(values, length, VECTORIZED);
+    }
+
+    public static double max(double[] values, int length) {
+        return max(values, length, VECTORIZED);
+    }
+
+    /**
+     * Sum of {@code a[i] * b[i]}, e.g. volume load from weight and rep columns
+     */
+    public static double dot(double[] a, double[] b, int length) {
+        return dot(a, b, length, VECTORIZED);
+    }
+
+    /**
+     * Pearson correlation of two paired columns, or NaN with fewer than two pairs or
+     * when either column is constant
+     */
+    public static double correlation(double[] x, double[] y, int length) {
+        return correlation(x, y, length, VECTORIZED);
+    }
+
+    // The same reductions on a chosen path, so both can be compared and measured in one JVM
+
+    static double sum(double[] values, int length, boolean vectorized) {
+        return vectorized ? VectorKernels.sum(values, length) : scalarSum(values, length);
+    }
+
+    static double mean(double[] values, int length, boolean vectorized) {
+        return length > 0 ? sum(values, length, vectorized) / length : Double.NaN;
+    }
+
+    static double variance(double[] values, int length, boolean vectorized) {
+        if (length == 0) {
+            return Double.NaN;
+        }
+        double mean = mean(values, length, vectorized);
+        double squares = vectorized ? VectorKernels.sumOfSquaredDeviations(values, length, mean)
+            : scalarSumOfSquaredDeviations(values, length, mean);
+        return squares / length;
+    }
+
+    static double max(double[] values, int length, boolean vectorized) {
+        if (length == 0) {
+            return Double.NaN;
+        }
+        return vectorized ? VectorKernels.max(values, length) : scalarMax(values, length);
+    }
+
+    static double dot(double[] a, double[] b, int length, boolean vectorized) {
+        return vectorized ? VectorKernels.dot(a, b, length) : scalarDot(a, b, length);
+    }
+
+    static double correlation(double[] x, double[] y, int length, boolean vectorized) {
+        if (length < 2) {
+            return Double.NaN;
+        }
+        double meanX = mean(x, length, vectorized);
+        double meanY = mean(y, length, vectorized);
+        double[] moments = vectorized ? VectorKernels.comoments(x, y, length, meanX, meanY)
+            : scalarComoments(x, y, 0, length, meanX, meanY);
+        double denominator = Math.sqrt(moments[1] * moments[2]);
+        return denominator > 0 ? Math.max(-1.0, Math.min(1.0, moments[0] / denominator)) : Double.NaN;
+    }
+
+    private static boolean detectVectorSupport() {
+        if (Boolean.getBoolean("fitnesscoach.kernels.scalar")) {
+            return false;
+        }
+        try {
+            // Fails to link when the incubator module is not resolved at run time
+            return VectorKernels.lanes() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    static double scalarSum(double[] values, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    static double scalarSumOfSquaredDeviations(double[] values, int length, double mean) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double deviation = values[i] - mean;
+            sum += deviation * deviation;
+        }
+        return sum;
+    }
+
+    static double scalarMax(double[] values, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    static double scalarDot(double[] a, double[] b, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // Sums of dx * dy, dx * dx and dy * dy around the means over [from, length)
+    static double[] scalarComoments(double[] x, double[] y, int from, int length, double meanX, double meanY) {
+        double xy = 0, xx = 0, yy = 0;
+        for (int i = from; i < length; i++) {
+            double dx = x[i] - meanX;
+            double dy = y[i] - meanY;
+            xy += dx * dy;
+            xx += dx * dx;
+            yy += dy * dy;
+        }
+        return new double[] {xy, xx, yy};
+    }
+}
@@ -0,0 +1,179 @@
+package com.fitnesscoach.util;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch over non-negative values with logarithmic buckets
+ * (the DDSketch scheme). A value {@code x > 0} is counted in bucket
+ * {@code ceil(log(x) / log(gamma))} with {@code gamma = (1 + a) / (1 - a)}, so every
+ * quantile is answered within a relative error of {@code a} of a value of that rank,
+ * whatever the distribution. Merging adds bucket counts and is exact: a merged sketch
+ * answers as if every value had been added to one sketch.
+ * Values of zero or below are counted as zero.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_POSITIVE = 1e-9;
+
+    // Sparse buckets sorted by key
+    private int[] keys;
+    private long[] counts;
+    private int size;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(new int[8], new long[8], 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    }
+
+    private QuantileSketch(int[] keys, long[] counts, int size, long zeroCount, double min, double max) {
+        this.keys = keys;
+        this.counts = counts;
+        this.size = size;
+        this.zeroCount = zeroCount;
+        this.min = min;
+        this.max = max;
+        this.count = zeroCount;
+        for (int i = 0; i < size; i++) {
+            this.count += counts[i];
+        }
+    }
+
+    /**
+     * Restore a sketch from the state returned by {@link #bucketKeys()}, {@link #bucketCounts()},
+     * {@link #getZeroCount()}, {@link #getMin()} and {@link #getMax()}
+     */
+    public static QuantileSketch of(int[] bucketKeys, long[] bucketCounts, long zeroCount, double min, double max) {
+        int[] keys = bucketKeys != null ? bucketKeys.clone() : new int[0];
+        long[] counts = bucketCounts != null ? bucketCounts.clone() : new long[0];
+        return new QuantileSketch(keys, counts, Math.min(keys.length, counts.length), zeroCount, min, max);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value <= MIN_POSITIVE) {
+            zeroCount++;
+            return;
+        }
+        addToBucket((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1);
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return this;
+        }
+        int[] mergedKeys = new int[size + other.size];
+        long[] mergedCounts = new long[size + other.size];
+        int i = 0, j = 0, k = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                mergedKeys[k] = keys[i];
+                mergedCounts[k++] = counts[i++];
+            } else if (i == size || other.keys[j] < keys[i]) {
+                mergedKeys[k] = other.keys[j];
+                mergedCounts[k++] = other.counts[j++];
+            } else {
+                mergedKeys[k] = keys[i];
+                mergedCounts[k++] = counts[i++] + other.counts[j++];
+            }
+        }
+        keys = mergedKeys;
+        counts = mergedCounts;
+        size = k;
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * Value at quantile {@code q} in [0, 1], or NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return Math.max(min, 0.0);
+        }
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Bucket midpoint in relative terms, clamped to the exact extremes
+                double value = 2 * Math.pow(GAMMA, keys[i]) / (GAMMA + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getZeroCount() {
+        return zeroCount;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int[] bucketKeys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    public long[] bucketCounts() {
+        return Arrays.copyOf(counts, size);
+    }
+
+    private void addToBucket(int key, long n) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            counts[index] += n;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(8, size * 2));
+            counts = Arrays.copyOf(counts, keys.length);
+        }
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+        System.arraycopy(counts, insertAt, counts, insertAt + 1, size - insertAt);
+        keys[insertAt] = key;
+        counts[insertAt] = n;
+        size++;
+    }
+}
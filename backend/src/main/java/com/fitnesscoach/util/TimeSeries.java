@@ -0,0 +1,213 @@
+package com.fitnesscoach.util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Columnar time series of primitive values: a sorted {@code long[]} of keys and a
+ * parallel {@code double[]} of values. Keys are epoch days for daily series and epoch
+ * milliseconds for per-set series. Appends are amortized O(1); points appended out of
+ * order are sorted once, stably, on the next read.
+ */
+public final class TimeSeries {
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+    private boolean sorted = true;
+
+    public TimeSeries() {
+        this(16);
+    }
+
+    public TimeSeries(int capacity) {
+        keys = new long[Math.max(capacity, 1)];
+        values = new double[Math.max(capacity, 1)];
+    }
+
+    private TimeSeries(long[] keys, double[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    public void append(long key, double value) {
+        ensureCapacity(size + 1);
+        if (size > 0 && key < keys[size - 1]) {
+            sorted = false;
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+    }
+
+    public void append(LocalDate day, double value) {
+        append(day.toEpochDay(), value);
+    }
+
+    /**
+     * Append every point of another series after the points of this one
+     */
+    public void appendAll(TimeSeries other) {
+        if (other.size == 0) {
+            return;
+        }
+        other.sortIfNeeded();
+        ensureCapacity(size + other.size);
+        if (size > 0 && other.keys[0] < keys[size - 1]) {
+            sorted = false;
+        }
+        System.arraycopy(other.keys, 0, keys, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Points with {@code fromKey <= key <= toKey}, found by binary search
+     */
+    public TimeSeries slice(long fromKey, long toKey) {
+        sortIfNeeded();
+        int from = lowerBound(fromKey);
+        int to = toKey == Long.MAX_VALUE ? size : lowerBound(toKey + 1);
+        if (from >= to) {
+            return new TimeSeries(1);
+        }
+        return new TimeSeries(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    public TimeSeries slice(LocalDate from, LocalDate to) {
+        return slice(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Combine the points of each bucket of {@code bucketWidth} keys, aligned to {@code origin},
+     * into one point keyed by the bucket start
+     */
+    public TimeSeries resample(long origin, long bucketWidth, Aggregation aggregation) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive");
+        }
+        sortIfNeeded();
+        TimeSeries resampled = new TimeSeries(Math.max(1, size));
+        int i = 0;
+        while (i < size) {
+            long bucket = Math.floorDiv(keys[i] - origin, bucketWidth);
+            double acc = aggregation == Aggregation.MAX ? Double.NEGATIVE_INFINITY :
+                aggregation == Aggregation.MIN ? Double.POSITIVE_INFINITY : 0.0;
+            int count = 0;
+            while (i < size && Math.floorDiv(keys[i] - origin, bucketWidth) == bucket) {
+                acc = switch (aggregation) {
+                    case SUM, MEAN -> acc + values[i];
+                    case MAX -> Math.max(acc, values[i]);
+                    case MIN -> Math.min(acc, values[i]);
+                    case LAST -> values[i];
+                };
+                count++;
+                i++;
+            }
+            resampled.append(origin + bucket * bucketWidth, aggregation == Aggregation.MEAN ? acc / count : acc);
+        }
+        return resampled;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long keyAt(int index) {
+        sortIfNeeded();
+        return keys[index];
+    }
+
+    public double valueAt(int index) {
+        sortIfNeeded();
+        return values[index];
+    }
+
+    public long[] keys() {
+        sortIfNeeded();
+        return Arrays.copyOf(keys, size);
+    }
+
+    public double[] values() {
+        sortIfNeeded();
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Apply any pending sort now, so the series can afterwards be read from several threads
+     */
+    public TimeSeries sort() {
+        sortIfNeeded();
+        return this;
+    }
+
+    public enum Aggregation {
+        SUM, MEAN, MAX, MIN, LAST
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(keys.length * 2, capacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    // Stable merge sort of the key/value columns, only needed after out-of-order appends
+    private void sortIfNeeded() {
+        if (sorted) {
+            return;
+        }
+        long[] keyBuffer = new long[size];
+        double[] valueBuffer = new double[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size - width; low += 2 * width) {
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, size);
+                if (keys[mid - 1] <= keys[mid]) {
+                    continue;
+                }
+                int i = low, j = mid, k = 0;
+                while (i < mid && j < high) {
+                    if (keys[j] < keys[i]) {
+                        keyBuffer[k] = keys[j];
+                        valueBuffer[k++] = values[j++];
+                    } else {
+                        keyBuffer[k] = keys[i];
+                        valueBuffer[k++] = values[i++];
+                    }
+                }
+                while (i < mid) {
+                    keyBuffer[k] = keys[i];
+                    valueBuffer[k++] = values[i++];
+                }
+                while (j < high) {
+                    keyBuffer[k] = keys[j];
+                    valueBuffer[k++] = values[j++];
+                }
+                System.arraycopy(keyBuffer, 0, keys, low, k);
+                System.arraycopy(valueBuffer, 0, values, low, k);
+            }
+        }
+        sorted = true;
+    }
+}
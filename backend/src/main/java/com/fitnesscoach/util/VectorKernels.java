@@ -0,0 +1,103 @@
+package com.fitnesscoach.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD bodies of {@link NumericKernels}. Each loop runs whole vectors of the preferred
+ * species and finishes the remaining tail with the scalar loop. Only loaded when the
+ * incubator module is present; callers go through {@link NumericKernels}.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {}
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static double sum(double[] values, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    static double sumOfSquaredDeviations(double[] values, int length, double mean) {
+        DoubleVector means = DoubleVector.broadcast(SPECIES, mean);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector deviation = DoubleVector.fromArray(SPECIES, values, i).sub(means);
+            acc = deviation.fma(deviation, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double deviation = values[i] - mean;
+            sum += deviation * deviation;
+        }
+        return sum;
+    }
+
+    static double max(double[] values, int length) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.max(DoubleVector.fromArray(SPECIES, values, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    static double dot(double[] a, double[] b, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = DoubleVector.fromArray(SPECIES, a, i).fma(DoubleVector.fromArray(SPECIES, b, i), acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    static double[] comoments(double[] x, double[] y, int length, double meanX, double meanY) {
+        DoubleVector meansX = DoubleVector.broadcast(SPECIES, meanX);
+        DoubleVector meansY = DoubleVector.broadcast(SPECIES, meanY);
+        DoubleVector xy = DoubleVector.zero(SPECIES);
+        DoubleVector xx = DoubleVector.zero(SPECIES);
+        DoubleVector yy = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, x, i).sub(meansX);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, y, i).sub(meansY);
+            xy = dx.fma(dy, xy);
+            xx = dx.fma(dx, xx);
+            yy = dy.fma(dy, yy);
+        }
+        double[] tail = NumericKernels.scalarComoments(x, y, i, length, meanX, meanY);
+        return new double[] {
+            xy.reduceLanes(VectorOperators.ADD) + tail[0],
+            xx.reduceLanes(VectorOperators.ADD) + tail[1],
+            yy.reduceLanes(VectorOperators.ADD) + tail[2]
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.fitnesscoach;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JMH benchmarks whose class names match -Dfitnesscoach.jmh; each benchmark
+ * profile sets it, and each benchmark class sets its own forks, iterations and parameters.
+ * A benchmark that throws, including a failed check in its setup, fails the run.
+ */
+@EnabledIfSystemProperty(named = "fitnesscoach.jmh", matches = ".+")
+class JmhBenchmarkTest {
+
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(System.getProperty("fitnesscoach.jmh"))
+            .shouldFailOnError(true)
+            .build();
+        assertThat(new Runner(options).run()).isNotEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package com.fitnesscoach.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdvancedWorkoutResultControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AnalyticsDataVersionRepository versionRepository;
+
+    @Test
+    void createsResultWithoutUser() throws Exception {
+        long versions = versionRepository.count();
+
+        String body = mockMvc.perform(post("/api/workout-results")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(result(null))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.userId").doesNotExist())
+            .andReturn().getResponse().getContentAsString();
+
+        JsonNode created = objectMapper.readTree(body);
+        mockMvc.perform(get("/api/workout-results/{id}", created.get("id").asText()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.setResults.length()").value(1));
+        // Results without a user have no analytics to version
+        assertThat(versionRepository.count()).isEqualTo(versions);
+    }
+
+    @Test
+    void createsResultForUser() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/workout-results")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(result(userId))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.userId").value(userId.toString()));
+
+        assertThat(versionRepository.findByUserId(userId)).isPresent();
+    }
+
+    private static WorkoutResultDTO result(UUID userId) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = 1;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = 100.0;
+        set.weightUnit = "KG";
+        set.rpe = 8;
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = LocalDate.of(2026, 3, 2);
+        result.totalDurationSeconds = 1800;
+        result.setResults = List.of(set);
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package com.fitnesscoach.repository;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.BlockResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.model.ExerciseBlock;
+import com.fitnesscoach.model.Program;
+import com.fitnesscoach.model.WorkoutSessionTemplate;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class AdvancedWorkoutResultRepositoryTest {
+
+    private static final int WORKOUTS = 40;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private AdvancedWorkoutResultRepository workoutResultRepository;
+
+    @Autowired
+    private BlockResultRepository blockResultRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final UUID userId = UUID.randomUUID();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Program program = entityManager.persist(new Program("Strength", 4));
+        List<Exercise> exercises = List.of(
+            entityManager.persist(new Exercise("Back Squat")),
+            entityManager.persist(new Exercise("Bench Press")),
+            entityManager.persist(new Exercise("Deadlift")));
+
+        for (int i = 0; i < WORKOUTS; i++) {
+            WorkoutSessionTemplate template = entityManager.persist(new WorkoutSessionTemplate("Day " + i, program, i));
+            AdvancedWorkoutResult workout = new AdvancedWorkoutResult(template);
+            workout.setUserId(userId);
+            workout.setDate(FIRST_DAY.plusDays(i));
+            for (int set = 0; set < exercises.size(); set++) {
+                AdvancedSetResult setResult = new AdvancedSetResult(workout, exercises.get(set), "A", set, 1,
+                    AdvancedSetResult.ResultType.STRAIGHT_SET);
+                setResult.setPerformedReps(5);
+                setResult.setWeight(100.0);
+                workout.getSetResults().add(setResult);
+            }
+            for (ExerciseBlock.BlockType blockType : List.of(ExerciseBlock.BlockType.STRAIGHT_SETS, ExerciseBlock.BlockType.SUPERSET)) {
+                BlockResult block = new BlockResult();
+                block.setWorkoutResult(workout);
+                block.setBlockLabel(blockType.name());
+                block.setBlockType(blockType);
+                workout.getBlockResults().add(block);
+            }
+            entityManager.persist(workout);
+        }
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void historyChunkIsLoadedInAFixedNumberOfStatements() {
+        long statements = statementsToLoadHistory(WORKOUTS);
+
+        assertThat(statementsToLoadHistory(WORKOUTS / 4)).isEqualTo(statements);
+        // Workouts, sets and blocks, then one batch each of programs and the exercises' measurement types
+        assertThat(statements).isEqualTo(5);
+    }
+
+    @Test
+    void rollupDaysAreLoadedInAFixedNumberOfStatements() {
+        long statements = statementsToLoadDays(WORKOUTS);
+
+        assertThat(statementsToLoadDays(WORKOUTS / 4)).isEqualTo(statements);
+        // Workouts with their blocks, then one batch of programs
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void blockTypeReportIsLoadedInAFixedNumberOfStatements() {
+        long statements = statementsToLoadBlockType(WORKOUTS);
+
+        assertThat(statementsToLoadBlockType(WORKOUTS / 4)).isEqualTo(statements);
+        assertThat(statements).isEqualTo(2);
+    }
+
+    // What the history scan does for one chunk of workouts
+    private long statementsToLoadHistory(int days) {
+        return countStatements(() -> {
+            List<AdvancedWorkoutResult> workouts;
+            try (Stream<AdvancedWorkoutResult> stream = workoutResultRepository.streamByUserIdAndDateBetween(
+                    userId, FIRST_DAY, FIRST_DAY.plusDays(days - 1))) {
+                workouts = stream.toList();
+            }
+            List<UUID> ids = workouts.stream().map(AdvancedWorkoutResult::getId).toList();
+            workoutResultRepository.fetchSetResults(ids);
+            workoutResultRepository.fetchBlockResults(ids);
+
+            int sets = 0;
+            int blocks = 0;
+            for (AdvancedWorkoutResult workout : workouts) {
+                assertThat(workout.getTemplate().getProgram().getTitle()).isNotNull();
+                for (AdvancedSetResult set : workout.getSetResults()) {
+                    assertThat(set.getExercise().getMeasurementTypes()).isNotNull();
+                    sets++;
+                }
+                blocks += workout.getBlockResults().size();
+            }
+            assertThat(workouts).hasSize(days);
+            assertThat(sets).isEqualTo(days * 3);
+            assertThat(blocks).isEqualTo(days * 2);
+        });
+    }
+
+    // What the rollup refresh does for a set of days
+    private long statementsToLoadDays(int days) {
+        return countStatements(() -> {
+            List<LocalDate> dates = FIRST_DAY.datesUntil(FIRST_DAY.plusDays(days)).toList();
+            List<AdvancedWorkoutResult> workouts = workoutResultRepository.findWithBlockResultsForAnalyticsOnDates(userId, dates);
+
+            workouts.forEach(workout -> assertThat(workout.getBlockResults()).hasSize(2));
+            assertThat(workouts).hasSize(days);
+        });
+    }
+
+    private long statementsToLoadBlockType(int days) {
+        return countStatements(() -> {
+            List<BlockResult> blocks = blockResultRepository.findByUserIdAndDateBetweenAndBlockType(
+                userId, FIRST_DAY, FIRST_DAY.plusDays(days - 1), ExerciseBlock.BlockType.SUPERSET);
+
+            blocks.forEach(block -> assertThat(block.getWorkoutResult().getDate()).isNotNull());
+            assertThat(blocks).hasSize(days);
+        });
+    }
+
+    private long countStatements(Runnable load) {
+        entityManager.clear();
+        statistics.clear();
+        load.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
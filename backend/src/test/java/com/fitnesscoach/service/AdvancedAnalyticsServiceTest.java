@@ -0,0 +1,101 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AdvancedAnalyticsServiceTest {
+
+    private static final LocalDate MONTH_START = LocalDate.of(2026, 3, 1);
+    private static final LocalDate MONTH_END = LocalDate.of(2026, 3, 31);
+
+    @Autowired
+    private AdvancedAnalyticsService analyticsService;
+
+    @Autowired
+    private AdvancedWorkoutResultService resultService;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @Autowired
+    private AnalyticsDailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private AnalyticsRecomputeQueue recomputeQueue;
+
+    @Test
+    void countsDaysWithoutRollupsUntilTheyAreBackfilled() {
+        UUID userId = UUID.randomUUID();
+        for (int day = 2; day <= 20; day += 3) {
+            save(userId, MONTH_START.plusDays(day), 100.0 + day);
+        }
+        // History written before rollups were maintained
+        dailyRollupRepository.deleteAll(dailyRollupRepository.findByUserId(userId));
+        save(userId, MONTH_START.plusDays(25), 140.0);
+
+        WorkoutAnalytics expected = analyticsService.generateAnalyticsFromHistory(userId, MONTH_START, MONTH_END);
+        assertThat(expected.getTotalWorkouts()).isEqualTo(8);
+        assertMatches(analyticsService.generateAnalytics(userId, MONTH_START, MONTH_END), expected);
+        assertMatches(analyticsService.generateAnalytics(userId, MONTH_START.plusDays(1), MONTH_END), expected);
+
+        recomputeQueue.backfill();
+
+        assertThat(dailyRollupRepository.findByUserId(userId)).hasSize(8);
+        assertMatches(analyticsService.generateAnalytics(userId, MONTH_START, MONTH_END), expected);
+    }
+
+    @Test
+    void changeToACachedMonthIsReadAgain() {
+        UUID userId = UUID.randomUUID();
+        save(userId, MONTH_START.plusDays(2), 100.0);
+        save(userId, MONTH_START.plusMonths(1).plusDays(2), 100.0);
+        LocalDate end = MONTH_END.plusMonths(1);
+        assertThat(analyticsService.generateAnalytics(userId, MONTH_START, end).getTotalWorkouts()).isEqualTo(2);
+
+        save(userId, MONTH_START.plusDays(9), 120.0);
+
+        WorkoutAnalytics expected = analyticsService.generateAnalyticsFromHistory(userId, MONTH_START, end);
+        assertThat(expected.getTotalWorkouts()).isEqualTo(3);
+        assertMatches(analyticsService.generateAnalytics(userId, MONTH_START, end), expected);
+    }
+
+    private void assertMatches(WorkoutAnalytics actual, WorkoutAnalytics expected) {
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalVolumeLoad()).isCloseTo(expected.getTotalVolumeLoad(), within(1e-6));
+        assertThat(actual.getAverageRPE()).isCloseTo(expected.getAverageRPE(), within(1e-6));
+        assertThat(actual.getAverageSessionDuration()).isCloseTo(expected.getAverageSessionDuration(), within(1e-6));
+    }
+
+    private void save(UUID userId, LocalDate date, double weight) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = 1;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = weight;
+        set.weightUnit = "KG";
+        set.rpe = 8;
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = date;
+        result.totalDurationSeconds = 1800;
+        result.setResults = List.of(set);
+        resultService.saveWorkoutResult(mapper.fromDTO(result));
+    }
+}
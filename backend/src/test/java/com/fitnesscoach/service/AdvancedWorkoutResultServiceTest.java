@@ -0,0 +1,107 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.repository.AdvancedSetResultRepository;
+import com.fitnesscoach.service.AdvancedWorkoutResultService.SetKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AdvancedWorkoutResultServiceTest {
+
+    @Autowired
+    private AdvancedWorkoutResultService resultService;
+
+    @Autowired
+    private AdvancedSetResultRepository setResultRepository;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @Test
+    void setEditsKeepTheTotalsOfAFullRecompute() {
+        Random random = new Random(5);
+        UUID resultId = save();
+        Exercise exercise = setResultRepository.findByWorkoutResultId(resultId).get(0).getExercise();
+
+        int nextSetNumber = 4;
+        for (int step = 0; step < 40; step++) {
+            List<AdvancedSetResult> sets = setResultRepository.findByWorkoutResultId(resultId);
+            AdvancedSetResult set = sets.isEmpty() ? null : sets.get(random.nextInt(sets.size()));
+            int operation = set == null ? 0 : random.nextInt(4);
+            switch (operation) {
+                case 0 -> {
+                    AdvancedSetResult added = AdvancedSetResult.createTraditionalSet(null, exercise, "A", 1,
+                        nextSetNumber++, 1 + random.nextInt(10), 40 + random.nextInt(60) * 2.5);
+                    added.setRpe(random.nextBoolean() ? 6 + random.nextInt(8) * 0.5 : null);
+                    added.setWorkTimeSeconds(random.nextInt(90));
+                    resultService.addSet(resultId, added);
+                }
+                case 1 -> resultService.updateSet(resultId, set.getId(), edit -> {
+                    edit.setWeight(40 + random.nextInt(60) * 2.5);
+                    edit.setPerformedReps(random.nextBoolean() ? 1 + random.nextInt(10) : null);
+                });
+                case 2 -> resultService.updateSet(resultId, new SetKey(set.getBlockLabel(), set.getBlockItemOrder(),
+                    set.getSetNumber()), edit -> edit.setRpe(random.nextBoolean() ? 7.5 : null));
+                default -> resultService.deleteSet(resultId, set.getId());
+            }
+            assertTotalsMatchRecompute(resultId, step);
+        }
+    }
+
+    private void assertTotalsMatchRecompute(UUID resultId, int step) {
+        AdvancedWorkoutResult stored = resultService.findById(resultId).orElseThrow();
+        List<AdvancedSetResult> sets = setResultRepository.findByWorkoutResultId(resultId);
+        if (sets.isEmpty()) {
+            assertThat(stored.getTotalReps()).as("step %s", step).isZero();
+            return;
+        }
+        AdvancedWorkoutResult recomputed = new AdvancedWorkoutResult();
+        recomputed.setSetResults(new ArrayList<>(sets));
+        recomputed.calculateMetricsFromSets();
+
+        assertThat(stored.getTotalReps()).as("step %s", step).isEqualTo(recomputed.getTotalReps());
+        assertThat(stored.getWorkTimeSeconds()).as("step %s", step).isEqualTo(recomputed.getWorkTimeSeconds());
+        assertThat(stored.getTotalVolumeLoad()).as("step %s", step).isCloseTo(recomputed.getTotalVolumeLoad(), within(1e-9));
+        assertThat(stored.getAverageRPE()).as("step %s", step).isCloseTo(recomputed.getAverageRPE(), within(1e-9));
+    }
+
+    private UUID save() {
+        List<WorkoutResultDTO.SetResultSummary> sets = new ArrayList<>();
+        for (int setNumber = 1; setNumber <= 3; setNumber++) {
+            WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+            set.blockLabel = "A";
+            set.blockItemOrder = 1;
+            set.setNumber = setNumber;
+            set.exerciseName = "Back Squat";
+            set.performedReps = 5;
+            set.weight = 100.0;
+            set.weightUnit = "KG";
+            set.rpe = 7 + setNumber;
+            sets.add(set);
+        }
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = UUID.randomUUID();
+        result.date = LocalDate.of(2026, 3, 2);
+        result.totalDurationSeconds = 1800;
+        result.setResults = sets;
+        return resultService.saveWorkoutResult(mapper.fromDTO(result)).getId();
+    }
+}
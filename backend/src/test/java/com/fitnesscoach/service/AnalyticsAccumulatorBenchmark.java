@@ -0,0 +1,150 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.BlockResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.model.ExerciseBlock;
+import com.fitnesscoach.model.WorkoutSessionTemplate;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import org.assertj.core.api.Assertions;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fused {@link AnalyticsAccumulator} against the per-section passes it replaced
+ * ({@link SectionedAnalytics}), over one user's history of raw workouts held in memory:
+ * <pre>
+ * mvn -B test -Paccumulator-benchmark
+ * </pre>
+ * Before measuring a size, both are run once and must produce the same analytics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsAccumulatorBenchmark {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2000, 1, 1);
+
+    private static final ExerciseBlock.BlockType[] BLOCK_TYPES = ExerciseBlock.BlockType.values();
+    private static final int SETS_PER_WORKOUT = 5;
+
+    @Param({"1000", "10000", "100000"})
+    public int workouts;
+
+    private List<AdvancedWorkoutResult> history;
+    private LocalDate lastDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = history(workouts);
+        lastDay = FIRST_DAY.plusDays(workouts - 1);
+        assertSameAnalytics(fused(), sections());
+    }
+
+    @Benchmark
+    public WorkoutAnalytics sections() {
+        return SectionedAnalytics.generate(history, FIRST_DAY, lastDay);
+    }
+
+    @Benchmark
+    public WorkoutAnalytics fused() {
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        history.forEach(accumulator::accept);
+        return accumulator.fill(new WorkoutAnalytics(), FIRST_DAY, lastDay);
+    }
+
+    /**
+     * One workout a day from {@link #FIRST_DAY}, cycling through strength, EMOM, Tabata,
+     * AMRAP and circuit results, each with straight sets and two block results
+     */
+    static List<AdvancedWorkoutResult> history(int workouts) {
+        Random random = new Random(workouts);
+        List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            exercises.add(new Exercise("Lift " + i));
+        }
+        List<WorkoutSessionTemplate> wods = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            wods.add(new WorkoutSessionTemplate("WOD " + i, null, i));
+        }
+
+        List<AdvancedWorkoutResult> history = new ArrayList<>(workouts);
+        for (int day = 0; day < workouts; day++) {
+            AdvancedWorkoutResult workout = new AdvancedWorkoutResult();
+            workout.setDate(FIRST_DAY.plusDays(day));
+            Instant start = workout.getDate().atTime(7, 0).toInstant(ZoneOffset.UTC);
+            for (int set = 1; set <= SETS_PER_WORKOUT; set++) {
+                AdvancedSetResult setResult = AdvancedSetResult.createTraditionalSet(workout,
+                    exercises.get(random.nextInt(exercises.size())), "A", set, set,
+                    3 + random.nextInt(8), 40.0 + random.nextInt(120) * 2.5);
+                setResult.setRpe(6.0 + random.nextInt(8) * 0.5);
+                setResult.setCompletedAt(start.plusSeconds(180L * set));
+                workout.getSetResults().add(setResult);
+            }
+            workout.calculateMetricsFromSets();
+            workout.setTotalDurationSeconds(1800 + random.nextInt(1800));
+            if (random.nextInt(10) == 0) {
+                workout.setPersonalRecords(new ArrayList<>(List.of(workout.getTotalVolumeLoad())));
+            }
+
+            switch (day % 5) {
+                case 1 -> {
+                    workout.setEmomMinutesTarget(10 + random.nextInt(11));
+                    workout.setEmomMinutesCompleted(workout.getEmomMinutesTarget() - random.nextInt(4));
+                }
+                case 2 -> {
+                    workout.setTabataRoundsTarget(8);
+                    workout.setTabataRoundsCompleted(6 + random.nextInt(3));
+                    workout.setTabataAverageReps(10.0 + random.nextInt(100) / 10.0);
+                }
+                case 3 -> {
+                    workout.setTemplate(wods.get(random.nextInt(wods.size())));
+                    workout.setTotalRounds(4 + random.nextInt(8));
+                    workout.setWodResult(workout.getTotalRounds() + "+" + random.nextInt(15));
+                }
+                case 4 -> {
+                    workout.setCircuitRoundsCompleted(3 + random.nextInt(3));
+                    workout.setAverageCircuitTime(120.0 + random.nextInt(600) / 10.0);
+                    workout.setFastestCircuitTimeSeconds(100 + random.nextInt(20));
+                }
+                default -> { }
+            }
+
+            for (int block = 0; block < 2; block++) {
+                BlockResult blockResult = new BlockResult();
+                blockResult.setWorkoutResult(workout);
+                blockResult.setBlockType(BLOCK_TYPES[random.nextInt(BLOCK_TYPES.length)]);
+                blockResult.setCompletedAsPlanned(random.nextInt(4) > 0);
+                workout.getBlockResults().add(blockResult);
+            }
+            history.add(workout);
+        }
+        return history;
+    }
+
+    /**
+     * The sections both compute must agree; sums may differ in the last bits, since the
+     * sectioned passes add with compensated stream sums and the accumulator adds day by day
+     */
+    static void assertSameAnalytics(WorkoutAnalytics fused, WorkoutAnalytics sectioned) {
+        Comparator<Double> closeTo = (a, b) -> Math.abs(a - b) <= 1e-9 * Math.max(1.0, Math.abs(b)) ? 0 : Double.compare(a, b);
+        Assertions.assertThat(fused).usingRecursiveComparison()
+            // Added by the accumulator; the sectioned passes never filled them
+            .ignoringFields("weeklyProgress")
+            .ignoringFieldsMatchingRegexes(".*bestPerformanceDate", ".*fastestRoundDate")
+            .withComparatorForType(closeTo, Double.class)
+            .isEqualTo(sectioned);
+    }
+}
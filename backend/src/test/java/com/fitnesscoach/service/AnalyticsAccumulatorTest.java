@@ -0,0 +1,29 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.fitnesscoach.service.AnalyticsAccumulatorBenchmark.FIRST_DAY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalyticsAccumulatorTest {
+
+    @Test
+    void singlePassMatchesTheSectionedPasses() {
+        List<AdvancedWorkoutResult> history = AnalyticsAccumulatorBenchmark.history(1000);
+        LocalDate lastDay = FIRST_DAY.plusDays(999);
+
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator();
+        history.forEach(accumulator::accept);
+        WorkoutAnalytics fused = accumulator.fill(new WorkoutAnalytics(), FIRST_DAY, lastDay);
+
+        assertThat(fused.getTotalWorkouts()).isEqualTo(1000);
+        assertThat(fused.getTabataMetrics()).containsKey("overall");
+        assertThat(fused.getAmrapMetrics()).containsKey("overall");
+        AnalyticsAccumulatorBenchmark.assertSameAnalytics(fused, SectionedAnalytics.generate(history, FIRST_DAY, lastDay));
+    }
+}
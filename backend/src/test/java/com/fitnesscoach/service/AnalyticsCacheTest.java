@@ -0,0 +1,60 @@
+package com.fitnesscoach.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalyticsCacheTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 3, 1);
+    private static final LocalDate END = LocalDate.of(2026, 3, 31);
+
+    private final AnalyticsCache cache = new AnalyticsCache(100, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void doesNotCacheAValueReadBeforeAChange() {
+        UUID userId = UUID.randomUUID();
+        AnalyticsCache.Key key = new AnalyticsCache.Key(userId, START, END, null);
+
+        cache.get(key, () -> {
+            cache.invalidate(userId, START.plusDays(3));
+            return load();
+        });
+        cache.get(key, this::load);
+        cache.get(key, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void forgetsTheGenerationsOfUsersWithNothingRunning() {
+        for (int i = 0; i < 1000; i++) {
+            UUID userId = UUID.randomUUID();
+            cache.get(new AnalyticsCache.Key(userId, START, END, null), this::load);
+            cache.invalidate(userId);
+        }
+        assertThat(cache.trackedUsers()).isZero();
+
+        // Still tracked while a load runs, including one nested for another range
+        UUID userId = UUID.randomUUID();
+        cache.get(new AnalyticsCache.Key(userId, START, END, null), () -> {
+            cache.get(new AnalyticsCache.Key(userId, START, START, null), this::load);
+            assertThat(cache.trackedUsers()).isEqualTo(1);
+            cache.invalidate(userId);
+            return load();
+        });
+        assertThat(cache.trackedUsers()).isZero();
+        cache.get(new AnalyticsCache.Key(userId, START, END, null), this::load);
+        assertThat(loads).hasValue(1003);
+    }
+
+    private Integer load() {
+        return loads.incrementAndGet();
+    }
+}
@@ -0,0 +1,146 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+import com.fitnesscoach.model.VolumeRollup;
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import com.fitnesscoach.repository.VolumeRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AnalyticsRollupServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private AnalyticsRollupService rollupService;
+
+    @Autowired
+    private AdvancedWorkoutResultService resultService;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @Autowired
+    private AnalyticsDailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private VolumeRollupRepository volumeRollupRepository;
+
+    @Autowired
+    private AnalyticsDataVersionRepository versionRepository;
+
+    @Test
+    void concurrentSavesOfOneUserKeepEveryWorkoutInTheRollups() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 8;
+        int workoutsPerThread = 5;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> saves = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread;
+            saves.add(executor.submit(() -> {
+                start.await();
+                // Every thread writes the same week, several of them the same days
+                for (int i = 0; i < workoutsPerThread; i++) {
+                    save(userId, MONDAY.plusDays((offset + i) % 3), 100.0);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> save : saves) {
+            save.get();
+        }
+        executor.shutdown();
+
+        Map<LocalDate, Integer> workoutsByDay = workoutsByDay(userId);
+        assertThat(workoutsByDay.values().stream().mapToInt(Integer::intValue).sum())
+            .isEqualTo(threads * workoutsPerThread);
+        double weekTonnage = weekTonnage(userId);
+        assertThat(weekTonnage).isEqualTo(threads * workoutsPerThread * 5 * 100.0);
+
+        rollupService.rebuildUser(userId);
+
+        assertThat(workoutsByDay(userId)).isEqualTo(workoutsByDay);
+        assertThat(weekTonnage(userId)).isEqualTo(weekTonnage);
+    }
+
+    @Test
+    void concurrentFirstLocksOfOneUserCreateItsVersionRowOnce() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> locks = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            locks.add(executor.submit(() -> {
+                start.await();
+                rollupService.lockUser(userId);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> lock : locks) {
+            lock.get();
+        }
+        executor.shutdown();
+
+        assertThat(versionRepository.findDataVersionByUserId(userId)).isZero();
+    }
+
+    private Map<LocalDate, Integer> workoutsByDay(UUID userId) {
+        Map<LocalDate, Integer> workouts = new TreeMap<>();
+        for (AnalyticsDailyRollup rollup : dailyRollupRepository.findByUserId(userId)) {
+            workouts.put(rollup.getBucketDate(), rollup.getWorkoutCount());
+        }
+        return workouts;
+    }
+
+    private double weekTonnage(UUID userId) {
+        return volumeRollupRepository.findByUserIdAndGranularity(userId, VolumeRollup.Granularity.WEEK).stream()
+            .filter(rollup -> rollup.getDimension() == VolumeRollup.Dimension.EXERCISE)
+            .mapToDouble(VolumeRollup::getTonnage)
+            .sum();
+    }
+
+    private void save(UUID userId, LocalDate date, double weight) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = 1;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = weight;
+        set.weightUnit = "KG";
+        set.rpe = 8;
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = date;
+        result.totalDurationSeconds = 1800;
+        result.setResults = List.of(set);
+        resultService.saveWorkoutResult(mapper.fromDTO(result));
+    }
+}
@@ -0,0 +1,65 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AnalyticsSnapshot;
+import com.fitnesscoach.model.AnalyticsSnapshot.Period;
+import com.fitnesscoach.repository.AnalyticsSnapshotRepository;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AnalyticsSnapshotServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private AnalyticsSnapshotService snapshotService;
+
+    @Autowired
+    private AnalyticsSnapshotRepository snapshotRepository;
+
+    @Test
+    void concurrentFirstReadsOfAPeriodStoreOneSnapshot() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<WorkoutAnalytics>> reads = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            reads.add(executor.submit(() -> {
+                start.await();
+                return snapshotService.getSnapshot(userId, Period.LAST_30_DAYS, TODAY);
+            }));
+        }
+        start.countDown();
+        for (Future<WorkoutAnalytics> read : reads) {
+            assertThat(read.get()).isNotNull();
+        }
+        executor.shutdown();
+
+        AnalyticsSnapshot stored = snapshotRepository.findByUserIdAndPeriod(userId, Period.LAST_30_DAYS).orElseThrow();
+        assertThat(stored.isCurrent(0, TODAY)).isTrue();
+        assertThat(stored.getStartDate()).isEqualTo(TODAY.minusDays(29));
+
+        // A day later the snapshot is recomputed and replaced in place
+        snapshotService.getSnapshot(userId, Period.LAST_30_DAYS, TODAY.plusDays(1));
+        AnalyticsSnapshot replaced = snapshotRepository.findByUserIdAndPeriod(userId, Period.LAST_30_DAYS).orElseThrow();
+        assertThat(replaced.getId()).isEqualTo(stored.getId());
+        assertThat(replaced.isCurrent(0, TODAY.plusDays(1))).isTrue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.AdvancedSetResult;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.Exercise;
+import com.fitnesscoach.repository.AdvancedWorkoutResultRepository;
+import com.fitnesscoach.repository.ExerciseRepository;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Scans a 500k-set history from raw results under a fixed heap. Too slow for every build,
+ * so it runs only in its own profile, which sets -Xmx256m:
+ * <pre>
+ * mvn -B test -Phistory-scan-check
+ * </pre>
+ * The results live in a file database, so the heap holds only what the scan keeps. Loading
+ * the history at once needs several times the heap; the scan must keep each chunk's
+ * workouts and sets in the persistence context only until the next chunk is fetched.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:file:./target/history-scan-check/db;CACHE_SIZE=8192",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+    "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "fitnesscoach.history-scan-check", matches = "true")
+class HistoryScanMemoryTest {
+
+    private static final int WORKOUTS = 25_000;
+    private static final int SETS_PER_WORKOUT = 20;
+    private static final int WORKOUTS_PER_TRANSACTION = 500;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2000, 1, 1);
+
+    @Autowired
+    private AdvancedAnalyticsService analyticsService;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @SpyBean
+    private AdvancedWorkoutResultRepository workoutResultRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transaction;
+
+    @Value("${fitnesscoach.analytics.stream.chunk-size:256}")
+    private int chunkSize;
+
+    @Test
+    void scansAHistoryLargerThanTheHeapChunkByChunk() {
+        UUID userId = UUID.randomUUID();
+        seed(userId);
+
+        // The last fetch of a chunk sees everything the scan holds at that point
+        List<Integer> managedPerChunk = new ArrayList<>();
+        // The spy of a repository delegates to it by default; there is no real method to call
+        Answer<?> repository = mockingDetails(workoutResultRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            managedPerChunk.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+            return repository.answer(invocation);
+        }).when(workoutResultRepository).fetchBlockResults(any());
+
+        WorkoutAnalytics analytics = analyticsService.generateAnalyticsFromHistory(
+            userId, FIRST_DAY, FIRST_DAY.plusDays(WORKOUTS));
+
+        assertThat(analytics.getTotalWorkouts()).isEqualTo(WORKOUTS);
+        assertThat(managedPerChunk).hasSize((WORKOUTS + chunkSize - 1) / chunkSize);
+        // A chunk's workouts and sets, and the exercises they share; nothing of the chunks before
+        assertThat(managedPerChunk).allSatisfy(managed ->
+            assertThat(managed).isLessThanOrEqualTo(chunkSize * (1 + SETS_PER_WORKOUT) + SETS_PER_WORKOUT));
+    }
+
+    private void seed(UUID userId) {
+        List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < SETS_PER_WORKOUT; i++) {
+            exercises.add(exerciseRepository.save(new Exercise("History Scan " + i)));
+        }
+        for (int first = 0; first < WORKOUTS; first += WORKOUTS_PER_TRANSACTION) {
+            int from = first;
+            transaction.executeWithoutResult(status -> {
+                for (int day = from; day < from + WORKOUTS_PER_TRANSACTION; day++) {
+                    AdvancedWorkoutResult workout = new AdvancedWorkoutResult();
+                    workout.setUserId(userId);
+                    workout.setDate(FIRST_DAY.plusDays(day));
+                    workout.setTotalDurationSeconds(1800);
+                    for (int set = 0; set < SETS_PER_WORKOUT; set++) {
+                        Exercise exercise = entityManager.getReference(Exercise.class, exercises.get(set).getId());
+                        workout.getSetResults().add(AdvancedSetResult.createTraditionalSet(
+                            workout, exercise, "A", set, 1, 5, 60 + day % 60));
+                    }
+                    entityManager.persist(workout);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.repository.SetEventRepository;
+import com.fitnesscoach.service.LiveWorkoutSessionService.Ack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LiveWorkoutSessionServiceTest {
+
+    @Autowired
+    private LiveWorkoutSessionService liveService;
+
+    @Autowired
+    private SetEventRepository eventRepository;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @SpyBean
+    private AdvancedWorkoutResultService resultService;
+
+    @AfterEach
+    void restoreResultService() {
+        reset(resultService);
+    }
+
+    @Test
+    void resentEventsAreAcknowledgedButNotBuffered() {
+        UUID resultId = startWorkout();
+        assertThat(liveService.log(resultId, event(1L, 1))).isEqualTo(new Ack(1, 1, false));
+        assertThat(liveService.log(resultId, event(2L, 2))).isEqualTo(new Ack(2, 2, false));
+
+        assertThat(liveService.log(resultId, event(2L, 2))).isEqualTo(new Ack(2, 2, true));
+        assertThat(liveService.log(resultId, event(1L, 1))).isEqualTo(new Ack(1, 2, true));
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+
+        AdvancedWorkoutResult finished = liveService.finish(resultId);
+
+        // Both buffered sets reached the workout, once each
+        assertThat(finished.getTotalReps()).isEqualTo(10);
+        assertThat(finished.getTotalVolumeLoad()).isEqualTo(1000.0);
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+    }
+
+    @Test
+    void eventsSentWhileTheWorkoutIsFinishedAreRejected() {
+        UUID resultId = startWorkout();
+        liveService.log(resultId, event(1L, 1));
+
+        // The session is gone, but the end time is not stored yet
+        doAnswer(invocation -> {
+            assertThatThrownBy(() -> liveService.log(resultId, event(2L, 2)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("is being finished");
+            return invocation.callRealMethod();
+        }).when(resultService).finishWorkoutSession(any());
+        AdvancedWorkoutResult finished = liveService.finish(resultId);
+
+        assertThat(finished.getTotalReps()).isEqualTo(5);
+        assertThatThrownBy(() -> liveService.log(resultId, event(3L, 3)))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessageContaining("is already finished");
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+    }
+
+    private UUID startWorkout() {
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = UUID.randomUUID();
+        result.date = LocalDate.of(2026, 3, 2);
+        return resultService.saveWorkoutResult(mapper.fromDTO(result)).getId();
+    }
+
+    private static WorkoutResultDTO.LiveSetEvent event(Long sequence, int setNumber) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = setNumber;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = 100.0;
+        set.weightUnit = "KG";
+
+        WorkoutResultDTO.LiveSetEvent event = new WorkoutResultDTO.LiveSetEvent();
+        event.sequence = sequence;
+        event.set = set;
+        return event;
+    }
+}
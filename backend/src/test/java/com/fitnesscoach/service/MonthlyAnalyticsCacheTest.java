@@ -0,0 +1,90 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.repository.AnalyticsDataVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MonthlyAnalyticsCacheTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2026, 3);
+    private static final YearMonth APRIL = YearMonth.of(2026, 4);
+
+    private final UUID userId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+    private AnalyticsDataVersionRepository versionRepository;
+    private MonthlyAnalyticsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        versionRepository = mock(AnalyticsDataVersionRepository.class);
+        when(versionRepository.findDataVersionByUserId(any())).thenReturn(1L);
+        cache = new MonthlyAnalyticsCache(4, versionRepository);
+    }
+
+    @Test
+    void changeEvictsOnlyItsMonth() {
+        cache.get(userId, MARCH, this::load);
+        cache.get(userId, APRIL, this::load);
+
+        when(versionRepository.findDataVersionByUserId(userId)).thenReturn(2L);
+        cache.invalidate(userId, APRIL, 2);
+        cache.get(userId, MARCH, this::load);
+        cache.get(userId, APRIL, this::load);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void doesNotCacheAMonthReadBeforeAChangeCommitted() {
+        // The change evicts the month while it is read; the committed version is still 1
+        cache.get(userId, MARCH, () -> {
+            cache.invalidate(userId, MARCH, 2);
+            return load();
+        });
+        cache.get(userId, MARCH, this::load);
+        assertThat(loads).hasValue(2);
+
+        when(versionRepository.findDataVersionByUserId(userId)).thenReturn(2L);
+        cache.get(userId, MARCH, this::load);
+        cache.get(userId, MARCH, this::load);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void doesNotCacheAMonthReadBeforeAChangeToEveryMonth() {
+        cache.get(userId, MARCH, () -> {
+            cache.invalidate(userId, 2);
+            return load();
+        });
+        cache.get(userId, MARCH, this::load);
+        assertThat(loads).hasValue(2);
+
+        when(versionRepository.findDataVersionByUserId(userId)).thenReturn(2L);
+        cache.get(userId, MARCH, this::load);
+        cache.get(userId, MARCH, this::load);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void evictionsStayWithinTheSizeBound() {
+        for (int month = 1; month <= 100; month++) {
+            cache.invalidate(UUID.randomUUID(), YearMonth.of(2020, 1).plusMonths(month), month);
+            cache.get(UUID.randomUUID(), MARCH, this::load);
+        }
+        assertThat(cache.size()).isEqualTo(4);
+    }
+
+    private AnalyticsAccumulator load() {
+        loads.incrementAndGet();
+        return new AnalyticsAccumulator();
+    }
+}
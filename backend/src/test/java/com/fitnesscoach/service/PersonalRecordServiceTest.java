@@ -0,0 +1,119 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.model.AnalyticsDailyRollup;
+import com.fitnesscoach.model.PersonalRecord;
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PersonalRecordServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private AdvancedWorkoutResultService resultService;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private AnalyticsDailyRollupRepository dailyRollupRepository;
+
+    @Test
+    void backdatedWorkoutRefillsTheRecordsOfLaterWorkouts() {
+        UUID userId = UUID.randomUUID();
+        save(userId, FIRST_DAY, 100.0);
+        UUID later = save(userId, FIRST_DAY.plusDays(14), 110.0);
+        assertThat(personalRecords(later)).containsExactly(110.0);
+
+        UUID backdated = save(userId, FIRST_DAY.plusDays(7), 120.0);
+
+        assertThat(personalRecords(backdated)).containsExactly(120.0);
+        assertThat(personalRecords(later)).isNull();
+        assertThat(personalRecordCount(userId, FIRST_DAY.plusDays(14))).isZero();
+
+        resultService.deleteWorkoutResult(backdated);
+
+        assertThat(personalRecords(later)).containsExactly(110.0);
+        assertThat(personalRecordCount(userId, FIRST_DAY.plusDays(14))).isEqualTo(1);
+    }
+
+    @Test
+    void workoutAfterEveryRecordIsAppliedToTheRecords() {
+        UUID userId = UUID.randomUUID();
+        UUID first = save(userId, FIRST_DAY, 100.0);
+        UUID second = save(userId, FIRST_DAY.plusDays(7), 110.0);
+        UUID third = save(userId, FIRST_DAY.plusDays(14), 105.0);
+
+        assertThat(personalRecords(first)).isNull();
+        assertThat(personalRecords(second)).containsExactly(110.0);
+        assertThat(personalRecords(third)).isNull();
+    }
+
+    @Test
+    void setsInPoundsAreComparedInKilograms() {
+        UUID userId = UUID.randomUUID();
+        save(userId, FIRST_DAY, 100.0, "KG");
+        // 99.8 kg: more pounds than the record's kilograms, but lighter
+        UUID lighter = save(userId, FIRST_DAY.plusDays(14), 220.0, "LB");
+        assertThat(personalRecords(lighter)).isNull();
+
+        // 102.1 kg, replayed as it is dated before the later workout
+        UUID heavier = save(userId, FIRST_DAY.plusDays(7), 225.0, "LB");
+
+        assertThat(personalRecords(heavier)).containsExactly(225.0);
+        assertThat(personalRecords(lighter)).isNull();
+        PersonalRecord record = personalRecordService.findByUserId(userId).get(0);
+        assertThat(record.getRepMax(5)).isCloseTo(102.058, within(0.001));
+        assertThat(record.getRepMaxDate(5)).isEqualTo(FIRST_DAY.plusDays(7));
+    }
+
+    private List<Double> personalRecords(UUID resultId) {
+        return resultService.findById(resultId).orElseThrow().getPersonalRecords();
+    }
+
+    private int personalRecordCount(UUID userId, LocalDate date) {
+        return dailyRollupRepository.findByUserId(userId).stream()
+            .filter(rollup -> rollup.getBucketDate().equals(date))
+            .mapToInt(AnalyticsDailyRollup::getPersonalRecordCount)
+            .sum();
+    }
+
+    private UUID save(UUID userId, LocalDate date, double weight) {
+        return save(userId, date, weight, "KG");
+    }
+
+    private UUID save(UUID userId, LocalDate date, double weight, String weightUnit) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = 1;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = weight;
+        set.weightUnit = weightUnit;
+        set.rpe = 8;
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = date;
+        result.totalDurationSeconds = 1800;
+        result.setResults = List.of(set);
+        return resultService.saveWorkoutResult(mapper.fromDTO(result)).getId();
+    }
+}
@@ -0,0 +1,350 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.model.*;
+import com.fitnesscoach.service.AdvancedAnalyticsService.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The per-section analytics that generateAnalytics computed before {@link AnalyticsAccumulator}:
+ * every section filters, copies and sorts the workout list on its own. Kept unchanged as the
+ * baseline the fused accumulator is measured and checked against; only the trends and
+ * histories are converted to the arrays {@link WorkoutAnalytics} holds now.
+ */
+final class SectionedAnalytics {
+
+    private SectionedAnalytics() {}
+
+    static WorkoutAnalytics generate(List<AdvancedWorkoutResult> workouts, LocalDate startDate, LocalDate endDate) {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+
+        if (workouts.isEmpty()) {
+            return analytics;
+        }
+
+        // Calculate overall metrics
+        calculateOverallMetrics(analytics, workouts);
+
+        // Calculate workout-type specific metrics
+        calculateEMOMMetrics(analytics, workouts);
+        calculateTabataMetrics(analytics, workouts);
+        calculateAMRAPMetrics(analytics, workouts);
+        calculateCircuitMetrics(analytics, workouts);
+        calculateStrengthMetrics(analytics, workouts);
+
+        // Calculate trends and consistency
+        calculateTrends(analytics, workouts);
+        calculateConsistency(analytics, workouts, startDate, endDate);
+
+        return analytics;
+    }
+
+    private static void calculateOverallMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        analytics.setTotalWorkouts(workouts.size());
+
+        double avgDuration = workouts.stream()
+            .filter(w -> w.getTotalDurationSeconds() != null)
+            .mapToInt(AdvancedWorkoutResult::getTotalDurationSeconds)
+            .average()
+            .orElse(0.0);
+        analytics.setAverageSessionDuration(avgDuration);
+
+        double totalVolume = workouts.stream()
+            .filter(w -> w.getTotalVolumeLoad() != null)
+            .mapToDouble(AdvancedWorkoutResult::getTotalVolumeLoad)
+            .sum();
+        analytics.setTotalVolumeLoad(totalVolume);
+
+        double avgRPE = workouts.stream()
+            .filter(w -> w.getAverageRPE() != null)
+            .mapToDouble(AdvancedWorkoutResult::getAverageRPE)
+            .average()
+            .orElse(0.0);
+        analytics.setAverageRPE(avgRPE);
+
+        int prs = workouts.stream()
+            .mapToInt(w -> w.getPersonalRecords() != null ? w.getPersonalRecords().size() : 0)
+            .sum();
+        analytics.setPersonalRecords(prs);
+    }
+
+    private static void calculateEMOMMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, EMOMAnalytics> emomMetrics = new HashMap<>();
+
+        List<AdvancedWorkoutResult> emomWorkouts = workouts.stream()
+            .filter(w -> w.getEmomMinutesTarget() != null)
+            .collect(Collectors.toList());
+
+        if (!emomWorkouts.isEmpty()) {
+            EMOMAnalytics emomAnalytics = new EMOMAnalytics();
+
+            double avgCompletionRate = emomWorkouts.stream()
+                .mapToDouble(w -> {
+                    if (w.getEmomMinutesTarget() != null && w.getEmomMinutesTarget() > 0) {
+                        int completed = w.getEmomMinutesCompleted() != null ? w.getEmomMinutesCompleted() : 0;
+                        return (double) completed / w.getEmomMinutesTarget() * 100;
+                    }
+                    return 0.0;
+                })
+                .average()
+                .orElse(0.0);
+            emomAnalytics.setAverageCompletionRate(avgCompletionRate);
+
+            int totalCompleted = emomWorkouts.stream()
+                .mapToInt(w -> w.getEmomMinutesCompleted() != null ? w.getEmomMinutesCompleted() : 0)
+                .sum();
+            emomAnalytics.setTotalMinutesCompleted(totalCompleted);
+
+            int totalAttempted = emomWorkouts.stream()
+                .mapToInt(w -> w.getEmomMinutesTarget() != null ? w.getEmomMinutesTarget() : 0)
+                .sum();
+            emomAnalytics.setTotalMinutesAttempted(totalAttempted);
+
+            emomMetrics.put("overall", emomAnalytics);
+        }
+
+        analytics.setEmomMetrics(emomMetrics);
+    }
+
+    private static void calculateTabataMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, TabataAnalytics> tabataMetrics = new HashMap<>();
+
+        List<AdvancedWorkoutResult> tabataWorkouts = workouts.stream()
+            .filter(w -> w.getTabataRoundsTarget() != null)
+            .collect(Collectors.toList());
+
+        if (!tabataWorkouts.isEmpty()) {
+            TabataAnalytics tabataAnalytics = new TabataAnalytics();
+
+            double avgReps = tabataWorkouts.stream()
+                .filter(w -> w.getTabataAverageReps() != null)
+                .mapToDouble(AdvancedWorkoutResult::getTabataAverageReps)
+                .average()
+                .orElse(0.0);
+            tabataAnalytics.setAverageRepsPerRound(avgReps);
+
+            int totalRounds = tabataWorkouts.stream()
+                .mapToInt(w -> w.getTabataRoundsCompleted() != null ? w.getTabataRoundsCompleted() : 0)
+                .sum();
+            tabataAnalytics.setTotalRoundsCompleted(totalRounds);
+
+            List<Double> repsHistory = tabataWorkouts.stream()
+                .filter(w -> w.getTabataAverageReps() != null)
+                .map(AdvancedWorkoutResult::getTabataAverageReps)
+                .collect(Collectors.toList());
+            tabataAnalytics.setRepsHistory(toArray(repsHistory));
+
+            double bestReps = repsHistory.stream()
+                .mapToDouble(Double::doubleValue)
+                .max()
+                .orElse(0.0);
+            tabataAnalytics.setBestAverageReps(bestReps);
+
+            tabataMetrics.put("overall", tabataAnalytics);
+        }
+
+        analytics.setTabataMetrics(tabataMetrics);
+    }
+
+    private static void calculateAMRAPMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, AMRAPAnalytics> amrapMetrics = new HashMap<>();
+
+        List<AdvancedWorkoutResult> amrapWorkouts = workouts.stream()
+            .filter(w -> w.getTotalRounds() != null && w.getWodResult() != null)
+            .collect(Collectors.toList());
+
+        if (!amrapWorkouts.isEmpty()) {
+            AMRAPAnalytics amrapAnalytics = new AMRAPAnalytics();
+
+            double avgRounds = amrapWorkouts.stream()
+                .mapToInt(w -> w.getTotalRounds() != null ? w.getTotalRounds() : 0)
+                .average()
+                .orElse(0.0);
+            amrapAnalytics.setAverageRounds(avgRounds);
+
+            // Group by WOD name for tracking specific workout progress
+            Map<String, List<String>> wodResults = amrapWorkouts.stream()
+                .filter(w -> w.getTemplate() != null && w.getTemplate().getTitle() != null)
+                .collect(Collectors.groupingBy(
+                    w -> w.getTemplate().getTitle(),
+                    Collectors.mapping(AdvancedWorkoutResult::getWodResult, Collectors.toList())
+                ));
+            amrapAnalytics.setWodResults(wodResults);
+
+            amrapMetrics.put("overall", amrapAnalytics);
+        }
+
+        analytics.setAmrapMetrics(amrapMetrics);
+    }
+
+    private static void calculateCircuitMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, CircuitAnalytics> circuitMetrics = new HashMap<>();
+
+        List<AdvancedWorkoutResult> circuitWorkouts = workouts.stream()
+            .filter(w -> w.getAverageCircuitTime() != null)
+            .collect(Collectors.toList());
+
+        if (!circuitWorkouts.isEmpty()) {
+            CircuitAnalytics circuitAnalytics = new CircuitAnalytics();
+
+            double avgTime = circuitWorkouts.stream()
+                .mapToDouble(AdvancedWorkoutResult::getAverageCircuitTime)
+                .average()
+                .orElse(0.0);
+            circuitAnalytics.setAverageRoundTime(avgTime);
+
+            int totalRounds = circuitWorkouts.stream()
+                .mapToInt(w -> w.getCircuitRoundsCompleted() != null ? w.getCircuitRoundsCompleted() : 0)
+                .sum();
+            circuitAnalytics.setTotalRoundsCompleted(totalRounds);
+
+            List<Double> timeHistory = circuitWorkouts.stream()
+                .map(AdvancedWorkoutResult::getAverageCircuitTime)
+                .collect(Collectors.toList());
+            circuitAnalytics.setRoundTimeHistory(toArray(timeHistory));
+
+            double fastestTime = circuitWorkouts.stream()
+                .filter(w -> w.getFastestCircuitTimeSeconds() != null)
+                .mapToInt(AdvancedWorkoutResult::getFastestCircuitTimeSeconds)
+                .min()
+                .orElse(0);
+            circuitAnalytics.setFastestRoundTime(fastestTime);
+
+            circuitMetrics.put("overall", circuitAnalytics);
+        }
+
+        analytics.setCircuitMetrics(circuitMetrics);
+    }
+
+    private static void calculateStrengthMetrics(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, StrengthAnalytics> strengthMetrics = new HashMap<>();
+        Map<String, Double> oneRepMaxEstimates = new HashMap<>();
+
+        // Get all set results for strength exercises
+        List<AdvancedSetResult> strengthSets = workouts.stream()
+            .flatMap(w -> w.getSetResults().stream())
+            .filter(set -> set.getWeight() != null && set.getPerformedReps() != null &&
+                          set.getResultType() == AdvancedSetResult.ResultType.STRAIGHT_SET)
+            .collect(Collectors.toList());
+
+        // Group by exercise name
+        Map<String, List<AdvancedSetResult>> byExercise = strengthSets.stream()
+            .collect(Collectors.groupingBy(set -> set.getExercise().getName()));
+
+        byExercise.forEach((exerciseName, sets) -> {
+            StrengthAnalytics strengthAnalytics = new StrengthAnalytics();
+
+            double maxWeight = sets.stream()
+                .mapToDouble(AdvancedSetResult::getWeight)
+                .max()
+                .orElse(0.0);
+            strengthAnalytics.setMaxWeight(maxWeight);
+
+            // Estimate 1RM using Epley formula: weight * (1 + reps/30)
+            double estimated1RM = sets.stream()
+                .mapToDouble(set -> set.getWeight() * (1 + set.getPerformedReps() / 30.0))
+                .max()
+                .orElse(0.0);
+            strengthAnalytics.setEstimatedOneRepMax(estimated1RM);
+            oneRepMaxEstimates.put(exerciseName, estimated1RM);
+
+            double totalVolume = sets.stream()
+                .mapToDouble(set -> set.getWeight() * set.getPerformedReps())
+                .sum();
+            strengthAnalytics.setTotalVolumeLoad(totalVolume);
+
+            List<Double> weightHistory = sets.stream()
+                .sorted(Comparator.comparing(AdvancedSetResult::getCompletedAt))
+                .map(AdvancedSetResult::getWeight)
+                .collect(Collectors.toList());
+            strengthAnalytics.setWeightHistory(toArray(weightHistory));
+
+            strengthMetrics.put(exerciseName, strengthAnalytics);
+        });
+
+        analytics.setStrengthMetrics(strengthMetrics);
+        analytics.setOneRepMaxEstimates(oneRepMaxEstimates);
+    }
+
+    private static void calculateTrends(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts) {
+        Map<String, List<Double>> trends = new HashMap<>();
+
+        // Sort workouts by date
+        List<AdvancedWorkoutResult> sortedWorkouts = workouts.stream()
+            .sorted(Comparator.comparing(AdvancedWorkoutResult::getDate))
+            .collect(Collectors.toList());
+
+        // Volume load trend
+        List<Double> volumeTrend = sortedWorkouts.stream()
+            .map(w -> w.getTotalVolumeLoad() != null ? w.getTotalVolumeLoad() : 0.0)
+            .collect(Collectors.toList());
+        trends.put("volumeLoad", volumeTrend);
+
+        // RPE trend
+        List<Double> rpeTrend = sortedWorkouts.stream()
+            .map(w -> w.getAverageRPE() != null ? w.getAverageRPE() : 0.0)
+            .collect(Collectors.toList());
+        trends.put("averageRPE", rpeTrend);
+
+        // Duration trend
+        List<Double> durationTrend = sortedWorkouts.stream()
+            .map(w -> w.getTotalDurationSeconds() != null ? w.getTotalDurationSeconds().doubleValue() : 0.0)
+            .collect(Collectors.toList());
+        trends.put("sessionDuration", durationTrend);
+
+        Map<String, double[]> trendArrays = new HashMap<>();
+        trends.forEach((name, trend) -> trendArrays.put(name, toArray(trend)));
+        analytics.setPerformanceTrends(trendArrays);
+    }
+
+    private static void calculateConsistency(WorkoutAnalytics analytics, List<AdvancedWorkoutResult> workouts,
+                                             LocalDate startDate, LocalDate endDate) {
+        // Workout frequency consistency
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        double workoutFrequency = (double) workouts.size() / totalDays * 7; // workouts per week
+        analytics.setWorkoutConsistency(workoutFrequency);
+
+        // Performance consistency (coefficient of variation of RPE)
+        List<Double> rpeValues = workouts.stream()
+            .filter(w -> w.getAverageRPE() != null)
+            .map(AdvancedWorkoutResult::getAverageRPE)
+            .collect(Collectors.toList());
+
+        if (!rpeValues.isEmpty()) {
+            double avgRPE = rpeValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+            double variance = rpeValues.stream()
+                .mapToDouble(rpe -> Math.pow(rpe - avgRPE, 2))
+                .average()
+                .orElse(0.0);
+            double stdDev = Math.sqrt(variance);
+            double coefficientOfVariation = avgRPE > 0 ? (stdDev / avgRPE) * 100 : 0;
+            analytics.setPerformanceConsistency(100 - coefficientOfVariation); // Higher is more consistent
+        }
+
+        // Block type success rates
+        Map<String, Double> blockTypeSuccess = new HashMap<>();
+        List<BlockResult> blockResults = workouts.stream()
+            .flatMap(w -> w.getBlockResults().stream())
+            .collect(Collectors.toList());
+
+        Map<ExerciseBlock.BlockType, List<BlockResult>> byBlockType = blockResults.stream()
+            .collect(Collectors.groupingBy(BlockResult::getBlockType));
+
+        byBlockType.forEach((blockType, results) -> {
+            double successRate = results.stream()
+                .mapToDouble(block -> block.getCompletedAsPlanned() != null && block.getCompletedAsPlanned() ? 1.0 : 0.0)
+                .average()
+                .orElse(0.0) * 100;
+            blockTypeSuccess.put(blockType.name(), successRate);
+        });
+
+        analytics.setBlockTypeSuccess(blockTypeSuccess);
+    }
+
+    private static double[] toArray(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+}
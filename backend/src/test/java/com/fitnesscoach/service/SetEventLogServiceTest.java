@@ -0,0 +1,149 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.exception.BadRequestException;
+import com.fitnesscoach.model.AdvancedWorkoutResult;
+import com.fitnesscoach.model.SetEvent;
+import com.fitnesscoach.repository.SetEventRepository;
+import com.fitnesscoach.service.SetEventLogService.Compaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SetEventLogServiceTest {
+
+    @Autowired
+    private SetEventLogService eventLog;
+
+    @Autowired
+    private SetEventRepository eventRepository;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @SpyBean
+    private AdvancedWorkoutResultService resultService;
+
+    @AfterEach
+    void restoreResultService() {
+        reset(resultService);
+    }
+
+    @Test
+    void keepsEventsWhenCompactionFailsTransiently() {
+        UUID resultId = startWorkout();
+        eventLog.append(events(resultId, 1, 3));
+
+        doThrow(new CannotAcquireLockException("Lock timeout"))
+            .when(resultService).applySetEdits(any(), any());
+        assertThatThrownBy(() -> eventLog.compact(resultId)).isInstanceOf(CannotAcquireLockException.class);
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).hasSize(3);
+
+        reset(resultService);
+        Compaction compaction = eventLog.compact(resultId);
+        assertThat(compaction.applied()).isEqualTo(3);
+        assertThat(compaction.rejected()).isEmpty();
+        assertThat(compaction.result().getTotalReps()).isEqualTo(15);
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+    }
+
+    @Test
+    void dropsOnlyTheEventThatIsRejected() {
+        UUID resultId = startWorkout();
+        eventLog.append(events(resultId, 1, 3));
+
+        // The whole fold fails, then the second event on its own
+        doThrow(new DataIntegrityViolationException("Value too long"))
+            .doCallRealMethod()
+            .doThrow(new BadRequestException("Invalid set"))
+            .doCallRealMethod()
+            .when(resultService).applySetEdits(any(), any());
+        Compaction compaction = eventLog.compact(resultId);
+
+        assertThat(compaction.applied()).isEqualTo(2);
+        assertThat(compaction.rejected()).containsOnlyKeys(2L);
+        assertThat(compaction.result().getTotalReps()).isEqualTo(10);
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+    }
+
+    @Test
+    void stopsAtATransientFailureWhileFindingARejectedEvent() {
+        UUID resultId = startWorkout();
+        eventLog.append(events(resultId, 1, 3));
+
+        doThrow(new DataIntegrityViolationException("Value too long"))
+            .doCallRealMethod()
+            .doThrow(new CannotAcquireLockException("Lock timeout"))
+            .when(resultService).applySetEdits(any(), any());
+        Compaction compaction = eventLog.compact(resultId);
+
+        assertThat(compaction.applied()).isEqualTo(1);
+        assertThat(compaction.rejected()).isEmpty();
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId))
+            .extracting(SetEvent::getSequence)
+            .containsExactly(2L, 3L);
+    }
+
+    @Test
+    void remembersTheLastSequenceAfterTheLogIsCompacted() {
+        UUID resultId = startWorkout();
+        eventLog.append(events(resultId, 1, 3));
+        assertThat(eventLog.lastSequence(resultId)).isEqualTo(3);
+
+        eventLog.compact(resultId);
+        assertThat(eventRepository.findByWorkoutResultIdOrderByIdAsc(resultId)).isEmpty();
+        assertThat(eventLog.lastSequence(resultId)).isEqualTo(3);
+
+        // A rejected event was still received
+        eventLog.append(events(resultId, 4, 2));
+        doThrow(new BadRequestException("Invalid set"))
+            .doCallRealMethod()
+            .doThrow(new BadRequestException("Invalid set"))
+            .when(resultService).applySetEdits(any(), any());
+        Compaction compaction = eventLog.compact(resultId);
+        assertThat(compaction.rejected()).containsOnlyKeys(5L);
+        assertThat(eventLog.lastSequence(resultId)).isEqualTo(5);
+    }
+
+    private UUID startWorkout() {
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = UUID.randomUUID();
+        result.date = LocalDate.of(2026, 3, 2);
+        AdvancedWorkoutResult saved = resultService.saveWorkoutResult(mapper.fromDTO(result));
+        return saved.getId();
+    }
+
+    private static List<SetEvent> events(UUID resultId, long firstSequence, int count) {
+        List<SetEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SetEvent event = new SetEvent(resultId, firstSequence + i, SetEvent.Type.LOGGED);
+            event.setBlockLabel("A");
+            event.setSetNumber(i + 1);
+            event.setExerciseName("Back Squat");
+            event.setPerformedReps(5);
+            event.setWeight(100.0);
+            event.setWeightUnit("KG");
+            events.add(event);
+        }
+        return events;
+    }
+}
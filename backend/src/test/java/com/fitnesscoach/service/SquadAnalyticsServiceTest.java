@@ -0,0 +1,111 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.repository.AnalyticsDailyRollupRepository;
+import com.fitnesscoach.repository.projection.SquadDayRow;
+import com.fitnesscoach.service.SquadAnalyticsService.AthleteAnalytics;
+import com.fitnesscoach.service.SquadAnalyticsService.SquadAnalytics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SquadAnalyticsServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+    private static final LocalDate END = LocalDate.of(2026, 3, 31);
+    private static final int ATHLETES = 450;
+
+    @Test
+    void forkJoinFoldMatchesASequentialFold() {
+        Random random = new Random(3);
+        List<UUID> athleteIds = new ArrayList<>();
+        List<SquadDayRow> rows = new ArrayList<>();
+        for (int athlete = 0; athlete < ATHLETES; athlete++) {
+            UUID userId = UUID.randomUUID();
+            athleteIds.add(userId);
+            // Every tenth athlete has not trained in the range
+            int days = athlete % 10 == 0 ? 0 : random.nextInt(60);
+            for (int day = 0; day < days; day++) {
+                // Multiples of a half, so sums are exact in any order
+                int workouts = random.nextInt(3);
+                rows.add(new SquadDayRow(userId, START.plusDays(day), workouts, workouts,
+                    workouts * (1800L + random.nextInt(1800)), workouts * random.nextInt(4000) * 2.5,
+                    workouts, workouts * (6 + random.nextInt(8) * 0.5), 0, random.nextInt(2),
+                    workouts * random.nextInt(800) * 0.5));
+            }
+        }
+        AnalyticsDailyRollupRepository repository = mock(AnalyticsDailyRollupRepository.class);
+        when(repository.findSquadDays(any(), any(), any())).thenAnswer(invocation -> {
+            Collection<UUID> chunk = invocation.getArgument(0);
+            return rows.stream().filter(row -> chunk.contains(row.userId())).toList();
+        });
+
+        // Several chunks, each split across the fork/join pool
+        SquadAnalytics squad = new SquadAnalyticsService(repository, 200).generateSquadAnalytics(athleteIds, START, END);
+
+        List<AthleteAnalytics> expected = new ArrayList<>();
+        int activeAthletes = 0, workouts = 0, personalRecords = 0;
+        double volume = 0, sessionLoad = 0;
+        for (UUID userId : athleteIds) {
+            AthleteAnalytics athlete = sequentialFold(userId, rows);
+            expected.add(athlete);
+            activeAthletes += athlete.getTotalWorkouts() > 0 ? 1 : 0;
+            workouts += athlete.getTotalWorkouts();
+            personalRecords += athlete.getPersonalRecords();
+            volume += athlete.getTotalVolumeLoad();
+            sessionLoad += athlete.getSessionLoad();
+        }
+
+        assertThat(squad.getAthletes()).usingRecursiveFieldByFieldElementComparatorIgnoringFields(
+                "volumeRank", "workoutsRank", "personalRecordsRank", "sessionLoadRank")
+            .containsExactlyElementsOf(expected);
+        assertThat(squad.getAthleteCount()).isEqualTo(ATHLETES);
+        assertThat(squad.getActiveAthletes()).isEqualTo(activeAthletes);
+        assertThat(squad.getTotalWorkouts()).isEqualTo(workouts);
+        assertThat(squad.getTotalPersonalRecords()).isEqualTo(personalRecords);
+        assertThat(squad.getTotalVolumeLoad()).isEqualTo(volume);
+        assertThat(squad.getTotalSessionLoad()).isEqualTo(sessionLoad);
+        assertThat(squad.getMeanWorkoutsPerAthlete()).isEqualTo((double) workouts / ATHLETES);
+    }
+
+    private static AthleteAnalytics sequentialFold(UUID userId, List<SquadDayRow> rows) {
+        int workouts = 0, trainingDays = 0, durationCount = 0, rpeCount = 0, personalRecords = 0;
+        long durationSum = 0;
+        double volume = 0, rpeSum = 0, sessionLoad = 0;
+        for (SquadDayRow row : rows) {
+            if (!row.userId().equals(userId) || row.workoutCount() == 0) {
+                continue;
+            }
+            trainingDays++;
+            workouts += row.workoutCount();
+            durationCount += row.durationCount();
+            durationSum += row.durationSum();
+            volume += row.volumeSum();
+            rpeCount += row.rpeCount();
+            rpeSum += row.rpeSum();
+            personalRecords += row.personalRecordCount();
+            sessionLoad += row.sessionLoadSum();
+        }
+
+        AthleteAnalytics athlete = new AthleteAnalytics();
+        athlete.setUserId(userId);
+        athlete.setTotalWorkouts(workouts);
+        athlete.setTrainingDays(trainingDays);
+        athlete.setTotalVolumeLoad(volume);
+        athlete.setAverageRPE(rpeCount > 0 ? rpeSum / rpeCount : 0.0);
+        athlete.setAverageSessionDuration(durationCount > 0 ? (double) durationSum / durationCount : 0.0);
+        athlete.setPersonalRecords(personalRecords);
+        athlete.setSessionLoad(sessionLoad);
+        athlete.setWorkoutConsistency(workouts / 90.0 * 7);
+        return athlete;
+    }
+}
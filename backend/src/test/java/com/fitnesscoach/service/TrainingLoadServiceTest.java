@@ -0,0 +1,99 @@
+package com.fitnesscoach.service;
+
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.dto.WorkoutResultMapper;
+import com.fitnesscoach.model.TrainingLoadState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrainingLoadServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private TrainingLoadService trainingLoadService;
+
+    @Autowired
+    private AnalyticsRollupService rollupService;
+
+    @Autowired
+    private AdvancedWorkoutResultService resultService;
+
+    @Autowired
+    private WorkoutResultMapper mapper;
+
+    @Test
+    void concurrentChangesOfPastDaysMatchAReplay() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 6;
+        int workoutsPerThread = 6;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> saves = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread;
+            saves.add(executor.submit(() -> {
+                start.await();
+                // Threads move forward and back in time, so most changes land on past days
+                for (int i = 0; i < workoutsPerThread; i++) {
+                    int day = offset % 2 == 0 ? offset * workoutsPerThread + i : (threads - offset) * workoutsPerThread - i;
+                    save(userId, FIRST_DAY.plusDays(day), 2400 + 60 * i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> save : saves) {
+            save.get();
+        }
+        executor.shutdown();
+
+        LocalDate today = FIRST_DAY.plusDays(threads * workoutsPerThread + 2);
+        TrainingLoadState incremental = trainingLoadService.findState(userId, today).orElseThrow();
+
+        rollupService.rebuildTrainingLoad(userId);
+
+        TrainingLoadState replayed = trainingLoadService.findState(userId, today).orElseThrow();
+        assertThat(incremental.getLastDate()).isEqualTo(replayed.getLastDate());
+        assertThat(incremental.getAcuteLoad()).isCloseTo(replayed.getAcuteLoad(), within(1e-6));
+        assertThat(incremental.getChronicLoad()).isCloseTo(replayed.getChronicLoad(), within(1e-6));
+        assertThat(incremental.getAcuteVolume()).isCloseTo(replayed.getAcuteVolume(), within(1e-6));
+        assertThat(incremental.getChronicVolume()).isCloseTo(replayed.getChronicVolume(), within(1e-6));
+        assertThat(incremental.getWeekLoad()).isCloseTo(replayed.getWeekLoad(), within(1e-6));
+    }
+
+    private void save(UUID userId, LocalDate date, int durationSeconds) {
+        WorkoutResultDTO.SetResultSummary set = new WorkoutResultDTO.SetResultSummary();
+        set.blockLabel = "A";
+        set.setNumber = 1;
+        set.exerciseName = "Back Squat";
+        set.performedReps = 5;
+        set.weight = 100.0;
+        set.weightUnit = "KG";
+        set.rpe = 8;
+
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = date;
+        result.totalDurationSeconds = durationSeconds;
+        result.setResults = List.of(set);
+        resultService.saveWorkoutResult(mapper.fromDTO(result));
+    }
+}
@@ -0,0 +1,167 @@
+package com.fitnesscoach.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitnesscoach.dto.WorkoutResultDTO;
+import com.fitnesscoach.service.AdvancedAnalyticsService.WorkoutAnalytics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Throughput of the bulk import against the same results posted one at a time, with the
+ * prepared statements each path issues. Too slow for every build, so it runs only in its
+ * own profile; recompute is synchronous as in the other tests unless overridden:
+ * <pre>
+ * mvn -B test -Pingest-benchmark
+ * mvn -B test -Pingest-benchmark -Dfitnesscoach.analytics.recompute.async=true
+ * </pre>
+ * A warm-up round runs first. The rates are logged; the test fails only if the import
+ * loses results, issues as many statements as single saves or derives other analytics.
+ * An asynchronous import returns before its recompute, which then runs during the single
+ * saves, so statements and analytics are only compared when recompute is synchronous.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "fitnesscoach.ingest-benchmark", matches = "true")
+class WorkoutResultIngestBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkoutResultIngestBenchmarkTest.class);
+
+    private static final int WARM_UP_RESULTS = 200;
+    private static final int RESULTS = 1000;
+    private static final int USERS = 20;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdvancedAnalyticsService analyticsService;
+
+    @Autowired
+    private AnalyticsRecomputeQueue recomputeQueue;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${fitnesscoach.ingest.chunk-size:100}")
+    private int chunkSize;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void bulkImportOutrunsSingleSaves() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        run(WARM_UP_RESULTS, statistics);
+        run(RESULTS, statistics);
+    }
+
+    private void run(int results, Statistics statistics) throws Exception {
+        List<UUID> bulkUsers = users();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < results; i++) {
+            ndjson.append(objectMapper.writeValueAsString(result(bulkUsers.get(i % USERS)))).append('\n');
+        }
+        List<String> singles = new ArrayList<>();
+        List<UUID> singleUsers = users();
+        for (int i = 0; i < results; i++) {
+            singles.add(objectMapper.writeValueAsString(result(singleUsers.get(i % USERS))));
+        }
+
+        statistics.clear();
+        long bulkStart = System.nanoTime();
+        String body = mockMvc.perform(post("/api/workout-results/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson.toString()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        double bulkSeconds = (System.nanoTime() - bulkStart) / 1e9;
+        long bulkStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long singleStart = System.nanoTime();
+        for (String single : singles) {
+            mockMvc.perform(post("/api/workout-results")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(single))
+                .andExpect(status().isCreated());
+        }
+        double singleSeconds = (System.nanoTime() - singleStart) / 1e9;
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        log.info("{} results, chunks of {}, async recompute {}: bulk {} results/s in {} statements, single {} results/s in {} statements",
+            results, chunkSize, recomputeQueue.isAsync(),
+            Math.round(results / bulkSeconds), bulkStatements, Math.round(results / singleSeconds), singleStatements);
+
+        JsonNode report = objectMapper.readTree(body);
+        assertThat(report.get("created").asInt()).isEqualTo(results);
+        if (!recomputeQueue.isAsync()) {
+            assertThat(bulkStatements).isLessThan(singleStatements);
+            assertMatchesHistory(bulkUsers.get(0));
+        }
+    }
+
+    private void assertMatchesHistory(UUID userId) {
+        LocalDate end = FIRST_DAY.plusDays(150);
+        WorkoutAnalytics expected = analyticsService.generateAnalyticsFromHistory(userId, FIRST_DAY, end);
+        WorkoutAnalytics actual = analyticsService.generateAnalytics(userId, FIRST_DAY, end);
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalVolumeLoad()).isCloseTo(expected.getTotalVolumeLoad(), within(1e-6));
+        assertThat(actual.getAverageRPE()).isCloseTo(expected.getAverageRPE(), within(1e-6));
+    }
+
+    private static List<UUID> users() {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(UUID.randomUUID());
+        }
+        return users;
+    }
+
+    private WorkoutResultDTO result(UUID userId) {
+        WorkoutResultDTO result = new WorkoutResultDTO();
+        result.userId = userId;
+        result.date = FIRST_DAY.plusDays(random.nextInt(120));
+        result.totalDurationSeconds = 1800 + random.nextInt(1800);
+        result.setResults = new ArrayList<>();
+        for (int set = 1; set <= 5; set++) {
+            WorkoutResultDTO.SetResultSummary summary = new WorkoutResultDTO.SetResultSummary();
+            summary.blockLabel = "A";
+            summary.setNumber = set;
+            summary.exerciseName = "Benchmark Lift " + random.nextInt(6);
+            summary.performedReps = 3 + random.nextInt(8);
+            summary.weight = 40.0 + random.nextInt(120);
+            summary.weightUnit = "KG";
+            summary.rpe = 6 + random.nextInt(4);
+            result.setResults.add(summary);
+        }
+        return result;
+    }
+}
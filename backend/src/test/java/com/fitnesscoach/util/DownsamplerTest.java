@@ -0,0 +1,57 @@
+package com.fitnesscoach.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownsamplerTest {
+
+    @Test
+    void keepsTheEndsAndReturnsExactlyMaxPoints() {
+        TimeSeries series = series(1000);
+        for (int maxPoints : new int[] {3, 4, 10, 99, 500, 999}) {
+            TimeSeries sampled = Downsampler.lttb(series, maxPoints);
+
+            assertThat(sampled.size()).as("%s points", maxPoints).isEqualTo(maxPoints);
+            assertThat(sampled.keyAt(0)).isEqualTo(series.keyAt(0));
+            assertThat(sampled.valueAt(0)).isEqualTo(series.valueAt(0));
+            assertThat(sampled.keyAt(maxPoints - 1)).isEqualTo(series.keyAt(series.size() - 1));
+            assertThat(sampled.valueAt(maxPoints - 1)).isEqualTo(series.valueAt(series.size() - 1));
+            for (int i = 1; i < maxPoints; i++) {
+                assertThat(sampled.keyAt(i)).isGreaterThan(sampled.keyAt(i - 1));
+            }
+        }
+    }
+
+    @Test
+    void keepsASinglePeak() {
+        TimeSeries series = new TimeSeries();
+        for (int day = 0; day < 365; day++) {
+            series.append(day, day == 200 ? 500.0 : 100.0);
+        }
+
+        TimeSeries sampled = Downsampler.lttb(series, 30);
+
+        assertThat(sampled.values()).contains(500.0);
+    }
+
+    @Test
+    void passesShorterSeriesThrough() {
+        TimeSeries series = series(50);
+
+        assertThat(Downsampler.lttb(series, 50)).isSameAs(series);
+        assertThat(Downsampler.lttb(series, 200)).isSameAs(series);
+        assertThat(Downsampler.lttb(new TimeSeries(), 200).size()).isZero();
+    }
+
+    private static TimeSeries series(int size) {
+        Random random = new Random(size);
+        TimeSeries series = new TimeSeries(size);
+        for (int day = 0; day < size; day++) {
+            series.append(day, 100 + random.nextGaussian() * 25);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitnesscoach.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SIMD reductions of {@link NumericKernels} against its scalar loops on the same columns:
+ * <pre>
+ * mvn -B test -Pkernels-benchmark
+ * </pre>
+ * Fails rather than compare the scalar loops with themselves when the vector module is missing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class NumericKernelsBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    public int length;
+
+    @Param({"vector", "scalar"})
+    public String path;
+
+    private boolean vectorized;
+    private double[] x;
+    private double[] y;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!NumericKernels.isVectorized()) {
+            throw new IllegalStateException("The vector module is not resolved in the benchmark JVM");
+        }
+        vectorized = path.equals("vector");
+        Random random = new Random(length);
+        x = new double[length];
+        y = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = random.nextDouble() * 200;
+            y[i] = 3 + random.nextInt(10);
+        }
+    }
+
+    @Benchmark
+    public double sum() {
+        return NumericKernels.sum(x, length, vectorized);
+    }
+
+    @Benchmark
+    public double variance() {
+        return NumericKernels.variance(x, length, vectorized);
+    }
+
+    @Benchmark
+    public double max() {
+        return NumericKernels.max(x, length, vectorized);
+    }
+
+    @Benchmark
+    public double dot() {
+        return NumericKernels.dot(x, y, length, vectorized);
+    }
+
+    @Benchmark
+    public double correlation() {
+        return NumericKernels.correlation(x, y, length, vectorized);
+    }
+}
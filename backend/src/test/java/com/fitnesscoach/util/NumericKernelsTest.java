@@ -0,0 +1,108 @@
+package com.fitnesscoach.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SIMD path must agree with the scalar loops used with -Dfitnesscoach.kernels.scalar=true
+ * for every length, so whole vectors, the scalar tail and inputs shorter than one vector
+ * are all covered
+ */
+class NumericKernelsTest {
+
+    private static final int MAX_LENGTH = 1001;
+
+    private final Random random = new Random(7);
+    private double[] x;
+    private double[] y;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(NumericKernels.isVectorized(), "runs with --add-modules jdk.incubator.vector");
+        x = new double[MAX_LENGTH];
+        y = new double[MAX_LENGTH];
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            // Correlated, with a spread of magnitudes and signs
+            x[i] = random.nextGaussian() * 40 + 100;
+            y[i] = x[i] * 0.3 + random.nextGaussian() * 20 - 15;
+        }
+    }
+
+    @Test
+    void vectorAndScalarAgreeForEveryLength() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            assertAgree(length, NumericKernels.sum(x, length, true), NumericKernels.sum(x, length, false));
+            assertAgree(length, NumericKernels.mean(x, length, true), NumericKernels.mean(x, length, false));
+            assertAgree(length, NumericKernels.variance(x, length, true), NumericKernels.variance(x, length, false));
+            assertAgree(length, NumericKernels.dot(x, y, length, true), NumericKernels.dot(x, y, length, false));
+            assertAgree(length, NumericKernels.correlation(x, y, length, true), NumericKernels.correlation(x, y, length, false));
+            // The maximum is exact on both paths
+            assertExact(length, NumericKernels.max(x, length, true), NumericKernels.max(x, length, false));
+        }
+    }
+
+    @Test
+    void readsNoFurtherThanTheLength() {
+        for (int length = 0; length <= 3 * VectorKernels.lanes() + 1; length++) {
+            double[] column = Arrays.copyOf(x, length);
+            double[] other = Arrays.copyOf(y, length);
+            assertAgree(length, NumericKernels.sum(column, length, true), NumericKernels.sum(x, length, false));
+            assertAgree(length, NumericKernels.dot(column, other, length, true), NumericKernels.dot(x, y, length, false));
+            assertAgree(length, NumericKernels.correlation(column, other, length, true),
+                NumericKernels.correlation(x, y, length, false));
+            assertExact(length, NumericKernels.max(column, length, true), NumericKernels.max(x, length, false));
+        }
+    }
+
+    @Test
+    void emptyAndSingleValueInputs() {
+        double[] empty = new double[0];
+        double[] one = {42.5};
+        for (boolean vectorized : new boolean[] {true, false}) {
+            assertThat(NumericKernels.sum(empty, 0, vectorized)).isZero();
+            assertThat(NumericKernels.dot(empty, empty, 0, vectorized)).isZero();
+            assertThat(NumericKernels.mean(empty, 0, vectorized)).isNaN();
+            assertThat(NumericKernels.variance(empty, 0, vectorized)).isNaN();
+            assertThat(NumericKernels.max(empty, 0, vectorized)).isNaN();
+            assertThat(NumericKernels.correlation(empty, empty, 0, vectorized)).isNaN();
+
+            assertThat(NumericKernels.sum(one, 1, vectorized)).isEqualTo(42.5);
+            assertThat(NumericKernels.mean(one, 1, vectorized)).isEqualTo(42.5);
+            assertThat(NumericKernels.variance(one, 1, vectorized)).isZero();
+            assertThat(NumericKernels.max(one, 1, vectorized)).isEqualTo(42.5);
+            assertThat(NumericKernels.dot(one, one, 1, vectorized)).isEqualTo(42.5 * 42.5);
+            // Undefined for fewer than two pairs
+            assertThat(NumericKernels.correlation(one, one, 1, vectorized)).isNaN();
+        }
+    }
+
+    @Test
+    void correlationOfAConstantColumnIsUndefined() {
+        double[] constant = new double[64];
+        Arrays.fill(constant, 7.0);
+        assertThat(NumericKernels.correlation(x, constant, 64, true)).isNaN();
+        assertThat(NumericKernels.correlation(x, constant, 64, false)).isNaN();
+        assertThat(NumericKernels.correlation(x, x, 64, true)).isCloseTo(1.0, within(1e-12));
+    }
+
+    // Boxed, so NaN equals NaN
+    private static void assertExact(int length, double vector, double scalar) {
+        assertThat(Double.valueOf(vector)).as("length %d", length).isEqualTo(Double.valueOf(scalar));
+    }
+
+    // Lane-wise sums add in a different order, so only the last bits may differ
+    private static void assertAgree(int length, double vector, double scalar) {
+        if (Double.isNaN(scalar)) {
+            assertThat(vector).as("length %d", length).isNaN();
+        } else {
+            assertThat(vector).as("length %d", length).isCloseTo(scalar, within(1e-12 * Math.max(1.0, Math.abs(scalar))));
+        }
+    }
+}
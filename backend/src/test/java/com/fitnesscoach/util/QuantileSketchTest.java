@@ -0,0 +1,59 @@
+package com.fitnesscoach.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantileSketchTest {
+
+    private static final int VALUES = 20_000;
+
+    private final Random random = new Random(11);
+
+    @Test
+    void everyQuantileIsWithinTheRelativeAccuracy() {
+        // Log-normal, so the values span several orders of magnitude
+        double[] values = new double[VALUES];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2 + 4);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (int percent = 0; percent <= 100; percent++) {
+            double q = percent / 100.0;
+            double exact = values[(int) Math.floor(q * (VALUES - 1))];
+            assertThat(Math.abs(sketch.quantile(q) - exact))
+                .as("quantile %s", q)
+                .isLessThanOrEqualTo(QuantileSketch.RELATIVE_ACCURACY * exact * (1 + 1e-12));
+        }
+    }
+
+    @Test
+    void mergedSketchEqualsOneSketchOfEveryValue() {
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch[] parts = {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()};
+        for (int i = 0; i < VALUES; i++) {
+            // Zeros and negatives too, which are counted as zero
+            double value = random.nextInt(20) == 0 ? -random.nextDouble() : random.nextDouble() * 300;
+            all.add(value);
+            parts[random.nextInt(parts.length)].add(value);
+        }
+
+        QuantileSketch merged = new QuantileSketch().merge(parts[0]).merge(parts[1]).merge(parts[2]);
+
+        assertThat(merged.bucketKeys()).isEqualTo(all.bucketKeys());
+        assertThat(merged.bucketCounts()).isEqualTo(all.bucketCounts());
+        assertThat(merged.getZeroCount()).isEqualTo(all.getZeroCount());
+        assertThat(merged.getCount()).isEqualTo(all.getCount());
+        assertThat(merged.getMin()).isEqualTo(all.getMin());
+        assertThat(merged.getMax()).isEqualTo(all.getMax());
+        for (int percent = 0; percent <= 100; percent++) {
+            assertThat(merged.quantile(percent / 100.0)).isEqualTo(all.quantile(percent / 100.0));
+        }
+    }
+}
@@ -52,6 +52,9 @@ const WorkoutExecutionScreen: React.FC<Props> = ({ route, navigation }) => {
   const [startTime, setStartTime] = useState<Date | null>(null);
   const [elapsedTime, setElapsedTime] = useState(0);
   const [notes, setNotes] = useState('');
+  // Sets are streamed to the server as they are logged; if any send fails they go with the final update
+  const [liveSequence, setLiveSequence] = useState(0);
+  const [liveFailed, setLiveFailed] = useState(false);
 
   // Workout-type-specific tracking
   const [totalRounds, setTotalRounds] = useState(0);
@@ -115,6 +118,21 @@ const WorkoutExecutionScreen: React.FC<Props> = ({ route, navigation }) => {
       rpe,
     };
     setSetLogs([...setLogs, newLog]);
+
+    if (workoutResult && !liveFailed) {
+      const sequence = liveSequence + 1;
+      setLiveSequence(sequence);
+      advancedWorkoutResultService
+        .logLiveSet(workoutResult.id, {
+          sequence,
+          type: 'LOGGED',
+          set: { ...newLog, weightUnit: 'KG' },
+        })
+        .catch(error => {
+          console.error('Failed to log set live:', error);
+          setLiveFailed(true);
+        });
+    }
   };
 
   const finishWorkout = async () => {
@@ -139,7 +157,8 @@ const WorkoutExecutionScreen: React.FC<Props> = ({ route, navigation }) => {
       // Build workout-type-specific data
       const updateData: Partial<AdvancedWorkoutResult> = {
         notes,
-        setResults,
+        // Streamed sets are already on the server; finishing writes any still buffered
+        setResults: liveFailed ? setResults : undefined,
         workoutQuality,
         workoutEnjoyment,
         totalRounds: totalRounds > 0 ? totalRounds : undefined,
@@ -248,6 +248,202 @@ export interface AdvancedWorkoutResult {
   setResults?: SetResultSummary[];
 }
 
+export interface StrengthAnalytics {
+  maxWeight: number;
+  estimatedOneRepMax: number;
+  totalVolumeLoad: number;
+  weightHistory?: number[];
+  repMaxes?: Record<string, number>;
+}
+
+export type DistributionMetric = 'RPE' | 'LOAD' | 'REPS' | 'SESSION_DURATION' | 'SESSION_RPE';
+
+// Percentiles are within relativeError of the exact value
+export interface DistributionAnalytics {
+  count: number;
+  min: number;
+  max: number;
+  percentiles: Record<string, number>;
+  relativeError: number;
+}
+
+// Pearson r between a wellness answer and session performance; null when undefined
+export interface WellnessCorrelation {
+  factor: 'hoursSlept' | 'sleepQuality' | 'stressLevel';
+  performance: 'volumeLoad' | 'averageRPE';
+  samples: number;
+  coefficient: number | null;
+}
+
+export interface WellnessCorrelationAnalytics {
+  sessions: number;
+  correlations: WellnessCorrelation[];
+}
+
+// Exponentially weighted 7 day (acute) and 28 day (chronic) loads
+export interface TrainingLoadAnalytics {
+  date: string;
+  lastTrainingDate?: string;
+  acuteLoad: number;
+  chronicLoad: number;
+  acuteChronicRatio: number;
+  acuteVolume: number;
+  chronicVolume: number;
+  volumeAcuteChronicRatio: number;
+  weeklyLoad: number;
+  monotony: number;
+  strain: number;
+}
+
+export interface AthleteAnalytics {
+  userId: string;
+  totalWorkouts: number;
+  trainingDays: number;
+  totalVolumeLoad: number;
+  averageRPE: number;
+  averageSessionDuration: number;
+  personalRecords: number;
+  sessionLoad: number;
+  workoutConsistency: number;
+  volumeRank: number;
+  workoutsRank: number;
+  personalRecordsRank: number;
+  sessionLoadRank: number;
+}
+
+export interface SquadAnalytics {
+  startDate: string;
+  endDate: string;
+  athleteCount: number;
+  activeAthletes: number;
+  totalWorkouts: number;
+  totalVolumeLoad: number;
+  totalPersonalRecords: number;
+  totalSessionLoad: number;
+  meanWorkoutsPerAthlete: number;
+  meanVolumePerAthlete: number;
+  averageRPE: number;
+  averageSessionDuration: number;
+  athletes: AthleteAnalytics[];
+  // User ids best first, keyed volumeLoad, workouts, personalRecords and sessionLoad
+  rankings: Record<string, string[]>;
+}
+
+export type AggregateMeasure =
+  | 'SESSION_RPE' | 'SESSION_VOLUME_LOAD' | 'SESSION_DURATION' | 'SESSION_REPS'
+  | 'BLOCK_RPE' | 'BLOCK_VOLUME_LOAD' | 'BLOCK_COMPLETION' | 'BLOCK_DURATION'
+  | 'SET_RPE' | 'SET_WEIGHT' | 'SET_REPS' | 'SET_VOLUME_LOAD';
+export type AggregateFunction = 'AVG' | 'SUM' | 'MIN' | 'MAX' | 'COUNT';
+// BLOCK_TYPE only groups block measures and EXERCISE only set measures
+export type AggregateDimension = 'USER' | 'PROGRAM' | 'MONTH' | 'BLOCK_TYPE' | 'EXERCISE';
+
+export interface AggregateQuery {
+  measure: AggregateMeasure;
+  aggregation?: AggregateFunction;
+  groupBy?: AggregateDimension[];
+  userIds?: string[];
+  programId?: string;
+  blockType?: BlockType;
+  startDate: string;
+  endDate: string;
+  maxStaleness?: string; // ISO-8601 duration, e.g. 'PT5M'
+}
+
+export interface AggregateRow {
+  group: Partial<Record<AggregateDimension, string | null>>; // Months as 'yyyy-MM'
+  value: number | null;
+  count: number;
+}
+
+export interface AggregateAnalytics {
+  source: 'STORE' | 'PRIMARY';
+  consistentAsOf: string; // Every change committed before this is included
+  rows: AggregateRow[];
+}
+
+export interface BulkImportItem {
+  index: number; // Position in the submitted list
+  status: 'CREATED' | 'FAILED';
+  id?: string;
+  error?: string;
+}
+
+export interface BulkImportReport {
+  received: number;
+  created: number;
+  failed: number;
+  elapsedMillis: number;
+  resultsPerSecond: number;
+  items: BulkImportItem[];
+}
+
+// A set after it was added or edited, with its workout's totals as they now stand
+export interface SetChange {
+  workoutResultId: string;
+  set: SetResultSummary;
+  totalReps?: number;
+  totalVolumeLoad?: number;
+  averageRPE?: number;
+  workTimeSeconds?: number;
+}
+
+// Addresses a set by its position instead of its id; blockLabel is omitted for sets without one
+export interface SetPosition {
+  blockLabel?: string;
+  blockItemOrder: number;
+  setNumber: number;
+}
+
+// Set event sent during a live workout; the set is addressed by blockLabel, blockItemOrder and setNumber
+export interface LiveSetEvent {
+  sequence?: number; // Increasing per workout, so a resent event is applied once
+  type: 'LOGGED' | 'EDITED' | 'DELETED';
+  set: Partial<SetResultSummary> & { setNumber: number };
+}
+
+export interface LiveSetAck {
+  sequence: number;
+  buffered: number;
+  duplicate: boolean;
+}
+
+export type VolumeDimension = 'EXERCISE' | 'MOVEMENT_PATTERN' | 'MUSCLE';
+export type VolumeGranularity = 'DAY' | 'WEEK' | 'MONTH';
+
+export type AnalyticsSnapshotPeriod = 'LAST_30_DAYS' | 'ALL_TIME';
+
+export interface VolumeRollup {
+  dimension: VolumeDimension;
+  dimensionKey: string;
+  granularity: VolumeGranularity;
+  bucketDate: string;
+  sets: number;
+  reps: number;
+  tonnage: number;
+  rpeCount: number;
+  rpeSum: number;
+  averageRPE?: number;
+}
+
+export interface WorkoutAnalytics {
+  totalWorkouts: number;
+  averageSessionDuration: number;
+  totalVolumeLoad: number;
+  averageRPE: number;
+  personalRecords: number;
+  emomMetrics?: Record<string, any>;
+  tabataMetrics?: Record<string, any>;
+  amrapMetrics?: Record<string, any>;
+  circuitMetrics?: Record<string, any>;
+  strengthMetrics?: Record<string, StrengthAnalytics>;
+  oneRepMaxEstimates?: Record<string, number>;
+  performanceTrends?: Record<string, number[]>;
+  weeklyProgress?: Record<string, number>;
+  workoutConsistency: number;
+  performanceConsistency: number;
+  blockTypeSuccess?: Record<string, number>;
+}
+
 export const exerciseService = {
   getAllExercises: (): Promise<Exercise[]> =>
     apiClient.get('/exercises').then(response => response.data),
@@ -370,6 +566,120 @@ export const advancedWorkoutResultService = {
 
   finishWorkoutSession: (id: string): Promise<AdvancedWorkoutResult> =>
     apiClient.post(`/workout-results/${id}/finish`).then(response => response.data),
+
+  // Results that fail are reported per item and do not stop the others
+  bulkImport: (results: Omit<AdvancedWorkoutResult, 'id'>[]): Promise<BulkImportReport> =>
+    apiClient.post('/workout-results/bulk', results).then(response => response.data),
+
+  // Single-set edits write only that set, unlike updateResult which rewrites all of them
+  addSet: (resultId: string, set: Omit<SetResultSummary, 'id'>): Promise<SetChange> =>
+    apiClient.post(`/workout-results/${resultId}/sets`, set).then(response => response.data),
+
+  updateSet: (resultId: string, setId: string, changes: Partial<SetResultSummary>): Promise<SetChange> =>
+    apiClient.patch(`/workout-results/${resultId}/sets/${setId}`, changes).then(response => response.data),
+
+  updateSetAt: (resultId: string, position: SetPosition, changes: Partial<SetResultSummary>): Promise<SetChange> =>
+    apiClient.patch(`/workout-results/${resultId}/sets`, changes, { params: position }).then(response => response.data),
+
+  deleteSet: (resultId: string, setId: string): Promise<void> =>
+    apiClient.delete(`/workout-results/${resultId}/sets/${setId}`),
+
+  deleteSetAt: (resultId: string, position: SetPosition): Promise<void> =>
+    apiClient.delete(`/workout-results/${resultId}/sets`, { params: position }),
+
+  // Buffered by the server and written in batches; /workout-results/{id}/live streams the outcome
+  logLiveSet: (resultId: string, event: LiveSetEvent): Promise<LiveSetAck> =>
+    apiClient.post(`/workout-results/${resultId}/live/events`, event).then(response => response.data),
+};
+
+// Server-side analytics, cached per user and date range
+export const analyticsService = {
+  // maxPoints downsamples every trend server-side, keeping peaks
+  getAnalytics: (
+    userId: string,
+    startDate: string,
+    endDate: string,
+    maxPoints?: number
+  ): Promise<WorkoutAnalytics> =>
+    apiClient.get(`/analytics/user/${userId}`, {
+      params: { startDate, endDate, maxPoints }
+    }).then(response => response.data),
+
+  // Stored dashboard analytics, recomputed only after the user's data changed
+  getSnapshot: (userId: string, period: AnalyticsSnapshotPeriod = 'LAST_30_DAYS'): Promise<WorkoutAnalytics> =>
+    apiClient.get(`/analytics/user/${userId}/snapshot`, {
+      params: { period }
+    }).then(response => response.data),
+
+  getWorkoutTypeReport: (
+    userId: string,
+    blockType: BlockType,
+    startDate: string,
+    endDate: string
+  ): Promise<string> =>
+    apiClient.get(`/analytics/user/${userId}/report/${blockType}`, {
+      params: { startDate, endDate }
+    }).then(response => response.data),
+
+  // Reports per user, then per block type; all types when blockTypes is omitted
+  getWorkoutTypeReports: (
+    userIds: string[],
+    startDate: string,
+    endDate: string,
+    blockTypes?: BlockType[]
+  ): Promise<Record<string, Partial<Record<BlockType, string>>>> =>
+    apiClient.get('/analytics/reports', {
+      params: { userIds: userIds.join(','), blockTypes: blockTypes?.join(','), startDate, endDate }
+    }).then(response => response.data),
+
+  getSquadAnalytics: (userIds: string[], startDate: string, endDate: string): Promise<SquadAnalytics> =>
+    apiClient.get('/analytics/squad', {
+      params: { userIds: userIds.join(','), startDate, endDate }
+    }).then(response => response.data),
+
+  aggregate: (query: AggregateQuery): Promise<AggregateAnalytics> =>
+    apiClient.get('/analytics/aggregate', {
+      params: { ...query, groupBy: query.groupBy?.join(','), userIds: query.userIds?.join(',') }
+    }).then(response => response.data),
+
+  // Exercise keys are exercise ids; omit key to get every key of the dimension
+  getVolume: (
+    userId: string,
+    dimension: VolumeDimension,
+    granularity: VolumeGranularity,
+    startDate: string,
+    endDate: string,
+    key?: string
+  ): Promise<VolumeRollup[]> =>
+    apiClient.get(`/analytics/user/${userId}/volume`, {
+      params: { dimension, granularity, key, startDate, endDate }
+    }).then(response => response.data),
+
+  // Without exerciseId a per-exercise metric covers every exercise
+  getDistribution: (
+    userId: string,
+    metric: DistributionMetric,
+    startDate: string,
+    endDate: string,
+    exerciseId?: string
+  ): Promise<DistributionAnalytics> =>
+    apiClient.get(`/analytics/user/${userId}/distribution`, {
+      params: { metric, exerciseId, startDate, endDate }
+    }).then(response => response.data),
+
+  getWellnessCorrelation: (
+    userId: string,
+    startDate: string,
+    endDate: string
+  ): Promise<WellnessCorrelationAnalytics> =>
+    apiClient.get(`/analytics/user/${userId}/wellness-correlation`, {
+      params: { startDate, endDate }
+    }).then(response => response.data),
+
+  getTrainingLoad: (userId: string, date?: string): Promise<TrainingLoadAnalytics> =>
+    apiClient.get(`/analytics/user/${userId}/training-load`, {
+      params: { date }
+    }).then(response => response.data),
 };
 
 export const progressService = {